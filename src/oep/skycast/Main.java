@@ -4,14 +4,42 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import oep.skycast.cli.BatchRunner;
+import oep.skycast.report.ReportGenerator;
+import oep.skycast.server.WeatherServer;
+import oep.skycast.service.ReverseGeocoder;
+import oep.skycast.service.WeatherProviders;
+import oep.skycast.trace.TraceAnalyzer;
+import oep.skycast.trace.TraceRecording;
 import oep.skycast.ui.DashboardController;
+import oep.skycast.ui.FxStallDetector;
+import oep.skycast.util.FileUtil;
+import oep.skycast.util.PrefsUtil;
+import oep.skycast.util.WarmStartCache;
+
+import java.util.Arrays;
 
 public class Main extends Application {
 
     private DashboardController controller;
 
+    /**
+     * Runs on the launcher thread before start(): load preferences, favorites and the warm-start
+     * snapshot, and open the API connection while the window is being built.
+     */
+    @Override
+    public void init() {
+        PrefsUtil.get("theme", "light"); // triggers the static load off the FX thread
+        TraceRecording.startIfEnabled();
+        FileUtil.preload();
+        WarmStartCache.preload();
+        ReverseGeocoder.preload();
+        WeatherProviders.prewarm();
+    }
+
     @Override
     public void start(Stage stage) {
+        FxStallDetector.installIfEnabled();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/dashboard.fxml"));
             Scene scene = new Scene(loader.load(), 1000, 600);
@@ -38,10 +66,31 @@ public class Main extends Application {
     @Override
     public void stop() throws Exception {
         if (controller != null) controller.shutdown();
+        TraceRecording.stop();
         super.stop();
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // headless batch mode: java ... oep.skycast.Main --batch [BatchRunner options]
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // shared cache server: java ... oep.skycast.Main --server [WeatherServer options]
+        if (args.length > 0 && "--server".equals(args[0])) {
+            WeatherServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // headless reports: java ... oep.skycast.Main --report [ReportGenerator options]
+        if (args.length > 0 && "--report".equals(args[0])) {
+            ReportGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // search latency breakdown from a flight recording: java ... oep.skycast.Main --trace-report FILE.jfr [options]
+        if (args.length > 0 && "--trace-report".equals(args[0])) {
+            TraceAnalyzer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch();
     }
 }
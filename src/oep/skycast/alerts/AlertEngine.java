@@ -0,0 +1,229 @@
+package oep.skycast.alerts;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+import oep.skycast.util.LogUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * AlertEngine - evaluates threshold rules incrementally across many sites.
+ *
+ * Rules are indexed by input (field, plus window for rain). For each site the engine keeps
+ * the last value of every input and the set of rules currently matching. On an update only
+ * inputs whose value changed have their rules evaluated, so a tick where most readings
+ * are unchanged costs one comparison per input instead of one per rule.
+ *
+ * Notifications are edge-triggered: an alert is raised when a rule starts matching for a
+ * site and not again until it has stopped matching, so a hot afternoon produces one
+ * "temperature above 35" alert, not one per refresh.
+ */
+public final class AlertEngine {
+
+    private static final DateTimeFormatter HOUR_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd H:mm"); // weatherapi localtime has no leading zero on the hour
+
+    private static final class SiteState {
+        final Map<String, Double> inputs = new HashMap<>();
+        final Set<String> active = new HashSet<>();
+    }
+
+    private Map<String, List<AlertRule>> byInput = Collections.emptyMap();
+    private boolean needsForecast;
+    private final Map<String, SiteState> sites = new HashMap<>();
+
+    private long evaluated;
+    private long skipped;
+    private long raised;
+
+    public AlertEngine(Collection<AlertRule> rules) {
+        setRules(rules);
+    }
+
+    /**
+     * Load rules from a text file (see {@link AlertRule} for the format). Blank lines and
+     * lines starting with # are ignored; bad lines are logged and skipped.
+     */
+    public static List<AlertRule> loadRules(Path file) throws IOException {
+        List<AlertRule> out = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String t = line.trim();
+            if (t.isEmpty() || t.startsWith("#")) continue;
+            try {
+                AlertRule r = AlertRule.parse(t);
+                if (ids.add(r.getId())) out.add(r);
+                else LogUtil.log("Duplicate alert rule id skipped: " + r.getId());
+            } catch (IllegalArgumentException e) {
+                LogUtil.log(e.getMessage());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Replace the rule set. Per-site readings are kept; matches for rules that no longer
+     * exist are dropped, and every site is re-evaluated on its next update.
+     */
+    public synchronized void setRules(Collection<AlertRule> rules) {
+        Map<String, List<AlertRule>> idx = new LinkedHashMap<>();
+        boolean forecast = false;
+        Set<String> ids = new HashSet<>();
+        for (AlertRule r : rules) {
+            idx.computeIfAbsent(r.inputKey(), k -> new ArrayList<>()).add(r);
+            forecast |= r.getField().needsForecast();
+            ids.add(r.getId());
+        }
+        byInput = idx;
+        needsForecast = forecast;
+        for (SiteState s : sites.values()) {
+            s.active.retainAll(ids);
+            s.inputs.clear();
+        }
+    }
+
+    /** Whether any rule needs forecast data (callers can skip the fetch otherwise). */
+    public synchronized boolean needsForecast() { return needsForecast; }
+
+    /** Longest rain window among the rules, in hours (0 if none). */
+    public synchronized int maxWindowHours() {
+        int max = 0;
+        for (List<AlertRule> rs : byInput.values()) for (AlertRule r : rs) max = Math.max(max, r.getWindowHours());
+        return max;
+    }
+
+    /**
+     * Feed one site's latest data.
+     *
+     * @param forecast may be null or lack hourly arrays; windowed rain then falls back to
+     *                 the daily chance of rain
+     * @return alerts raised by this update (rules that just started matching)
+     */
+    public synchronized List<AlertEvent> update(String site, WeatherData current, List<ForecastDay> forecast) {
+        SiteState state = sites.computeIfAbsent(site, s -> new SiteState());
+        List<AlertEvent> out = new ArrayList<>();
+        for (Map.Entry<String, List<AlertRule>> e : byInput.entrySet()) {
+            List<AlertRule> rules = e.getValue();
+            double v = value(rules.get(0), current, forecast);
+            Double last = state.inputs.put(e.getKey(), v);
+            if (last != null && Double.compare(last, v) == 0) {
+                skipped += rules.size();
+                continue;
+            }
+            for (AlertRule r : rules) {
+                evaluated++;
+                if (r.test(v)) {
+                    if (state.active.add(r.getId())) {
+                        raised++;
+                        out.add(new AlertEvent(site, r, v));
+                    }
+                } else {
+                    state.active.remove(r.getId());
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Forget a site (e.g. removed from favorites). */
+    public synchronized void removeSite(String site) {
+        sites.remove(site);
+    }
+
+    /** Forget every site not in {@code keep}. */
+    public synchronized void retainSites(Collection<String> keep) {
+        sites.keySet().retainAll(new HashSet<>(keep));
+    }
+
+    /** Rules currently matching for a site, by id. */
+    public synchronized Set<String> activeRules(String site) {
+        SiteState s = sites.get(site);
+        return s == null ? Collections.emptySet() : new HashSet<>(s.active);
+    }
+
+    public synchronized String stats() {
+        int rules = 0;
+        for (List<AlertRule> rs : byInput.values()) rules += rs.size();
+        return String.format(Locale.ROOT, "alerts: rules=%d inputs=%d sites=%d evaluated=%d skipped=%d raised=%d",
+                rules, byInput.size(), sites.size(), evaluated, skipped, raised);
+    }
+
+    // ---------------- inputs ----------------
+
+    private static double value(AlertRule r, WeatherData w, List<ForecastDay> forecast) {
+        if (w == null) return Double.NaN;
+        switch (r.getField()) {
+            case TEMP: return w.getTemperature();
+            case FEELS_LIKE: return w.getFeelsLike();
+            case HUMIDITY: return w.getHumidity() < 0 ? Double.NaN : w.getHumidity();
+            case WIND: return w.getWindSpeed();
+            case UV: return w.getUv();
+            case PM25: return w.getAqiPm25();
+            case RAIN_CHANCE: return maxRainChance(w, forecast, r.getWindowHours());
+            default: return Double.NaN;
+        }
+    }
+
+    // the site's local "now", truncated to the hour (falls back to this machine's clock)
+    private static LocalDateTime windowStart(WeatherData w) {
+        LocalDateTime now = null;
+        try { if (w != null && w.getLocalTime() != null) now = LocalDateTime.parse(w.getLocalTime().trim(), HOUR_FMT); } catch (Exception ignored) {}
+        if (now == null) now = LocalDateTime.now();
+        return now.withMinute(0).withSecond(0).withNano(0);
+    }
+
+    /** Local dates touched by the next {@code hours} hours at the site, so their hourly data can be loaded. */
+    public static List<LocalDate> windowDates(WeatherData w, int hours) {
+        LocalDateTime from = windowStart(w);
+        LocalDate last = from.plusHours(Math.max(1, hours)).minusNanos(1).toLocalDate();
+        List<LocalDate> out = new ArrayList<>();
+        for (LocalDate d = from.toLocalDate(); !d.isAfter(last); d = d.plusDays(1)) out.add(d);
+        return out;
+    }
+
+    // highest hourly chance of rain from the site's local "now" through the next N hours;
+    // a day in the window without hourly data counts with its daily figure
+    private static double maxRainChance(WeatherData w, List<ForecastDay> forecast, int hours) {
+        if (forecast == null || forecast.isEmpty()) return Double.NaN;
+        LocalDateTime from = windowStart(w);
+        LocalDateTime to = from.plusHours(hours);
+        LocalDate firstDay = from.toLocalDate(), lastDay = to.minusNanos(1).toLocalDate();
+        long windowDays = ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+
+        int max = -1;
+        for (int i = 0; i < forecast.size(); i++) {
+            ForecastDay d = forecast.get(i);
+            if (!d.getHourly().isEmpty()) {
+                for (HourlyWeather h : d.getHourly()) {
+                    LocalDateTime t;
+                    try { t = LocalDateTime.parse(h.getTime(), HOUR_FMT); } catch (Exception ex) { continue; }
+                    if (!t.isBefore(from) && t.isBefore(to)) max = Math.max(max, h.getChanceOfRain());
+                }
+                continue;
+            }
+            LocalDate date = null;
+            try { if (d.getDate() != null) date = LocalDate.parse(d.getDate()); } catch (Exception ignored) {}
+            // undated summaries start today
+            boolean inWindow = date != null ? !date.isBefore(firstDay) && !date.isAfter(lastDay) : i < windowDays;
+            if (inWindow) max = Math.max(max, d.getChanceOfRain());
+        }
+        return max < 0 ? Double.NaN : max;
+    }
+}
@@ -0,0 +1,33 @@
+package oep.skycast.alerts;
+
+import java.time.LocalDateTime;
+
+/**
+ * AlertEvent - a rule that just started matching for one site.
+ */
+public final class AlertEvent {
+
+    private final String site;
+    private final AlertRule rule;
+    private final double value;
+    private final LocalDateTime raisedAt = LocalDateTime.now();
+
+    AlertEvent(String site, AlertRule rule, double value) {
+        this.site = site;
+        this.rule = rule;
+        this.value = value;
+    }
+
+    public String getSite() { return site; }
+
+    public AlertRule getRule() { return rule; }
+
+    public double getValue() { return value; }
+
+    public LocalDateTime getRaisedAt() { return raisedAt; }
+
+    public String message() { return site + ": " + rule.describe(value); }
+
+    @Override
+    public String toString() { return message(); }
+}
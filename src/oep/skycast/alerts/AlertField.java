@@ -0,0 +1,52 @@
+package oep.skycast.alerts;
+
+import java.util.Locale;
+
+/**
+ * AlertField - an input an alert rule can watch.
+ *
+ * RAIN_CHANCE is windowed: it is the highest hourly chance of rain over the next N hours,
+ * so "rain > 60 within 6h" and "rain > 60 within 24h" are separate inputs.
+ */
+public enum AlertField {
+    TEMP("temp", "Temperature", "°C"),
+    FEELS_LIKE("feelslike", "Feels like", "°C"),
+    HUMIDITY("humidity", "Humidity", "%"),
+    WIND("wind", "Wind", " km/h"),
+    UV("uv", "UV index", ""),
+    PM25("pm25", "PM2.5", " µg/m³"),
+    RAIN_CHANCE("rain", "Chance of rain", "%");
+
+    private final String key;
+    private final String label;
+    private final String unit;
+
+    AlertField(String key, String label, String unit) {
+        this.key = key;
+        this.label = label;
+        this.unit = unit;
+    }
+
+    public String key() { return key; }
+
+    public String label() { return label; }
+
+    public String unit() { return unit; }
+
+    public boolean windowed() { return this == RAIN_CHANCE; }
+
+    /** Needs forecast data rather than just current conditions. */
+    public boolean needsForecast() { return this == RAIN_CHANCE; }
+
+    public static AlertField fromKey(String s) {
+        String k = s.trim().toLowerCase(Locale.ROOT);
+        for (AlertField f : values()) if (f.key.equals(k)) return f;
+        switch (k) {
+            case "temperature": return TEMP;
+            case "feels_like": return FEELS_LIKE;
+            case "pm2.5": case "pm2_5": return PM25;
+            case "rain_chance": case "chance_of_rain": return RAIN_CHANCE;
+            default: throw new IllegalArgumentException("Unknown alert field: " + s);
+        }
+    }
+}
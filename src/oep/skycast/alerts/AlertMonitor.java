@@ -0,0 +1,113 @@
+package oep.skycast.alerts;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+import oep.skycast.service.WeatherProvider;
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * AlertMonitor - one alert tick over every tracked site: fetch (in parallel, a few at a
+ * time) and feed the {@link AlertEngine}. Blocking; run it off the FX thread.
+ *
+ * Only fetches what the rules need: current conditions always, the daily summary plus
+ * today's (and, for long windows, tomorrow's) hours only when a rain rule exists.
+ *
+ * Rules come from preference alerts.file (default resources/alerts.txt).
+ */
+public class AlertMonitor {
+
+    public static final String DEFAULT_RULES = "resources/alerts.txt";
+    private static final int FETCH_PARALLELISM = 4;
+
+    private final WeatherProvider provider;
+    private final AlertEngine engine;
+
+    public AlertMonitor(WeatherProvider provider, AlertEngine engine) {
+        this.provider = provider;
+        this.engine = engine;
+    }
+
+    /** Monitor with rules from preferences; an empty rule set if the file is missing or unreadable. */
+    public static AlertMonitor fromPreferences(WeatherProvider provider) {
+        Path file = Paths.get(PrefsUtil.get("alerts.file", DEFAULT_RULES));
+        List<AlertRule> rules = Collections.emptyList();
+        try {
+            if (Files.exists(file)) rules = AlertEngine.loadRules(file);
+        } catch (Exception e) {
+            LogUtil.log("Alert rules not loaded from " + file + ": " + e.getMessage());
+        }
+        return new AlertMonitor(provider, new AlertEngine(rules));
+    }
+
+    public AlertEngine engine() { return engine; }
+
+    /**
+     * Check every site once.
+     *
+     * @return newly raised alerts, in site order
+     */
+    public List<AlertEvent> checkAll(List<String> sitesToCheck) {
+        List<String> sites = new ArrayList<>(sitesToCheck);
+        engine.retainSites(sites);
+        Semaphore permits = new Semaphore(FETCH_PARALLELISM);
+        List<Future<List<AlertEvent>>> futures = new ArrayList<>();
+        for (String site : sites) {
+            futures.add(AppExecutors.submitIo(() -> {
+                permits.acquire();
+                try {
+                    return check(site);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        List<AlertEvent> out = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                out.addAll(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<?> f : futures) f.cancel(true);
+                break;
+            } catch (Exception e) {
+                LogUtil.log("Alert check failed for " + sites.get(i) + ": " + e.getMessage());
+            }
+        }
+        return out;
+    }
+
+    private List<AlertEvent> check(String site) throws Exception {
+        WeatherData w = provider.getCurrentWeather(site);
+        List<ForecastDay> forecast = null;
+        if (engine.needsForecast()) {
+            List<ForecastDay> summary = provider.getForecastSummary(site);
+            // every local date the longest window reaches, e.g. today and tomorrow for 6 h at 20:00
+            Set<String> needed = new HashSet<>();
+            for (LocalDate d : AlertEngine.windowDates(w, engine.maxWindowHours())) needed.add(d.toString());
+            // hours go into our own copies; the provider's days may be shared with other callers
+            forecast = new ArrayList<>(summary.size());
+            for (ForecastDay s : summary) {
+                ForecastDay d = new ForecastDay(s);
+                if (d.getHourly().isEmpty() && d.getDate() != null && needed.contains(d.getDate())) {
+                    try { d.setHourly(provider.getHourly(site, d.getDate())); } catch (Exception ignored) {}
+                }
+                forecast.add(d);
+            }
+        }
+        return engine.update(site, w, forecast);
+    }
+}
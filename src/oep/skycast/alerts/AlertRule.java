@@ -0,0 +1,100 @@
+package oep.skycast.alerts;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AlertRule - one user-defined threshold, e.g. "uv_high: uv >= 8".
+ *
+ * Text form (one per line in alerts.txt):
+ *   id: field op value [within Nh] [| message]
+ * where op is one of > >= < <=, and "within Nh" only applies to rain (default 24h).
+ */
+public final class AlertRule {
+
+    public enum Op {
+        GT(">"), GE(">="), LT("<"), LE("<=");
+
+        final String symbol;
+
+        Op(String symbol) { this.symbol = symbol; }
+
+        boolean test(double v, double threshold) {
+            switch (this) {
+                case GT: return v > threshold;
+                case GE: return v >= threshold;
+                case LT: return v < threshold;
+                default: return v <= threshold;
+            }
+        }
+
+        static Op of(String s) {
+            for (Op o : values()) if (o.symbol.equals(s)) return o;
+            throw new IllegalArgumentException("Unknown operator: " + s);
+        }
+    }
+
+    private static final Pattern LINE = Pattern.compile(
+            "^\\s*([\\w.-]+)\\s*:\\s*([\\w.]+)\\s*(>=|<=|>|<)\\s*(-?\\d+(?:\\.\\d+)?)"
+                    + "(?:\\s+within\\s+(\\d+)\\s*h)?\\s*(?:\\|\\s*(.*))?$", Pattern.CASE_INSENSITIVE);
+
+    private static final int DEFAULT_WINDOW_HOURS = 24;
+
+    private final String id;
+    private final AlertField field;
+    private final Op op;
+    private final double threshold;
+    private final int windowHours;
+    private final String message;
+
+    public AlertRule(String id, AlertField field, Op op, double threshold, int windowHours, String message) {
+        this.id = id;
+        this.field = field;
+        this.op = op;
+        this.threshold = threshold;
+        this.windowHours = field.windowed() ? Math.max(1, Math.min(72, windowHours)) : 0;
+        this.message = message;
+    }
+
+    public static AlertRule parse(String line) {
+        Matcher m = LINE.matcher(line);
+        if (!m.matches()) throw new IllegalArgumentException("Bad alert rule: " + line.trim());
+        AlertField field = AlertField.fromKey(m.group(2));
+        int window = m.group(5) != null ? Integer.parseInt(m.group(5)) : DEFAULT_WINDOW_HOURS;
+        String msg = m.group(6) != null && !m.group(6).isBlank() ? m.group(6).trim() : null;
+        return new AlertRule(m.group(1), field, Op.of(m.group(3)), Double.parseDouble(m.group(4)), window, msg);
+    }
+
+    public String getId() { return id; }
+
+    public AlertField getField() { return field; }
+
+    public int getWindowHours() { return windowHours; }
+
+    /** Engine index key: the field plus its window, so rules sharing an input share a slot. */
+    public String inputKey() {
+        return field.windowed() ? field.key() + "@" + windowHours : field.key();
+    }
+
+    /** NaN (no data) never matches. */
+    public boolean test(double value) {
+        return !Double.isNaN(value) && op.test(value, threshold);
+    }
+
+    public String describe(double value) {
+        String cond = String.format(Locale.ROOT, "%s %s %s%s", field.label(), op.symbol, num(threshold), field.unit());
+        if (field.windowed()) cond += " in next " + windowHours + "h";
+        String now = String.format(Locale.ROOT, "%s%s", num(value), field.unit());
+        return message != null ? message + " (" + now + ")" : cond + " (now " + now + ")";
+    }
+
+    private static String num(double d) {
+        return d == Math.rint(d) ? String.valueOf((long) d) : String.format(Locale.ROOT, "%.1f", d);
+    }
+
+    @Override
+    public String toString() {
+        return id + ": " + field.key() + " " + op.symbol + " " + num(threshold) + (field.windowed() ? " within " + windowHours + "h" : "");
+    }
+}
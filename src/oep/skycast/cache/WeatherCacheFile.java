@@ -0,0 +1,343 @@
+package oep.skycast.cache;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * WeatherCacheFile - compact, versioned binary form of one location's weather
+ * (current conditions, forecast days and their hours), read through {@link WeatherCacheView}.
+ *
+ * Layout (big-endian):
+ *   0  int   magic 'SKYC'
+ *   4  short version
+ *   6  short flags (FLAG_DEFLATE: body is Deflater-compressed)
+ *   8  int   stored body length
+ *  12  int   raw body length
+ *  16  long  saved at (epoch millis)
+ *  24  int   CRC32 of the stored body
+ *  28  int   reserved
+ *  32  ...   body
+ *
+ * Body:
+ *   0  int   1 if a current-conditions record is present
+ *   4  int   day count
+ *   8  int   hour count (all days)
+ *  12  int   string count
+ *  16  int   string ref of the query
+ *  20  int   offset of the day records
+ *  24  int   offset of the hour records
+ *  28  int   offset of the string index
+ *  32  ...   current record, day records, hour records (fixed width, see the *_BYTES constants),
+ *            string index (count + 1 ints, offsets into the string bytes), UTF-8 string bytes
+ *
+ * Strings are stored once and referenced by index (-1 = null), so the condition texts and
+ * icon URLs repeated across a week of hours cost four bytes each. Numbers keep full double
+ * precision, so a round trip is exact.
+ *
+ * Files are replaced by writing a uniquely named temp file and renaming it over the old one,
+ * so any number of SkyCast processes may read while another writes: a reader sees either the
+ * old file or the new one, and an existing mapping keeps the old contents. The CRC catches
+ * anything else (a copy cut short, a disk error). {@link #open} leaves checking it to
+ * {@link WeatherCacheView#verify()}, since that reads every page of the file.
+ */
+public final class WeatherCacheFile {
+
+    static final int MAGIC = 0x534B5943; // "SKYC"
+    static final short VERSION = 1;
+    static final short FLAG_DEFLATE = 1;
+    static final int HEADER_BYTES = 32;
+    static final int BODY_HEADER_BYTES = 32;
+
+    // current: temperature, feelsLike, windSpeed, pressureMb, visibilityKm, uv, latitude, longitude, aqiPm25;
+    //          humidity, cloud; condition, locationName, region, country, tzId, localTime, iconUrl
+    static final int CURRENT_BYTES = 9 * 8 + 2 * 4 + 7 * 4;
+    static final int C_HUMIDITY = 72, C_CLOUD = 76, C_STRINGS = 80;
+    // day: minTemp, maxTemp; avgHumidity, chanceOfRain, first hour, hour count;
+    //      day, date, condition, sunrise, sunset, moonPhase, moonIllumination, iconUrl
+    static final int DAY_BYTES = 2 * 8 + 4 * 4 + 8 * 4;
+    static final int D_AVG_HUMIDITY = 16, D_CHANCE = 20, D_FIRST_HOUR = 24, D_HOUR_COUNT = 28, D_STRINGS = 32;
+    // hour: tempC, feelsLikeC, windKph, precipMm; humidity, chanceOfRain; time, condition, iconUrl
+    static final int HOUR_BYTES = 4 * 8 + 2 * 4 + 3 * 4;
+    static final int H_HUMIDITY = 32, H_CHANCE = 36, H_STRINGS = 40;
+
+    private static final int WRITE_ATTEMPTS = 5;
+
+    private WeatherCacheFile() {}
+
+    /** Encode to the file format; with {@code deflate} the body is compressed when that makes it smaller. */
+    public static byte[] encode(String query, long savedAtMillis, WeatherData current, List<ForecastDay> forecast, boolean deflate) {
+        List<ForecastDay> days = forecast == null ? List.of() : forecast;
+        int hourCount = 0;
+        for (ForecastDay d : days) hourCount += hoursOf(d).size();
+
+        Strings strings = new Strings();
+        int queryRef = strings.ref(query);
+        int daysOff = BODY_HEADER_BYTES + (current == null ? 0 : CURRENT_BYTES);
+        int hoursOff = daysOff + days.size() * DAY_BYTES;
+        int stringsOff = hoursOff + hourCount * HOUR_BYTES;
+
+        // fixed-width part first; strings are collected on the way and appended after
+        ByteBuffer fixed = ByteBuffer.allocate(stringsOff);
+        fixed.putInt(0, current == null ? 0 : 1);
+        fixed.putInt(4, days.size());
+        fixed.putInt(8, hourCount);
+        fixed.putInt(16, queryRef);
+        fixed.putInt(20, daysOff);
+        fixed.putInt(24, hoursOff);
+        fixed.putInt(28, stringsOff);
+
+        if (current != null) {
+            fixed.position(BODY_HEADER_BYTES);
+            fixed.putDouble(current.getTemperature()).putDouble(current.getFeelsLike()).putDouble(current.getWindSpeed())
+                    .putDouble(current.getPressureMb()).putDouble(current.getVisibilityKm()).putDouble(current.getUv())
+                    .putDouble(current.getLatitude()).putDouble(current.getLongitude()).putDouble(current.getAqiPm25())
+                    .putInt(current.getHumidity()).putInt(current.getCloud())
+                    .putInt(strings.ref(current.getCondition())).putInt(strings.ref(current.getLocationName()))
+                    .putInt(strings.ref(current.getRegion())).putInt(strings.ref(current.getCountry()))
+                    .putInt(strings.ref(current.getTzId())).putInt(strings.ref(current.getLocalTime()))
+                    .putInt(strings.ref(current.getIconUrl()));
+        }
+
+        int hour = 0;
+        for (int i = 0; i < days.size(); i++) {
+            ForecastDay d = days.get(i);
+            List<HourlyWeather> hours = hoursOf(d);
+            fixed.position(daysOff + i * DAY_BYTES);
+            fixed.putDouble(d.getMinTemp()).putDouble(d.getMaxTemp())
+                    .putInt(d.getAvgHumidity()).putInt(d.getChanceOfRain()).putInt(hour).putInt(hours.size())
+                    .putInt(strings.ref(d.getDay())).putInt(strings.ref(d.getDate())).putInt(strings.ref(d.getCondition()))
+                    .putInt(strings.ref(d.getSunrise())).putInt(strings.ref(d.getSunset()))
+                    .putInt(strings.ref(d.getMoonPhase())).putInt(strings.ref(d.getMoonIllumination()))
+                    .putInt(strings.ref(d.getIconUrl()));
+            for (HourlyWeather h : hours) {
+                fixed.position(hoursOff + hour * HOUR_BYTES);
+                fixed.putDouble(h.getTempC()).putDouble(h.getFeelsLikeC()).putDouble(h.getWindKph()).putDouble(h.getPrecipMm())
+                        .putInt(h.getHumidity()).putInt(h.getChanceOfRain())
+                        .putInt(strings.ref(h.getTime())).putInt(strings.ref(h.getCondition())).putInt(strings.ref(h.getIconUrl()));
+                hour++;
+            }
+        }
+        fixed.putInt(12, strings.values.size());
+
+        byte[][] utf8 = new byte[strings.values.size()][];
+        int textBytes = 0;
+        for (int i = 0; i < utf8.length; i++) {
+            utf8[i] = strings.values.get(i).getBytes(StandardCharsets.UTF_8);
+            textBytes += utf8[i].length;
+        }
+        ByteBuffer body = ByteBuffer.allocate(stringsOff + 4 * (utf8.length + 1) + textBytes);
+        body.put(fixed.array());
+        int at = 0;
+        for (byte[] s : utf8) {
+            body.putInt(at);
+            at += s.length;
+        }
+        body.putInt(at);
+        for (byte[] s : utf8) body.put(s);
+
+        byte[] raw = body.array();
+        byte[] stored = raw;
+        short flags = 0;
+        if (deflate) {
+            byte[] packed = deflate(raw);
+            if (packed.length < raw.length) {
+                stored = packed;
+                flags = FLAG_DEFLATE;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(stored);
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + stored.length);
+        out.putInt(MAGIC).putShort(VERSION).putShort(flags)
+                .putInt(stored.length).putInt(raw.length)
+                .putLong(savedAtMillis).putInt((int) crc.getValue()).putInt(0)
+                .put(stored);
+        return out.array();
+    }
+
+    /** Check the header and CRC, and return a view over the body (inflated first if compressed). */
+    public static WeatherCacheView read(ByteBuffer file) throws IOException {
+        return read(file, true);
+    }
+
+    /**
+     * As {@link #read(ByteBuffer)}; without {@code verify} an uncompressed body's CRC is left
+     * for {@link WeatherCacheView#verify()}. Compressed bodies are always checked (inflating
+     * reads all of it anyway).
+     */
+    public static WeatherCacheView read(ByteBuffer file, boolean verify) throws IOException {
+        ByteBuffer b = file.duplicate();
+        if (b.remaining() < HEADER_BYTES || b.getInt(b.position()) != MAGIC) throw new IOException("Not a weather cache file");
+        int base = b.position();
+        short version = b.getShort(base + 4);
+        if (version != VERSION) throw new IOException("Unsupported weather cache version " + version);
+        short flags = b.getShort(base + 6);
+        int stored = b.getInt(base + 8);
+        int rawLength = b.getInt(base + 12);
+        long savedAt = b.getLong(base + 16);
+        int expectedCrc = b.getInt(base + 24);
+        if (stored < 0 || rawLength < BODY_HEADER_BYTES || stored > b.remaining() - HEADER_BYTES) {
+            throw new IOException("Weather cache file truncated");
+        }
+        b.position(base + HEADER_BYTES).limit(base + HEADER_BYTES + stored);
+        ByteBuffer body = b.slice();
+        boolean deflated = (flags & FLAG_DEFLATE) != 0;
+        if (!deflated && stored != rawLength) throw new IOException("Weather cache file length mismatch");
+        if (!verify && !deflated) return new WeatherCacheView(body, savedAt, expectedCrc);
+
+        checkCrc(body, expectedCrc);
+        if (deflated) body = inflate(body, rawLength);
+        return new WeatherCacheView(body, savedAt, null);
+    }
+
+    static void checkCrc(ByteBuffer stored, int expected) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(stored.duplicate());
+        if ((int) crc.getValue() != expected) throw new IOException("Weather cache file checksum mismatch");
+    }
+
+    /**
+     * Read the whole file onto the heap and return a view over it. For small files such as the
+     * warm-start state: nothing stays mapped, so a writer can replace the file right away even
+     * on Windows. Null if the file doesn't exist.
+     */
+    public static WeatherCacheView load(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+        return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * Map the file read-only and return a view over it. Uncompressed files are read in place:
+     * nothing is decoded, and the CRC isn't checked, until asked for (call
+     * {@link WeatherCacheView#verify()} before trusting a full decode), so opening touches only
+     * the pages holding the headers. Null if the file doesn't exist. Meant for large files or
+     * readers holding many of them, such as the offline dataset; on Windows the file can't be
+     * replaced while the mapping is alive.
+     */
+    public static WeatherCacheView open(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) throw new IOException("Not a weather cache file: " + path);
+            // the mapping stays valid after the channel is closed, and after the file is replaced
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return read(map, false);
+        }
+    }
+
+    /** Encode and atomically replace {@code path}. */
+    public static void write(Path path, String query, long savedAtMillis, WeatherData current, List<ForecastDay> forecast, boolean deflate) throws IOException {
+        write(path, encode(query, savedAtMillis, current, forecast, deflate));
+    }
+
+    /**
+     * Atomically replace {@code path} with {@code bytes}. The temp file is unique per writer, so
+     * two processes saving at once don't interleave; the last rename wins.
+     */
+    public static void write(Path path, byte[] bytes) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName() + ".", ".tmp");
+        try {
+            Files.write(tmp, bytes, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    try {
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return;
+                } catch (AccessDeniedException e) {
+                    // Windows refuses to replace a file another process has mapped; wait for it to let go
+                    if (attempt >= WRITE_ATTEMPTS) throw e;
+                    try {
+                        Thread.sleep(20L * attempt);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    // ---------------- internals ----------------
+
+    private static List<HourlyWeather> hoursOf(ForecastDay d) {
+        return d.getHourly() == null ? List.of() : d.getHourly();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater d = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            d.setInput(raw);
+            d.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!d.finished()) out.write(chunk, 0, d.deflate(chunk));
+            return out.toByteArray();
+        } finally {
+            d.end();
+        }
+    }
+
+    private static ByteBuffer inflate(ByteBuffer stored, int rawLength) throws IOException {
+        Inflater inf = new Inflater();
+        try {
+            inf.setInput(stored.duplicate());
+            ByteBuffer out = ByteBuffer.allocate(rawLength);
+            while (out.hasRemaining() && !inf.finished()) {
+                if (inf.inflate(out) == 0 && (inf.needsInput() || inf.needsDictionary())) break;
+            }
+            if (out.hasRemaining() || !inf.finished()) throw new IOException("Weather cache file body truncated");
+            return out.flip();
+        } catch (DataFormatException e) {
+            throw new IOException("Weather cache file body corrupt: " + e.getMessage());
+        } finally {
+            inf.end();
+        }
+    }
+
+    // string table under construction: each distinct value once, in first-use order
+    private static final class Strings {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> index = new HashMap<>();
+
+        int ref(String s) {
+            if (s == null) return -1;
+            Integer i = index.get(s);
+            if (i == null) {
+                i = values.size();
+                values.add(s);
+                index.put(s, i);
+            }
+            return i;
+        }
+    }
+}
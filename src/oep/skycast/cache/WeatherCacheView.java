@@ -0,0 +1,209 @@
+package oep.skycast.cache;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static oep.skycast.cache.WeatherCacheFile.*;
+
+/**
+ * WeatherCacheView - read access to a {@link WeatherCacheFile} body without decoding it all.
+ *
+ * Single fields (the current temperature, the place name, one day's high) are read straight
+ * from their fixed offsets, strings are decoded the first time they are asked for, and model
+ * objects are only built for the parts requested. A view is immutable and safe to share
+ * between threads.
+ *
+ * A view from {@link WeatherCacheFile#open} hasn't checked the CRC yet; {@link #verify()}
+ * does that once.
+ */
+public final class WeatherCacheView {
+
+    private final ByteBuffer body;
+    private final long savedAtMillis;
+    private final boolean hasCurrent;
+    private final int dayCount, hourCount, stringCount;
+    private final int daysOff, hoursOff, indexOff, textOff;
+    private final String[] decoded;
+    private final Integer pendingCrc;   // null once checked (or checked by the reader)
+    private volatile boolean verified;
+
+    WeatherCacheView(ByteBuffer body, long savedAtMillis, Integer pendingCrc) throws IOException {
+        this.body = body;
+        this.savedAtMillis = savedAtMillis;
+        this.pendingCrc = pendingCrc;
+        this.verified = pendingCrc == null;
+        int limit = body.limit();
+        hasCurrent = body.getInt(0) == 1;
+        dayCount = body.getInt(4);
+        hourCount = body.getInt(8);
+        stringCount = body.getInt(12);
+        daysOff = body.getInt(20);
+        hoursOff = body.getInt(24);
+        indexOff = body.getInt(28);
+        textOff = indexOff + 4 * (stringCount + 1);
+        // bounds once here, so accessors can trust the offsets
+        if (dayCount < 0 || hourCount < 0 || stringCount < 0
+                || daysOff != BODY_HEADER_BYTES + (hasCurrent ? CURRENT_BYTES : 0)
+                || hoursOff != daysOff + (long) dayCount * DAY_BYTES
+                || indexOff != hoursOff + (long) hourCount * HOUR_BYTES
+                || textOff > limit || (long) textOff + body.getInt(textOff - 4) != limit) {
+            throw new IOException("Weather cache file layout invalid");
+        }
+        decoded = new String[stringCount];
+    }
+
+    public long savedAtMillis() { return savedAtMillis; }
+
+    /** Check the body against the stored CRC (once; later calls return at once). */
+    public void verify() throws IOException {
+        if (verified) return;
+        WeatherCacheFile.checkCrc(body, pendingCrc);
+        verified = true;
+    }
+
+    /** The query the data was fetched for. */
+    public String query() { return string(body.getInt(16)); }
+
+    public boolean hasCurrent() { return hasCurrent; }
+
+    public int dayCount() { return dayCount; }
+
+    // ---------------- current conditions ----------------
+
+    public double currentTemperature() { return current(0); }
+
+    public String currentCondition() { return currentString(0); }
+
+    public String locationName() { return currentString(1); }
+
+    public String region() { return currentString(2); }
+
+    public String country() { return currentString(3); }
+
+    public double latitude() { return current(6); }
+
+    public double longitude() { return current(7); }
+
+    /** Current conditions as a model object, or null if none were saved. */
+    public WeatherData current() {
+        if (!hasCurrent) return null;
+        WeatherData w = new WeatherData();
+        w.setTemperature(current(0));
+        w.setFeelsLike(current(1));
+        w.setWindSpeed(current(2));
+        w.setPressureMb(current(3));
+        w.setVisibilityKm(current(4));
+        w.setUv(current(5));
+        w.setLatitude(current(6));
+        w.setLongitude(current(7));
+        w.setAqiPm25(current(8));
+        w.setHumidity(body.getInt(BODY_HEADER_BYTES + C_HUMIDITY));
+        w.setCloud(body.getInt(BODY_HEADER_BYTES + C_CLOUD));
+        w.setCondition(currentString(0));
+        w.setLocationName(currentString(1));
+        w.setRegion(currentString(2));
+        w.setCountry(currentString(3));
+        w.setTzId(currentString(4));
+        w.setLocalTime(currentString(5));
+        w.setIconUrl(currentString(6));
+        return w;
+    }
+
+    private double current(int field) {
+        if (!hasCurrent) return Double.NaN;
+        return body.getDouble(BODY_HEADER_BYTES + field * 8);
+    }
+
+    private String currentString(int field) {
+        if (!hasCurrent) return null;
+        return string(body.getInt(BODY_HEADER_BYTES + C_STRINGS + field * 4));
+    }
+
+    // ---------------- forecast ----------------
+
+    public double dayMinTemp(int day) { return body.getDouble(dayAt(day)); }
+
+    public double dayMaxTemp(int day) { return body.getDouble(dayAt(day) + 8); }
+
+    public String dayDate(int day) { return string(body.getInt(dayAt(day) + D_STRINGS + 4)); }
+
+    public int hourCount(int day) { return body.getInt(dayAt(day) + D_HOUR_COUNT); }
+
+    /** One forecast day, with its hours when {@code withHours}. */
+    public ForecastDay day(int day, boolean withHours) {
+        int at = dayAt(day);
+        ForecastDay d = new ForecastDay();
+        d.setMinTemp(body.getDouble(at));
+        d.setMaxTemp(body.getDouble(at + 8));
+        d.setAvgHumidity(body.getInt(at + D_AVG_HUMIDITY));
+        d.setChanceOfRain(body.getInt(at + D_CHANCE));
+        d.setDay(string(body.getInt(at + D_STRINGS)));
+        d.setDate(string(body.getInt(at + D_STRINGS + 4)));
+        d.setCondition(string(body.getInt(at + D_STRINGS + 8)));
+        d.setSunrise(string(body.getInt(at + D_STRINGS + 12)));
+        d.setSunset(string(body.getInt(at + D_STRINGS + 16)));
+        d.setMoonPhase(string(body.getInt(at + D_STRINGS + 20)));
+        d.setMoonIllumination(string(body.getInt(at + D_STRINGS + 24)));
+        d.setIconUrl(string(body.getInt(at + D_STRINGS + 28)));
+        if (withHours) d.setHourly(hours(day));
+        return d;
+    }
+
+    /** The saved hours of one day. */
+    public List<HourlyWeather> hours(int day) {
+        int at = dayAt(day);
+        int first = body.getInt(at + D_FIRST_HOUR), count = body.getInt(at + D_HOUR_COUNT);
+        if (first < 0 || count < 0 || first + count > hourCount) throw new IndexOutOfBoundsException("hours of day " + day);
+        List<HourlyWeather> out = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            int h = hoursOff + i * HOUR_BYTES;
+            HourlyWeather hw = new HourlyWeather();
+            hw.setTempC(body.getDouble(h));
+            hw.setFeelsLikeC(body.getDouble(h + 8));
+            hw.setWindKph(body.getDouble(h + 16));
+            hw.setPrecipMm(body.getDouble(h + 24));
+            hw.setHumidity(body.getInt(h + H_HUMIDITY));
+            hw.setChanceOfRain(body.getInt(h + H_CHANCE));
+            hw.setTime(string(body.getInt(h + H_STRINGS)));
+            hw.setCondition(string(body.getInt(h + H_STRINGS + 4)));
+            hw.setIconUrl(string(body.getInt(h + H_STRINGS + 8)));
+            out.add(hw);
+        }
+        return out;
+    }
+
+    /** Every day, each with its hours. */
+    public List<ForecastDay> forecast() {
+        List<ForecastDay> out = new ArrayList<>(dayCount);
+        for (int i = 0; i < dayCount; i++) out.add(day(i, true));
+        return out;
+    }
+
+    private int dayAt(int day) {
+        if (day < 0 || day >= dayCount) throw new IndexOutOfBoundsException("day " + day + " of " + dayCount);
+        return daysOff + day * DAY_BYTES;
+    }
+
+    // ---------------- strings ----------------
+
+    // benign race: two threads may both decode the same string, and either copy is fine
+    private String string(int ref) {
+        if (ref < 0 || ref >= stringCount) return null;
+        String s = decoded[ref];
+        if (s != null) return s;
+        int from = body.getInt(indexOff + ref * 4), to = body.getInt(indexOff + ref * 4 + 4);
+        if (from < 0 || to < from || textOff + to > body.limit()) return null;
+        byte[] bytes = new byte[to - from];
+        body.get(textOff + from, bytes);
+        s = new String(bytes, StandardCharsets.UTF_8);
+        decoded[ref] = s;
+        return s;
+    }
+}
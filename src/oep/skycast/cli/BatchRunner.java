@@ -0,0 +1,255 @@
+package oep.skycast.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+import oep.skycast.service.WeatherProvider;
+import oep.skycast.service.WeatherProviders;
+import oep.skycast.util.LogUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * BatchRunner - headless bulk fetch (no JavaFX needed).
+ *
+ * Reads one city or "lat,lon" per line (blank lines and '#' comments skipped), fetches each
+ * through the configured WeatherProvider on virtual threads with at most --parallel requests
+ * in flight, and writes one record per city as soon as it completes. A summary with
+ * throughput and per-city latency goes to stderr at the end.
+ *
+ * Usage:
+ *   java -cp out:lib/gson-2.10.1.jar oep.skycast.cli.BatchRunner
+ *        [--input FILE|-] [--output FILE|-] [--format jsonl|csv] [--parallel N] [--no-forecast]
+ */
+public class BatchRunner {
+
+    private static final String CSV_HEADER = "query,ok,latency_ms,location,region,country,lat,lon,temp_c,feels_like_c,"
+            + "humidity,condition,wind_kph,pressure_mb,uv,cloud,pm25,forecast_days,error";
+
+    private final WeatherProvider provider;
+    private final int parallel;
+    private final boolean withForecast;
+    private final String format;
+    private final Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+    public BatchRunner(WeatherProvider provider, int parallel, boolean withForecast, String format) {
+        this.provider = provider;
+        this.parallel = Math.max(1, parallel);
+        this.withForecast = withForecast;
+        this.format = format;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String input = "-", output = "-", format = "jsonl";
+        int parallel = 8;
+        boolean forecast = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input": input = args[++i]; break;
+                case "--output": output = args[++i]; break;
+                case "--format": format = args[++i].toLowerCase(); break;
+                case "--parallel": parallel = Integer.parseInt(args[++i]); break;
+                case "--no-forecast": forecast = false; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Usage: BatchRunner [--input FILE|-] [--output FILE|-] [--format jsonl|csv] [--parallel N] [--no-forecast]");
+                    System.exit(2);
+            }
+        }
+        if (!format.equals("jsonl") && !format.equals("csv")) {
+            System.err.println("Unsupported format: " + format);
+            System.exit(2);
+        }
+
+        List<String> queries = readQueries(input);
+        BatchRunner runner = new BatchRunner(WeatherProviders.fromPreferences(), parallel, forecast, format);
+        try (Writer out = "-".equals(output)
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            Summary s = runner.run(queries, out);
+            s.print();
+            if (s.failed > 0) System.exit(1);
+        }
+    }
+
+    static List<String> readQueries(String input) throws IOException {
+        List<String> out = new ArrayList<>();
+        try (BufferedReader br = "-".equals(input)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                out.add(line);
+            }
+        }
+        return out;
+    }
+
+    /** Fetch every query and stream results to {@code out}; returns timing summary. */
+    public Summary run(List<String> queries, Writer out) throws IOException, InterruptedException {
+        Summary summary = new Summary();
+        Semaphore permits = new Semaphore(parallel);
+        if ("csv".equals(format)) {
+            out.write(CSV_HEADER);
+            out.write(System.lineSeparator());
+        }
+        long t0 = System.nanoTime();
+
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String q : queries) {
+                permits.acquire();
+                exec.submit(() -> {
+                    try {
+                        Result r = fetch(q);
+                        synchronized (out) {
+                            out.write("csv".equals(format) ? toCsv(r) : toJson(r));
+                            out.write(System.lineSeparator());
+                            out.flush();
+                        }
+                        summary.add(r);
+                    } catch (IOException e) {
+                        LogUtil.log("Batch output failed for " + q + ": " + e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } // close() waits for all tasks
+
+        summary.wallNanos = System.nanoTime() - t0;
+        return summary;
+    }
+
+    private Result fetch(String query) {
+        long start = System.nanoTime();
+        Result r = new Result(query);
+        try {
+            r.current = provider.getCurrentWeather(query);
+            if (withForecast) r.forecast = provider.getForecast(query);
+        } catch (WeatherException e) {
+            r.error = e.getMessage();
+        } catch (RuntimeException e) {
+            r.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        r.latencyNanos = System.nanoTime() - start;
+        return r;
+    }
+
+    private String toJson(Result r) {
+        JsonObject o = new JsonObject();
+        o.addProperty("query", r.query);
+        o.addProperty("ok", r.error == null);
+        o.addProperty("latencyMs", r.latencyNanos / 1_000_000.0);
+        if (r.current != null) o.add("current", gson.toJsonTree(r.current));
+        if (r.forecast != null) o.add("forecast", gson.toJsonTree(r.forecast));
+        if (r.error != null) o.addProperty("error", r.error);
+        return gson.toJson(o);
+    }
+
+    private static String toCsv(Result r) {
+        WeatherData w = r.current;
+        List<String> cols = new ArrayList<>();
+        cols.add(r.query);
+        cols.add(String.valueOf(r.error == null));
+        cols.add(String.format("%.1f", r.latencyNanos / 1_000_000.0));
+        if (w != null) {
+            cols.add(w.getLocationName());
+            cols.add(w.getRegion());
+            cols.add(w.getCountry());
+            cols.add(num(w.getLatitude()));
+            cols.add(num(w.getLongitude()));
+            cols.add(num(w.getTemperature()));
+            cols.add(num(w.getFeelsLike()));
+            cols.add(String.valueOf(w.getHumidity()));
+            cols.add(w.getCondition());
+            cols.add(num(w.getWindSpeed()));
+            cols.add(num(w.getPressureMb()));
+            cols.add(num(w.getUv()));
+            cols.add(w.getCloud() < 0 ? "" : String.valueOf(w.getCloud()));
+            cols.add(num(w.getAqiPm25()));
+        } else {
+            for (int i = 0; i < 14; i++) cols.add("");
+        }
+        cols.add(r.forecast == null ? "" : String.valueOf(r.forecast.size()));
+        cols.add(r.error);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cols.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(csv(cols.get(i)));
+        }
+        return sb.toString();
+    }
+
+    private static String num(double d) { return Double.isNaN(d) ? "" : String.valueOf(d); }
+
+    private static String csv(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    static class Result {
+        final String query;
+        WeatherData current;
+        List<ForecastDay> forecast;
+        String error;
+        long latencyNanos;
+
+        Result(String query) { this.query = query; }
+    }
+
+    /** Aggregated run statistics; printed to stderr so stdout stays machine-readable. */
+    public static class Summary {
+        private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
+        int ok, failed;
+        long wallNanos;
+
+        synchronized void add(Result r) {
+            results.add(r);
+            if (r.error == null) ok++; else failed++;
+        }
+
+        public void print() {
+            List<Result> sorted;
+            synchronized (results) { sorted = new ArrayList<>(results); }
+            sorted.sort((a, b) -> Long.compare(b.latencyNanos, a.latencyNanos));
+            double wallSec = wallNanos / 1e9;
+            int n = sorted.size();
+            System.err.printf("Fetched %d cities (%d ok, %d failed) in %.2f s - %.1f cities/s%n",
+                    n, ok, failed, wallSec, wallSec > 0 ? n / wallSec : 0.0);
+            if (n == 0) return;
+            long[] lat = sorted.stream().mapToLong(r -> r.latencyNanos).sorted().toArray();
+            System.err.printf("Latency ms: p50 %.1f | p95 %.1f | p99 %.1f | max %.1f%n",
+                    pct(lat, 0.50), pct(lat, 0.95), pct(lat, 0.99), lat[n - 1] / 1e6);
+            System.err.println("Per-city latency (slowest first):");
+            for (Result r : sorted) {
+                System.err.printf("  %8.1f ms  %s%s%n", r.latencyNanos / 1e6, r.query, r.error == null ? "" : "  [" + r.error + "]");
+            }
+        }
+
+        private static double pct(long[] sortedNanos, double p) {
+            int idx = (int) Math.ceil(p * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, idx))] / 1e6;
+        }
+    }
+}
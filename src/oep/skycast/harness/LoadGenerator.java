@@ -0,0 +1,282 @@
+package oep.skycast.harness;
+
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.service.ApiWeatherProvider;
+import oep.skycast.service.GeocodeService;
+import oep.skycast.service.http.HttpTransport;
+import oep.skycast.service.http.JdkHttpTransport;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LoadGenerator - drives simulated dashboard sessions against a weatherapi-compatible endpoint.
+ *
+ * Each session loops the same sequence the dashboard runs for one search:
+ * suggest (search.json), then current.json, then forecast.json, with a think time between
+ * searches. Sessions are virtual threads, so thousands are cheap. All calls go through the
+ * real ApiWeatherProvider / GeocodeService code, so parsing cost is part of the measurement.
+ *
+ * Report (stdout): throughput, p50/p95/p99/max per operation, errors, heap used and peak
+ * per pool, GC count and time during the run.
+ *
+ * Usage: java -cp out:lib/gson-2.10.1.jar oep.skycast.harness.LoadGenerator
+ *        [--base http://127.0.0.1:8099/v1 | --with-stub] [--sessions 200] [--duration 30]
+ *        [--think MS] [--key KEY] [--cities London,Paris,...]
+ *        stub options when --with-stub: [--latency MS] [--jitter MS] [--error-rate R] [--pad BYTES]
+ */
+public class LoadGenerator {
+
+    private static final String[] DEFAULT_CITIES = {
+            "London", "Paris", "Tokyo", "New York", "Karachi", "Lahore", "Berlin", "Sydney",
+            "Cairo", "Toronto", "Mumbai", "Sao Paulo", "Istanbul", "Madrid", "Dubai", "Seoul"
+    };
+
+    private final ApiWeatherProvider provider;
+    private final GeocodeService geocoder;
+    private final String[] cities;
+    private final long thinkMillis;
+
+    final LatencyHistogram suggestLatency = new LatencyHistogram();
+    final LatencyHistogram currentLatency = new LatencyHistogram();
+    final LatencyHistogram forecastLatency = new LatencyHistogram();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong searches = new AtomicLong();
+
+    public LoadGenerator(String apiBase, String apiKey, String[] cities, long thinkMillis) {
+        // dedicated HTTP/1.1 client: the stub is plain http, and we don't want to share
+        // connection state with anything else running in the JVM
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpTransport transport = new JdkHttpTransport(client);
+        this.provider = new ApiWeatherProvider(apiKey, transport, apiBase);
+        this.geocoder = new GeocodeService(apiKey, apiBase, transport, null);
+        this.cities = cities;
+        this.thinkMillis = Math.max(0, thinkMillis);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String base = null, key = "load-test";
+        int sessions = 200;
+        long durationSec = 30, think = 0, latency = 20, jitter = 30, pad = 0;
+        double errorRate = 0;
+        boolean withStub = false;
+        String[] cities = DEFAULT_CITIES;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--base": base = args[++i]; break;
+                case "--with-stub": withStub = true; break;
+                case "--sessions": sessions = Integer.parseInt(args[++i]); break;
+                case "--duration": durationSec = Long.parseLong(args[++i]); break;
+                case "--think": think = Long.parseLong(args[++i]); break;
+                case "--key": key = args[++i]; break;
+                case "--cities": cities = args[++i].split("\\s*,\\s*"); break;
+                case "--latency": latency = Long.parseLong(args[++i]); break;
+                case "--jitter": jitter = Long.parseLong(args[++i]); break;
+                case "--error-rate": errorRate = Double.parseDouble(args[++i]); break;
+                case "--pad": pad = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("Usage: LoadGenerator [--base URL | --with-stub] [--sessions N] [--duration SEC] "
+                            + "[--think MS] [--key KEY] [--cities A,B,...] [--latency MS] [--jitter MS] "
+                            + "[--error-rate R] [--pad BYTES]");
+                    System.exit(2);
+            }
+        }
+
+        StubWeatherApiServer stub = null;
+        if (withStub || base == null) {
+            stub = new StubWeatherApiServer(latency, jitter, errorRate, 7, (int) pad);
+            stub.start(0);
+            base = stub.baseUrl();
+        }
+        try {
+            LoadGenerator gen = new LoadGenerator(base, key, cities, think);
+            System.out.println(gen.run(sessions, Duration.ofSeconds(durationSec)));
+            if (stub != null) {
+                System.out.printf(Locale.ROOT, "stub: served=%d injectedErrors=%d%n", stub.served(), stub.injectedErrors());
+            }
+        } finally {
+            if (stub != null) stub.stop();
+        }
+    }
+
+    /**
+     * Run the given number of concurrent sessions for the duration and return the report text.
+     */
+    public String run(int sessions, Duration duration) throws InterruptedException {
+        System.gc();
+        GcSnapshot gcBefore = GcSnapshot.take();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            try { pool.resetPeakUsage(); } catch (Exception ignored) {}
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor();
+        for (int s = 0; s < sessions; s++) {
+            exec.submit(() -> session(deadline));
+        }
+        exec.shutdown();
+        if (!exec.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS)) {
+            exec.shutdownNow();
+        }
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+        GcSnapshot gcAfter = GcSnapshot.take();
+
+        return report(sessions, elapsedSec, gcBefore, gcAfter);
+    }
+
+    private void session(long deadlineNanos) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+            String city = cities[rnd.nextInt(cities.length)];
+            try {
+                // typing: the dashboard asks for suggestions on a prefix before the full search
+                String prefix = city.substring(0, Math.min(city.length(), 3 + rnd.nextInt(3)));
+                long t0 = System.nanoTime();
+                geocoder.suggest(prefix);
+                long t1 = System.nanoTime();
+                suggestLatency.record(t1 - t0);
+
+                provider.getCurrentWeather(city);
+                long t2 = System.nanoTime();
+                currentLatency.record(t2 - t1);
+
+                provider.getForecast(city);
+                forecastLatency.record(System.nanoTime() - t2);
+                searches.incrementAndGet();
+            } catch (WeatherException | IOException e) {
+                errors.incrementAndGet();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (thinkMillis > 0) {
+                try {
+                    Thread.sleep(rnd.nextLong(thinkMillis / 2, thinkMillis + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private String report(int sessions, double elapsedSec, GcSnapshot before, GcSnapshot after) {
+        StringBuilder sb = new StringBuilder();
+        long done = searches.get();
+        long requests = suggestLatency.count() + currentLatency.count() + forecastLatency.count();
+        sb.append(String.format(Locale.ROOT, "sessions=%d elapsed=%.1fs searches=%d (%.1f/s) requests=%d (%.1f/s) errors=%d%n",
+                sessions, elapsedSec, done, done / elapsedSec, requests, requests / elapsedSec, errors.get()));
+        sb.append(String.format(Locale.ROOT, "%-9s %9s %9s %9s %9s %9s%n", "op", "count", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        line(sb, "suggest", suggestLatency);
+        line(sb, "current", currentLatency);
+        line(sb, "forecast", forecastLatency);
+
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        sb.append(String.format(Locale.ROOT, "heap: used=%.1f MB committed=%.1f MB max=%.1f MB%n",
+                mb(heap.getUsed()), mb(heap.getCommitted()), mb(heap.getMax())));
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || pool.getPeakUsage() == null) continue;
+            sb.append(String.format(Locale.ROOT, "  peak %-24s %.1f MB%n", pool.getName(), mb(pool.getPeakUsage().getUsed())));
+        }
+        long gcCount = after.count - before.count;
+        long gcMillis = after.millis - before.millis;
+        sb.append(String.format(Locale.ROOT, "gc: collections=%d time=%d ms (%.2f%% of wall)",
+                gcCount, gcMillis, 100.0 * gcMillis / (elapsedSec * 1000)));
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String op, LatencyHistogram h) {
+        sb.append(String.format(Locale.ROOT, "%-9s %9d %9.2f %9.2f %9.2f %9.2f%n", op, h.count(),
+                h.percentileMillis(50), h.percentileMillis(95), h.percentileMillis(99), h.maxMillis()));
+    }
+
+    private static double mb(long bytes) { return bytes / (1024.0 * 1024.0); }
+
+    /** Cumulative GC counters across all collectors. */
+    private static final class GcSnapshot {
+        final long count;
+        final long millis;
+
+        private GcSnapshot(long count, long millis) {
+            this.count = count;
+            this.millis = millis;
+        }
+
+        static GcSnapshot take() {
+            long c = 0, t = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc.getCollectionCount() > 0) c += gc.getCollectionCount();
+                if (gc.getCollectionTime() > 0) t += gc.getCollectionTime();
+            }
+            return new GcSnapshot(c, t);
+        }
+    }
+
+    /**
+     * Lock-free log-linear latency histogram (microsecond input, ~3% bucket width).
+     * Values below 64 us are exact; above that each power of two is split into 32 buckets.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int BUCKETS = 64 + (63 - 6) * SUB;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        void record(long nanos) {
+            long us = Math.max(0, nanos / 1000);
+            counts.incrementAndGet(index(us));
+            total.incrementAndGet();
+            maxMicros.accumulateAndGet(us, Math::max);
+        }
+
+        long count() { return total.get(); }
+
+        double maxMillis() { return maxMicros.get() / 1000.0; }
+
+        double percentileMillis(double p) {
+            long n = total.get();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(p / 100.0 * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), maxMicros.get()) / 1000.0;
+            }
+            return maxMillis();
+        }
+
+        static int index(long us) {
+            if (us < 64) return (int) us;
+            int e = 63 - Long.numberOfLeadingZeros(us);
+            int sub = (int) ((us >>> (e - SUB_BITS)) & (SUB - 1));
+            return 64 + (e - 6) * SUB + sub;
+        }
+
+        static long upperBound(int index) {
+            if (index < 64) return index;
+            int e = (index - 64) / SUB + 6;
+            int sub = (index - 64) % SUB;
+            return ((long) (SUB + sub + 1) << (e - SUB_BITS)) - 1;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package oep.skycast.harness;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StubWeatherApiServer - local stand-in for the weatherapi.com endpoints SkyCast calls.
+ *
+ * Serves /v1/current.json, /v1/forecast.json and /v1/search.json with the same JSON
+ * shape as the real API. Values are deterministic per query (seeded from q), so repeated
+ * runs compare like with like. Any key is accepted; a missing q gives the API's 1003 error.
+ *
+ * Point the app or LoadGenerator at it with weather.api.base=http://localhost:PORT/v1.
+ *
+ * Usage: java -cp out:lib/gson-2.10.1.jar oep.skycast.harness.StubWeatherApiServer
+ *        [--port 8099] [--latency MS] [--jitter MS] [--error-rate 0..1] [--days 7] [--pad BYTES]
+ */
+public class StubWeatherApiServer {
+
+    private static final String[] CONDITIONS = {
+            "Sunny", "Partly cloudy", "Cloudy", "Overcast", "Mist", "Patchy rain possible",
+            "Light rain", "Moderate rain", "Heavy rain", "Light snow", "Thundery outbreaks possible"
+    };
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final int days;
+    private final int padBytes;
+    private final Gson gson = new Gson();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param latencyMillis base delay before every response
+     * @param jitterMillis  extra uniform random delay in [0, jitter]
+     * @param errorRate     fraction of requests answered with a 500
+     * @param days          forecast days returned (the real API caps this per plan)
+     * @param padBytes      extra bytes added to every payload to simulate larger responses
+     */
+    public StubWeatherApiServer(long latencyMillis, long jitterMillis, double errorRate, int days, int padBytes) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.errorRate = Math.max(0, Math.min(1, errorRate));
+        this.days = Math.max(1, Math.min(14, days));
+        this.padBytes = Math.max(0, padBytes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8099, days = 7, pad = 0;
+        long latency = 0, jitter = 0;
+        double errorRate = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--latency": latency = Long.parseLong(args[++i]); break;
+                case "--jitter": jitter = Long.parseLong(args[++i]); break;
+                case "--error-rate": errorRate = Double.parseDouble(args[++i]); break;
+                case "--days": days = Integer.parseInt(args[++i]); break;
+                case "--pad": pad = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Usage: StubWeatherApiServer [--port N] [--latency MS] [--jitter MS] "
+                            + "[--error-rate 0..1] [--days N] [--pad BYTES]");
+                    System.exit(2);
+            }
+        }
+        StubWeatherApiServer stub = new StubWeatherApiServer(latency, jitter, errorRate, days, pad);
+        stub.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.err.println("Stub weather API listening on " + stub.baseUrl());
+    }
+
+    public void start(int port) throws IOException {
+        // headers and body go out as separate writes; with Nagle on, delayed ACKs add ~40 ms per response
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/v1/current.json", ex -> serve(ex, "current"));
+        server.createContext("/v1/forecast.json", ex -> serve(ex, "forecast"));
+        server.createContext("/v1/search.json", ex -> serve(ex, "search"));
+        server.start();
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    /** Endpoint root to use as weather.api.base. */
+    public String baseUrl() { return "http://127.0.0.1:" + port() + "/v1"; }
+
+    public long served() { return served.get(); }
+
+    public long injectedErrors() { return injectedErrors.get(); }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange ex, String kind) throws IOException {
+        served.incrementAndGet();
+        try {
+            delay();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                send(ex, 500, apiError(9999, "Internal application error."));
+                return;
+            }
+            String q = queryParam(ex.getRequestURI(), "q");
+            if (q == null || q.isBlank()) {
+                send(ex, 400, apiError(1003, "Parameter q is missing."));
+                return;
+            }
+            q = q.trim();
+            Object body;
+            switch (kind) {
+                case "current": body = currentPayload(q, false, null, null); break;
+                case "forecast":
+                    body = currentPayload(q, true, queryParam(ex.getRequestURI(), "dt"), queryParam(ex.getRequestURI(), "hour"));
+                    break;
+                default: body = searchPayload(q); break;
+            }
+            send(ex, 200, gson.toJson(body));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void delay() throws InterruptedException {
+        long d = latencyMillis;
+        if (jitterMillis > 0) d += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        if (d > 0) Thread.sleep(d);
+    }
+
+    /**
+     * @param dt   only return this forecast day (yyyy-MM-dd), like the real API's dt parameter
+     * @param hour only return this hour of each day (0-23), like the real API's hour parameter
+     */
+    private JsonObject currentPayload(String q, boolean withForecast, String dt, String hour) {
+        SplittableRandom rnd = new SplittableRandom(seed(q));
+        String name = placeName(q);
+        double lat = round(rnd.nextDouble(-60, 70), 2);
+        double lon = round(rnd.nextDouble(-180, 180), 2);
+        double base = round(rnd.nextDouble(-10, 35), 1);
+
+        JsonObject root = new JsonObject();
+        JsonObject loc = new JsonObject();
+        loc.addProperty("name", name);
+        loc.addProperty("region", "Stub Region");
+        loc.addProperty("country", "Stubland");
+        loc.addProperty("lat", lat);
+        loc.addProperty("lon", lon);
+        loc.addProperty("tz_id", "UTC");
+        loc.addProperty("localtime", LocalDate.now() + " 12:00");
+        root.add("location", loc);
+
+        JsonObject cur = new JsonObject();
+        cur.addProperty("temp_c", base);
+        cur.addProperty("feelslike_c", round(base - rnd.nextDouble(0, 4), 1));
+        cur.addProperty("humidity", rnd.nextInt(20, 100));
+        cur.addProperty("wind_kph", round(rnd.nextDouble(0, 45), 1));
+        cur.addProperty("pressure_mb", round(rnd.nextDouble(990, 1035), 0));
+        cur.addProperty("vis_km", round(rnd.nextDouble(2, 10), 0));
+        cur.addProperty("uv", round(rnd.nextDouble(0, 11), 0));
+        cur.addProperty("cloud", rnd.nextInt(0, 101));
+        cur.add("condition", condition(rnd));
+        JsonObject aq = new JsonObject();
+        aq.addProperty("pm2_5", round(rnd.nextDouble(2, 80), 1));
+        cur.add("air_quality", aq);
+        root.add("current", cur);
+
+        if (withForecast) {
+            JsonArray forecastDays = new JsonArray();
+            LocalDate d = LocalDate.now();
+            int onlyHour = -1;
+            try { if (hour != null) onlyHour = Integer.parseInt(hour.trim()); } catch (NumberFormatException ignored) {}
+            // every day is generated so values don't depend on the filters
+            for (int i = 0; i < days; i++, d = d.plusDays(1)) {
+                JsonObject fd = forecastDay(rnd, d, base);
+                if (dt != null && !dt.equals(d.toString())) continue;
+                if (onlyHour >= 0 && onlyHour < 24) {
+                    JsonArray one = new JsonArray();
+                    one.add(fd.getAsJsonArray("hour").get(onlyHour));
+                    fd.add("hour", one);
+                }
+                forecastDays.add(fd);
+            }
+            JsonObject fc = new JsonObject();
+            fc.add("forecastday", forecastDays);
+            root.add("forecast", fc);
+        }
+        if (padBytes > 0) root.addProperty("_pad", "x".repeat(padBytes));
+        return root;
+    }
+
+    private JsonObject forecastDay(SplittableRandom rnd, LocalDate date, double base) {
+        double min = round(base - rnd.nextDouble(2, 8), 1);
+        double max = round(base + rnd.nextDouble(1, 8), 1);
+
+        JsonObject fd = new JsonObject();
+        fd.addProperty("date", date.toString());
+        JsonObject day = new JsonObject();
+        day.addProperty("mintemp_c", min);
+        day.addProperty("maxtemp_c", max);
+        day.addProperty("avghumidity", rnd.nextInt(30, 95));
+        day.addProperty("daily_chance_of_rain", rnd.nextInt(0, 101));
+        day.add("condition", condition(rnd));
+        fd.add("day", day);
+
+        JsonObject astro = new JsonObject();
+        astro.addProperty("sunrise", "06:" + String.format("%02d", rnd.nextInt(0, 60)) + " AM");
+        astro.addProperty("sunset", "07:" + String.format("%02d", rnd.nextInt(0, 60)) + " PM");
+        astro.addProperty("moon_phase", "Waxing Gibbous");
+        astro.addProperty("moon_illumination", String.valueOf(rnd.nextInt(0, 101)));
+        fd.add("astro", astro);
+
+        JsonArray hours = new JsonArray();
+        for (int h = 0; h < 24; h++) {
+            double t = min + (max - min) * (1 - Math.cos((h - 4) / 24.0 * 2 * Math.PI)) / 2;
+            JsonObject ho = new JsonObject();
+            ho.addProperty("time", String.format("%s %02d:00", date, h));
+            ho.addProperty("temp_c", round(t, 1));
+            ho.addProperty("feelslike_c", round(t - 1, 1));
+            ho.addProperty("humidity", rnd.nextInt(30, 100));
+            ho.addProperty("wind_kph", round(rnd.nextDouble(0, 40), 1));
+            ho.addProperty("precip_mm", round(rnd.nextDouble(0, 3), 1));
+            ho.addProperty("chance_of_rain", rnd.nextInt(0, 101));
+            ho.add("condition", condition(rnd));
+            hours.add(ho);
+        }
+        fd.add("hour", hours);
+        return fd;
+    }
+
+    private JsonArray searchPayload(String q) {
+        SplittableRandom rnd = new SplittableRandom(seed(q));
+        JsonArray arr = new JsonArray();
+        String name = placeName(q);
+        int n = 1 + rnd.nextInt(5);
+        for (int i = 0; i < n; i++) {
+            JsonObject o = new JsonObject();
+            o.addProperty("id", Math.abs(seed(q)) % 1_000_000 + i);
+            o.addProperty("name", i == 0 ? name : name + " " + (char) ('A' + i - 1));
+            o.addProperty("region", "Stub Region");
+            o.addProperty("country", "Stubland");
+            o.addProperty("lat", round(rnd.nextDouble(-60, 70), 2));
+            o.addProperty("lon", round(rnd.nextDouble(-180, 180), 2));
+            arr.add(o);
+        }
+        return arr;
+    }
+
+    private static JsonObject condition(SplittableRandom rnd) {
+        int code = rnd.nextInt(CONDITIONS.length);
+        JsonObject c = new JsonObject();
+        c.addProperty("text", CONDITIONS[code]);
+        c.addProperty("icon", "//cdn.weatherapi.com/weather/64x64/day/" + (113 + code) + ".png");
+        c.addProperty("code", 1000 + code);
+        return c;
+    }
+
+    private static String placeName(String q) {
+        String s = q.split(",")[0].trim();
+        if (s.isEmpty()) return "Stubville";
+        return s.substring(0, 1).toUpperCase(Locale.ROOT) + s.substring(1);
+    }
+
+    private static long seed(String q) {
+        // FNV-1a over the normalised query, so "london" and " London " get the same data
+        long h = 0xcbf29ce484222325L;
+        for (byte b : q.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static double round(double v, int places) {
+        double f = Math.pow(10, places);
+        return Math.round(v * f) / f;
+    }
+
+    private JsonObject apiError(int code, String message) {
+        JsonObject err = new JsonObject();
+        err.addProperty("code", code);
+        err.addProperty("message", message);
+        JsonObject o = new JsonObject();
+        o.add("error", err);
+        return o;
+    }
+
+    private void send(HttpExchange ex, int status, Object json) throws IOException {
+        byte[] body = (json instanceof String s ? s : gson.toJson(json)).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static String queryParam(URI uri, String name) {
+        String raw = uri.getRawQuery();
+        if (raw == null) return null;
+        for (String part : raw.split("&")) {
+            int eq = part.indexOf('=');
+            String k = eq < 0 ? part : part.substring(0, eq);
+            if (k.equals(name)) return eq < 0 ? "" : URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+}
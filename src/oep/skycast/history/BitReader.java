@@ -0,0 +1,39 @@
+package oep.skycast.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counterpart of {@link BitWriter}; reads with absolute positions so several readers
+ * can share one mapped buffer.
+ */
+final class BitReader {
+
+    private final ByteBuffer buf;
+    private final int base;
+    private long bitPos;
+
+    BitReader(ByteBuffer buf, int base) {
+        this.buf = buf;
+        this.base = base;
+    }
+
+    long bitPosition() { return bitPos; }
+
+    boolean readBit() { return read(1) == 1L; }
+
+    long read(int nbits) {
+        long v = 0;
+        while (nbits > 0) {
+            int byteIdx = base + (int) (bitPos >>> 3);
+            int bitOff = (int) (bitPos & 7);
+            int avail = 8 - bitOff;
+            int take = Math.min(avail, nbits);
+            int b = buf.get(byteIdx) & 0xFF;
+            int chunk = (b >>> (avail - take)) & ((1 << take) - 1);
+            v = (v << take) | chunk;
+            bitPos += take;
+            nbits -= take;
+        }
+        return v;
+    }
+}
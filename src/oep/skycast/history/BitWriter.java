@@ -0,0 +1,43 @@
+package oep.skycast.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Big-endian bit writer over a (memory-mapped) ByteBuffer using absolute positions,
+ * so the buffer's own position/limit are never touched.
+ */
+final class BitWriter {
+
+    private ByteBuffer buf;
+    private final int base;   // byte offset where the bit stream starts
+    private long bitPos;      // bits written so far
+
+    BitWriter(ByteBuffer buf, int base, long bitPos) {
+        this.buf = buf;
+        this.base = base;
+        this.bitPos = bitPos;
+    }
+
+    /** Swap in a larger mapping of the same file (used when a segment grows). */
+    void rebind(ByteBuffer buf) { this.buf = buf; }
+
+    long bitPosition() { return bitPos; }
+
+    void writeBit(boolean bit) { write(bit ? 1L : 0L, 1); }
+
+    /** Write the lowest {@code nbits} bits of {@code value}, most significant first. */
+    void write(long value, int nbits) {
+        while (nbits > 0) {
+            int byteIdx = base + (int) (bitPos >>> 3);
+            int bitOff = (int) (bitPos & 7);
+            int free = 8 - bitOff;
+            int take = Math.min(free, nbits);
+            int chunk = (int) ((value >>> (nbits - take)) & ((1L << take) - 1));
+            int cur = bitOff == 0 ? 0 : (buf.get(byteIdx) & 0xFF);
+            cur |= chunk << (free - take);
+            buf.put(byteIdx, (byte) cur);
+            bitPos += take;
+            nbits -= take;
+        }
+    }
+}
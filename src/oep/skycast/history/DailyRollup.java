@@ -0,0 +1,48 @@
+package oep.skycast.history;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Per-day min / max / mean of every history column. NaN samples are skipped, so a column
+ * that was never reported on that day reports NaN.
+ */
+public class DailyRollup {
+
+    private final LocalDate date;
+    private int count;
+    private final double[] min = new double[HistorySample.FIELD_COUNT];
+    private final double[] max = new double[HistorySample.FIELD_COUNT];
+    private final double[] sum = new double[HistorySample.FIELD_COUNT];
+    private final int[] n = new int[HistorySample.FIELD_COUNT];
+
+    DailyRollup(LocalDate date) {
+        this.date = date;
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    void add(double[] values) {
+        count++;
+        for (int i = 0; i < values.length; i++) {
+            double v = values[i];
+            if (Double.isNaN(v)) continue;
+            if (v < min[i]) min[i] = v;
+            if (v > max[i]) max[i] = v;
+            sum[i] += v;
+            n[i]++;
+        }
+    }
+
+    public LocalDate getDate() { return date; }
+    public int getCount() { return count; }
+    public double getMin(int field) { return n[field] == 0 ? Double.NaN : min[field]; }
+    public double getMax(int field) { return n[field] == 0 ? Double.NaN : max[field]; }
+    public double getMean(int field) { return n[field] == 0 ? Double.NaN : sum[field] / n[field]; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d temp %.1f..%.1f (avg %.1f)", date, count,
+                getMin(HistorySample.TEMPERATURE), getMax(HistorySample.TEMPERATURE), getMean(HistorySample.TEMPERATURE));
+    }
+}
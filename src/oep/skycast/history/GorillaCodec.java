@@ -0,0 +1,147 @@
+package oep.skycast.history;
+
+/**
+ * Gorilla-style compression (Pelkonen et al., VLDB 2015) for one row of
+ * {timestamp, value[0..n)}.
+ *
+ * Timestamps (epoch seconds) use delta-of-delta buckets:
+ *   '0'              dod == 0
+ *   '10'   + 7 bits  dod in [-64, 63]
+ *   '110'  + 9 bits  dod in [-256, 255]
+ *   '1110' + 12 bits dod in [-2048, 2047]
+ *   '1111' + 64 bits anything else
+ *
+ * Values are XOR'ed with the previous value of the same column:
+ *   '0'                                   identical
+ *   '10' + meaningful bits                fits in the previous leading/trailing window
+ *   '11' + 5 bits leading + 6 bits length + meaningful bits
+ *
+ * The first row of a segment stores the timestamp and every value raw (64 bits each).
+ */
+final class GorillaCodec {
+
+    private GorillaCodec() {}
+
+    /** Upper bound of bits a single row may need (used to decide when a segment is full). */
+    static int maxBitsPerRow(int fieldCount) {
+        return 4 + 64 + fieldCount * (2 + 5 + 6 + 64);
+    }
+
+    static void encode(BitWriter out, GorillaState st, long ts, double[] values) {
+        if (st.count == 0) {
+            out.write(ts, 64);
+            for (int i = 0; i < values.length; i++) {
+                long bits = Double.doubleToRawLongBits(values[i]);
+                out.write(bits, 64);
+                st.prevBits[i] = bits;
+            }
+            st.prevTs = ts;
+            st.prevDelta = 0;
+            st.count = 1;
+            return;
+        }
+
+        long delta = ts - st.prevTs;
+        long dod = delta - st.prevDelta;
+        if (dod == 0) {
+            out.write(0b0, 1);
+        } else if (dod >= -64 && dod <= 63) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(dod, 64);
+        }
+        st.prevDelta = delta;
+        st.prevTs = ts;
+
+        for (int i = 0; i < values.length; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ st.prevBits[i];
+            st.prevBits[i] = bits;
+            if (xor == 0) {
+                out.write(0b0, 1);
+                continue;
+            }
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            int pl = st.prevLeading[i];
+            int pt = st.prevTrailing[i];
+            if (pl >= 0 && leading >= pl && trailing >= pt) {
+                out.write(0b10, 2);
+                out.write(xor >>> pt, 64 - pl - pt);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                out.write(0b11, 2);
+                out.write(leading, 5);
+                out.write(meaningful == 64 ? 0 : meaningful, 6);
+                out.write(xor >>> trailing, meaningful);
+                st.prevLeading[i] = leading;
+                st.prevTrailing[i] = trailing;
+            }
+        }
+        st.count++;
+    }
+
+    /** Decode the next row into {@code values}; returns its timestamp. */
+    static long decode(BitReader in, GorillaState st, double[] values) {
+        if (st.count == 0) {
+            long ts = in.read(64);
+            for (int i = 0; i < values.length; i++) {
+                long bits = in.read(64);
+                st.prevBits[i] = bits;
+                values[i] = Double.longBitsToDouble(bits);
+            }
+            st.prevTs = ts;
+            st.prevDelta = 0;
+            st.count = 1;
+            return ts;
+        }
+
+        long dod;
+        if (!in.readBit()) dod = 0;
+        else if (!in.readBit()) dod = signExtend(in.read(7), 7);
+        else if (!in.readBit()) dod = signExtend(in.read(9), 9);
+        else if (!in.readBit()) dod = signExtend(in.read(12), 12);
+        else dod = in.read(64);
+
+        long delta = st.prevDelta + dod;
+        long ts = st.prevTs + delta;
+        st.prevDelta = delta;
+        st.prevTs = ts;
+
+        for (int i = 0; i < values.length; i++) {
+            if (in.readBit()) {
+                long xor;
+                if (!in.readBit()) {
+                    int pl = st.prevLeading[i];
+                    int pt = st.prevTrailing[i];
+                    xor = in.read(64 - pl - pt) << pt;
+                } else {
+                    int leading = (int) in.read(5);
+                    int meaningful = (int) in.read(6);
+                    if (meaningful == 0) meaningful = 64;
+                    int trailing = 64 - leading - meaningful;
+                    xor = in.read(meaningful) << trailing;
+                    st.prevLeading[i] = leading;
+                    st.prevTrailing[i] = trailing;
+                }
+                st.prevBits[i] ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(st.prevBits[i]);
+        }
+        st.count++;
+        return ts;
+    }
+
+    private static long signExtend(long v, int bits) {
+        int shift = 64 - bits;
+        return (v << shift) >> shift;
+    }
+}
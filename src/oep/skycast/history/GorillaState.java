@@ -0,0 +1,23 @@
+package oep.skycast.history;
+
+/**
+ * Running state shared by the Gorilla encoder and decoder: previous timestamp/delta and,
+ * per value column, the previous raw bits plus the leading/trailing-zero window.
+ * The decoder ends up with exactly the state the encoder had, which is how an existing
+ * segment is reopened for appending.
+ */
+final class GorillaState {
+    long prevTs;
+    long prevDelta;
+    final long[] prevBits;
+    final int[] prevLeading;
+    final int[] prevTrailing;
+    int count;
+
+    GorillaState(int fieldCount) {
+        prevBits = new long[fieldCount];
+        prevLeading = new int[fieldCount];
+        prevTrailing = new int[fieldCount];
+        for (int i = 0; i < fieldCount; i++) prevLeading[i] = -1; // no window yet
+    }
+}
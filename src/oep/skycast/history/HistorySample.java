@@ -0,0 +1,58 @@
+package oep.skycast.history;
+
+import oep.skycast.model.WeatherData;
+
+import java.util.Arrays;
+
+/**
+ * One observation row in the history store: an epoch-second timestamp and a fixed set of
+ * numeric columns. Missing values are stored as NaN.
+ */
+public class HistorySample {
+
+    // column indexes
+    public static final int TEMPERATURE = 0;
+    public static final int FEELS_LIKE = 1;
+    public static final int HUMIDITY = 2;
+    public static final int WIND_KPH = 3;
+    public static final int PRESSURE_MB = 4;
+    public static final int UV = 5;
+    public static final int CLOUD = 6;
+    public static final int PM25 = 7;
+    public static final int FIELD_COUNT = 8;
+
+    public static final String[] FIELD_NAMES = {
+            "temperature", "feelsLike", "humidity", "windKph", "pressureMb", "uv", "cloud", "pm25"
+    };
+
+    private final long epochSeconds;
+    private final double[] values;
+
+    public HistorySample(long epochSeconds, double[] values) {
+        if (values.length != FIELD_COUNT) throw new IllegalArgumentException("expected " + FIELD_COUNT + " values");
+        this.epochSeconds = epochSeconds;
+        this.values = values;
+    }
+
+    public static HistorySample of(long epochSeconds, WeatherData w) {
+        double[] v = new double[FIELD_COUNT];
+        v[TEMPERATURE] = w.getTemperature();
+        v[FEELS_LIKE] = w.getFeelsLike();
+        v[HUMIDITY] = w.getHumidity() < 0 ? Double.NaN : w.getHumidity();
+        v[WIND_KPH] = w.getWindSpeed();
+        v[PRESSURE_MB] = w.getPressureMb();
+        v[UV] = w.getUv();
+        v[CLOUD] = w.getCloud() < 0 ? Double.NaN : w.getCloud();
+        v[PM25] = w.getAqiPm25();
+        return new HistorySample(epochSeconds, v);
+    }
+
+    public long getEpochSeconds() { return epochSeconds; }
+    public double get(int field) { return values[field]; }
+    double[] values() { return values; }
+
+    @Override
+    public String toString() {
+        return "HistorySample{" + epochSeconds + ", " + Arrays.toString(values) + '}';
+    }
+}
@@ -0,0 +1,189 @@
+package oep.skycast.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single memory-mapped segment file holding a Gorilla-compressed run of samples.
+ *
+ * Layout (big-endian):
+ *   0  int   magic 'SKYH'
+ *   4  short version
+ *   6  short field count
+ *   8  int   sample count
+ *  12  int   reserved
+ *  16  long  bits of compressed data
+ *  24  long  first timestamp (epoch seconds)
+ *  32  long  last timestamp
+ *  64  ...   bit stream
+ *
+ * The header is the commit point: each row's bytes are forced to disk before the header
+ * that counts them is written, so a crash mid-append leaves a segment that still decodes to
+ * the last complete row. Reopening for append clears any bits a lost row left behind.
+ * (The header itself reaches disk on {@link #flush()} or whenever the OS writes it back.)
+ * The file grows in {@link #GROW_BYTES} steps up to the configured maximum, so idle
+ * locations don't cost a full segment on disk.
+ */
+final class HistorySegment implements Closeable {
+
+    static final int MAGIC = 0x534B5948; // "SKYH"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int GROW_BYTES = 16 * 1024;
+
+    private final Path path;
+    private final int fieldCount;
+    private final int maxBytes;
+    private final boolean writable;
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+
+    private int sampleCount;
+    private long bitLength;
+    private long firstTs;
+    private long lastTs;
+
+    // append state (writable segments only)
+    private GorillaState state;
+    private BitWriter writer;
+
+    private HistorySegment(Path path, int fieldCount, int maxBytes, boolean writable) {
+        this.path = path;
+        this.fieldCount = fieldCount;
+        this.maxBytes = maxBytes;
+        this.writable = writable;
+    }
+
+    static HistorySegment create(Path path, int fieldCount, int maxBytes) throws IOException {
+        HistorySegment seg = new HistorySegment(path, fieldCount, maxBytes, true);
+        seg.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        seg.buf = seg.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(maxBytes, GROW_BYTES));
+        seg.buf.putInt(0, MAGIC);
+        seg.buf.putShort(4, VERSION);
+        seg.buf.putShort(6, (short) fieldCount);
+        seg.state = new GorillaState(fieldCount);
+        seg.writer = new BitWriter(seg.buf, HEADER_BYTES, 0);
+        seg.writeHeader();
+        return seg;
+    }
+
+    /** Open an existing segment; when {@code writable}, the encoder state is rebuilt by decoding it once. */
+    static HistorySegment open(Path path, int maxBytes, boolean writable) throws IOException {
+        FileChannel ch = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = ch.size();
+            if (size < HEADER_BYTES) throw new IOException("Truncated history segment: " + path);
+            MappedByteBuffer b = ch.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+            if (b.getInt(0) != MAGIC) throw new IOException("Not a history segment: " + path);
+            if (b.getShort(4) != VERSION) throw new IOException("Unsupported history segment version in " + path);
+
+            HistorySegment seg = new HistorySegment(path, b.getShort(6), maxBytes, writable);
+            seg.buf = b;
+            seg.sampleCount = b.getInt(8);
+            seg.bitLength = b.getLong(16);
+            seg.firstTs = b.getLong(24);
+            seg.lastTs = b.getLong(32);
+
+            if (writable) {
+                seg.channel = ch;
+                GorillaState st = new GorillaState(seg.fieldCount);
+                BitReader in = new BitReader(b, HEADER_BYTES);
+                double[] scratch = new double[seg.fieldCount];
+                for (int i = 0; i < seg.sampleCount; i++) GorillaCodec.decode(in, st, scratch);
+                seg.state = st;
+                // the writer ORs into a partly used byte: drop bits of a row the header never counted
+                int tail = (int) (seg.bitLength & 7);
+                if (tail != 0) {
+                    int at = HEADER_BYTES + (int) (seg.bitLength >>> 3);
+                    b.put(at, (byte) (b.get(at) & (0xFF00 >>> tail)));
+                }
+                seg.writer = new BitWriter(b, HEADER_BYTES, seg.bitLength);
+            } else {
+                ch.close(); // the mapping stays valid after the channel is closed
+            }
+            return seg;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    Path path() { return path; }
+    int sampleCount() { return sampleCount; }
+    long firstTs() { return firstTs; }
+    long lastTs() { return lastTs; }
+
+    /**
+     * Append one row. Returns false when the segment is full (caller rolls to a new one).
+     */
+    boolean tryAppend(long ts, double[] values) throws IOException {
+        if (!writable) throw new IllegalStateException("segment opened read-only");
+        long neededBytes = HEADER_BYTES + ((bitLength + GorillaCodec.maxBitsPerRow(fieldCount) + 7) >>> 3);
+        if (neededBytes > maxBytes) return false;
+        if (neededBytes > buf.capacity()) {
+            long newSize = Math.min(maxBytes, Math.max(neededBytes, (long) buf.capacity() + GROW_BYTES));
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+            writer.rebind(buf);
+        }
+
+        GorillaCodec.encode(writer, state, ts, values);
+        int from = HEADER_BYTES + (int) (bitLength >>> 3);
+        int to = HEADER_BYTES + (int) ((writer.bitPosition() + 7) >>> 3);
+        buf.force(from, to - from);
+        bitLength = writer.bitPosition();
+        if (sampleCount == 0) firstTs = ts;
+        lastTs = ts;
+        sampleCount++;
+        writeHeader();
+        return true;
+    }
+
+    /** Decode every row whose timestamp is in [fromTs, toTs] and hand it to the consumer. */
+    void scan(long fromTs, long toTs, SampleSink sink) {
+        if (sampleCount == 0 || lastTs < fromTs || firstTs > toTs) return;
+        ByteBuffer view = buf.duplicate();
+        BitReader in = new BitReader(view, HEADER_BYTES);
+        GorillaState st = new GorillaState(fieldCount);
+        int n = sampleCount;
+        for (int i = 0; i < n; i++) {
+            double[] row = new double[fieldCount];
+            long ts = GorillaCodec.decode(in, st, row);
+            if (ts > toTs) break;
+            if (ts >= fromTs) sink.accept(ts, row);
+        }
+    }
+
+    private void writeHeader() {
+        buf.putInt(8, sampleCount);
+        buf.putLong(16, bitLength);
+        buf.putLong(24, firstTs);
+        buf.putLong(32, lastTs);
+    }
+
+    void flush() {
+        if (writable && buf != null) buf.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (channel != null && channel.isOpen()) channel.close();
+    }
+
+    static boolean isSegmentFile(Path p) {
+        String n = p.getFileName().toString();
+        return n.startsWith("seg-") && n.endsWith(".shs") && Files.isRegularFile(p);
+    }
+
+    interface SampleSink {
+        void accept(long ts, double[] values);
+    }
+}
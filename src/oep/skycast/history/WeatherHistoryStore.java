@@ -0,0 +1,201 @@
+package oep.skycast.history;
+
+import oep.skycast.model.WeatherData;
+import oep.skycast.util.LogUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * WeatherHistoryStore - append-only, per-location time series of observed weather.
+ *
+ * Layout: {@code <root>/<location-key>/seg-<firstEpochSecond>.shs} ({@code seg-<first>-<n>.shs}
+ * when a segment with that first timestamp already exists). Each location has one
+ * active (writable) segment; when it reaches the segment size a new one is started.
+ * Queries only decode segments whose [first, last] range overlaps the request.
+ */
+public class WeatherHistoryStore implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_BYTES = 256 * 1024;
+
+    private final Path root;
+    private final int segmentBytes;
+    private final Map<String, HistorySegment> active = new HashMap<>();
+
+    public WeatherHistoryStore(Path root) {
+        this(root, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public WeatherHistoryStore(Path root, int segmentBytes) {
+        if (segmentBytes < HistorySegment.HEADER_BYTES + 1024) throw new IllegalArgumentException("segment too small");
+        this.root = root;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /** Record an observation taken now. */
+    public void record(String location, WeatherData w) throws IOException {
+        append(location, HistorySample.of(Instant.now().getEpochSecond(), w));
+    }
+
+    /**
+     * Append a sample. Samples older than the last stored one for the same location are
+     * dropped (the store is append-only and range scans rely on ordering).
+     */
+    public synchronized boolean append(String location, HistorySample sample) throws IOException {
+        String key = locationKey(location);
+        HistorySegment seg = activeSegment(key);
+        if (seg != null && seg.sampleCount() > 0 && sample.getEpochSeconds() < seg.lastTs()) return false;
+
+        if (seg == null || !seg.tryAppend(sample.getEpochSeconds(), sample.values())) {
+            if (seg != null) seg.close();
+            seg = newSegment(key, sample.getEpochSeconds());
+            if (!seg.tryAppend(sample.getEpochSeconds(), sample.values())) {
+                throw new IOException("History segment size too small for a single sample");
+            }
+        }
+        return true;
+    }
+
+    /** All samples for the location in [from, to], oldest first. */
+    public synchronized List<HistorySample> query(String location, Instant from, Instant to) throws IOException {
+        List<HistorySample> out = new ArrayList<>();
+        scan(locationKey(location), from.getEpochSecond(), to.getEpochSecond(),
+                (ts, values) -> out.add(new HistorySample(ts, values)));
+        return out;
+    }
+
+    /** One rollup per calendar day (in {@code zone}) that has samples between the two dates, inclusive. */
+    public synchronized List<DailyRollup> dailyRollup(String location, LocalDate from, LocalDate to, ZoneId zone) throws IOException {
+        long fromTs = from.atStartOfDay(zone).toEpochSecond();
+        long toTs = to.plusDays(1).atStartOfDay(zone).toEpochSecond() - 1;
+        TreeMap<LocalDate, DailyRollup> days = new TreeMap<>();
+        scan(locationKey(location), fromTs, toTs, (ts, values) -> {
+            LocalDate d = Instant.ofEpochSecond(ts).atZone(zone).toLocalDate();
+            days.computeIfAbsent(d, DailyRollup::new).add(values);
+        });
+        return new ArrayList<>(days.values());
+    }
+
+    /** Location keys that have history on disk. */
+    public synchronized List<String> locations() throws IOException {
+        List<String> out = new ArrayList<>();
+        if (!Files.isDirectory(root)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path p : ds) out.add(p.getFileName().toString());
+        }
+        out.sort(null);
+        return out;
+    }
+
+    public synchronized void flush() {
+        for (HistorySegment s : active.values()) s.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (HistorySegment s : active.values()) {
+            try { s.close(); } catch (IOException e) { LogUtil.log("History close failed: " + e.getMessage()); }
+        }
+        active.clear();
+    }
+
+    // ---------------- internals ----------------
+
+    private void scan(String key, long fromTs, long toTs, HistorySegment.SampleSink sink) throws IOException {
+        HistorySegment live = activeSegment(key);
+        for (Path p : segmentFiles(key)) {
+            if (live != null && p.equals(live.path())) {
+                live.scan(fromTs, toTs, sink);
+                continue;
+            }
+            // cheap reject from the file name before mapping: files are named by first timestamp
+            if (firstTsFromName(p) > toTs) break;
+            HistorySegment seg = HistorySegment.open(p, segmentBytes, false);
+            seg.scan(fromTs, toTs, sink);
+        }
+    }
+
+    private HistorySegment activeSegment(String key) throws IOException {
+        HistorySegment seg = active.get(key);
+        if (seg != null) return seg;
+        List<Path> files = segmentFiles(key);
+        if (files.isEmpty()) return null;
+        try {
+            seg = HistorySegment.open(files.get(files.size() - 1), segmentBytes, true);
+        } catch (IOException e) {
+            // damaged tail segment: leave it for inspection and start a fresh one on next append
+            LogUtil.log("History segment unreadable, starting new one: " + e.getMessage());
+            return null;
+        }
+        active.put(key, seg);
+        return seg;
+    }
+
+    private HistorySegment newSegment(String key, long firstTs) throws IOException {
+        Path dir = root.resolve(key);
+        Files.createDirectories(dir);
+        Path p = dir.resolve(String.format("seg-%019d.shs", Math.max(0, firstTs)));
+        int suffix = 1;
+        while (Files.exists(p)) {
+            p = dir.resolve(String.format("seg-%019d-%d.shs", Math.max(0, firstTs), suffix++));
+        }
+        HistorySegment seg = HistorySegment.create(p, HistorySample.FIELD_COUNT, segmentBytes);
+        active.put(key, seg);
+        return seg;
+    }
+
+    private List<Path> segmentFiles(String key) throws IOException {
+        Path dir = root.resolve(key);
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "seg-*.shs")) {
+            for (Path p : ds) if (HistorySegment.isSegmentFile(p)) out.add(p);
+        }
+        // by first timestamp, then collision suffix ("seg-T.shs" before "seg-T-1.shs" before "seg-T-2.shs");
+        // plain name order would put '-' before '.' and "-10" before "-2"
+        out.sort(Comparator.comparingLong(WeatherHistoryStore::firstTsFromName)
+                .thenComparingInt(WeatherHistoryStore::suffixFromName));
+        return out;
+    }
+
+    // 0 for "seg-T.shs", n for "seg-T-n.shs"
+    private static int suffixFromName(Path p) {
+        String n = p.getFileName().toString();
+        if (n.length() <= 4 + 19 || n.charAt(4 + 19) != '-') return 0;
+        try {
+            return Integer.parseInt(n.substring(4 + 19 + 1, n.length() - ".shs".length()));
+        } catch (Exception e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static long firstTsFromName(Path p) {
+        String n = p.getFileName().toString();
+        try {
+            return Long.parseLong(n.substring(4, 4 + 19));
+        } catch (Exception e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /** Normalise a display name ("Surat, Gujarat, India") into a directory-safe key. */
+    public static String locationKey(String location) {
+        String s = location == null ? "" : location.trim().toLowerCase(Locale.ROOT);
+        s = s.replaceAll("[^a-z0-9.,-]+", "_").replace(',', '_').replaceAll("_+", "_");
+        if (s.isEmpty() || s.equals("_")) s = "unknown";
+        return s;
+    }
+}
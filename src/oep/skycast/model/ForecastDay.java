@@ -5,6 +5,7 @@ import java.util.List;
 
 public class ForecastDay {
     private String day;
+    private String date;         // ISO yyyy-MM-dd when the provider knows it (used for on-demand hourly)
     private double minTemp;
     private double maxTemp;
     private String condition;
@@ -15,7 +16,7 @@ public class ForecastDay {
     private String moonPhase;    // "Waxing Gibbous" etc.
     private String moonIllumination; // percent if available
 
-    // hourly breakdown for 24 hours
+    // hourly breakdown for 24 hours (empty in slim summaries until loaded on demand)
     private List<HourlyWeather> hourly = new ArrayList<>();
 
     // optional extras
@@ -32,6 +33,33 @@ public class ForecastDay {
         this.condition = condition;
     }
 
+    /** Copy, including copies of the hours (cached days are handed out this way). */
+    public ForecastDay(ForecastDay other) {
+        this.day = other.day;
+        this.date = other.date;
+        this.minTemp = other.minTemp;
+        this.maxTemp = other.maxTemp;
+        this.condition = other.condition;
+        this.sunrise = other.sunrise;
+        this.sunset = other.sunset;
+        this.moonPhase = other.moonPhase;
+        this.moonIllumination = other.moonIllumination;
+        if (other.hourly != null) {
+            for (HourlyWeather h : other.hourly) this.hourly.add(new HourlyWeather(h));
+        }
+        this.avgHumidity = other.avgHumidity;
+        this.chanceOfRain = other.chanceOfRain;
+        this.iconUrl = other.iconUrl;
+    }
+
+    /** Copies of every day in {@code days} (null stays null). */
+    public static List<ForecastDay> copyAll(List<ForecastDay> days) {
+        if (days == null) return null;
+        List<ForecastDay> out = new ArrayList<>(days.size());
+        for (ForecastDay d : days) out.add(new ForecastDay(d));
+        return out;
+    }
+
     // getters/setters for new fields
     public String getSunrise() { return sunrise; }
     public void setSunrise(String sunrise) { this.sunrise = sunrise; }
@@ -51,6 +79,8 @@ public class ForecastDay {
     // existing getters/setters...
     public String getDay() { return day; }
     public void setDay(String day) { this.day = day; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
     public double getMinTemp() { return minTemp; }
     public void setMinTemp(double minTemp) { this.minTemp = minTemp; }
     public double getMaxTemp() { return maxTemp; }
@@ -21,6 +21,18 @@ public class HourlyWeather {
         this.tempC = tempC;
     }
 
+    public HourlyWeather(HourlyWeather other) {
+        this.time = other.time;
+        this.tempC = other.tempC;
+        this.feelsLikeC = other.feelsLikeC;
+        this.humidity = other.humidity;
+        this.windKph = other.windKph;
+        this.condition = other.condition;
+        this.iconUrl = other.iconUrl;
+        this.precipMm = other.precipMm;
+        this.chanceOfRain = other.chanceOfRain;
+    }
+
     public String getTime() { return time; }
     public void setTime(String time) { this.time = time; }
 
@@ -9,6 +9,7 @@ package oep.skycast.model;
  *  - locationName, region, country, latitude, longitude, tzId, localTime
  *  - aqiPm25 (PM2.5)
  *  - iconUrl (full https URL if available)
+ *  - offline (true when it came from bundled/offline data rather than a live service)
  */
 public class WeatherData {
 
@@ -40,6 +41,9 @@ public class WeatherData {
     // --- icons / presentation ---
     private String iconUrl;
 
+    // --- provenance ---
+    private boolean offline;
+
     // --- constructors ---
 
     public WeatherData() {}
@@ -96,6 +100,15 @@ public class WeatherData {
         this.iconUrl = iconUrl;
     }
 
+    /** Copy constructor. */
+    public WeatherData(WeatherData other) {
+        this(other.temperature, other.feelsLike, other.humidity, other.condition, other.windSpeed,
+                other.pressureMb, other.visibilityKm, other.uv, other.cloud,
+                other.locationName, other.region, other.country, other.latitude, other.longitude,
+                other.tzId, other.localTime, other.aqiPm25, other.iconUrl);
+        this.offline = other.offline;
+    }
+
     // --- getters & setters ---
 
     public double getTemperature() { return temperature; }
@@ -152,6 +165,10 @@ public class WeatherData {
     public String getIconUrl() { return iconUrl; }
     public void setIconUrl(String iconUrl) { this.iconUrl = iconUrl; }
 
+    /** From offline/sample data, not a live service; shown as such and never stored as an observation. */
+    public boolean isOffline() { return offline; }
+    public void setOffline(boolean offline) { this.offline = offline; }
+
     @Override
     public String toString() {
         return "WeatherData{" +
@@ -173,6 +190,7 @@ public class WeatherData {
                 ", localTime='" + localTime + '\'' +
                 ", aqiPm25=" + aqiPm25 +
                 ", iconUrl='" + iconUrl + '\'' +
+                ", offline=" + offline +
                 '}';
     }
 }
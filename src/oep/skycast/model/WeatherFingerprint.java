@@ -0,0 +1,77 @@
+package oep.skycast.model;
+
+import java.util.List;
+
+/**
+ * WeatherFingerprint - 64-bit content hash (FNV-1a) over what the dashboard displays.
+ *
+ * Two results with equal fingerprints render identically, so a refresh that returns the
+ * same data can skip the UI update. Location local time is left out on purpose: it moves
+ * on every fetch but is not shown, and including it would make every tick look changed.
+ * Current conditions and forecast are hashed separately so callers can tell which half
+ * changed. Only the first day's hours are included: later days' hours are loaded on demand
+ * when their card is clicked and filling them in must not count as new data.
+ */
+public final class WeatherFingerprint {
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long h = OFFSET;
+
+    private WeatherFingerprint() {}
+
+    public static long of(WeatherData w) {
+        if (w == null) return 0;
+        WeatherFingerprint f = new WeatherFingerprint();
+        f.add(w.getTemperature()).add(w.getFeelsLike()).add(w.getHumidity()).add(w.getCondition())
+                .add(w.getWindSpeed()).add(w.getPressureMb()).add(w.getVisibilityKm()).add(w.getUv()).add(w.getCloud())
+                .add(w.getLocationName()).add(w.getRegion()).add(w.getCountry())
+                .add(w.getLatitude()).add(w.getLongitude()).add(w.getAqiPm25()).add(w.getIconUrl());
+        return f.h;
+    }
+
+    public static long of(List<ForecastDay> forecast) {
+        if (forecast == null) return 0;
+        WeatherFingerprint f = new WeatherFingerprint();
+        f.add(forecast.size());
+        boolean first = true;
+        for (ForecastDay d : forecast) {
+            f.add(d.getDay()).add(d.getDate()).add(d.getMinTemp()).add(d.getMaxTemp()).add(d.getCondition())
+                    .add(d.getSunrise()).add(d.getSunset()).add(d.getMoonPhase()).add(d.getMoonIllumination())
+                    .add(d.getAvgHumidity()).add(d.getChanceOfRain()).add(d.getIconUrl());
+            List<HourlyWeather> hours = first ? d.getHourly() : null;
+            first = false;
+            f.add(hours == null ? 0 : hours.size());
+            if (hours == null) continue;
+            for (HourlyWeather hw : hours) {
+                f.add(hw.getTime()).add(hw.getTempC()).add(hw.getFeelsLikeC()).add(hw.getHumidity())
+                        .add(hw.getWindKph()).add(hw.getCondition()).add(hw.getPrecipMm()).add(hw.getChanceOfRain());
+            }
+        }
+        return f.h;
+    }
+
+    private WeatherFingerprint add(long v) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (v >>> (i * 8)) & 0xff;
+            h *= PRIME;
+        }
+        return this;
+    }
+
+    private WeatherFingerprint add(int v) { return add((long) v); }
+
+    // NaN, -0.0 etc. hash by bit pattern, so "missing" stays distinct from 0
+    private WeatherFingerprint add(double v) { return add(Double.doubleToLongBits(v)); }
+
+    private WeatherFingerprint add(String s) {
+        if (s == null) return add(-1L);
+        add(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= PRIME;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,70 @@
+package oep.skycast.report;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CsvReportWriter - one row per city, summary text included, for spreadsheets.
+ */
+public class CsvReportWriter implements ReportWriter {
+
+    private static final String HEADER = "query,location,country,fetched_at,temp_c,feels_like_c,humidity,condition,wind_kph,"
+            + "pressure_mb,visibility_km,uv,cloud,pm25,min_c,max_c,sunrise,sunset,summary,overview,error";
+    private static final String NL = System.lineSeparator();
+
+    @Override
+    public void begin(Writer out, int expectedEntries) throws IOException {
+        out.write(HEADER + NL);
+    }
+
+    @Override
+    public void write(Writer out, ReportEntry e) throws IOException {
+        StringBuilder sb = new StringBuilder(512);
+        WeatherData w = e.getCurrent();
+        ForecastDay d = e.getToday();
+        col(sb, e.getQuery());
+        col(sb, w == null ? null : w.getLocationName());
+        col(sb, w == null ? null : w.getCountry());
+        col(sb, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(e.getFetchedAt()));
+        if (w != null) {
+            col(sb, num(w.getTemperature()));
+            col(sb, num(w.getFeelsLike()));
+            col(sb, String.valueOf(w.getHumidity()));
+            col(sb, w.getCondition());
+            col(sb, num(w.getWindSpeed()));
+            col(sb, num(w.getPressureMb()));
+            col(sb, num(w.getVisibilityKm()));
+            col(sb, num(w.getUv()));
+            col(sb, w.getCloud() < 0 ? "" : String.valueOf(w.getCloud()));
+            col(sb, num(w.getAqiPm25()));
+        } else {
+            for (int i = 0; i < 10; i++) col(sb, "");
+        }
+        col(sb, d == null ? "" : num(d.getMinTemp()));
+        col(sb, d == null ? "" : num(d.getMaxTemp()));
+        col(sb, d == null ? null : d.getSunrise());
+        col(sb, d == null ? null : d.getSunset());
+        col(sb, WeatherNarrative.quickSummary(w, d));
+        col(sb, WeatherNarrative.detailedParagraph(w, d));
+        col(sb, e.getError());
+        sb.setLength(sb.length() - 1); // trailing comma
+        out.write(sb.append(NL).toString());
+    }
+
+    @Override
+    public String extension() { return "csv"; }
+
+    private static String num(double d) { return Double.isNaN(d) ? "" : String.valueOf(d); }
+
+    private static void col(StringBuilder sb, String s) {
+        if (s != null) {
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) sb.append(s);
+            else sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+        }
+        sb.append(',');
+    }
+}
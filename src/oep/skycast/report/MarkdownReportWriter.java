@@ -0,0 +1,62 @@
+package oep.skycast.report;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * MarkdownReportWriter - briefing document: one section per city with a headline,
+ * a small fact table and the overview paragraph.
+ */
+public class MarkdownReportWriter implements ReportWriter {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String NL = System.lineSeparator();
+
+    @Override
+    public void begin(Writer out, int expectedEntries) throws IOException {
+        out.write("# SkyCast briefing — " + STAMP.format(LocalDateTime.now()) + NL + NL);
+    }
+
+    @Override
+    public void write(Writer out, ReportEntry e) throws IOException {
+        out.write("## " + escape(e.getDisplayName()) + NL + NL);
+        if (!e.isOk()) {
+            out.write("_No data: " + escape(e.getError() != null ? e.getError() : "unknown error") + "_" + NL + NL);
+            return;
+        }
+        WeatherData w = e.getCurrent();
+        ForecastDay today = e.getToday();
+        out.write("**" + String.format("%.1f°C", w.getTemperature()) + "**, "
+                + escape(w.getCondition() != null ? w.getCondition() : "--") + ". "
+                + WeatherNarrative.quickSummary(w, today) + NL + NL);
+
+        out.write("| Feels like | Humidity | Wind | Pressure | UV | PM2.5 | Today |" + NL);
+        out.write("|---|---|---|---|---|---|---|" + NL);
+        out.write("| " + TextReportWriter.fmt(w.getFeelsLike(), "%.1f°C")
+                + " | " + w.getHumidity() + "%"
+                + " | " + TextReportWriter.fmt(w.getWindSpeed(), "%.1f km/h")
+                + " | " + TextReportWriter.fmt(w.getPressureMb(), "%.0f mb")
+                + " | " + TextReportWriter.fmt(w.getUv(), "%.1f")
+                + " | " + TextReportWriter.fmt(w.getAqiPm25(), "%.1f")
+                + " | " + (today == null ? "--" : String.format("%.0f° / %.0f°", today.getMinTemp(), today.getMaxTemp()))
+                + " |" + NL + NL);
+        out.write(escape(WeatherNarrative.detailedParagraph(w, today)) + NL + NL);
+    }
+
+    @Override
+    public void end(Writer out, int written, int failed) throws IOException {
+        out.write("---" + NL + NL + "_" + written + " locations, " + failed + " without data._" + NL);
+    }
+
+    @Override
+    public String extension() { return "md"; }
+
+    private static String escape(String s) {
+        return s == null ? "" : s.replace("|", "\\|").replace("*", "\\*").replace("_", "\\_");
+    }
+}
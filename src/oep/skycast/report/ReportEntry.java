@@ -0,0 +1,47 @@
+package oep.skycast.report;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+
+import java.time.LocalDateTime;
+
+/**
+ * ReportEntry - one location's data for a report. Only today's forecast day is kept so a
+ * report over hundreds of cities never holds full 7-day/hourly payloads in memory.
+ */
+public class ReportEntry {
+
+    private final String query;
+    private final WeatherData current;
+    private final ForecastDay today;
+    private final String error;
+    private final LocalDateTime fetchedAt;
+
+    public ReportEntry(String query, WeatherData current, ForecastDay today, String error, LocalDateTime fetchedAt) {
+        this.query = query;
+        this.current = current;
+        this.today = today;
+        this.error = error;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public String getQuery() { return query; }
+
+    public WeatherData getCurrent() { return current; }
+
+    public ForecastDay getToday() { return today; }
+
+    public String getError() { return error; }
+
+    public LocalDateTime getFetchedAt() { return fetchedAt; }
+
+    public boolean isOk() { return error == null && current != null; }
+
+    /** Display name: the provider's location name when present, else the query. */
+    public String getDisplayName() {
+        if (current != null && current.getLocationName() != null && !current.getLocationName().isBlank()) {
+            return current.getLocationName();
+        }
+        return query;
+    }
+}
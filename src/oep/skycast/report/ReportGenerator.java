@@ -0,0 +1,237 @@
+package oep.skycast.report;
+
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+import oep.skycast.service.WeatherProvider;
+import oep.skycast.service.WeatherProviders;
+import oep.skycast.util.LogUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ReportGenerator - headless text/Markdown/CSV weather reports for many locations.
+ *
+ * Input is read line by line (one city or "lat,lon" per line, '#' comments skipped) and
+ * never loaded whole. Fetches run on virtual threads with at most --parallel in flight;
+ * results are written in input order through a bounded window, so memory stays flat
+ * whether the list has ten cities or ten thousand.
+ *
+ * Usage:
+ *   java -cp out:lib/gson-2.10.1.jar oep.skycast.report.ReportGenerator
+ *        [--input FILE|-] [--output FILE|DIR|-] [--format text|md|csv] [--parallel N] [--split]
+ *
+ *   --split  one file per city in the --output directory, named like the dashboard's
+ *            snapshot-yyyyMMdd-HHmmss-<city>.txt (default directory resources/logs/snapshots)
+ */
+public class ReportGenerator {
+
+    /** Counters for one run. */
+    public static class Stats {
+        public int written;
+        public int failed;
+        public long wallNanos;
+    }
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final WeatherProvider provider;
+    private final int parallel;
+    private final int window;
+
+    public ReportGenerator(WeatherProvider provider, int parallel) {
+        this.provider = provider;
+        this.parallel = Math.max(1, parallel);
+        // results may finish out of order; this many can wait for their turn to be written
+        this.window = this.parallel * 4;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String input = "-", output = null, format = "text";
+        int parallel = 8;
+        boolean split = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input": input = args[++i]; break;
+                case "--output": output = args[++i]; break;
+                case "--format": format = args[++i]; break;
+                case "--parallel": parallel = Integer.parseInt(args[++i]); break;
+                case "--split": split = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Usage: ReportGenerator [--input FILE|-] [--output FILE|DIR|-] "
+                            + "[--format text|md|csv] [--parallel N] [--split]");
+                    System.exit(2);
+            }
+        }
+        ReportWriter probe;
+        try {
+            probe = ReportWriter.forFormat(format);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        ReportGenerator gen = new ReportGenerator(WeatherProviders.fromPreferences(), parallel);
+        Stats stats;
+        try (BufferedReader in = "-".equals(input)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+            if (split) {
+                stats = gen.runSplit(in, Paths.get(output != null ? output : "resources/logs/snapshots"), format);
+            } else if (output == null || "-".equals(output)) {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                stats = gen.run(in, out, probe);
+                out.flush();
+            } else {
+                try (Writer out = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                    stats = gen.run(in, out, probe);
+                }
+            }
+        }
+        System.err.printf("Report: %d locations (%d without data) in %.2f s%n",
+                stats.written, stats.failed, stats.wallNanos / 1e9);
+        if (stats.failed > 0) System.exit(1);
+    }
+
+    /** Stream every location in {@code in} into a single report on {@code out}. */
+    public Stats run(BufferedReader in, Writer out, ReportWriter writer) throws IOException, InterruptedException {
+        Stats stats = new Stats();
+        long t0 = System.nanoTime();
+        writer.begin(out, -1);
+        pipeline(in, e -> {
+            writer.write(out, e);
+            count(stats, e);
+        });
+        writer.end(out, stats.written, stats.failed);
+        out.flush();
+        stats.wallNanos = System.nanoTime() - t0;
+        return stats;
+    }
+
+    /** Stream every location into its own file under {@code dir}. */
+    public Stats runSplit(BufferedReader in, Path dir, String format) throws IOException, InterruptedException {
+        Files.createDirectories(dir);
+        Stats stats = new Stats();
+        long t0 = System.nanoTime();
+        pipeline(in, e -> {
+            ReportWriter writer = ReportWriter.forFormat(format);
+            String name = "snapshot-" + FILE_STAMP.format(e.getFetchedAt()) + "-" + fileSafe(e.getQuery()) + "." + writer.extension();
+            try (Writer out = Files.newBufferedWriter(dir.resolve(name), StandardCharsets.UTF_8)) {
+                writer.begin(out, 1);
+                writer.write(out, e);
+                writer.end(out, 1, e.isOk() ? 0 : 1);
+            }
+            count(stats, e);
+        });
+        stats.wallNanos = System.nanoTime() - t0;
+        return stats;
+    }
+
+    private interface Sink {
+        void accept(ReportEntry e) throws IOException;
+    }
+
+    private static final CompletableFuture<ReportEntry> END = CompletableFuture.completedFuture(null);
+
+    /*
+     * Reader thread: reads a line, starts its fetch, and queues the future. The caller's thread
+     * takes futures in queue order and writes them. The bounded queue is what keeps memory flat:
+     * when the writer falls behind, the reader blocks instead of buffering results.
+     */
+    private void pipeline(BufferedReader in, Sink sink) throws IOException, InterruptedException {
+        BlockingQueue<CompletableFuture<ReportEntry>> pending = new ArrayBlockingQueue<>(window);
+        Semaphore permits = new Semaphore(parallel);
+        IOException[] readError = new IOException[1];
+
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            Thread reader = Thread.ofVirtual().name("report-reader").start(() -> {
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        String q = line.trim();
+                        if (q.isEmpty() || q.startsWith("#")) continue;
+                        pending.put(CompletableFuture.supplyAsync(() -> fetch(q, permits), exec));
+                    }
+                } catch (IOException e) {
+                    readError[0] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    try { pending.put(END); } catch (InterruptedException ignored) {}
+                }
+            });
+
+            try {
+                while (true) {
+                    CompletableFuture<ReportEntry> f = pending.take();
+                    if (f == END) break;
+                    sink.accept(f.get());
+                }
+            } catch (ExecutionException e) {
+                throw new IOException("Report fetch failed", e.getCause());
+            } finally {
+                reader.interrupt();
+            }
+            reader.join();
+        }
+        if (readError[0] != null) throw readError[0];
+    }
+
+    private ReportEntry fetch(String query, Semaphore permits) {
+        LocalDateTime at = LocalDateTime.now();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ReportEntry(query, null, null, "interrupted", at);
+        }
+        try {
+            WeatherData w = provider.getCurrentWeather(query);
+            ForecastDay today = null;
+            try {
+                // only day 0's min/max/condition are used: the summary skips the hourly payload
+                List<ForecastDay> f = provider.getForecastSummary(query);
+                if (f != null && !f.isEmpty()) today = f.get(0);
+            } catch (WeatherException ignored) {}
+            return new ReportEntry(query, w, today, null, at);
+        } catch (WeatherException e) {
+            return new ReportEntry(query, null, null, e.getMessage(), at);
+        } catch (RuntimeException e) {
+            LogUtil.log("Report fetch failed for " + query + ": " + e);
+            return new ReportEntry(query, null, null, e.getClass().getSimpleName() + ": " + e.getMessage(), at);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void count(Stats stats, ReportEntry e) {
+        stats.written++;
+        if (!e.isOk()) stats.failed++;
+    }
+
+    private static String fileSafe(String q) {
+        String s = q.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        return s.isEmpty() ? "city" : s;
+    }
+}
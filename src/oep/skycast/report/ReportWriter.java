@@ -0,0 +1,32 @@
+package oep.skycast.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * ReportWriter - formats ReportEntry records onto a Writer one at a time.
+ * Entries are written as they arrive and not retained, so report size does not affect memory.
+ */
+public interface ReportWriter {
+
+    /** Called once before the first entry (headers, titles). */
+    default void begin(Writer out, int expectedEntries) throws IOException {}
+
+    void write(Writer out, ReportEntry e) throws IOException;
+
+    /** Called once after the last entry (totals, footers). */
+    default void end(Writer out, int written, int failed) throws IOException {}
+
+    /** File extension without the dot. */
+    String extension();
+
+    static ReportWriter forFormat(String format) {
+        switch (format == null ? "" : format.toLowerCase(Locale.ROOT)) {
+            case "text": case "txt": return new TextReportWriter();
+            case "md": case "markdown": return new MarkdownReportWriter();
+            case "csv": return new CsvReportWriter();
+            default: throw new IllegalArgumentException("Unsupported report format: " + format);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package oep.skycast.report;
+
+import oep.skycast.model.WeatherData;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * TextReportWriter - the resources/logs/snapshots/snapshot-*.txt layout, one block per city.
+ */
+public class TextReportWriter implements ReportWriter {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NL = System.lineSeparator();
+
+    private boolean first = true;
+
+    @Override
+    public void write(Writer out, ReportEntry e) throws IOException {
+        if (!first) out.write(NL + "----------------------------------------" + NL + NL);
+        first = false;
+
+        out.write("SkyCast Snapshot — " + STAMP.format(e.getFetchedAt()) + NL);
+        out.write("City: " + e.getQuery() + NL);
+        if (!e.isOk()) {
+            out.write("Error: " + (e.getError() != null ? e.getError() : "no data") + NL);
+            return;
+        }
+        WeatherData w = e.getCurrent();
+        out.write(String.format("%.1f°C", w.getTemperature()) + NL);
+        out.write("Condition: " + (w.getCondition() != null ? w.getCondition() : "--") + NL);
+        out.write(String.format("Feels like: %.1f°C | Humidity: %d%% | Wind: %.1f km/h",
+                w.getFeelsLike(), w.getHumidity(), w.getWindSpeed()) + NL);
+        out.write("Pressure: " + fmt(w.getPressureMb(), "%.0f hPa")
+                + " | Visibility: " + fmt(w.getVisibilityKm(), "%.1f km")
+                + " | UV: " + fmt(w.getUv(), "%.1f")
+                + " | Clouds: " + (w.getCloud() < 0 ? "--" : w.getCloud() + "%") + NL);
+        out.write(NL + "Overview:" + NL);
+        out.write(WeatherNarrative.detailedParagraph(w, e.getToday()) + NL);
+    }
+
+    @Override
+    public String extension() { return "txt"; }
+
+    static String fmt(double v, String pattern) {
+        return Double.isNaN(v) ? "--" : String.format(pattern, v);
+    }
+}
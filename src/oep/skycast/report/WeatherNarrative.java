@@ -0,0 +1,52 @@
+package oep.skycast.report;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+
+/**
+ * WeatherNarrative - plain-language summaries of a WeatherData reading.
+ * Shared by the dashboard overview box and the report writers.
+ */
+public final class WeatherNarrative {
+
+    private WeatherNarrative() {}
+
+    /** One-line headline for the current condition. */
+    public static String quickSummary(WeatherData w, ForecastDay today) {
+        if (w == null) return "";
+        String c = (w.getCondition() != null) ? w.getCondition().toLowerCase() : "";
+        if (c.contains("rain") || c.contains("shower") || c.contains("drizzle")) return "Rain expected — carry an umbrella.";
+        if (c.contains("snow")) return "Snow or wintry conditions expected.";
+        if (c.contains("cloud") || c.contains("overcast")) return "Mostly cloudy with occasional sun.";
+        if (c.contains("mist") || c.contains("fog")) return "Low visibility due to mist/fog.";
+        if (c.contains("clear") || c.contains("sun")) return "Clear skies and sunny — great weather.";
+        return "Typical weather conditions — check details below.";
+    }
+
+    /** Multi-sentence overview: temperature, wind, visibility, astro and air quality. */
+    public static String detailedParagraph(WeatherData w, ForecastDay today) {
+        if (w == null) return "";
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(String.format("Temperature %.1f°C (feels like %.1f°C). ", w.getTemperature(), w.getFeelsLike()));
+        if (w.getCondition() != null) sb.append(w.getCondition()).append(". ");
+        if (w.getHumidity() >= 0) sb.append("Humidity ").append(w.getHumidity()).append("%, ");
+        if (!Double.isNaN(w.getWindSpeed())) sb.append(String.format("wind %.1f km/h. ", w.getWindSpeed()));
+        if (!Double.isNaN(w.getVisibilityKm())) sb.append(String.format("Visibility %.1f km. ", w.getVisibilityKm()));
+        if (!Double.isNaN(w.getPressureMb())) sb.append(String.format("Pressure %.0f mb. ", w.getPressureMb()));
+        if (!Double.isNaN(w.getUv())) sb.append(String.format("UV index %.1f. ", w.getUv()));
+        if (w.getCloud() >= 0) sb.append("Cloud cover ").append(w.getCloud()).append("%. ");
+
+        if (today != null) {
+            if (today.getSunrise() != null) sb.append("Sunrise: ").append(today.getSunrise()).append(". ");
+            if (today.getSunset() != null) sb.append("Sunset: ").append(today.getSunset()).append(". ");
+            if (today.getMoonPhase() != null) sb.append("Moon: ").append(today.getMoonPhase()).append(". ");
+        }
+
+        if (!Double.isNaN(w.getAqiPm25())) {
+            sb.append(String.format("Air quality (PM2.5) %.1f µg/m³. ", w.getAqiPm25()));
+            if (w.getAqiPm25() > 35) sb.append("Air quality is moderate/poor — sensitive groups should take care. ");
+        }
+
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,102 @@
+package oep.skycast.server;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * ResponseCache - shared cache of already-serialized responses.
+ *
+ * Entries hold the final body bytes so a hit is a plain write. Concurrent misses for the
+ * same key share one upstream call (single-flight), so N dashboards asking for the same
+ * city at the same moment cost one weatherapi request.
+ */
+public class ResponseCache {
+
+    /** Serialized response plus its status and expiry. */
+    public static final class Entry {
+        final int status;
+        final byte[] body;
+        final long expiresAtMillis;
+
+        Entry(int status, byte[] body, long expiresAtMillis) {
+            this.status = status;
+            this.body = body;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean fresh(long now) { return now < expiresAtMillis; }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong coalesced = new AtomicLong();
+
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = Math.max(16, maxEntries);
+    }
+
+    /** Fresh entry or null. */
+    public Entry getFresh(String key) {
+        Entry e = entries.get(key);
+        if (e != null && e.fresh(System.currentTimeMillis())) {
+            hits.incrementAndGet();
+            return e;
+        }
+        return null;
+    }
+
+    /**
+     * Return the fresh entry for {@code key}, or run {@code loader} once for all concurrent
+     * callers and cache what it produced.
+     */
+    public Entry getOrLoad(String key, Supplier<Entry> loader) {
+        Entry e = getFresh(key);
+        if (e != null) return e;
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.join();
+        }
+        misses.incrementAndGet();
+        try {
+            Entry loaded = loader.get();
+            put(key, loaded);
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void put(String key, Entry e) {
+        if (entries.size() >= maxEntries) evictExpiredOrOldest();
+        entries.put(key, e);
+    }
+
+    public int size() { return entries.size(); }
+
+    private void evictExpiredOrOldest() {
+        long now = System.currentTimeMillis();
+        String oldestKey = null;
+        long oldest = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry> me = it.next();
+            if (!me.getValue().fresh(now)) { it.remove(); continue; }
+            if (me.getValue().expiresAtMillis < oldest) { oldest = me.getValue().expiresAtMillis; oldestKey = me.getKey(); }
+        }
+        if (entries.size() >= maxEntries && oldestKey != null) entries.remove(oldestKey);
+    }
+}
@@ -0,0 +1,243 @@
+package oep.skycast.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.service.GeocodeService;
+import oep.skycast.service.WeatherProvider;
+import oep.skycast.service.WeatherProviders;
+import oep.skycast.util.LogUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WeatherServer - shares one upstream WeatherProvider between many SkyCast dashboards.
+ *
+ * Endpoints (all GET, JSON):
+ *   /v1/current?q=...    WeatherData
+ *   /v1/forecast?q=...   List of ForecastDay
+ *   /v1/summary?q=...    List of ForecastDay without hourly arrays (except where cheap)
+ *   /v1/hourly?q=...&dt=yyyy-MM-dd   List of HourlyWeather for one day
+ *   /v1/suggest?q=...    List of GeocodeService.DisplayPlace
+ *   /health              cache and load-shedding counters
+ *
+ * Requests run on virtual threads. Cache hits are served from pre-serialized bytes;
+ * misses go upstream under a bounded number of permits, and when no permit frees up
+ * within a short wait the request is shed with 503 + Retry-After instead of queueing.
+ * Only the one request that actually calls upstream for a key holds a permit; requests
+ * for the same key wait on its result without one, so a single slow city can't use up
+ * the permits every other city needs.
+ *
+ * Usage: java -cp out:lib/gson-2.10.1.jar oep.skycast.server.WeatherServer
+ *        [--port 8085] [--ttl 300] [--max-upstream 16]
+ */
+public class WeatherServer {
+
+    private static final long ERROR_TTL_MILLIS = 30_000;
+    private static final long PERMIT_WAIT_MILLIS = 250;
+
+    /** No upstream permit freed up in time (never cached; every waiter on that load gets a 503). */
+    private static final class ShedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ShedException() { super("shed", null, false, false); }
+    }
+
+    private final WeatherProvider provider;
+    private final GeocodeService geocoder;
+    private final ResponseCache cache = new ResponseCache(5000);
+    private final Semaphore upstreamPermits;
+    private final long ttlMillis;
+    private final Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public WeatherServer(WeatherProvider provider, GeocodeService geocoder, long ttlSeconds, int maxUpstream) {
+        this.provider = provider;
+        this.geocoder = geocoder;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.upstreamPermits = new Semaphore(Math.max(1, maxUpstream));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8085, maxUpstream = 16;
+        long ttl = 300;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--ttl": ttl = Long.parseLong(args[++i]); break;
+                case "--max-upstream": maxUpstream = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Usage: WeatherServer [--port N] [--ttl SECONDS] [--max-upstream N]");
+                    System.exit(2);
+            }
+        }
+        WeatherServer ws = new WeatherServer(WeatherProviders.upstreamFromPreferences(), new GeocodeService(null), ttl, maxUpstream);
+        ws.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(ws::stop));
+        System.err.println("SkyCast server listening on port " + ws.port());
+    }
+
+    public void start(int port) throws IOException {
+        // headers and body go out as separate writes; with Nagle on, delayed ACKs add ~40 ms per response
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(port), 512);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/v1/current", ex -> serve(ex, "current"));
+        server.createContext("/v1/forecast", ex -> serve(ex, "forecast"));
+        server.createContext("/v1/summary", ex -> serve(ex, "summary"));
+        server.createContext("/v1/hourly", ex -> serve(ex, "hourly"));
+        server.createContext("/v1/suggest", ex -> serve(ex, "suggest"));
+        server.createContext("/health", this::health);
+        server.start();
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    public void stop() {
+        if (server != null) server.stop(1);
+        if (executor != null) executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange ex, String kind) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) {
+                send(ex, 405, error("Only GET is supported"), "NONE");
+                return;
+            }
+            String q = queryParam(ex.getRequestURI(), "q");
+            if (q == null || q.isBlank()) {
+                send(ex, 400, error("Missing q parameter"), "NONE");
+                return;
+            }
+            String dt = queryParam(ex.getRequestURI(), "dt");
+            if ("hourly".equals(kind) && (dt == null || !dt.matches("\\d{4}-\\d{2}-\\d{2}"))) {
+                send(ex, 400, error("Missing or invalid dt parameter (yyyy-MM-dd)"), "NONE");
+                return;
+            }
+            String key = kind + "|" + q.trim().toLowerCase(Locale.ROOT) + ("hourly".equals(kind) ? "|" + dt : "");
+
+            ResponseCache.Entry hit = cache.getFresh(key);
+            if (hit != null) {
+                send(ex, hit.status, hit.body, "HIT");
+                return;
+            }
+
+            ResponseCache.Entry e;
+            try {
+                e = cache.getOrLoad(key, () -> loadWithPermit(kind, q.trim(), dt));
+            } catch (RuntimeException re) {
+                if (!(re instanceof ShedException) && !(re.getCause() instanceof ShedException)) throw re;
+                shed.incrementAndGet();
+                ex.getResponseHeaders().set("Retry-After", "1");
+                send(ex, 503, error("Server busy, retry shortly"), "SHED");
+                return;
+            }
+            send(ex, e.status, e.body, "MISS");
+        } catch (RuntimeException re) {
+            LogUtil.log("Server error on " + ex.getRequestURI() + ": " + re);
+            send(ex, 500, error("Internal error"), "NONE");
+        } finally {
+            ex.close();
+        }
+    }
+
+    // load shedding on the single-flight leader: don't pile up behind a slow upstream
+    private ResponseCache.Entry loadWithPermit(String kind, String q, String dt) {
+        try {
+            if (!upstreamPermits.tryAcquire(PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) throw new ShedException();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ShedException();
+        }
+        try {
+            return load(kind, q, dt);
+        } finally {
+            upstreamPermits.release();
+        }
+    }
+
+    private ResponseCache.Entry load(String kind, String q, String dt) {
+        long now = System.currentTimeMillis();
+        try {
+            Object payload;
+            switch (kind) {
+                case "current": payload = provider.getCurrentWeather(q); break;
+                case "forecast": payload = provider.getForecast(q); break;
+                case "summary": payload = provider.getForecastSummary(q); break;
+                case "hourly": payload = provider.getHourly(q, dt); break;
+                default: payload = geocoder.search(q); break;
+            }
+            return new ResponseCache.Entry(200, gson.toJson(payload).getBytes(StandardCharsets.UTF_8), now + ttlMillis);
+        } catch (WeatherException we) {
+            // short negative cache so a bad query doesn't hammer the upstream quota
+            return new ResponseCache.Entry(502, error(we.getMessage()), now + ERROR_TTL_MILLIS);
+        } catch (IOException ioe) {
+            return new ResponseCache.Entry(502, error("Upstream error: " + ioe.getMessage()), now + ERROR_TTL_MILLIS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", ie);
+        }
+    }
+
+    private void health(HttpExchange ex) throws IOException {
+        try {
+            JsonObject o = new JsonObject();
+            o.addProperty("requests", requests.get());
+            o.addProperty("cacheEntries", cache.size());
+            o.addProperty("hits", cache.hits.get());
+            o.addProperty("misses", cache.misses.get());
+            o.addProperty("coalesced", cache.coalesced.get());
+            o.addProperty("shed", shed.get());
+            o.addProperty("upstreamPermitsFree", upstreamPermits.availablePermits());
+            send(ex, 200, gson.toJson(o).getBytes(StandardCharsets.UTF_8), "NONE");
+        } finally {
+            ex.close();
+        }
+    }
+
+    private byte[] error(String msg) {
+        JsonObject o = new JsonObject();
+        o.addProperty("error", msg);
+        return gson.toJson(o).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange ex, int status, byte[] body, String cacheState) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.getResponseHeaders().set("X-Cache", cacheState);
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    static String queryParam(URI uri, String name) {
+        String raw = uri.getRawQuery();
+        if (raw == null) return null;
+        for (String part : raw.split("&")) {
+            int eq = part.indexOf('=');
+            String k = eq < 0 ? part : part.substring(0, eq);
+            if (k.equals(name)) return eq < 0 ? "" : URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+}
@@ -8,37 +8,57 @@ import oep.skycast.exceptions.WeatherException;
 import oep.skycast.model.ForecastDay;
 import oep.skycast.model.HourlyWeather;
 import oep.skycast.model.WeatherData;
+import oep.skycast.service.http.HttpResult;
+import oep.skycast.service.http.HttpTransport;
+import oep.skycast.service.http.HttpTransports;
+import oep.skycast.trace.SearchEvents.HttpExchangeEvent;
+import oep.skycast.trace.SearchEvents.JsonParseEvent;
+import oep.skycast.trace.SearchEvents.ModelBuildEvent;
 import oep.skycast.util.PrefsUtil;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * ApiWeatherProvider — integration with weatherapi.com
  *
  * Requires preference key: weather.api.key
+ * Optional: weather.api.base (endpoint root, default https://api.weatherapi.com/v1),
+ * e.g. to point at a local stub server.
  */
 public class ApiWeatherProvider implements WeatherProvider {
 
-    private static final String BASE_CURRENT = "https://api.weatherapi.com/v1/current.json";
-    private static final String BASE_FORECAST = "https://api.weatherapi.com/v1/forecast.json";
-    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+    public static final String DEFAULT_API_BASE = "https://api.weatherapi.com/v1";
+    private final String baseCurrent;
+    private final String baseForecast;
+    private final HttpTransport transport;
     private final Gson gson = new Gson();
     private final String apiKey;
 
     public ApiWeatherProvider() {
-        this.apiKey = PrefsUtil.get("weather.api.key", "").trim();
+        this(PrefsUtil.get("weather.api.key", "").trim(), HttpTransports.shared(), apiBase());
+    }
+
+    public ApiWeatherProvider(String apiKey, HttpTransport transport) {
+        this(apiKey, transport, apiBase());
+    }
+
+    public ApiWeatherProvider(String apiKey, HttpTransport transport, String apiBase) {
+        this.apiKey = apiKey == null ? "" : apiKey.trim();
+        this.transport = transport;
+        String base = trimSlash(apiBase == null || apiBase.isBlank() ? DEFAULT_API_BASE : apiBase);
+        this.baseCurrent = base + "/current.json";
+        this.baseForecast = base + "/forecast.json";
         if (this.apiKey.isEmpty()) {
             throw new IllegalStateException("weather.api.key missing in preferences");
         }
@@ -47,85 +67,25 @@ public class ApiWeatherProvider implements WeatherProvider {
     @Override
     public WeatherData getCurrentWeather(String city) throws WeatherException {
         try {
-            String url = String.format("%s?key=%s&q=%s&aqi=yes", BASE_CURRENT, apiKey, encode(city));
-
-            HttpRequest req = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-            HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-
-            if (resp.statusCode() != 200) {
-                throw parseApiError(resp.body());
-            }
-
-            JsonObject root = gson.fromJson(resp.body(), JsonObject.class);
-            JsonObject location = root.has("location") && root.get("location").isJsonObject()
-                    ? root.getAsJsonObject("location") : null;
-            JsonObject current = root.has("current") && root.get("current").isJsonObject()
-                    ? root.getAsJsonObject("current") : null;
-
-            if (current == null) throw new WeatherException("Invalid API response (missing current)");
+            String url = String.format("%s?key=%s&q=%s&aqi=yes", baseCurrent, apiKey, encode(city));
 
-            JsonObject cond = current.has("condition") && current.get("condition").isJsonObject()
-                    ? current.getAsJsonObject("condition") : null;
+            HttpResult resp = HttpExchangeEvent.get(transport, "current.json", URI.create(url), Map.of(), null);
 
-            double tempC = getDoubleSafe(current, "temp_c", Double.NaN);
-            double feels = getDoubleSafe(current, "feelslike_c", Double.NaN);
-            int humidity = getIntSafe(current, "humidity", -1);
-            double windKph = getDoubleSafe(current, "wind_kph", Double.NaN);
-            double pressureMb = getDoubleSafe(current, "pressure_mb", Double.NaN);
-            double visKm = getDoubleSafe(current, "vis_km", Double.NaN);
-            double uv = getDoubleSafe(current, "uv", Double.NaN);
-            int cloud = getIntSafe(current, "cloud", -1);
-
-            String condText = cond != null && cond.has("text") ? cond.get("text").getAsString() : null;
-            // weatherapi icons are sometimes like "//cdn.weatherapi.com/..." -> ensure https:
-            String iconUrl = null;
-            if (cond != null && cond.has("icon")) {
-                iconUrl = cond.get("icon").getAsString();
-                if (iconUrl != null && iconUrl.startsWith("//")) iconUrl = "https:" + iconUrl;
-            }
-
-            // location fields
-            String locName = (location != null && location.has("name")) ? location.get("name").getAsString() : null;
-            String region = (location != null && location.has("region")) ? location.get("region").getAsString() : null;
-            String country = (location != null && location.has("country")) ? location.get("country").getAsString() : null;
-            double lat = getDoubleSafe(location, "lat", Double.NaN);
-            double lon = getDoubleSafe(location, "lon", Double.NaN);
-            String tzId = (location != null && location.has("tz_id")) ? location.get("tz_id").getAsString() : null;
-            String localtime = (location != null && location.has("localtime")) ? location.get("localtime").getAsString() : null;
-
-            // air quality (pm2_5) - present under current.air_quality.pm2_5 on some plans
-            double aqiPm25 = Double.NaN;
-            if (current.has("air_quality") && current.get("air_quality").isJsonObject()) {
-                JsonObject aq = current.getAsJsonObject("air_quality");
-                if (aq.has("pm2_5")) {
-                    try { aqiPm25 = aq.get("pm2_5").getAsDouble(); } catch (Exception ignored) {}
-                }
+            if (resp.status() != 200) {
+                throw parseApiError(resp.bodyAsString());
             }
 
-            WeatherData wd = new WeatherData(
-                    tempC,
-                    feels,
-                    humidity < 0 ? 0 : humidity,
-                    condText,
-                    windKph,
-                    pressureMb,
-                    visKm,
-                    uv,
-                    cloud,
-                    locName,
-                    region,
-                    country,
-                    lat,
-                    lon,
-                    tzId,
-                    localtime,
-                    aqiPm25,
-                    iconUrl
-            );
-
-            return wd;
+            String body = resp.bodyAsString();
+            JsonParseEvent parse = JsonParseEvent.start("current.json", body.length());
+            JsonObject root = gson.fromJson(body, JsonObject.class);
+            parse.finish();
+            ModelBuildEvent build = ModelBuildEvent.start("current");
+            WeatherData w = parseCurrent(root);
+            build.finish(1);
+            return w;
 
         } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt(); // keep cancellation visible
             // network issue -> wrap and throw
             throw new WeatherException("Network error while fetching current weather");
         } catch (WeatherException we) {
@@ -137,109 +97,228 @@ public class ApiWeatherProvider implements WeatherProvider {
 
     @Override
     public List<ForecastDay> getForecast(String city) throws WeatherException {
+        // request 7 days (was 5)
+        return fetchForecast(city, "days=7&aqi=yes&alerts=no", true);
+    }
+
+    /**
+     * Seven days without hourly arrays: hour=12 makes weatherapi send one hour object per day
+     * instead of 24, and aqi=no drops per-hour air quality. Roughly a tenth of the full payload.
+     */
+    @Override
+    public List<ForecastDay> getForecastSummary(String city) throws WeatherException {
+        return fetchForecast(city, "days=7&hour=12&aqi=no&alerts=no", false);
+    }
+
+    /** One day's 24 hours via forecast.json?dt=. */
+    @Override
+    public List<HourlyWeather> getHourly(String city, String date) throws WeatherException {
+        if (date == null || date.isBlank()) return Collections.emptyList();
+        List<ForecastDay> days = fetchForecast(city, "days=14&dt=" + encode(date) + "&aqi=no&alerts=no", true);
+        for (ForecastDay d : days) {
+            if (date.equals(d.getDate())) return d.getHourly();
+        }
+        return days.isEmpty() ? Collections.emptyList() : days.get(0).getHourly();
+    }
+
+    private List<ForecastDay> fetchForecast(String city, String params, boolean withHourly) throws WeatherException {
         try {
-            // request 7 days (was 5)
-            String url = String.format("%s?key=%s&q=%s&days=7&aqi=yes&alerts=no", BASE_FORECAST, apiKey, encode(city));
-            HttpRequest req = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-            HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+            String url = String.format("%s?key=%s&q=%s&%s", baseForecast, apiKey, encode(city), params);
+            HttpResult resp = HttpExchangeEvent.get(transport, "forecast.json", URI.create(url), Map.of(), null);
 
-            if (resp.statusCode() != 200) {
-                throw parseApiError(resp.body());
+            if (resp.status() != 200) {
+                throw parseApiError(resp.bodyAsString());
             }
 
-            JsonObject root = gson.fromJson(resp.body(), JsonObject.class);
-            JsonObject forecastObj = root.has("forecast") && root.get("forecast").isJsonObject()
-                    ? root.getAsJsonObject("forecast") : null;
-            if (forecastObj == null || !forecastObj.has("forecastday")) {
-                throw new WeatherException("Invalid API response (missing forecast)");
+            String body = resp.bodyAsString();
+            JsonParseEvent parse = JsonParseEvent.start("forecast.json", body.length());
+            JsonObject root = gson.fromJson(body, JsonObject.class);
+            parse.finish();
+            ModelBuildEvent build = ModelBuildEvent.start(withHourly ? "forecast" : "forecast summary");
+            List<ForecastDay> days = parseForecast(root, withHourly);
+            build.finish(days.size());
+            return days;
+
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt(); // keep cancellation visible
+            throw new WeatherException("Network error while fetching forecast");
+        } catch (WeatherException we) {
+            throw we;
+        } catch (Exception ex) {
+            throw new WeatherException("Failed to parse forecast");
+        }
+    }
+
+    /**
+     * Build WeatherData from a current.json / forecast.json response body.
+     * Also used for cached or replayed weatherapi payloads.
+     */
+    static WeatherData parseCurrent(JsonObject root) throws WeatherException {
+        JsonObject location = root.has("location") && root.get("location").isJsonObject()
+                ? root.getAsJsonObject("location") : null;
+        JsonObject current = root.has("current") && root.get("current").isJsonObject()
+                ? root.getAsJsonObject("current") : null;
+
+        if (current == null) throw new WeatherException("Invalid API response (missing current)");
+
+        JsonObject cond = current.has("condition") && current.get("condition").isJsonObject()
+                ? current.getAsJsonObject("condition") : null;
+
+        double tempC = getDoubleSafe(current, "temp_c", Double.NaN);
+        double feels = getDoubleSafe(current, "feelslike_c", Double.NaN);
+        int humidity = getIntSafe(current, "humidity", -1);
+        double windKph = getDoubleSafe(current, "wind_kph", Double.NaN);
+        double pressureMb = getDoubleSafe(current, "pressure_mb", Double.NaN);
+        double visKm = getDoubleSafe(current, "vis_km", Double.NaN);
+        double uv = getDoubleSafe(current, "uv", Double.NaN);
+        int cloud = getIntSafe(current, "cloud", -1);
+
+        String condText = cond != null && cond.has("text") ? cond.get("text").getAsString() : null;
+        // weatherapi icons are sometimes like "//cdn.weatherapi.com/..." -> ensure https:
+        String iconUrl = null;
+        if (cond != null && cond.has("icon")) {
+            iconUrl = cond.get("icon").getAsString();
+            if (iconUrl != null && iconUrl.startsWith("//")) iconUrl = "https:" + iconUrl;
+        }
+
+        // location fields
+        String locName = (location != null && location.has("name")) ? location.get("name").getAsString() : null;
+        String region = (location != null && location.has("region")) ? location.get("region").getAsString() : null;
+        String country = (location != null && location.has("country")) ? location.get("country").getAsString() : null;
+        double lat = getDoubleSafe(location, "lat", Double.NaN);
+        double lon = getDoubleSafe(location, "lon", Double.NaN);
+        String tzId = (location != null && location.has("tz_id")) ? location.get("tz_id").getAsString() : null;
+        String localtime = (location != null && location.has("localtime")) ? location.get("localtime").getAsString() : null;
+
+        // air quality (pm2_5) - present under current.air_quality.pm2_5 on some plans
+        double aqiPm25 = Double.NaN;
+        if (current.has("air_quality") && current.get("air_quality").isJsonObject()) {
+            JsonObject aq = current.getAsJsonObject("air_quality");
+            if (aq.has("pm2_5")) {
+                try { aqiPm25 = aq.get("pm2_5").getAsDouble(); } catch (Exception ignored) {}
             }
+        }
 
-            JsonArray days = forecastObj.getAsJsonArray("forecastday");
-            List<ForecastDay> list = new ArrayList<>();
-
-            for (JsonElement el : days) {
-                if (!el.isJsonObject()) continue;
-                JsonObject dayObj = el.getAsJsonObject();
-                String dateStr = dayObj.has("date") ? dayObj.get("date").getAsString() : null;
-                String label = (dateStr != null) ? shortDayLabel(dateStr) : "Day";
-
-                JsonObject day = dayObj.has("day") && dayObj.get("day").isJsonObject() ? dayObj.getAsJsonObject("day") : null;
-                JsonObject cond = (day != null && day.has("condition") && day.get("condition").isJsonObject())
-                        ? day.getAsJsonObject("condition") : null;
-
-                double min = (day != null) ? getDoubleSafe(day, "mintemp_c", Double.NaN) : Double.NaN;
-                double max = (day != null) ? getDoubleSafe(day, "maxtemp_c", Double.NaN) : Double.NaN;
-                int avgHumidity = (day != null) ? getIntSafe(day, "avghumidity", -1) : -1;
-                int dailyChance = -1;
-                if (day != null) {
-                    if (day.has("daily_chance_of_rain")) dailyChance = getIntSafe(day, "daily_chance_of_rain", -1);
-                    else if (day.has("daily_chance_of_snow")) dailyChance = getIntSafe(day, "daily_chance_of_snow", -1);
-                }
+        WeatherData wd = new WeatherData(
+                tempC,
+                feels,
+                humidity < 0 ? 0 : humidity,
+                condText,
+                windKph,
+                pressureMb,
+                visKm,
+                uv,
+                cloud,
+                locName,
+                region,
+                country,
+                lat,
+                lon,
+                tzId,
+                localtime,
+                aqiPm25,
+                iconUrl
+        );
+
+        return wd;
+    }
 
-                String condText = (cond != null && cond.has("text")) ? cond.get("text").getAsString() : null;
-                String iconUrl = null;
-                if (cond != null && cond.has("icon")) {
-                    iconUrl = cond.get("icon").getAsString();
-                    if (iconUrl != null && iconUrl.startsWith("//")) iconUrl = "https:" + iconUrl;
-                }
+    /**
+     * Build the day list from a forecast.json response body.
+     */
+    static List<ForecastDay> parseForecast(JsonObject root) throws WeatherException {
+        return parseForecast(root, true);
+    }
 
-                ForecastDay fd = new ForecastDay(label, min, max, condText);
-                fd.setAvgHumidity(avgHumidity);
-                fd.setChanceOfRain(dailyChance);
-                fd.setIconUrl(iconUrl);
-
-                // astro data
-                if (dayObj.has("astro") && dayObj.get("astro").isJsonObject()) {
-                    JsonObject astro = dayObj.getAsJsonObject("astro");
-                    if (astro.has("sunrise")) fd.setSunrise(astro.get("sunrise").getAsString());
-                    if (astro.has("sunset")) fd.setSunset(astro.get("sunset").getAsString());
-                    if (astro.has("moon_phase")) fd.setMoonPhase(astro.get("moon_phase").getAsString());
-                    if (astro.has("moon_illumination")) fd.setMoonIllumination(astro.get("moon_illumination").getAsString());
-                }
+    /**
+     * @param withHourly false to skip the per-day hour arrays (slim summaries)
+     */
+    static List<ForecastDay> parseForecast(JsonObject root, boolean withHourly) throws WeatherException {
+        JsonObject forecastObj = root.has("forecast") && root.get("forecast").isJsonObject()
+                ? root.getAsJsonObject("forecast") : null;
+        if (forecastObj == null || !forecastObj.has("forecastday")) {
+            throw new WeatherException("Invalid API response (missing forecast)");
+        }
+
+        JsonArray days = forecastObj.getAsJsonArray("forecastday");
+        List<ForecastDay> list = new ArrayList<>();
+
+        for (JsonElement el : days) {
+            if (!el.isJsonObject()) continue;
+            JsonObject dayObj = el.getAsJsonObject();
+            String dateStr = dayObj.has("date") ? dayObj.get("date").getAsString() : null;
+            String label = (dateStr != null) ? shortDayLabel(dateStr) : "Day";
+
+            JsonObject day = dayObj.has("day") && dayObj.get("day").isJsonObject() ? dayObj.getAsJsonObject("day") : null;
+            JsonObject cond = (day != null && day.has("condition") && day.get("condition").isJsonObject())
+                    ? day.getAsJsonObject("condition") : null;
+
+            double min = (day != null) ? getDoubleSafe(day, "mintemp_c", Double.NaN) : Double.NaN;
+            double max = (day != null) ? getDoubleSafe(day, "maxtemp_c", Double.NaN) : Double.NaN;
+            int avgHumidity = (day != null) ? getIntSafe(day, "avghumidity", -1) : -1;
+            int dailyChance = -1;
+            if (day != null) {
+                if (day.has("daily_chance_of_rain")) dailyChance = getIntSafe(day, "daily_chance_of_rain", -1);
+                else if (day.has("daily_chance_of_snow")) dailyChance = getIntSafe(day, "daily_chance_of_snow", -1);
+            }
+
+            String condText = (cond != null && cond.has("text")) ? cond.get("text").getAsString() : null;
+            String iconUrl = null;
+            if (cond != null && cond.has("icon")) {
+                iconUrl = cond.get("icon").getAsString();
+                if (iconUrl != null && iconUrl.startsWith("//")) iconUrl = "https:" + iconUrl;
+            }
 
-                // hourly
-                if (dayObj.has("hour") && dayObj.get("hour").isJsonArray()) {
-                    JsonArray hours = dayObj.getAsJsonArray("hour");
-                    List<HourlyWeather> hourly = new ArrayList<>();
-                    for (JsonElement he : hours) {
-                        if (!he.isJsonObject()) continue;
-                        JsonObject ho = he.getAsJsonObject();
-                        String time = ho.has("time") ? ho.get("time").getAsString() : null;
-                        double temp = getDoubleSafe(ho, "temp_c", Double.NaN);
-                        HourlyWeather hw = new HourlyWeather();
-                        hw.setTime(time);
-                        hw.setTempC(temp);
-                        hw.setFeelsLikeC(getDoubleSafe(ho, "feelslike_c", Double.NaN));
-                        hw.setHumidity(getIntSafe(ho, "humidity", -1));
-                        hw.setWindKph(getDoubleSafe(ho, "wind_kph", Double.NaN));
-                        hw.setPrecipMm(getDoubleSafe(ho, "precip_mm", Double.NaN));
-                        hw.setChanceOfRain(getIntSafe(ho, "chance_of_rain", -1));
-                        if (ho.has("condition") && ho.get("condition").isJsonObject()) {
-                            JsonObject hcond = ho.getAsJsonObject("condition");
-                            if (hcond.has("text")) hw.setCondition(hcond.get("text").getAsString());
-                            if (hcond.has("icon")) {
-                                String hi = hcond.get("icon").getAsString();
-                                if (hi != null && hi.startsWith("//")) hi = "https:" + hi;
-                                hw.setIconUrl(hi);
-                            }
+            ForecastDay fd = new ForecastDay(label, min, max, condText);
+            fd.setDate(dateStr);
+            fd.setAvgHumidity(avgHumidity);
+            fd.setChanceOfRain(dailyChance);
+            fd.setIconUrl(iconUrl);
+
+            // astro data
+            if (dayObj.has("astro") && dayObj.get("astro").isJsonObject()) {
+                JsonObject astro = dayObj.getAsJsonObject("astro");
+                if (astro.has("sunrise")) fd.setSunrise(astro.get("sunrise").getAsString());
+                if (astro.has("sunset")) fd.setSunset(astro.get("sunset").getAsString());
+                if (astro.has("moon_phase")) fd.setMoonPhase(astro.get("moon_phase").getAsString());
+                if (astro.has("moon_illumination")) fd.setMoonIllumination(astro.get("moon_illumination").getAsString());
+            }
+
+            // hourly
+            if (withHourly && dayObj.has("hour") && dayObj.get("hour").isJsonArray()) {
+                JsonArray hours = dayObj.getAsJsonArray("hour");
+                List<HourlyWeather> hourly = new ArrayList<>();
+                for (JsonElement he : hours) {
+                    if (!he.isJsonObject()) continue;
+                    JsonObject ho = he.getAsJsonObject();
+                    String time = ho.has("time") ? ho.get("time").getAsString() : null;
+                    double temp = getDoubleSafe(ho, "temp_c", Double.NaN);
+                    HourlyWeather hw = new HourlyWeather();
+                    hw.setTime(time);
+                    hw.setTempC(temp);
+                    hw.setFeelsLikeC(getDoubleSafe(ho, "feelslike_c", Double.NaN));
+                    hw.setHumidity(getIntSafe(ho, "humidity", -1));
+                    hw.setWindKph(getDoubleSafe(ho, "wind_kph", Double.NaN));
+                    hw.setPrecipMm(getDoubleSafe(ho, "precip_mm", Double.NaN));
+                    hw.setChanceOfRain(getIntSafe(ho, "chance_of_rain", -1));
+                    if (ho.has("condition") && ho.get("condition").isJsonObject()) {
+                        JsonObject hcond = ho.getAsJsonObject("condition");
+                        if (hcond.has("text")) hw.setCondition(hcond.get("text").getAsString());
+                        if (hcond.has("icon")) {
+                            String hi = hcond.get("icon").getAsString();
+                            if (hi != null && hi.startsWith("//")) hi = "https:" + hi;
+                            hw.setIconUrl(hi);
                         }
-                        hourly.add(hw);
                     }
-                    fd.setHourly(hourly);
+                    hourly.add(hw);
                 }
-
-                list.add(fd);
+                fd.setHourly(hourly);
             }
 
-            return list;
-
-        } catch (IOException | InterruptedException e) {
-            throw new WeatherException("Network error while fetching forecast");
-        } catch (WeatherException we) {
-            throw we;
-        } catch (Exception ex) {
-            throw new WeatherException("Failed to parse forecast");
+            list.add(fd);
         }
+
+        return list;
     }
 
     // helper: parse API error JSON (weatherapi returns {"error":{"message":"..."} })
@@ -254,6 +333,16 @@ public class ApiWeatherProvider implements WeatherProvider {
         return new WeatherException("API returned error or invalid response");
     }
 
+    /** Endpoint root from preference weather.api.base, without trailing slash. */
+    public static String apiBase() {
+        String b = PrefsUtil.get("weather.api.base", DEFAULT_API_BASE).trim();
+        return trimSlash(b.isEmpty() ? DEFAULT_API_BASE : b);
+    }
+
+    private static String trimSlash(String s) {
+        return s.endsWith("/") ? s.substring(0, s.length() - 1) : s;
+    }
+
     private static String encode(String s) {
         return URLEncoder.encode(s, StandardCharsets.UTF_8);
     }
@@ -268,7 +357,7 @@ public class ApiWeatherProvider implements WeatherProvider {
         return fallback;
     }
 
-    private static String shortDayLabel(String isoDate) {
+    static String shortDayLabel(String isoDate) {
         try {
             LocalDate ld = LocalDate.parse(isoDate);
             DayOfWeek dow = ld.getDayOfWeek();
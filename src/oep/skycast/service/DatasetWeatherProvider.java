@@ -0,0 +1,562 @@
+package oep.skycast.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import oep.skycast.cache.WeatherCacheFile;
+import oep.skycast.cache.WeatherCacheView;
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+import oep.skycast.util.LogUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.TextStyle;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DatasetWeatherProvider - offline provider over a multi-city dataset.
+ *
+ * The source is a file or a directory of JSON and .skyc files, parsed once into an index keyed
+ * by normalised place name and by 1° lat/lon grid cell. Each file may hold one entry, an
+ * array of entries, or {"cities": [...]}. An entry can be in:
+ *  - the sample-data schema: {"name", "lat", "lon", "current": {"temperature", ...}, "forecast": [...]}
+ *  - the weatherapi schema:  {"location": {...}, "current": {"temp_c", ...}, "forecast": {"forecastday": [...]}}
+ *  - the OpenWeatherMap cache schema in resources/cache ({"main": {...}} / {"list": [...]})
+ * Entries without a name take it from the file name ("weather-surat.json", "surat_forecast.json" -> "surat"),
+ * and entries with the same name are merged, so a current file and a forecast file combine.
+ *
+ * A .skyc file (the binary format of {@link WeatherCacheFile}, one place each) is mapped rather
+ * than parsed: only its name and coordinates are read up front, and the weather is decoded,
+ * CRC checked first, when a lookup first needs it. "x.skyc" replaces "x.json" in the same
+ * directory. {@link #main} converts a JSON dataset into one .skyc file per place.
+ *
+ * A WatchService thread re-parses only the file that changed and swaps in a rebuilt index.
+ * Callers get copies of the stored models, so nothing they do changes the index.
+ */
+public class DatasetWeatherProvider implements WeatherProvider, Closeable {
+
+    private static final Pattern LAT_LON = Pattern.compile("^\\s*(-?\\d+(?:\\.\\d+)?)\\s*,\\s*(-?\\d+(?:\\.\\d+)?)\\s*$");
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    /** One place in the dataset. */
+    static final class Entry {
+        String name;
+        String region;
+        String country;
+        double lat = Double.NaN;
+        double lon = Double.NaN;
+        WeatherData current;
+        List<ForecastDay> forecast;
+        // set for .skyc entries until decoded
+        WeatherCacheView currentView;
+        WeatherCacheView forecastView;
+
+        boolean hasCurrent() { return current != null || currentView != null; }
+
+        boolean hasForecast() { return forecast != null || forecastView != null; }
+
+        synchronized WeatherData current() throws WeatherException {
+            if (currentView != null) {
+                try {
+                    currentView.verify();
+                    current = currentView.current();
+                } catch (IOException ex) {
+                    throw new WeatherException("Offline data for " + name + " is corrupt: " + ex.getMessage());
+                }
+                currentView = null;
+            }
+            return current;
+        }
+
+        synchronized List<ForecastDay> forecast() throws WeatherException {
+            if (forecastView != null) {
+                try {
+                    forecastView.verify();
+                    forecast = forecastView.forecast();
+                } catch (IOException ex) {
+                    throw new WeatherException("Offline data for " + name + " is corrupt: " + ex.getMessage());
+                }
+                forecastView = null;
+            }
+            return forecast;
+        }
+    }
+
+    /** Immutable lookup structure, replaced wholesale after a reload. */
+    private static final class Index {
+        final Map<String, Entry> byName = new HashMap<>();
+        final Map<Long, List<Entry>> byCell = new HashMap<>();
+        int size;
+    }
+
+    private final Path source;
+    private final double maxDistanceKm;
+    private final Map<Path, List<Entry>> byFile = new ConcurrentHashMap<>();
+    private volatile Index index = new Index();
+    private WatchService watcher;
+    private Thread watchThread;
+
+    public DatasetWeatherProvider(Path source, double maxDistanceKm, boolean watch) throws IOException {
+        this.source = source.toAbsolutePath();
+        this.maxDistanceKm = maxDistanceKm;
+        for (Path p : dataFiles()) loadFile(p);
+        rebuildIndex();
+        if (watch) startWatching();
+    }
+
+    public int size() { return index.size; }
+
+    @Override
+    public WeatherData getCurrentWeather(String city) throws WeatherException {
+        Entry e = find(city);
+        if (!e.hasCurrent()) throw new WeatherException("No offline current weather for: " + city);
+        WeatherData w = new WeatherData(e.current());
+        w.setOffline(true);
+        return w;
+    }
+
+    @Override
+    public List<ForecastDay> getForecast(String city) throws WeatherException {
+        Entry e = find(city);
+        return e.hasForecast() ? ForecastDay.copyAll(e.forecast()) : Collections.emptyList();
+    }
+
+    private Entry find(String query) throws WeatherException {
+        if (query == null || query.isBlank()) throw new WeatherException("Empty query");
+        Index idx = index;
+        Matcher m = LAT_LON.matcher(query);
+        if (m.matches()) {
+            Entry e = nearest(idx, Double.parseDouble(m.group(1)), Double.parseDouble(m.group(2)));
+            if (e != null) return e;
+            throw new WeatherException("No offline data near " + query.trim());
+        }
+        String key = normalize(query);
+        Entry e = idx.byName.get(key);
+        if (e == null && key.contains(",")) e = idx.byName.get(key.substring(0, key.indexOf(',')));
+        if (e == null) throw new WeatherException("No offline data for: " + query.trim());
+        return e;
+    }
+
+    private Entry nearest(Index idx, double lat, double lon) {
+        // cells within maxDistanceKm: a degree of latitude is ~111 km everywhere, a degree of
+        // longitude shrinks with cos(latitude), so take the widest the search can reach
+        long latSpan = (long) Math.ceil(maxDistanceKm / KM_PER_DEGREE);
+        double farLat = Math.min(90, Math.abs(lat) + latSpan);
+        double lonKm = KM_PER_DEGREE * Math.cos(Math.toRadians(farLat));
+        long lonSpan = lonKm < 1e-6 ? 180 : Math.min(180, (long) Math.ceil(maxDistanceKm / lonKm));
+
+        Entry best = null;
+        double bestKm = maxDistanceKm;
+        if ((2 * latSpan + 1) * (2 * lonSpan + 1) > idx.byCell.size()) {
+            // wider than the dataset: check every place
+            for (List<Entry> cell : idx.byCell.values()) {
+                for (Entry e : cell) {
+                    double km = haversineKm(lat, lon, e.lat, e.lon);
+                    if (km <= bestKm) { bestKm = km; best = e; }
+                }
+            }
+            return best;
+        }
+        long la = (long) Math.floor(lat), lo = (long) Math.floor(lon);
+        for (long y = Math.max(-90, la - latSpan); y <= Math.min(90, la + latSpan); y++) {
+            for (long dx = -lonSpan; dx <= lonSpan; dx++) {
+                List<Entry> cell = idx.byCell.get(cellKey(y, lonCell(lo + dx)));
+                if (cell == null) continue;
+                for (Entry e : cell) {
+                    double km = haversineKm(lat, lon, e.lat, e.lon);
+                    if (km <= bestKm) { bestKm = km; best = e; }
+                }
+            }
+        }
+        return best;
+    }
+
+    // ---------------- loading ----------------
+
+    private List<Path> dataFiles() throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (Files.isDirectory(source)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(source, "*.{json,skyc}")) {
+                for (Path p : ds) out.add(p);
+            }
+        } else if (Files.exists(source)) {
+            out.add(source);
+        }
+        out.sort(null);
+        return out;
+    }
+
+    private void loadFile(Path file) {
+        if (file.getFileName().toString().endsWith(".skyc")) {
+            loadBinary(file);
+            return;
+        }
+        if (Files.isDirectory(source) && Files.exists(binarySibling(file))) {
+            byFile.remove(file.toAbsolutePath());
+            return;
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonElement root = JsonParser.parseReader(r);
+            String fallbackName = nameFromFile(file);
+            if (root.isJsonArray()) {
+                addAll(root.getAsJsonArray(), fallbackName, entries);
+            } else if (root.isJsonObject() && root.getAsJsonObject().has("cities") && root.getAsJsonObject().get("cities").isJsonArray()) {
+                addAll(root.getAsJsonObject().getAsJsonArray("cities"), fallbackName, entries);
+            } else if (root.isJsonObject()) {
+                Entry e = parseEntry(root.getAsJsonObject(), fallbackName);
+                if (e != null) entries.add(e);
+            }
+            byFile.put(file.toAbsolutePath(), entries);
+        } catch (Exception ex) {
+            // keep whatever we had for this file; a half-written file will be retried on its next event
+            LogUtil.log("Offline dataset: skipped " + file.getFileName() + ": " + ex.getMessage());
+        }
+    }
+
+    private void loadBinary(Path file) {
+        try {
+            WeatherCacheView v = WeatherCacheFile.open(file);
+            if (v == null) return;
+            Entry e = new Entry();
+            e.name = v.locationName();
+            if (e.name == null) e.name = v.query();
+            if (e.name == null) e.name = nameFromFile(file);
+            e.region = v.region();
+            e.country = v.country();
+            e.lat = v.latitude();
+            e.lon = v.longitude();
+            if (v.hasCurrent()) e.currentView = v;
+            if (v.dayCount() > 0) e.forecastView = v;
+            List<Entry> entries = new ArrayList<>();
+            if (e.name != null && (e.hasCurrent() || e.hasForecast())) entries.add(e);
+            byFile.put(file.toAbsolutePath(), entries);
+            byFile.remove(jsonSibling(file).toAbsolutePath());
+        } catch (Exception ex) {
+            LogUtil.log("Offline dataset: skipped " + file.getFileName() + ": " + ex.getMessage());
+        }
+    }
+
+    private void addAll(JsonArray arr, String fallbackName, List<Entry> out) {
+        for (JsonElement el : arr) {
+            if (!el.isJsonObject()) continue;
+            Entry e = parseEntry(el.getAsJsonObject(), arr.size() == 1 ? fallbackName : null);
+            if (e != null) out.add(e);
+        }
+    }
+
+    private Entry parseEntry(JsonObject o, String fallbackName) {
+        Entry e = new Entry();
+        try {
+            if (o.has("location") || (o.has("current") && o.get("current").isJsonObject() && o.getAsJsonObject("current").has("temp_c"))) {
+                // weatherapi schema
+                if (o.has("current")) e.current = ApiWeatherProvider.parseCurrent(o);
+                if (o.has("forecast") && o.get("forecast").isJsonObject()) e.forecast = ApiWeatherProvider.parseForecast(o);
+                if (e.current != null) {
+                    e.name = e.current.getLocationName();
+                    e.region = e.current.getRegion();
+                    e.country = e.current.getCountry();
+                    e.lat = e.current.getLatitude();
+                    e.lon = e.current.getLongitude();
+                }
+            } else if (o.has("main") || o.has("list")) {
+                parseOpenWeatherCache(o, e);
+            } else {
+                parseSample(o, e);
+            }
+        } catch (Exception ex) {
+            LogUtil.log("Offline dataset: bad entry: " + ex.getMessage());
+            return null;
+        }
+        if (o.has("name") && !o.get("name").isJsonNull() && e.name == null) e.name = o.get("name").getAsString();
+        if (o.has("city") && !o.get("city").isJsonNull() && e.name == null) e.name = o.get("city").getAsString();
+        if (e.name == null) e.name = fallbackName;
+        if (e.name == null || (e.current == null && e.forecast == null)) return null;
+        if (e.current != null && e.current.getLocationName() == null) {
+            e.current.setLocationName(e.name);
+            e.current.setRegion(e.region);
+            e.current.setCountry(e.country);
+            e.current.setLatitude(e.lat);
+            e.current.setLongitude(e.lon);
+        }
+        return e;
+    }
+
+    private static void parseSample(JsonObject o, Entry e) {
+        e.region = str(o, "region");
+        e.country = str(o, "country");
+        e.lat = num(o, "lat");
+        e.lon = num(o, "lon");
+        if (o.has("current") && o.get("current").isJsonObject()) {
+            JsonObject c = o.getAsJsonObject("current");
+            WeatherData w = new WeatherData(
+                    num(c, "temperature"),
+                    num(c, "feelsLike"),
+                    c.has("humidity") ? c.get("humidity").getAsInt() : -1,
+                    str(c, "condition"),
+                    num(c, "windSpeed"));
+            w.setPressureMb(num(c, "pressureMb"));
+            w.setVisibilityKm(num(c, "visibilityKm"));
+            w.setUv(num(c, "uv"));
+            w.setCloud(c.has("cloud") ? c.get("cloud").getAsInt() : -1);
+            w.setAqiPm25(num(c, "aqiPm25"));
+            w.setIconUrl(str(c, "iconUrl"));
+            e.current = w;
+        }
+        if (o.has("forecast") && o.get("forecast").isJsonArray()) {
+            List<ForecastDay> list = new ArrayList<>();
+            for (JsonElement el : o.getAsJsonArray("forecast")) {
+                JsonObject d = el.getAsJsonObject();
+                ForecastDay fd = new ForecastDay(str(d, "day"), num(d, "minTemp"), num(d, "maxTemp"), str(d, "condition"));
+                if (d.has("chanceOfRain")) fd.setChanceOfRain(d.get("chanceOfRain").getAsInt());
+                if (d.has("avgHumidity")) fd.setAvgHumidity(d.get("avgHumidity").getAsInt());
+                list.add(fd);
+            }
+            e.forecast = list;
+        }
+    }
+
+    // OpenWeatherMap-style payloads as found in resources/cache
+    private static void parseOpenWeatherCache(JsonObject o, Entry e) {
+        if (o.has("coord") && o.get("coord").isJsonObject()) {
+            e.lat = num(o.getAsJsonObject("coord"), "lat");
+            e.lon = num(o.getAsJsonObject("coord"), "lon");
+        }
+        if (o.has("sys") && o.get("sys").isJsonObject()) e.country = str(o.getAsJsonObject("sys"), "country");
+        if (o.has("main") && o.get("main").isJsonObject()) {
+            JsonObject m = o.getAsJsonObject("main");
+            WeatherData w = new WeatherData(num(m, "temp"), num(m, "feels_like"),
+                    m.has("humidity") ? m.get("humidity").getAsInt() : -1, owmCondition(o), Double.NaN);
+            if (o.has("wind") && o.get("wind").isJsonObject()) w.setWindSpeed(num(o.getAsJsonObject("wind"), "speed") * 3.6);
+            w.setPressureMb(num(m, "pressure"));
+            w.setVisibilityKm(o.has("visibility") ? o.get("visibility").getAsDouble() / 1000.0 : Double.NaN);
+            w.setUv(Double.NaN);
+            w.setCloud(o.has("clouds") && o.get("clouds").isJsonObject() ? o.getAsJsonObject("clouds").get("all").getAsInt() : -1);
+            e.current = w;
+        }
+        if (o.has("list") && o.get("list").isJsonArray()) {
+            List<ForecastDay> list = new ArrayList<>();
+            for (JsonElement el : o.getAsJsonArray("list")) {
+                JsonObject d = el.getAsJsonObject();
+                JsonObject m = d.has("main") ? d.getAsJsonObject("main") : new JsonObject();
+                String day = d.has("dt")
+                        ? Instant.ofEpochSecond(d.get("dt").getAsLong()).atZone(ZoneOffset.UTC).getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH)
+                        : "Day";
+                ForecastDay fd = new ForecastDay(day, num(m, "temp_min"), num(m, "temp_max"), owmCondition(d));
+                if (m.has("humidity")) fd.setAvgHumidity(m.get("humidity").getAsInt());
+                list.add(fd);
+            }
+            e.forecast = list;
+        }
+    }
+
+    private static String owmCondition(JsonObject o) {
+        if (o.has("weather") && o.get("weather").isJsonArray() && o.getAsJsonArray("weather").size() > 0) {
+            JsonObject w = o.getAsJsonArray("weather").get(0).getAsJsonObject();
+            String d = str(w, "description");
+            if (d != null && !d.isEmpty()) return Character.toUpperCase(d.charAt(0)) + d.substring(1);
+            return str(w, "main");
+        }
+        return null;
+    }
+
+    private void rebuildIndex() {
+        Index idx = new Index();
+        List<Path> files = new ArrayList<>(byFile.keySet());
+        files.sort(null);
+        for (Path f : files) {
+            for (Entry e : byFile.get(f)) {
+                String key = normalize(e.name);
+                Entry merged = idx.byName.get(key);
+                if (merged == null) {
+                    merged = copyOf(e);
+                    idx.byName.put(key, merged);
+                    idx.size++;
+                } else {
+                    // e.g. "surat.json" (current) + "surat_forecast.json" (forecast)
+                    if (!merged.hasCurrent()) { merged.current = e.current; merged.currentView = e.currentView; }
+                    if (!merged.hasForecast()) { merged.forecast = e.forecast; merged.forecastView = e.forecastView; }
+                    if (Double.isNaN(merged.lat)) { merged.lat = e.lat; merged.lon = e.lon; }
+                }
+            }
+        }
+        for (Entry e : new ArrayList<>(idx.byName.values())) {
+            if (e.country != null) idx.byName.putIfAbsent(normalize(e.name + ", " + e.country), e);
+            if (e.region != null && e.country != null) idx.byName.putIfAbsent(normalize(e.name + ", " + e.region + ", " + e.country), e);
+            if (!Double.isNaN(e.lat) && !Double.isNaN(e.lon)) {
+                idx.byCell.computeIfAbsent(cellKey((long) Math.floor(e.lat), lonCell((long) Math.floor(e.lon))), k -> new ArrayList<>()).add(e);
+            }
+        }
+        index = idx;
+    }
+
+    private static Entry copyOf(Entry e) {
+        Entry c = new Entry();
+        c.name = e.name; c.region = e.region; c.country = e.country;
+        c.lat = e.lat; c.lon = e.lon;
+        c.current = e.current; c.forecast = e.forecast;
+        c.currentView = e.currentView; c.forecastView = e.forecastView;
+        return c;
+    }
+
+    // ---------------- file watching ----------------
+
+    private void startWatching() throws IOException {
+        Path dir = Files.isDirectory(source) ? source : source.getParent();
+        if (dir == null) return;
+        watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchThread = new Thread(() -> watchLoop(dir), "skycast-dataset-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watchLoop(Path dir) {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> ev : key.pollEvents()) {
+                if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    byFile.clear();
+                    try { for (Path p : dataFiles()) loadFile(p); } catch (IOException ignored) {}
+                    changed = true;
+                    continue;
+                }
+                Path file = dir.resolve((Path) ev.context()).toAbsolutePath();
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(".json") && !fileName.endsWith(".skyc")) continue;
+                if (!Files.isDirectory(source) && !file.equals(source)) continue;
+                if (ev.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    byFile.remove(file);
+                    // the JSON a deleted .skyc was standing in for
+                    if (fileName.endsWith(".skyc") && Files.exists(jsonSibling(file))) loadFile(jsonSibling(file));
+                } else {
+                    loadFile(file);
+                }
+                changed = true;
+            }
+            if (changed) {
+                rebuildIndex();
+                LogUtil.log("Offline dataset reloaded: " + index.size + " places");
+            }
+            if (!key.reset()) return;
+        }
+    }
+
+    // ---------------- conversion ----------------
+
+    /**
+     * Write each place as "&lt;name&gt;.skyc" under {@code dir} (created if missing); returns the
+     * number written. Names that normalise the same overwrite each other, as they do in the index.
+     */
+    public int exportTo(Path dir, boolean deflate) throws IOException, WeatherException {
+        Set<Entry> places = Collections.newSetFromMap(new IdentityHashMap<>());
+        places.addAll(index.byName.values());
+        long now = System.currentTimeMillis();
+        int n = 0;
+        for (Entry e : places) {
+            String file = normalize(e.name).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+            if (file.isEmpty()) continue;
+            WeatherData current = e.hasCurrent() ? e.current() : null;
+            List<ForecastDay> forecast = e.hasForecast() ? e.forecast() : Collections.emptyList();
+            WeatherCacheFile.write(dir.resolve(file + ".skyc"), e.name, now, current, forecast, deflate);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Convert a JSON dataset to .skyc files.
+     *
+     * Usage: java ... oep.skycast.service.DatasetWeatherProvider SOURCE DEST_DIR [--deflate]
+     * Leave --deflate off for datasets read through {@link #DatasetWeatherProvider}: a compressed
+     * file has to be inflated (and so read in full) when opened.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: DatasetWeatherProvider SOURCE DEST_DIR [--deflate]");
+            System.exit(2);
+        }
+        boolean deflate = args.length > 2 && "--deflate".equals(args[2]);
+        try (DatasetWeatherProvider p = new DatasetWeatherProvider(Paths.get(args[0]), 0, false)) {
+            int n = p.exportTo(Paths.get(args[1]), deflate);
+            System.err.println("Wrote " + n + " places to " + args[1]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchThread != null) watchThread.interrupt();
+        if (watcher != null) watcher.close();
+    }
+
+    // ---------------- helpers ----------------
+
+    static String normalize(String s) {
+        if (s == null) return "";
+        String n = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        n = n.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ").replaceAll("\\s*,\\s*", ",");
+        return n;
+    }
+
+    private static String nameFromFile(Path file) {
+        String n = file.getFileName().toString();
+        if (n.lastIndexOf('.') > 0) n = n.substring(0, n.lastIndexOf('.'));
+        n = n.replaceFirst("^weather[-_]", "").replaceFirst("[-_]forecast$", "");
+        return n.isBlank() ? null : n;
+    }
+
+    private static Path binarySibling(Path json) {
+        String n = json.getFileName().toString();
+        return json.resolveSibling(n.substring(0, n.length() - ".json".length()) + ".skyc");
+    }
+
+    private static Path jsonSibling(Path skyc) {
+        String n = skyc.getFileName().toString();
+        return skyc.resolveSibling(n.substring(0, n.length() - ".skyc".length()) + ".json");
+    }
+
+    private static long cellKey(long latCell, long lonCell) {
+        return latCell * 1000L + lonCell;
+    }
+
+    // longitude cell wrapped into [-180, 180), so searches cross the antimeridian
+    private static long lonCell(long lonCell) {
+        return Math.floorMod(lonCell + 180, 360L) - 180;
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static String str(JsonObject o, String k) {
+        return (o != null && o.has(k) && !o.get(k).isJsonNull()) ? o.get(k).getAsString() : null;
+    }
+
+    private static double num(JsonObject o, String k) {
+        try { if (o != null && o.has(k) && !o.get(k).isJsonNull()) return o.get(k).getAsDouble(); } catch (Exception ignored) {}
+        return Double.NaN;
+    }
+}
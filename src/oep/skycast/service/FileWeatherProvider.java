@@ -22,17 +22,19 @@ public class FileWeatherProvider implements WeatherProvider {
 
     @Override
     public WeatherData getCurrentWeather(String city) throws WeatherException {
-        try {
-            JsonObject json = JsonParser.parseReader(new FileReader(filePath)).getAsJsonObject();
+        try (FileReader reader = new FileReader(filePath)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
             JsonObject current = json.getAsJsonObject("current");
 
-            return new WeatherData(
+            WeatherData w = new WeatherData(
                 current.get("temperature").getAsDouble(),
                 current.get("feelsLike").getAsDouble(),
                 current.get("humidity").getAsInt(),
                 current.get("condition").getAsString(),
                 current.get("windSpeed").getAsDouble()
             );
+            w.setOffline(true);
+            return w;
 
         } catch (IOException e) {
             throw new WeatherException("Cannot read weather file!");
@@ -41,8 +43,8 @@ public class FileWeatherProvider implements WeatherProvider {
 
     @Override
     public List<ForecastDay> getForecast(String city) throws WeatherException {
-        try {
-            JsonObject json = JsonParser.parseReader(new FileReader(filePath)).getAsJsonObject();
+        try (FileReader reader = new FileReader(filePath)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
             var list = new ArrayList<ForecastDay>();
 
             for (var element : json.getAsJsonArray("forecast")) {
@@ -1,48 +1,73 @@
 package oep.skycast.service;
 
 import com.google.gson.*;
+import oep.skycast.service.http.HttpResult;
+import oep.skycast.service.http.HttpTransport;
+import oep.skycast.service.http.HttpTransports;
+import oep.skycast.trace.SearchEvents.GeocodeEvent;
+import oep.skycast.trace.SearchEvents.HttpExchangeEvent;
+import oep.skycast.trace.SearchEvents.JsonParseEvent;
+import oep.skycast.trace.SearchEvents.ModelBuildEvent;
 import oep.skycast.util.PrefsUtil;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * GeocodeService - wrapper that provides place autocomplete/suggestions.
  *
  * Behavior:
  *  - If weather.api.key exists in PrefsUtil, calls WeatherAPI search endpoint:
- *      https://api.weatherapi.com/v1/search.json?key=KEY&q=...
+ *      https://api.weatherapi.com/v1/search.json?key=KEY&q=...  (root from weather.api.base)
  *  - Otherwise falls back to OpenStreetMap Nominatim:
  *      https://nominatim.openstreetmap.org/search?format=json&limit=10&q=...
+ *  - If remote.url is set, suggestions come from the SkyCast server (/v1/suggest) instead.
  *
- * Returns up to 10 suggestions as DisplayPlace objects.
+ * Returns up to 10 suggestions as DisplayPlace objects. {@link #reverse} names a coordinate
+ * offline, from the bundled city table (see {@link ReverseGeocoder}).
  */
 public class GeocodeService {
 
-    private static final String WEATHERAPI_SEARCH = "https://api.weatherapi.com/v1/search.json";
     private static final String NOMINATIM_URL = "https://nominatim.openstreetmap.org/search?format=json&limit=10&q=";
+    private static final String USER_AGENT = "SkyCast-StudentOEP/1.0 (+https://example.local)";
 
-    private final HttpClient client;
+    private final HttpTransport transport;
+    private final String weatherApiSearch;
     private final Gson gson = new Gson();
     private final String apiKey;
     private final boolean useWeatherApi;
+    private final RemoteWeatherProvider remote;
 
     public GeocodeService() {
-        client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
+        this(PrefsUtil.get("remote.url", "").trim());
+    }
+
+    /**
+     * @param remoteUrl SkyCast server base URL, or null/blank to query the geocoders directly
+     */
+    public GeocodeService(String remoteUrl) {
+        this(PrefsUtil.get("weather.api.key", "").trim(), ApiWeatherProvider.apiBase(), HttpTransports.shared(), remoteUrl);
+    }
 
-        String key = PrefsUtil.get("weather.api.key", "").trim();
-        this.apiKey = key == null ? "" : key;
+    /**
+     * Fully explicit constructor (load tests, stub servers).
+     *
+     * @param apiKey    weatherapi key; blank means use Nominatim
+     * @param apiBase   weatherapi endpoint root, e.g. http://localhost:8099/v1
+     * @param remoteUrl SkyCast server base URL, or null/blank
+     */
+    public GeocodeService(String apiKey, String apiBase, HttpTransport transport, String remoteUrl) {
+        this.remote = (remoteUrl == null || remoteUrl.isBlank()) ? null : new RemoteWeatherProvider(remoteUrl);
+        this.transport = transport;
+        this.weatherApiSearch = apiBase + "/search.json";
+        this.apiKey = apiKey == null ? "" : apiKey.trim();
         this.useWeatherApi = !this.apiKey.isBlank();
     }
 
@@ -62,11 +87,22 @@ public class GeocodeService {
         String query = q.trim();
         if (query.isEmpty()) return Collections.emptyList();
 
+        GeocodeEvent trace = GeocodeEvent.start();
+        if (remote != null) {
+            List<DisplayPlace> out = remote.suggest(query);
+            trace.finish("remote", out.size());
+            return out;
+        }
+
         try {
             if (useWeatherApi) {
-                return searchWeatherApi(query);
+                List<DisplayPlace> out = searchWeatherApi(query);
+                trace.finish("weatherapi", out.size());
+                return out;
             } else {
-                return searchNominatim(query);
+                List<DisplayPlace> out = searchNominatim(query);
+                trace.finish("nominatim", out.size());
+                return out;
             }
         } catch (IOException | InterruptedException ex) {
             // bubble up network exceptions to caller if they want to handle them,
@@ -74,34 +110,44 @@ public class GeocodeService {
             // attempt Nominatim as a fallback (best-effort).
             if (useWeatherApi) {
                 try {
-                    return searchNominatim(query);
+                    List<DisplayPlace> out = searchNominatim(query);
+                    trace.finish("nominatim", out.size());
+                    return out;
                 } catch (Exception ignored) {}
             }
+            trace.finish("failed", 0);
             throw ex;
         } catch (Exception ex) {
             // any other parsing exception -> return empty list
+            trace.finish("failed", 0);
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Nearest known place to a coordinate, without network; null when nothing is close.
+     * Static so the FX thread can use it without building the (network) service.
+     */
+    public static DisplayPlace reverse(double lat, double lon) {
+        return ReverseGeocoder.shared().nearest(lat, lon);
+    }
+
     // WeatherAPI search.json: returns array of objects { "id","name","region","country","lat","lon" ... }
     private List<DisplayPlace> searchWeatherApi(String q) throws IOException, InterruptedException {
         String encoded = URLEncoder.encode(q, StandardCharsets.UTF_8);
-        String url = String.format("%s?key=%s&q=%s", WEATHERAPI_SEARCH, apiKey, encoded);
+        String url = String.format("%s?key=%s&q=%s", weatherApiSearch, apiKey, encoded);
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(6))
-                .header("User-Agent", "SkyCast-StudentOEP/1.0 (+https://example.local)")
-                .GET()
-                .build();
+        HttpResult resp = HttpExchangeEvent.get(transport, "search.json", URI.create(url), Map.of("User-Agent", USER_AGENT), Duration.ofSeconds(6));
+        if (resp.status() != 200) return Collections.emptyList();
 
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) return Collections.emptyList();
-
-        JsonElement root = JsonParser.parseString(resp.body());
+        String body = resp.bodyAsString();
+        JsonParseEvent parse = JsonParseEvent.start("search.json", body.length());
+        JsonElement root = JsonParser.parseString(body);
+        parse.finish();
         if (!root.isJsonArray()) return Collections.emptyList();
 
+        ModelBuildEvent build = ModelBuildEvent.start("places");
+
         JsonArray arr = root.getAsJsonArray();
         List<DisplayPlace> out = new ArrayList<>();
         for (JsonElement el : arr) {
@@ -122,6 +168,7 @@ public class GeocodeService {
             out.add(new DisplayPlace(display, name, region, country, lat, lon));
             if (out.size() >= 10) break;
         }
+        build.finish(out.size());
 
         return out;
     }
@@ -130,19 +177,17 @@ public class GeocodeService {
     private List<DisplayPlace> searchNominatim(String q) throws IOException, InterruptedException {
         String url = NOMINATIM_URL + URLEncoder.encode(q, StandardCharsets.UTF_8);
 
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(6))
-                .header("User-Agent", "SkyCast-StudentOEP/1.0 (+https://example.local)")
-                .GET()
-                .build();
+        HttpResult resp = HttpExchangeEvent.get(transport, "nominatim", URI.create(url), Map.of("User-Agent", USER_AGENT), Duration.ofSeconds(6));
+        if (resp.status() != 200) return Collections.emptyList();
 
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) return Collections.emptyList();
-
-        JsonElement root = JsonParser.parseString(resp.body());
+        String body = resp.bodyAsString();
+        JsonParseEvent parse = JsonParseEvent.start("nominatim", body.length());
+        JsonElement root = JsonParser.parseString(body);
+        parse.finish();
         if (!root.isJsonArray()) return Collections.emptyList();
 
+        ModelBuildEvent build = ModelBuildEvent.start("places");
+
         JsonArray arr = root.getAsJsonArray();
         List<DisplayPlace> out = new ArrayList<>();
         for (JsonElement el : arr) {
@@ -166,6 +211,7 @@ public class GeocodeService {
             out.add(new DisplayPlace(displayName, name, region, country, lat, lon));
             if (out.size() >= 10) break;
         }
+        build.finish(out.size());
 
         return out;
     }
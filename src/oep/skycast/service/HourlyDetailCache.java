@@ -0,0 +1,149 @@
+package oep.skycast.service;
+
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * HourlyDetailCache - per-(location, day) hourly arrays, fetched on demand.
+ *
+ * Works with {@link WeatherProvider#getForecastSummary}: the dashboard paints the slim
+ * daily summary, then asks here for the hours of the day on screen. Concurrent requests for
+ * the same day share one fetch, entries live for a TTL (hourly forecasts only change a few
+ * times per hour), and {@link #prefetch} warms the next day in the background so clicking
+ * its card is instant.
+ *
+ * The cache owns the hours: lists are unmodifiable and are never written into forecast days
+ * that came from a provider (those may be shared). Views that want a day with its hours
+ * either look them up with {@link #peek} or build copies with {@link #join}.
+ */
+public class HourlyDetailCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private static final class Entry {
+        final CompletableFuture<List<HourlyWeather>> future;
+        final long createdAt = System.currentTimeMillis();
+
+        Entry(CompletableFuture<List<HourlyWeather>> future) { this.future = future; }
+    }
+
+    private final WeatherProvider provider;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public HourlyDetailCache(WeatherProvider provider, long ttlMillis) {
+        this.provider = provider;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /** Blocking get; call off the FX thread. */
+    public List<HourlyWeather> get(String query, String date) throws WeatherException {
+        try {
+            return getAsync(query, date).get();
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof WeatherException) throw (WeatherException) c;
+            throw new WeatherException("Failed to load hourly detail");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WeatherException("Interrupted while loading hourly detail");
+        }
+    }
+
+    /** Cached or in-flight future for the day's hours; starts a fetch on an I/O thread if needed. */
+    public CompletableFuture<List<HourlyWeather>> getAsync(String query, String date) {
+        if (date == null) return CompletableFuture.completedFuture(Collections.emptyList());
+        String key = key(query, date);
+        long now = System.currentTimeMillis();
+        Entry e = entries.compute(key, (k, old) -> {
+            if (old != null && now - old.createdAt < ttlMillis && !old.future.isCompletedExceptionally()) return old;
+            return new Entry(CompletableFuture.supplyAsync(() -> load(query, date), AppExecutors.io()));
+        });
+        if (entries.size() > MAX_ENTRIES) evictOldest();
+        return e.future;
+    }
+
+    /** Fire-and-forget warm-up for a day the user is likely to open next. */
+    public void prefetch(String query, String date) {
+        if (date != null) getAsync(query, date);
+    }
+
+    /** Already loaded and fresh (no fetch needed)? */
+    public boolean isReady(String query, String date) {
+        Entry e = date == null ? null : entries.get(key(query, date));
+        return e != null && e.future.isDone() && !e.future.isCompletedExceptionally()
+                && System.currentTimeMillis() - e.createdAt < ttlMillis;
+    }
+
+    /** The day's hours if already loaded and fresh, else null. Never blocks or fetches. */
+    public List<HourlyWeather> peek(String query, String date) {
+        if (query == null || !isReady(query, date)) return null;
+        Entry e = entries.get(key(query, date));
+        return e == null ? null : e.future.getNow(null);
+    }
+
+    /**
+     * Copies of {@code days}; a day with no hours gets the hours loaded for its date, if any.
+     * The originals are left untouched.
+     */
+    public List<ForecastDay> join(String query, List<ForecastDay> days) {
+        if (days == null) return null;
+        List<ForecastDay> out = new ArrayList<>(days.size());
+        for (ForecastDay d : days) {
+            ForecastDay copy = new ForecastDay(d);
+            if (copy.getHourly().isEmpty()) {
+                List<HourlyWeather> hours = peek(query, d.getDate());
+                if (hours != null) copy.setHourly(hours);
+            }
+            out.add(copy);
+        }
+        return out;
+    }
+
+    public void clear() { entries.clear(); }
+
+    private List<HourlyWeather> load(String query, String date) {
+        long t0 = System.nanoTime();
+        try {
+            List<HourlyWeather> h = provider.getHourly(query, date);
+            LogUtil.log(String.format(Locale.ROOT, "Hourly detail %s %s: %d hours in %d ms",
+                    query, date, h.size(), (System.nanoTime() - t0) / 1_000_000));
+            return Collections.unmodifiableList(new ArrayList<>(h));
+        } catch (WeatherException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    private void evictOldest() {
+        String oldestKey = null;
+        long oldest = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry> me = it.next();
+            if (System.currentTimeMillis() - me.getValue().createdAt >= ttlMillis) {
+                it.remove();
+            } else if (me.getValue().createdAt < oldest) {
+                oldest = me.getValue().createdAt;
+                oldestKey = me.getKey();
+            }
+        }
+        if (entries.size() > MAX_ENTRIES && oldestKey != null) entries.remove(oldestKey);
+    }
+
+    private static String key(String query, String date) {
+        return query.trim().toLowerCase(Locale.ROOT) + "|" + date;
+    }
+}
@@ -0,0 +1,40 @@
+package oep.skycast.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * HttpClients - one shared HttpClient for the weather and geocode calls.
+ *
+ * Sharing the client means sharing its connection pool, so a connection opened by
+ * {@link #prewarm(String)} during startup is reused by the first real request.
+ */
+public final class HttpClients {
+
+    private static final HttpClient SHARED = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private HttpClients() {}
+
+    public static HttpClient shared() { return SHARED; }
+
+    /**
+     * Fire-and-forget HEAD request so DNS, TCP and the TLS handshake to {@code url}'s host
+     * are done before the first search. Errors are ignored.
+     */
+    public static void prewarm(String url) {
+        try {
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .timeout(Duration.ofSeconds(5))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            SHARED.sendAsync(req, HttpResponse.BodyHandlers.discarding()).exceptionally(t -> null);
+        } catch (Exception ignored) {}
+    }
+}
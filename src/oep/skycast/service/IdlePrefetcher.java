@@ -0,0 +1,250 @@
+package oep.skycast.service;
+
+import oep.skycast.model.ForecastDay;
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+import oep.skycast.util.TokenBucket;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdlePrefetcher - warms the caches for favorites and recents while the user is idle, so
+ * opening one of them renders from cache instead of waiting on the network.
+ *
+ * Sites are ranked by frecency: every visit adds 1 to a score that halves every three days,
+ * and unvisited sites keep the order they were given in. When there has been no input and no
+ * foreground search for prefetch.idleSeconds (default 20), the best-ranked site not warmed
+ * within the refresh interval is fetched exactly as a search would fetch it (current
+ * conditions, daily summary, today's hours), one site at a time, and only while the token
+ * bucket (prefetch.budgetPerMinute, default 4) has budget. A foreground search cancels the
+ * warm-up in flight unless it is for the same site.
+ *
+ * Scores persist in the prefetch.frecency preference.
+ */
+public class IdlePrefetcher {
+
+    private static final long HALF_LIFE_MS = 3 * 24 * 3600_000L;
+    private static final long TICK_SECONDS = 5;
+    private static final int MAX_SCORES = 100;
+
+    private static final class Score {
+        double value;
+        long at;
+
+        Score(double value, long at) {
+            this.value = value;
+            this.at = at;
+        }
+
+        double at(long now) {
+            return value * Math.pow(0.5, Math.max(0, now - at) / (double) HALF_LIFE_MS);
+        }
+    }
+
+    private final WeatherProvider provider;
+    private final HourlyDetailCache hourly;
+    private final TokenBucket budget;
+    private final long idleMillis;
+
+    private final Map<String, Score> scores = new HashMap<>();
+    private final Map<String, Long> warmedAt = new HashMap<>();
+    private List<String> candidates = new ArrayList<>();
+    private long intervalMillis = 600_000;
+    private long lastActivity = System.currentTimeMillis();
+
+    private ScheduledFuture<?> ticker;
+    private Future<?> running;
+    private String runningSite;
+
+    private long warmed, cancelled, failed, outOfBudget;
+
+    public IdlePrefetcher(WeatherProvider provider, HourlyDetailCache hourly, TokenBucket budget, long idleMillis) {
+        this.provider = provider;
+        this.hourly = hourly;
+        this.budget = budget;
+        this.idleMillis = Math.max(1000, idleMillis);
+    }
+
+    /** Build from the prefetch.* preferences, or null when prefetch.enabled=false. */
+    public static IdlePrefetcher fromPreferences(WeatherProvider provider, HourlyDetailCache hourly) {
+        if (!Boolean.parseBoolean(PrefsUtil.get("prefetch.enabled", "true"))) return null;
+        long idle = 20;
+        double perMinute = 4;
+        try { idle = Long.parseLong(PrefsUtil.get("prefetch.idleSeconds", "20").trim()); } catch (Exception ignored) {}
+        try { perMinute = Double.parseDouble(PrefsUtil.get("prefetch.budgetPerMinute", "4").trim()); } catch (Exception ignored) {}
+        IdlePrefetcher p = new IdlePrefetcher(provider, hourly, new TokenBucket((int) Math.ceil(Math.max(1, perMinute)), perMinute), idle * 1000L);
+        p.importScores(PrefsUtil.get("prefetch.frecency", ""));
+        return p;
+    }
+
+    public synchronized void start() {
+        if (ticker == null) {
+            ticker = AppExecutors.scheduler().scheduleWithFixedDelay(this::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Stop ticking, cancel any warm-up and save the scores. */
+    public void stop() {
+        synchronized (this) {
+            if (ticker != null) ticker.cancel(false);
+            ticker = null;
+            cancelRunning();
+        }
+        PrefsUtil.put("prefetch.frecency", exportScores());
+    }
+
+    /** Sites eligible for warming (favorites, then recents), in their display order. */
+    public synchronized void setCandidates(List<String> sites) {
+        List<String> out = new ArrayList<>();
+        for (String s : sites) {
+            if (s != null && !s.isBlank() && !out.contains(s.trim())) out.add(s.trim());
+        }
+        candidates = out;
+    }
+
+    /** Don't re-warm a site more often than the dashboard would refresh it. */
+    public synchronized void setRefreshInterval(long seconds) {
+        intervalMillis = Math.max(30, seconds) * 1000L;
+    }
+
+    /** Any user input: restarts the idle clock. */
+    public synchronized void userActive() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * A foreground search for {@code site} is starting: counts as activity, bumps the site's
+     * score, and cancels a warm-up for any other site so it doesn't compete for bandwidth.
+     */
+    public synchronized void foregroundStarted(String site) {
+        long now = System.currentTimeMillis();
+        lastActivity = now;
+        String key = key(site);
+        if (running != null && !running.isDone() && !key.equals(runningSite)) cancelRunning();
+        Score s = scores.get(key);
+        if (s == null) scores.put(key, new Score(1, now));
+        else {
+            s.value = s.at(now) + 1;
+            s.at = now;
+        }
+        // the search itself is about to fetch it
+        warmedAt.put(key, now);
+    }
+
+    public synchronized String stats() {
+        return String.format(Locale.ROOT, "prefetch: warmed=%d cancelled=%d failed=%d outOfBudget=%d tokens=%.1f candidates=%d",
+                warmed, cancelled, failed, outOfBudget, budget.available(), candidates.size());
+    }
+
+    // ---------------- scheduling ----------------
+
+    private void tick() {
+        String site;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - lastActivity < idleMillis) return;
+            if (running != null && !running.isDone()) return;
+            site = next(now);
+            if (site == null) return;
+            if (!budget.tryAcquire()) {
+                outOfBudget++;
+                return;
+            }
+            runningSite = key(site);
+            String query = site;
+            running = AppExecutors.submitIo(() -> {
+                warm(query);
+                return null;
+            });
+        }
+    }
+
+    // best-ranked candidate not warmed within the refresh interval
+    private String next(long now) {
+        List<String> ranked = new ArrayList<>(candidates);
+        Map<String, Double> snapshot = new HashMap<>();
+        for (String c : ranked) {
+            Score s = scores.get(key(c));
+            snapshot.put(c, s == null ? 0.0 : s.at(now));
+        }
+        // stable sort: ties (e.g. never visited) keep display order
+        ranked.sort(Comparator.comparingDouble((String c) -> snapshot.get(c)).reversed());
+        for (String c : ranked) {
+            Long at = warmedAt.get(key(c));
+            if (at == null || now - at >= intervalMillis) return c;
+        }
+        return null;
+    }
+
+    // same calls, same query text as a foreground search, so it hits the same cache entries
+    private void warm(String query) {
+        long t0 = System.nanoTime();
+        try {
+            provider.getCurrentWeather(query);
+            List<ForecastDay> days = provider.getForecastSummary(query);
+            if (days != null && !days.isEmpty() && days.get(0).getDate() != null && hourly != null) {
+                hourly.get(query, days.get(0).getDate());
+            }
+            synchronized (this) {
+                warmed++;
+                warmedAt.put(key(query), System.currentTimeMillis());
+            }
+            LogUtil.log("Prefetched " + query + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            synchronized (this) {
+                if (Thread.currentThread().isInterrupted()) return;
+                failed++;
+                // back off this site for a full interval rather than retrying every tick
+                warmedAt.put(key(query), System.currentTimeMillis());
+            }
+        }
+    }
+
+    private void cancelRunning() {
+        if (running != null && !running.isDone()) {
+            running.cancel(true);
+            cancelled++;
+        }
+        running = null;
+        runningSite = null;
+    }
+
+    // ---------------- persistence ----------------
+
+    synchronized String exportScores() {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Score>> all = new ArrayList<>(scores.entrySet());
+        all.sort(Comparator.comparingDouble((Map.Entry<String, Score> e) -> e.getValue().at(now)).reversed());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(MAX_SCORES, all.size()); i++) {
+            Map.Entry<String, Score> e = all.get(i);
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(e.getKey()).append('\t').append(String.format(Locale.ROOT, "%.4f", e.getValue().value)).append('\t').append(e.getValue().at);
+        }
+        return sb.toString();
+    }
+
+    synchronized void importScores(String text) {
+        if (text == null || text.isBlank()) return;
+        for (String line : text.split("\n")) {
+            String[] f = line.split("\t");
+            if (f.length != 3) continue;
+            try {
+                scores.put(f[0], new Score(Double.parseDouble(f[1]), Long.parseLong(f[2])));
+            } catch (NumberFormatException ignored) {}
+        }
+    }
+
+    private static String key(String site) {
+        return site == null ? "" : site.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,340 @@
+package oep.skycast.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+import oep.skycast.service.http.HttpResult;
+import oep.skycast.service.http.HttpTransport;
+import oep.skycast.service.http.HttpTransports;
+import oep.skycast.util.PrefsUtil;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OpenMeteoWeatherProvider — keyless backend for Open-Meteo compatible APIs.
+ *
+ * Name queries are resolved through the Open-Meteo geocoding API (cached per name);
+ * "lat,lon" queries go straight to the forecast endpoint. Output is shaped like
+ * ApiWeatherProvider's (times as "yyyy-MM-dd HH:mm", sunrise as "06:41 AM", WMO weather
+ * codes turned into condition text) so the dashboard can't tell the backends apart.
+ * No icon URLs (the UI falls back to bundled icons) and no PM2.5.
+ *
+ * Optional preferences: openmeteo.base (default https://api.open-meteo.com/v1),
+ * openmeteo.geocode.base (default https://geocoding-api.open-meteo.com/v1).
+ */
+public class OpenMeteoWeatherProvider implements WeatherProvider {
+
+    public static final String DEFAULT_BASE = "https://api.open-meteo.com/v1";
+    public static final String DEFAULT_GEOCODE_BASE = "https://geocoding-api.open-meteo.com/v1";
+
+    private static final Pattern LAT_LON = Pattern.compile("^\\s*(-?\\d+(?:\\.\\d+)?)\\s*,\\s*(-?\\d+(?:\\.\\d+)?)\\s*$");
+    private static final DateTimeFormatter ISO_MINUTE = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter OUT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter OUT_CLOCK = DateTimeFormatter.ofPattern("hh:mm a", Locale.ENGLISH);
+
+    private static final String CURRENT_VARS = "temperature_2m,relative_humidity_2m,apparent_temperature,weather_code,"
+            + "cloud_cover,pressure_msl,wind_speed_10m,uv_index,visibility";
+    private static final String DAILY_VARS = "weather_code,temperature_2m_max,temperature_2m_min,"
+            + "precipitation_probability_max,relative_humidity_2m_mean,sunrise,sunset";
+    private static final String HOURLY_VARS = "temperature_2m,apparent_temperature,relative_humidity_2m,"
+            + "wind_speed_10m,precipitation,precipitation_probability,weather_code";
+
+    /** A resolved place. */
+    private static final class Place {
+        final double lat, lon;
+        final String name, region, country;
+
+        Place(double lat, double lon, String name, String region, String country) {
+            this.lat = lat;
+            this.lon = lon;
+            this.name = name;
+            this.region = region;
+            this.country = country;
+        }
+    }
+
+    private final HttpTransport transport;
+    private final String base;
+    private final String geocodeBase;
+    private final Gson gson = new Gson();
+    private final Map<String, Place> places = new ConcurrentHashMap<>();
+
+    public OpenMeteoWeatherProvider() {
+        this(HttpTransports.shared(), PrefsUtil.get("openmeteo.base", DEFAULT_BASE), PrefsUtil.get("openmeteo.geocode.base", DEFAULT_GEOCODE_BASE));
+    }
+
+    public OpenMeteoWeatherProvider(HttpTransport transport, String base, String geocodeBase) {
+        this.transport = transport;
+        this.base = trimSlash(base == null || base.isBlank() ? DEFAULT_BASE : base.trim());
+        this.geocodeBase = trimSlash(geocodeBase == null || geocodeBase.isBlank() ? DEFAULT_GEOCODE_BASE : geocodeBase.trim());
+    }
+
+    @Override
+    public WeatherData getCurrentWeather(String city) throws WeatherException {
+        Place p = resolve(city);
+        JsonObject root = fetch(p, "current=" + CURRENT_VARS + "&forecast_days=1", "current weather");
+        JsonObject cur = obj(root, "current");
+        if (cur == null) throw new WeatherException("Invalid Open-Meteo response (missing current)");
+
+        double visM = num(cur, "visibility");
+        WeatherData w = new WeatherData(
+                num(cur, "temperature_2m"),
+                num(cur, "apparent_temperature"),
+                (int) Math.max(0, Math.round(num(cur, "relative_humidity_2m"))),
+                condition(num(cur, "weather_code")),
+                num(cur, "wind_speed_10m"),
+                num(cur, "pressure_msl"),
+                valid(visM) ? Math.round(visM / 100.0) / 10.0 : Double.NaN,
+                num(cur, "uv_index"),
+                valid(num(cur, "cloud_cover")) ? (int) Math.round(num(cur, "cloud_cover")) : -1,
+                p.name, p.region, p.country,
+                p.lat, p.lon,
+                str(root, "timezone"),
+                outTime(str(cur, "time")),
+                Double.NaN,
+                null);
+        return w;
+    }
+
+    @Override
+    public List<ForecastDay> getForecast(String city) throws WeatherException {
+        Place p = resolve(city);
+        return parseForecast(fetch(p, "daily=" + DAILY_VARS + "&hourly=" + HOURLY_VARS + "&forecast_days=7", "forecast"));
+    }
+
+    @Override
+    public List<ForecastDay> getForecastSummary(String city) throws WeatherException {
+        Place p = resolve(city);
+        return parseForecast(fetch(p, "daily=" + DAILY_VARS + "&forecast_days=7", "forecast"));
+    }
+
+    @Override
+    public List<HourlyWeather> getHourly(String city, String date) throws WeatherException {
+        if (date == null || date.isBlank()) return Collections.emptyList();
+        Place p = resolve(city);
+        JsonObject root = fetch(p, "hourly=" + HOURLY_VARS + "&start_date=" + enc(date) + "&end_date=" + enc(date), "hourly forecast");
+        List<HourlyWeather> out = new ArrayList<>();
+        JsonObject h = obj(root, "hourly");
+        JsonArray times = h != null ? arr(h, "time") : null;
+        if (times == null) return out;
+        for (int i = 0; i < times.size(); i++) out.add(hour(h, i));
+        return out;
+    }
+
+    // ---------------- requests ----------------
+
+    private JsonObject fetch(Place p, String params, String what) throws WeatherException {
+        String url = String.format(Locale.ROOT, "%s/forecast?latitude=%.4f&longitude=%.4f&timezone=auto&%s", base, p.lat, p.lon, params);
+        return getJson(url, what);
+    }
+
+    private JsonObject getJson(String url, String what) throws WeatherException {
+        try {
+            HttpResult resp = transport.get(URI.create(url), Map.of(), null);
+            JsonObject root = gson.fromJson(resp.bodyAsString(), JsonObject.class);
+            if (resp.status() != 200 || root == null || (root.has("error") && root.get("error").getAsBoolean())) {
+                String reason = root != null && root.has("reason") ? root.get("reason").getAsString() : "HTTP " + resp.status();
+                throw new WeatherException("Open-Meteo error: " + reason);
+            }
+            return root;
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt(); // keep cancellation visible
+            throw new WeatherException("Network error while fetching " + what);
+        } catch (WeatherException we) {
+            throw we;
+        } catch (Exception ex) {
+            throw new WeatherException("Failed to parse " + what);
+        }
+    }
+
+    private Place resolve(String query) throws WeatherException {
+        Matcher m = LAT_LON.matcher(query);
+        if (m.matches()) {
+            return new Place(Double.parseDouble(m.group(1)), Double.parseDouble(m.group(2)), null, null, null);
+        }
+        String key = query.trim().toLowerCase(Locale.ROOT);
+        Place cached = places.get(key);
+        if (cached != null) return cached;
+
+        // the geocoder matches a single name; "Paris, Texas" searches "Paris" and keeps the
+        // result whose region or country is "Texas" (the top hit would be Paris, France)
+        String[] parts = query.split(",");
+        String name = parts[0].trim();
+        List<String> qualifiers = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) if (!parts[i].isBlank()) qualifiers.add(fold(parts[i]));
+        int count = qualifiers.isEmpty() ? 1 : 10;
+        JsonObject root = getJson(geocodeBase + "/search?count=" + count + "&language=en&format=json&name=" + enc(name), "location");
+        JsonArray results = arr(root, "results");
+        JsonObject r = null;
+        for (int i = 0; results != null && i < results.size() && r == null; i++) {
+            if (results.get(i).isJsonObject() && matches(results.get(i).getAsJsonObject(), qualifiers)) r = results.get(i).getAsJsonObject();
+        }
+        if (r == null) throw new WeatherException("Location not found: " + query.trim());
+        Place p = new Place(num(r, "latitude"), num(r, "longitude"), str(r, "name"), str(r, "admin1"), str(r, "country"));
+        places.put(key, p);
+        return p;
+    }
+
+    // every qualifier names one of the result's regions or its country (name or code)
+    private static boolean matches(JsonObject r, List<String> qualifiers) {
+        for (String q : qualifiers) {
+            boolean found = false;
+            for (String field : new String[] {"admin1", "admin2", "admin3", "country", "country_code"}) {
+                String v = str(r, field);
+                if (v != null && fold(v).equals(q)) { found = true; break; }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static String fold(String s) {
+        return Normalizer.normalize(s.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    // ---------------- parsing ----------------
+
+    private static List<ForecastDay> parseForecast(JsonObject root) throws WeatherException {
+        JsonObject d = obj(root, "daily");
+        JsonArray dates = d != null ? arr(d, "time") : null;
+        if (dates == null) throw new WeatherException("Invalid Open-Meteo response (missing daily)");
+
+        List<ForecastDay> list = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i++) {
+            String date = dates.get(i).getAsString();
+            ForecastDay fd = new ForecastDay(ApiWeatherProvider.shortDayLabel(date),
+                    at(d, "temperature_2m_min", i), at(d, "temperature_2m_max", i), condition(at(d, "weather_code", i)));
+            fd.setDate(date);
+            double hum = at(d, "relative_humidity_2m_mean", i);
+            double rain = at(d, "precipitation_probability_max", i);
+            fd.setAvgHumidity(valid(hum) ? (int) Math.round(hum) : -1);
+            fd.setChanceOfRain(valid(rain) ? (int) Math.round(rain) : -1);
+            fd.setSunrise(clock(atStr(d, "sunrise", i)));
+            fd.setSunset(clock(atStr(d, "sunset", i)));
+            list.add(fd);
+        }
+
+        JsonObject h = obj(root, "hourly");
+        JsonArray times = h != null ? arr(h, "time") : null;
+        if (times != null) {
+            for (int i = 0; i < times.size(); i++) {
+                String day = times.get(i).getAsString().substring(0, 10);
+                for (ForecastDay fd : list) {
+                    if (day.equals(fd.getDate())) { fd.getHourly().add(hour(h, i)); break; }
+                }
+            }
+        }
+        return list;
+    }
+
+    private static HourlyWeather hour(JsonObject h, int i) {
+        HourlyWeather hw = new HourlyWeather();
+        hw.setTime(outTime(atStr(h, "time", i)));
+        hw.setTempC(at(h, "temperature_2m", i));
+        hw.setFeelsLikeC(at(h, "apparent_temperature", i));
+        double hum = at(h, "relative_humidity_2m", i);
+        hw.setHumidity(valid(hum) ? (int) Math.round(hum) : -1);
+        hw.setWindKph(at(h, "wind_speed_10m", i));
+        hw.setPrecipMm(at(h, "precipitation", i));
+        double pop = at(h, "precipitation_probability", i);
+        hw.setChanceOfRain(valid(pop) ? (int) Math.round(pop) : -1);
+        hw.setCondition(condition(at(h, "weather_code", i)));
+        return hw;
+    }
+
+    /** WMO weather interpretation codes (as used by Open-Meteo); null when missing or unknown. */
+    static String condition(double code) {
+        if (Double.isNaN(code)) return null;
+        switch ((int) code) {
+            case 0: return "Clear";
+            case 1: return "Mainly clear";
+            case 2: return "Partly cloudy";
+            case 3: return "Overcast";
+            case 45: case 48: return "Fog";
+            case 51: case 53: case 55: return "Drizzle";
+            case 56: case 57: return "Freezing drizzle";
+            case 61: return "Light rain";
+            case 63: return "Moderate rain";
+            case 65: return "Heavy rain";
+            case 66: case 67: return "Freezing rain";
+            case 71: return "Light snow";
+            case 73: return "Moderate snow";
+            case 75: return "Heavy snow";
+            case 77: return "Snow grains";
+            case 80: case 81: return "Rain showers";
+            case 82: return "Violent rain showers";
+            case 85: case 86: return "Snow showers";
+            case 95: return "Thunderstorm";
+            case 96: case 99: return "Thunderstorm with hail";
+            default: return null;
+        }
+    }
+
+    // ---------------- helpers ----------------
+
+    private static String outTime(String iso) {
+        if (iso == null) return null;
+        try { return LocalDateTime.parse(iso, ISO_MINUTE).format(OUT_TIME); } catch (Exception e) { return iso.replace('T', ' '); }
+    }
+
+    private static String clock(String iso) {
+        if (iso == null) return null;
+        try { return LocalDateTime.parse(iso, ISO_MINUTE).format(OUT_CLOCK); } catch (Exception e) { return iso; }
+    }
+
+    private static boolean valid(double d) { return !Double.isNaN(d); }
+
+    private static JsonObject obj(JsonObject o, String k) {
+        return o != null && o.has(k) && o.get(k).isJsonObject() ? o.getAsJsonObject(k) : null;
+    }
+
+    private static JsonArray arr(JsonObject o, String k) {
+        return o != null && o.has(k) && o.get(k).isJsonArray() ? o.getAsJsonArray(k) : null;
+    }
+
+    private static double num(JsonObject o, String k) {
+        try { if (o != null && o.has(k) && !o.get(k).isJsonNull()) return o.get(k).getAsDouble(); } catch (Exception ignored) {}
+        return Double.NaN;
+    }
+
+    private static String str(JsonObject o, String k) {
+        return o != null && o.has(k) && !o.get(k).isJsonNull() ? o.get(k).getAsString() : null;
+    }
+
+    private static double at(JsonObject o, String k, int i) {
+        JsonArray a = arr(o, k);
+        try { if (a != null && i < a.size() && !a.get(i).isJsonNull()) return a.get(i).getAsDouble(); } catch (Exception ignored) {}
+        return Double.NaN;
+    }
+
+    private static String atStr(JsonObject o, String k, int i) {
+        JsonArray a = arr(o, k);
+        return a != null && i < a.size() && !a.get(i).isJsonNull() ? a.get(i).getAsString() : null;
+    }
+
+    private static String enc(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String trimSlash(String s) {
+        return s.endsWith("/") ? s.substring(0, s.length() - 1) : s;
+    }
+}
@@ -0,0 +1,297 @@
+package oep.skycast.service;
+
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * ProviderRouter - spreads requests over several WeatherProvider backends by health.
+ *
+ * Each backend keeps a rolling (EWMA) latency and error rate. A request goes to the
+ * backend with the lowest score, latency x (1 + 4 x error rate) plus a small bias for
+ * the order backends were added in (so the preferred one wins while everything is
+ * healthy), and fails over down the list. Three failures in a row open a backend's
+ * circuit: it is skipped for a cooldown (15 s, doubling up to 5 min) and then gets a
+ * single probe request.
+ *
+ * With racing on, the two best backends are called at once and the first valid answer
+ * wins; the slower call is interrupted. That trades upstream quota for tail latency.
+ *
+ * A failure only counts against a backend if the network failed or another backend
+ * answered the same request, so a misspelt city doesn't mark every backend unhealthy.
+ *
+ * Fallback backends (addFallback, e.g. the offline dataset) are never ranked by score: they
+ * are asked only after every live backend has failed, and never raced. Otherwise a local
+ * backend's near-zero latency would put it first and the live ones would never be asked again.
+ */
+public class ProviderRouter implements WeatherProvider {
+
+    private static final double ALPHA = 0.2;
+    private static final double PRIOR_LATENCY_MS = 300;
+    private static final double RANK_BIAS_MS = 100;
+    private static final int TRIP_AFTER = 3;
+    private static final long BASE_COOLDOWN_MS = 15_000;
+    private static final long MAX_COOLDOWN_MS = 300_000;
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T run(WeatherProvider p) throws WeatherException;
+    }
+
+    private static final class Backend {
+        final String name;
+        final WeatherProvider provider;
+        final int rank;
+        final boolean fallback;
+
+        double latencyMs = PRIOR_LATENCY_MS;
+        double errorRate;
+        int consecutiveFailures;
+        int trips;
+        long openUntil;
+        boolean probing;
+        long calls, failures, wins;
+
+        Backend(String name, WeatherProvider provider, int rank, boolean fallback) {
+            this.name = name;
+            this.provider = provider;
+            this.rank = rank;
+            this.fallback = fallback;
+        }
+
+        synchronized double score() {
+            return latencyMs * (1 + 4 * errorRate) + rank * RANK_BIAS_MS;
+        }
+
+        /**
+         * Closed, or open but due for its half-open probe (which this call then owns).
+         * @return 0 skip, 1 closed, 2 probe claimed
+         */
+        synchronized int tryAcquire(long now) {
+            if (openUntil == 0) return 1;
+            if (now < openUntil || probing) return 0;
+            probing = true;
+            return 2;
+        }
+
+        synchronized void success(long millis) {
+            calls++;
+            latencyMs = latencyMs + ALPHA * (millis - latencyMs);
+            errorRate = errorRate * (1 - ALPHA);
+            consecutiveFailures = 0;
+            if (openUntil != 0) LogUtil.log("Provider " + name + " recovered");
+            openUntil = 0;
+            trips = 0;
+            probing = false;
+        }
+
+        synchronized void failure(long millis) {
+            calls++;
+            failures++;
+            latencyMs = latencyMs + ALPHA * (millis - latencyMs);
+            errorRate = errorRate * (1 - ALPHA) + ALPHA;
+            probing = false;
+            if (++consecutiveFailures >= TRIP_AFTER) {
+                trips++;
+                long cooldown = Math.min(MAX_COOLDOWN_MS, BASE_COOLDOWN_MS << Math.min(10, trips - 1));
+                openUntil = System.currentTimeMillis() + cooldown;
+                LogUtil.log("Provider " + name + " unhealthy, skipped for " + cooldown / 1000 + " s");
+            }
+        }
+
+        /** Call ended without a verdict (cancelled, or a failure we don't blame on it). */
+        synchronized void release() {
+            probing = false;
+        }
+    }
+
+    private static final class Outcome<T> {
+        final Backend backend;
+        final T value;
+        final WeatherException error;
+        final long millis;
+
+        Outcome(Backend backend, T value, WeatherException error, long millis) {
+            this.backend = backend;
+            this.value = value;
+            this.error = error;
+            this.millis = millis;
+        }
+    }
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final boolean race;
+
+    public ProviderRouter(boolean race) {
+        this.race = race;
+    }
+
+    /** Add a backend; earlier backends are preferred while healthy. */
+    public ProviderRouter add(String name, WeatherProvider provider) {
+        backends.add(new Backend(name, provider, backends.size(), false));
+        return this;
+    }
+
+    /** Add a last-resort backend, asked only when every live backend has failed. */
+    public ProviderRouter addFallback(String name, WeatherProvider provider) {
+        backends.add(new Backend(name, provider, backends.size(), true));
+        return this;
+    }
+
+    public int size() { return backends.size(); }
+
+    @Override
+    public WeatherData getCurrentWeather(String city) throws WeatherException {
+        return route(p -> p.getCurrentWeather(city));
+    }
+
+    @Override
+    public List<ForecastDay> getForecast(String city) throws WeatherException {
+        return route(p -> nonEmpty(p.getForecast(city)));
+    }
+
+    @Override
+    public List<ForecastDay> getForecastSummary(String city) throws WeatherException {
+        return route(p -> nonEmpty(p.getForecastSummary(city)));
+    }
+
+    @Override
+    public List<HourlyWeather> getHourly(String city, String date) throws WeatherException {
+        return route(p -> p.getHourly(city, date));
+    }
+
+    public String stats() {
+        StringBuilder sb = new StringBuilder("providers:");
+        long now = System.currentTimeMillis();
+        for (Backend b : backends) {
+            synchronized (b) {
+                sb.append(String.format(Locale.ROOT, " %s[score=%.0f latency=%.0fms errors=%.0f%% calls=%d failed=%d wins=%d%s%s]",
+                        b.name, b.score(), b.latencyMs, 100 * b.errorRate, b.calls, b.failures, b.wins,
+                        b.fallback ? " fallback" : "", b.openUntil > now ? " open" : ""));
+            }
+        }
+        return sb.toString();
+    }
+
+    // ---------------- routing ----------------
+
+    private <T> T route(Call<T> call) throws WeatherException {
+        long now = System.currentTimeMillis();
+        // snapshot scores: other threads update them while we sort
+        Map<Backend, Double> scores = new IdentityHashMap<>();
+        for (Backend b : backends) scores.put(b, b.score());
+        List<Backend> ranked = new ArrayList<>(backends);
+        // fallbacks last whatever their score
+        ranked.sort(Comparator.comparing((Backend b) -> b.fallback).thenComparingDouble(scores::get));
+        List<Backend> order = new ArrayList<>();
+        List<Backend> probes = new ArrayList<>();
+        for (Backend b : ranked) {
+            int a = b.tryAcquire(now);
+            if (a > 0) order.add(b);
+            if (a == 2) probes.add(b);
+        }
+        // everything tripped: still try them rather than fail without asking
+        if (order.isEmpty()) order = ranked;
+
+        List<Outcome<T>> failed = new ArrayList<>();
+        int i = 0;
+        try {
+            if (race && order.size() >= 2 && !order.get(1).fallback) {
+                Outcome<T> won = race(call, order.get(0), order.get(1), failed);
+                i = 2;
+                if (won != null) return settle(won, failed);
+            }
+            for (; i < order.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) break;
+                Outcome<T> o = invoke(call, order.get(i));
+                if (o.error == null) {
+                    i++;
+                    return settle(o, failed);
+                }
+                failed.add(o);
+            }
+            settle(null, failed);
+        } finally {
+            // probes claimed for backends this request never reached go back unused
+            for (int j = i; j < order.size(); j++) if (probes.contains(order.get(j))) order.get(j).release();
+        }
+        if (Thread.currentThread().isInterrupted()) throw new WeatherException("Interrupted");
+        throw failed.isEmpty() ? new WeatherException("No weather provider available") : failed.get(failed.size() - 1).error;
+    }
+
+    private <T> Outcome<T> invoke(Call<T> call, Backend b) {
+        long t0 = System.nanoTime();
+        try {
+            T v = call.run(b.provider);
+            return new Outcome<>(b, v, null, (System.nanoTime() - t0) / 1_000_000);
+        } catch (WeatherException e) {
+            return new Outcome<>(b, null, e, (System.nanoTime() - t0) / 1_000_000);
+        } catch (RuntimeException e) {
+            return new Outcome<>(b, null, new WeatherException(b.name + " failed: " + e.getMessage()), (System.nanoTime() - t0) / 1_000_000);
+        }
+    }
+
+    // first valid answer of two concurrent calls; failures are added to failed
+    private <T> Outcome<T> race(Call<T> call, Backend a, Backend b, List<Outcome<T>> failed) throws WeatherException {
+        BlockingQueue<Outcome<T>> done = new LinkedBlockingQueue<>();
+        List<Future<?>> running = new ArrayList<>(2);
+        for (Backend x : new Backend[] {a, b}) {
+            running.add(AppExecutors.submitIo(() -> done.add(invoke(call, x))));
+        }
+        try {
+            for (int n = 0; n < 2; n++) {
+                Outcome<T> o = done.take();
+                if (o.error == null) {
+                    for (Future<?> f : running) f.cancel(true);
+                    // the loser never reported; it neither won nor failed
+                    (o.backend == a ? b : a).release();
+                    return o;
+                }
+                failed.add(o);
+            }
+            return null;
+        } catch (InterruptedException e) {
+            for (Future<?> f : running) f.cancel(true);
+            a.release();
+            b.release();
+            Thread.currentThread().interrupt();
+            throw new WeatherException("Interrupted");
+        }
+    }
+
+    private <T> T settle(Outcome<T> winner, List<Outcome<T>> failed) {
+        if (winner != null) {
+            winner.backend.success(winner.millis);
+            synchronized (winner.backend) { winner.backend.wins++; }
+        }
+        boolean interrupted = Thread.currentThread().isInterrupted();
+        for (Outcome<T> f : failed) {
+            if (!interrupted && (winner != null || isNetworkFailure(f.error))) f.backend.failure(f.millis);
+            else f.backend.release();
+        }
+        return winner == null ? null : winner.value;
+    }
+
+    private static boolean isNetworkFailure(WeatherException e) {
+        String m = e.getMessage() == null ? "" : e.getMessage().toLowerCase(Locale.ROOT);
+        return m.contains("network") || m.contains("timed out") || m.contains("busy") || m.contains("returned 5");
+    }
+
+    private static List<ForecastDay> nonEmpty(List<ForecastDay> days) throws WeatherException {
+        if (days == null || days.isEmpty()) throw new WeatherException("Empty forecast");
+        return days;
+    }
+}
@@ -0,0 +1,125 @@
+package oep.skycast.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RemoteWeatherProvider - talks to a SkyCast WeatherServer instead of weatherapi directly.
+ *
+ * Requires preference key: remote.url (e.g. http://weather-host:8085)
+ */
+public class RemoteWeatherProvider implements WeatherProvider {
+
+    private static final Type FORECAST_LIST = new TypeToken<List<ForecastDay>>() {}.getType();
+    private static final Type HOURLY_LIST = new TypeToken<List<HourlyWeather>>() {}.getType();
+    private static final Type PLACE_LIST = new TypeToken<List<GeocodeService.DisplayPlace>>() {}.getType();
+
+    private final HttpClient client = HttpClients.shared();
+    private final Gson gson = new Gson();
+    private final String baseUrl;
+
+    public RemoteWeatherProvider(String baseUrl) {
+        if (baseUrl == null || baseUrl.isBlank()) throw new IllegalArgumentException("remote.url missing");
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public WeatherData getCurrentWeather(String city) throws WeatherException {
+        try {
+            return gson.fromJson(get("/v1/current", city), WeatherData.class);
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt(); // keep cancellation visible
+            throw new WeatherException("Network error while contacting SkyCast server");
+        } catch (WeatherException we) {
+            throw we;
+        } catch (Exception ex) {
+            throw new WeatherException("Failed to parse server response");
+        }
+    }
+
+    @Override
+    public List<ForecastDay> getForecast(String city) throws WeatherException {
+        return forecastList("/v1/forecast", city);
+    }
+
+    @Override
+    public List<ForecastDay> getForecastSummary(String city) throws WeatherException {
+        return forecastList("/v1/summary", city);
+    }
+
+    @Override
+    public List<HourlyWeather> getHourly(String city, String date) throws WeatherException {
+        try {
+            List<HourlyWeather> list = gson.fromJson(get("/v1/hourly", city, "&dt=" + URLEncoder.encode(date, StandardCharsets.UTF_8)), HOURLY_LIST);
+            return list == null ? Collections.emptyList() : list;
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt(); // keep cancellation visible
+            throw new WeatherException("Network error while contacting SkyCast server");
+        } catch (WeatherException we) {
+            throw we;
+        } catch (Exception ex) {
+            throw new WeatherException("Failed to parse server response");
+        }
+    }
+
+    private List<ForecastDay> forecastList(String path, String city) throws WeatherException {
+        try {
+            List<ForecastDay> list = gson.fromJson(get(path, city), FORECAST_LIST);
+            return list == null ? Collections.emptyList() : list;
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt(); // keep cancellation visible
+            throw new WeatherException("Network error while contacting SkyCast server");
+        } catch (WeatherException we) {
+            throw we;
+        } catch (Exception ex) {
+            throw new WeatherException("Failed to parse server response");
+        }
+    }
+
+    /** Place suggestions through the server's shared cache. */
+    public List<GeocodeService.DisplayPlace> suggest(String q) throws IOException, InterruptedException {
+        try {
+            List<GeocodeService.DisplayPlace> list = gson.fromJson(get("/v1/suggest", q), PLACE_LIST);
+            return list == null ? Collections.emptyList() : list;
+        } catch (WeatherException we) {
+            return Collections.emptyList();
+        }
+    }
+
+    private String get(String path, String q) throws IOException, InterruptedException, WeatherException {
+        return get(path, q, "");
+    }
+
+    private String get(String path, String q, String extra) throws IOException, InterruptedException, WeatherException {
+        String url = baseUrl + path + "?q=" + URLEncoder.encode(q, StandardCharsets.UTF_8) + extra;
+        HttpRequest req = HttpRequest.newBuilder().uri(URI.create(url)).timeout(Duration.ofSeconds(15)).GET().build();
+        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() == 503) throw new WeatherException("SkyCast server is busy, try again shortly");
+        if (resp.statusCode() != 200) {
+            String msg = "SkyCast server returned " + resp.statusCode();
+            try {
+                JsonObject o = gson.fromJson(resp.body(), JsonObject.class);
+                if (o != null && o.has("error")) msg = o.get("error").getAsString();
+            } catch (Exception ignored) {}
+            throw new WeatherException(msg);
+        }
+        return resp.body();
+    }
+}
@@ -0,0 +1,229 @@
+package oep.skycast.service;
+
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ReverseGeocoder - offline nearest-place lookup over a bundled city table.
+ *
+ * Places come from /geo/cities.csv on the classpath (name,region,country,lat,lon), or from
+ * the file in preference geocode.reverse.file. They are stored as points on the unit sphere
+ * in a static 3-d k-d tree (implicit, median-split, built once), so a lookup is O(log n),
+ * straight-line distance orders places exactly like great-circle distance, and nothing
+ * special is needed at the poles or the antimeridian.
+ *
+ * {@link #nearest} returns null when nothing lies within geocode.reverse.maxKm (default 75):
+ * a coordinate in the middle of the ocean shouldn't be labelled with the nearest port.
+ */
+public class ReverseGeocoder {
+
+    private static final String RESOURCE = "/geo/cities.csv";
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final Pattern LAT_LON = Pattern.compile("^\\s*(-?\\d+(?:\\.\\d+)?)\\s*,\\s*(-?\\d+(?:\\.\\d+)?)\\s*$");
+
+    private static volatile ReverseGeocoder shared;
+
+    private final String[] names, regions, countries;
+    private final double[] lats, lons;
+    // unit vectors, and the tree as a permutation of place indexes (node = middle of its range)
+    private final double[] xs, ys, zs;
+    private final int[] tree;
+    private final double maxKm;
+
+    ReverseGeocoder(List<String[]> rows, double maxKm) {
+        int n = rows.size();
+        names = new String[n];
+        regions = new String[n];
+        countries = new String[n];
+        lats = new double[n];
+        lons = new double[n];
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        tree = new int[n];
+        for (int i = 0; i < n; i++) {
+            String[] r = rows.get(i);
+            names[i] = r[0];
+            regions[i] = r[1];
+            countries[i] = r[2];
+            lats[i] = Double.parseDouble(r[3]);
+            lons[i] = Double.parseDouble(r[4]);
+            double phi = Math.toRadians(lats[i]), lambda = Math.toRadians(lons[i]);
+            xs[i] = Math.cos(phi) * Math.cos(lambda);
+            ys[i] = Math.cos(phi) * Math.sin(lambda);
+            zs[i] = Math.sin(phi);
+            tree[i] = i;
+        }
+        build(0, n, 0);
+        this.maxKm = maxKm;
+    }
+
+    /** The table loaded per the geocode.reverse.* preferences; loaded on first call. */
+    public static ReverseGeocoder shared() {
+        ReverseGeocoder g = shared;
+        if (g == null) {
+            synchronized (ReverseGeocoder.class) {
+                g = shared;
+                if (g == null) shared = g = load();
+            }
+        }
+        return g;
+    }
+
+    /** Load the table off the FX thread at startup so the first lookup is instant. */
+    public static void preload() {
+        shared();
+    }
+
+    private static ReverseGeocoder load() {
+        double maxKm = 75;
+        try { maxKm = Double.parseDouble(PrefsUtil.get("geocode.reverse.maxKm", "75").trim()); } catch (Exception ignored) {}
+        String file = PrefsUtil.get("geocode.reverse.file", "").trim();
+        List<String[]> rows = new ArrayList<>();
+        try {
+            if (!file.isEmpty()) {
+                try (Reader r = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                    rows = parse(r);
+                }
+            } else {
+                InputStream in = ReverseGeocoder.class.getResourceAsStream(RESOURCE);
+                if (in == null) {
+                    // running from the source tree without resources on the classpath
+                    Path p = Paths.get("resources", "geo", "cities.csv");
+                    if (Files.exists(p)) in = Files.newInputStream(p);
+                }
+                if (in != null) {
+                    try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                        rows = parse(r);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LogUtil.log("Reverse geocoder table not loaded: " + e.getMessage());
+        }
+        if (rows.isEmpty()) LogUtil.log("Reverse geocoder has no places; coordinates will stay unnamed");
+        return new ReverseGeocoder(rows, maxKm);
+    }
+
+    // name,region,country,lat,lon; '#' comments and the header line are skipped, bad rows dropped
+    static List<String[]> parse(Reader in) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        BufferedReader br = new BufferedReader(in);
+        String line;
+        while ((line = br.readLine()) != null) {
+            String t = line.trim();
+            if (t.isEmpty() || t.startsWith("#") || t.startsWith("name,")) continue;
+            String[] f = t.split(",", -1);
+            if (f.length != 5) continue;
+            try {
+                double lat = Double.parseDouble(f[3].trim()), lon = Double.parseDouble(f[4].trim());
+                if (lat < -90 || lat > 90 || lon < -180 || lon > 180) continue;
+                rows.add(new String[] {f[0].trim(), f[1].trim(), f[2].trim(), f[3].trim(), f[4].trim()});
+            } catch (NumberFormatException ignored) {}
+        }
+        return rows;
+    }
+
+    public int size() { return tree.length; }
+
+    /**
+     * Nearest known place to (lat, lon), or null if the table is empty or the nearest place is
+     * further than the configured maximum distance.
+     */
+    public GeocodeService.DisplayPlace nearest(double lat, double lon) {
+        if (tree.length == 0 || Double.isNaN(lat) || Double.isNaN(lon)) return null;
+        double phi = Math.toRadians(lat), lambda = Math.toRadians(lon);
+        double[] q = {Math.cos(phi) * Math.cos(lambda), Math.cos(phi) * Math.sin(lambda), Math.sin(phi)};
+        double[] best = {Double.POSITIVE_INFINITY, -1};
+        search(0, tree.length, 0, q, best);
+        int i = (int) best[1];
+        // chord length -> great-circle distance
+        double km = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(best[0]) / 2));
+        if (i < 0 || km > maxKm) return null;
+        String display = regions[i].isEmpty() || regions[i].equals(names[i])
+                ? names[i] + ", " + countries[i]
+                : names[i] + ", " + regions[i] + ", " + countries[i];
+        return new GeocodeService.DisplayPlace(display, names[i], regions[i], countries[i], lats[i], lons[i]);
+    }
+
+    /** "lat,lon" text as {lat, lon}, or null when the text isn't a coordinate pair. */
+    public static double[] parseLatLon(String text) {
+        if (text == null) return null;
+        Matcher m = LAT_LON.matcher(text);
+        if (!m.matches()) return null;
+        double lat = Double.parseDouble(m.group(1)), lon = Double.parseDouble(m.group(2));
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) return null;
+        return new double[] {lat, lon};
+    }
+
+    // ---------------- k-d tree ----------------
+
+    private double coord(int place, int axis) {
+        return axis == 0 ? xs[place] : axis == 1 ? ys[place] : zs[place];
+    }
+
+    // arrange tree[from, to) so its middle holds the median on this axis, then recurse
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) return;
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, axis);
+        build(from, mid, (axis + 1) % 3);
+        build(mid + 1, to, (axis + 1) % 3);
+    }
+
+    // quickselect on tree[lo..hi] by coord(axis)
+    private void select(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            double pivot = coord(tree[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (coord(tree[i], axis) < pivot) i++;
+                while (coord(tree[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int t = tree[i]; tree[i] = tree[j]; tree[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    // best = {squared distance, place index}
+    private void search(int from, int to, int axis, double[] q, double[] best) {
+        if (from >= to) return;
+        int mid = (from + to) >>> 1;
+        int p = tree[mid];
+        double dx = xs[p] - q[0], dy = ys[p] - q[1], dz = zs[p] - q[2];
+        double d2 = dx * dx + dy * dy + dz * dz;
+        if (d2 < best[0]) {
+            best[0] = d2;
+            best[1] = p;
+        }
+        double diff = q[axis] - coord(p, axis);
+        int next = (axis + 1) % 3;
+        if (diff < 0) {
+            search(from, mid, next, q, best);
+            if (diff * diff < best[0]) search(mid + 1, to, next, q, best);
+        } else {
+            search(mid + 1, to, next, q, best);
+            if (diff * diff < best[0]) search(from, mid, next, q, best);
+        }
+    }
+}
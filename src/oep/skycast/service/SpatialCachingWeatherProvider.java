@@ -0,0 +1,332 @@
+package oep.skycast.service;
+
+import oep.skycast.exceptions.WeatherException;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+import oep.skycast.model.WeatherData;
+import oep.skycast.util.Geohash;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SpatialCachingWeatherProvider - short-lived cache in front of another provider, keyed by
+ * place rather than by query text.
+ *
+ *  - "lat,lon" queries are keyed by their geohash (cache.geohash.precision, default 6, about
+ *    1.2 x 0.6 km), so two picks of the same suggestion with slightly different doubles share
+ *    one entry.
+ *  - Any query is also answered by the nearest fresh entry within cache.spatial.toleranceKm
+ *    (default 2) of where it points. A coordinate query points at its coordinates; a name
+ *    query only gets a point once that exact text has been fetched, and then points where
+ *    its result was located. So a picked suggestion near Surat reuses an earlier "Surat"
+ *    fetch, but the first "Surat, Gujarat" still goes upstream.
+ *  - Identical concurrent misses share one in-flight call. If that call was interrupted
+ *    (its search was superseded), the callers waiting on it fetch again themselves rather
+ *    than inherit the interruption.
+ *
+ * Entries live for cache.spatial.ttlSeconds (default 600). Hourly detail passes straight
+ * through ({@link HourlyDetailCache} handles it).
+ *
+ * Every caller gets its own copy of the cached models, so nearby searches, the alert monitor
+ * and the prefetcher never share (or change) one another's objects.
+ */
+public class SpatialCachingWeatherProvider implements WeatherProvider {
+
+    private static final Pattern LAT_LON = Pattern.compile("^\\s*(-?\\d+(?:\\.\\d+)?)\\s*,\\s*(-?\\d+(?:\\.\\d+)?)\\s*$");
+    private static final int MAX_ENTRIES = 512;
+    // longitude cells narrow with latitude; size the search grid for up to 70 degrees
+    private static final double MAX_LAT_FOR_GRID = 70;
+
+    private final WeatherProvider delegate;
+    private final int keyPrecision;
+    private final int gridPrecision;
+    private final double toleranceKm;
+    private final long ttlMillis;
+
+    // where name queries resolved to, learned from current-weather results
+    private final Map<String, double[]> namePoints = new ConcurrentHashMap<>();
+
+    private final Layer<WeatherData> current = new Layer<>("current");
+    private final Layer<List<ForecastDay>> forecast = new Layer<>("forecast");
+    private final Layer<List<ForecastDay>> summary = new Layer<>("summary");
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong nearHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SpatialCachingWeatherProvider(WeatherProvider delegate, int keyPrecision, double toleranceKm, long ttlSeconds) {
+        this.delegate = delegate;
+        this.keyPrecision = Math.max(1, Math.min(Geohash.MAX_PRECISION, keyPrecision));
+        this.toleranceKm = Math.max(0, toleranceKm);
+        this.gridPrecision = Geohash.precisionFor(Math.max(0.05, this.toleranceKm) / Math.cos(Math.toRadians(MAX_LAT_FOR_GRID)));
+        this.ttlMillis = Math.max(1, ttlSeconds) * 1000L;
+    }
+
+    /** Wrap {@code delegate} using the cache.* preferences. */
+    public static WeatherProvider fromPreferences(WeatherProvider delegate) {
+        int precision = 6;
+        double tolerance = 2;
+        long ttl = 600;
+        try { precision = Integer.parseInt(PrefsUtil.get("cache.geohash.precision", "6").trim()); } catch (Exception ignored) {}
+        try { tolerance = Double.parseDouble(PrefsUtil.get("cache.spatial.toleranceKm", "2").trim()); } catch (Exception ignored) {}
+        try { ttl = Long.parseLong(PrefsUtil.get("cache.spatial.ttlSeconds", "600").trim()); } catch (Exception ignored) {}
+        return new SpatialCachingWeatherProvider(delegate, precision, tolerance, ttl);
+    }
+
+    public WeatherProvider delegate() { return delegate; }
+
+    @Override
+    public WeatherData getCurrentWeather(String city) throws WeatherException {
+        Query q = parse(city);
+        WeatherData w = current.get(q, () -> delegate.getCurrentWeather(city));
+        if (q.name != null && w != null && !Double.isNaN(w.getLatitude()) && !Double.isNaN(w.getLongitude())) {
+            namePoints.put(q.name, new double[] {w.getLatitude(), w.getLongitude()});
+        }
+        return w == null ? null : new WeatherData(w);
+    }
+
+    @Override
+    public List<ForecastDay> getForecast(String city) throws WeatherException {
+        return ForecastDay.copyAll(forecast.get(parse(city), () -> delegate.getForecast(city)));
+    }
+
+    @Override
+    public List<ForecastDay> getForecastSummary(String city) throws WeatherException {
+        return ForecastDay.copyAll(summary.get(parse(city), () -> delegate.getForecastSummary(city)));
+    }
+
+    @Override
+    public List<HourlyWeather> getHourly(String city, String date) throws WeatherException {
+        return delegate.getHourly(city, date);
+    }
+
+    public void clear() {
+        current.clear();
+        forecast.clear();
+        summary.clear();
+        namePoints.clear();
+    }
+
+    public String stats() {
+        long h = hits.get(), n = nearHits.get(), m = misses.get();
+        long total = h + n + m;
+        return String.format(Locale.ROOT, "spatial cache: hits=%d near=%d misses=%d coalesced=%d hitRate=%.0f%% entries=%d",
+                h, n, m, coalesced.get(), total == 0 ? 0.0 : 100.0 * (h + n) / total,
+                current.size() + forecast.size() + summary.size());
+    }
+
+    // ---------------- queries ----------------
+
+    /** A query reduced to its cache key and, when known, the point it refers to. */
+    private static final class Query {
+        final String key;
+        final String name;   // normalized name, null for coordinate queries
+        final double lat, lon;
+
+        Query(String key, String name, double lat, double lon) {
+            this.key = key;
+            this.name = name;
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        boolean hasPoint() { return !Double.isNaN(lat); }
+    }
+
+    private Query parse(String raw) {
+        Matcher m = LAT_LON.matcher(raw);
+        if (m.matches()) {
+            double lat = Double.parseDouble(m.group(1)), lon = Double.parseDouble(m.group(2));
+            if (lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180) {
+                return new Query("gh:" + Geohash.encode(lat, lon, keyPrecision), null, lat, lon);
+            }
+        }
+        String name = raw.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        double[] p = namePoints.get(name);
+        return new Query("name:" + name, name, p != null ? p[0] : Double.NaN, p != null ? p[1] : Double.NaN);
+    }
+
+    @FunctionalInterface
+    private interface Fetch<V> {
+        V get() throws WeatherException;
+    }
+
+    // ---------------- one cache per payload type ----------------
+
+    private final class Layer<V> {
+        private final class Slot {
+            final double lat, lon;
+            final String cell;
+            final V value;
+            final long storedAt = System.currentTimeMillis();
+
+            Slot(double lat, double lon, V value) {
+                this.lat = lat;
+                this.lon = lon;
+                this.cell = Double.isNaN(lat) ? null : Geohash.encode(lat, lon, gridPrecision);
+                this.value = value;
+            }
+
+            boolean fresh(long now) { return now - storedAt < ttlMillis; }
+        }
+
+        private final String label;
+        private final Map<String, Slot> byKey = new ConcurrentHashMap<>();
+        private final Map<String, List<Slot>> byCell = new ConcurrentHashMap<>();
+        private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+        Layer(String label) { this.label = label; }
+
+        V get(Query q, Fetch<V> fetch) throws WeatherException {
+            while (true) {
+                long now = System.currentTimeMillis();
+                Slot s = byKey.get(q.key);
+                if (s != null && s.fresh(now)) {
+                    hits.incrementAndGet();
+                    return s.value;
+                }
+                if (q.hasPoint()) {
+                    s = nearest(q.lat, q.lon, now);
+                    if (s != null) {
+                        nearHits.incrementAndGet();
+                        byKey.put(q.key, s);
+                        return s.value;
+                    }
+                }
+
+                CompletableFuture<V> mine = new CompletableFuture<>();
+                CompletableFuture<V> running = inFlight.putIfAbsent(q.key, mine);
+                if (running != null) {
+                    coalesced.incrementAndGet();
+                    try {
+                        return await(running);
+                    } catch (CancellationException leaderInterrupted) {
+                        continue; // that caller gave up, this one still wants the data
+                    }
+                }
+                misses.incrementAndGet();
+                V v;
+                try {
+                    v = fetch.get();
+                } catch (WeatherException | RuntimeException e) {
+                    // out of the map first, so a waiter that retries doesn't find this call again
+                    inFlight.remove(q.key, mine);
+                    if (Thread.currentThread().isInterrupted()) mine.cancel(false);
+                    else mine.completeExceptionally(e);
+                    throw e;
+                }
+                try {
+                    store(q, v);
+                } finally {
+                    inFlight.remove(q.key, mine);
+                    mine.complete(v);
+                }
+                return v;
+            }
+        }
+
+        // CancellationException when the leading call was interrupted
+        private V await(CompletableFuture<V> f) throws WeatherException {
+            try {
+                return f.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof WeatherException) throw (WeatherException) e.getCause();
+                throw new WeatherException("Weather lookup failed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WeatherException("Interrupted while waiting for weather data");
+            }
+        }
+
+        private void store(Query q, V v) {
+            double lat = q.lat, lon = q.lon;
+            // place current weather where the upstream says it is, not where the query pointed
+            if (v instanceof WeatherData) {
+                WeatherData w = (WeatherData) v;
+                // a fallback answer; the next lookup should try the live service again
+                if (w.isOffline()) return;
+                if (!Double.isNaN(w.getLatitude()) && !Double.isNaN(w.getLongitude())) {
+                    lat = w.getLatitude();
+                    lon = w.getLongitude();
+                }
+            }
+            Slot s = new Slot(lat, lon, v);
+            Slot old = byKey.put(q.key, s);
+            if (old != null && old.cell != null) removeFromCell(old);
+            if (s.cell != null) {
+                List<Slot> slots = byCell.computeIfAbsent(s.cell, c -> new ArrayList<>());
+                synchronized (slots) { slots.add(s); }
+            }
+            if (byKey.size() > MAX_ENTRIES) evict();
+        }
+
+        private Slot nearest(double lat, double lon, long now) {
+            Slot best = null;
+            double bestKm = toleranceKm;
+            for (String cell : Geohash.neighbors(Geohash.encode(lat, lon, gridPrecision))) {
+                List<Slot> slots = byCell.get(cell);
+                if (slots == null) continue;
+                synchronized (slots) {
+                    for (Slot s : slots) {
+                        if (!s.fresh(now)) continue;
+                        double km = Geohash.distanceKm(lat, lon, s.lat, s.lon);
+                        if (km <= bestKm) { bestKm = km; best = s; }
+                    }
+                }
+            }
+            return best;
+        }
+
+        private void removeFromCell(Slot s) {
+            List<Slot> slots = byCell.get(s.cell);
+            if (slots == null) return;
+            synchronized (slots) {
+                slots.remove(s);
+                if (slots.isEmpty()) byCell.remove(s.cell, slots);
+            }
+        }
+
+        // drop expired entries first, then the oldest until back under the cap
+        private synchronized void evict() {
+            long now = System.currentTimeMillis();
+            for (Iterator<Slot> it = byKey.values().iterator(); it.hasNext(); ) {
+                Slot s = it.next();
+                if (!s.fresh(now)) {
+                    it.remove();
+                    if (s.cell != null) removeFromCell(s);
+                }
+            }
+            while (byKey.size() > MAX_ENTRIES) {
+                Map.Entry<String, Slot> oldest = null;
+                for (Map.Entry<String, Slot> e : byKey.entrySet()) {
+                    if (oldest == null || e.getValue().storedAt < oldest.getValue().storedAt) oldest = e;
+                }
+                if (oldest == null) break;
+                byKey.remove(oldest.getKey());
+                if (oldest.getValue().cell != null && !byKey.containsValue(oldest.getValue())) removeFromCell(oldest.getValue());
+            }
+            LogUtil.log("Spatial " + label + " cache evicted to " + byKey.size() + " entries");
+        }
+
+        int size() { return byKey.size(); }
+
+        void clear() {
+            byKey.clear();
+            byCell.clear();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package oep.skycast.service;
 
+import oep.skycast.model.HourlyWeather;
 import oep.skycast.model.WeatherData;
 import oep.skycast.model.ForecastDay;
 import oep.skycast.exceptions.WeatherException;
+import java.util.Collections;
 import java.util.List;
 
 public interface WeatherProvider {
@@ -10,4 +12,24 @@ public interface WeatherProvider {
     WeatherData getCurrentWeather(String city) throws WeatherException;
 
     List<ForecastDay> getForecast(String city) throws WeatherException;
+
+    /**
+     * Daily forecast for the dashboard's default path. Providers that can fetch a lighter
+     * payload return days whose hourly list is empty; use {@link #getHourly} for those.
+     * Default: the full forecast.
+     */
+    default List<ForecastDay> getForecastSummary(String city) throws WeatherException {
+        return getForecast(city);
+    }
+
+    /**
+     * Hourly detail for one day (ISO date as in {@link ForecastDay#getDate()}).
+     * Default: picked out of the full forecast.
+     */
+    default List<HourlyWeather> getHourly(String city, String date) throws WeatherException {
+        for (ForecastDay d : getForecast(city)) {
+            if (date != null && date.equals(d.getDate())) return d.getHourly();
+        }
+        return Collections.emptyList();
+    }
 }
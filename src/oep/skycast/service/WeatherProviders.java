@@ -0,0 +1,102 @@
+package oep.skycast.service;
+
+import oep.skycast.service.http.HttpTransports;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * WeatherProviders - picks the provider implementation from preferences.
+ * Shared by the dashboard and the headless entry points so they behave the same.
+ */
+public final class WeatherProviders {
+
+    public static final String SAMPLE_DATA = "resources/sample-data/weather-surat.json";
+    public static final String OFFLINE_DATASET = "resources/sample-data";
+
+    private WeatherProviders() {}
+
+    /**
+     * RemoteWeatherProvider when remote.url is set, otherwise {@link #upstreamFromPreferences()};
+     * behind a {@link SpatialCachingWeatherProvider} unless cache.spatial is false.
+     */
+    public static WeatherProvider fromPreferences() {
+        String remote = PrefsUtil.get("remote.url", "").trim();
+        WeatherProvider p = !remote.isBlank() ? new RemoteWeatherProvider(remote) : upstreamFromPreferences();
+        if (!Boolean.parseBoolean(PrefsUtil.get("cache.spatial", "true").trim())) return p;
+        return SpatialCachingWeatherProvider.fromPreferences(p);
+    }
+
+    /**
+     * Open the connection to whichever host the configured provider will call first.
+     */
+    public static void prewarm() {
+        String remote = PrefsUtil.get("remote.url", "").trim();
+        if (!remote.isBlank()) HttpClients.prewarm(remote);
+        else if (!PrefsUtil.get("weather.api.key", "").isBlank()) HttpClients.prewarm(ApiWeatherProvider.apiBase() + "/");
+    }
+
+    /**
+     * Backends named in preference providers (default "weatherapi"), in order of preference,
+     * behind a {@link ProviderRouter} when there is more than one. openmeteo (the public
+     * Open-Meteo API) and offline (the bundled dataset) are opt-in: add them to the list.
+     * offline is always a last resort, tried only when every live backend fails, and its
+     * results are marked offline so the dashboard doesn't pass them off as live.
+     * weatherapi needs weather.api.key (or a replay archive); openmeteo is left out while
+     * replaying, since the archive only holds weatherapi traffic. providers.race=true calls
+     * the two healthiest backends at once.
+     * With no usable backend the offline dataset is used on its own.
+     * Never returns a remote provider (the server itself uses this).
+     */
+    public static WeatherProvider upstreamFromPreferences() {
+        ProviderRouter router = new ProviderRouter(Boolean.parseBoolean(PrefsUtil.get("providers.race", "false").trim()));
+        WeatherProvider only = null;
+        for (String name : PrefsUtil.get("providers", "weatherapi").split(",")) {
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            WeatherProvider p = backend(key);
+            if (p == null) continue;
+            if (key.equals("offline")) router.addFallback(name.trim(), p);
+            else router.add(name.trim(), p);
+            only = p;
+        }
+        if (router.size() == 0) return offlineFromPreferences();
+        return router.size() == 1 ? only : router;
+    }
+
+    private static WeatherProvider backend(String name) {
+        try {
+            switch (name) {
+                case "weatherapi":
+                    if (!PrefsUtil.get("weather.api.key", "").trim().isBlank()) return new ApiWeatherProvider();
+                    // replaying an archive needs no real key (archives never contain one)
+                    if (HttpTransports.isReplay()) return new ApiWeatherProvider("replay", HttpTransports.shared());
+                    return null;
+                case "openmeteo":
+                    return HttpTransports.isReplay() ? null : new OpenMeteoWeatherProvider();
+                case "offline":
+                    return offlineFromPreferences();
+                default:
+                    LogUtil.log("Unknown weather provider in preferences: " + name);
+                    return null;
+            }
+        } catch (Exception e) {
+            LogUtil.log("Weather provider " + name + " unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Indexed dataset from offline.dataset (file or directory), watched for changes;
+     * the single sample file if that can't be read.
+     */
+    public static WeatherProvider offlineFromPreferences() {
+        try {
+            double maxKm = Double.parseDouble(PrefsUtil.get("offline.maxDistanceKm", "50"));
+            return new DatasetWeatherProvider(Paths.get(PrefsUtil.get("offline.dataset", OFFLINE_DATASET)), maxKm, true);
+        } catch (Exception ex) {
+            return new FileWeatherProvider(SAMPLE_DATA);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package oep.skycast.service.http;
+
+import oep.skycast.util.LogUtil;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CachingTransport - private HTTP cache (RFC 9111 subset) in front of another transport.
+ *
+ *  - Stores 200 responses with their validators (ETag, Last-Modified).
+ *  - Freshness: Cache-Control max-age, else Expires minus Date, else the usual heuristic of
+ *    10% of the time since Last-Modified (capped at a day). Age and the time the response
+ *    spent in flight are counted against it.
+ *  - Fresh hits never touch the network. Stale entries with a validator are revalidated with
+ *    If-None-Match / If-Modified-Since; a 304 refreshes the stored headers and the caller
+ *    gets the stored body as a normal 200.
+ *  - no-store and Vary: * are never stored; no-cache is stored but always revalidated.
+ *    If revalidation fails with an I/O error the stale copy is served unless the response
+ *    said must-revalidate.
+ *
+ * Memory only, LRU, bounded by total body bytes. Entries are immutable; a 304 replaces the
+ * entry, so lookups can read one without holding the lock.
+ */
+public class CachingTransport implements HttpTransport {
+
+    private static final long HEURISTIC_CAP_MILLIS = 24 * 3600_000L;
+
+    private static final class Entry {
+        final byte[] body;
+        final Map<String, List<String>> headers;
+        final long storedAt;        // local clock when the response (or its 304) arrived
+        final long initialAgeMillis;
+        final long lifetimeMillis;
+        final boolean noCache;
+        final boolean mustRevalidate;
+
+        Entry(byte[] body, Map<String, List<String>> headers, long sentAt, long receivedAt) {
+            this.body = body;
+            this.headers = headers;
+            String cc = lower(first(headers, "Cache-Control"));
+            noCache = cc.contains("no-cache");
+            mustRevalidate = cc.contains("must-revalidate") || cc.contains("proxy-revalidate");
+            storedAt = receivedAt;
+
+            long date = httpDate(first(headers, "Date"));
+            long age = seconds(first(headers, "Age"), 0) * 1000L;
+            long apparent = date > 0 ? Math.max(0, receivedAt - date) : 0;
+            initialAgeMillis = Math.max(apparent, age) + (receivedAt - sentAt);
+            lifetimeMillis = lifetime(headers, cc, date, receivedAt);
+        }
+
+        String etag() { return first(headers, "ETag"); }
+
+        String lastModified() { return first(headers, "Last-Modified"); }
+
+        boolean hasValidator() { return etag() != null || lastModified() != null; }
+
+        boolean fresh(long now) {
+            return !noCache && initialAgeMillis + (now - storedAt) < lifetimeMillis;
+        }
+    }
+
+    private final HttpTransport delegate;
+    private final long maxBytes;
+    private long bytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public CachingTransport(HttpTransport delegate, long maxBytes) {
+        this.delegate = delegate;
+        this.maxBytes = Math.max(64 * 1024, maxBytes);
+    }
+
+    @Override
+    public HttpResult get(URI uri, Map<String, String> headers, Duration timeout) throws IOException, InterruptedException {
+        String key = uri.toString();
+        long now = System.currentTimeMillis();
+        Entry e;
+        synchronized (this) {
+            e = entries.get(key);
+        }
+        if (e != null && e.fresh(now)) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(e.body.length);
+            return new HttpResult(200, e.headers, e.body);
+        }
+
+        Map<String, String> req = new HashMap<>();
+        if (headers != null) req.putAll(headers);
+        boolean conditional = e != null && e.hasValidator();
+        if (conditional) {
+            if (e.etag() != null) req.put("If-None-Match", e.etag());
+            if (e.lastModified() != null) req.put("If-Modified-Since", e.lastModified());
+        }
+
+        long sentAt = System.currentTimeMillis();
+        HttpResult r;
+        try {
+            r = delegate.get(uri, req, timeout);
+        } catch (IOException io) {
+            if (e != null && !e.mustRevalidate) {
+                staleServed.incrementAndGet();
+                LogUtil.log("HTTP cache: serving stale " + uri.getHost() + uri.getPath() + " (" + io.getMessage() + ")");
+                return new HttpResult(200, e.headers, e.body);
+            }
+            throw io;
+        }
+        long receivedAt = System.currentTimeMillis();
+
+        if (r.status() == 304 && e != null) {
+            revalidated.incrementAndGet();
+            bytesSaved.addAndGet(e.body.length);
+            // headers in a 304 replace the stored ones (RFC 9111 4.3.4)
+            Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(e.headers);
+            merged.putAll(r.headers());
+            Entry refreshed = new Entry(e.body, merged, sentAt, receivedAt);
+            synchronized (this) {
+                // same body, so the byte count is unchanged; skip if evicted or replaced meanwhile
+                if (entries.get(key) == e) entries.put(key, refreshed);
+            }
+            return new HttpResult(200, refreshed.headers, refreshed.body);
+        }
+
+        misses.incrementAndGet();
+        if (r.status() == 200) store(key, r, sentAt, receivedAt);
+        else if (r.status() != 304) {
+            synchronized (this) { remove(key); }
+        }
+        return r;
+    }
+
+    private void store(String key, HttpResult r, long sentAt, long receivedAt) {
+        String cc = lower(r.header("Cache-Control"));
+        if (cc.contains("no-store") || "*".equals(r.header("Vary"))) return;
+        Entry e = new Entry(r.body(), r.headers(), sentAt, receivedAt);
+        if (!e.hasValidator() && e.lifetimeMillis <= 0) return; // nothing to gain from keeping it
+        if (e.body.length > maxBytes / 4) return;
+        synchronized (this) {
+            remove(key);
+            entries.put(key, e);
+            bytes += e.body.length;
+            for (Iterator<Entry> it = entries.values().iterator(); bytes > maxBytes && it.hasNext(); ) {
+                bytes -= it.next().body.length;
+                it.remove();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null) bytes -= old.body.length;
+    }
+
+    private static long lifetime(Map<String, List<String>> h, String cc, long date, long receivedAt) {
+        long maxAge = directive(cc, "max-age");
+        if (maxAge >= 0) return maxAge * 1000L;
+        long expires = httpDate(first(h, "Expires"));
+        if (expires > 0 || first(h, "Expires") != null) {
+            // invalid Expires (e.g. "0") means already expired
+            return expires > 0 ? expires - (date > 0 ? date : receivedAt) : 0;
+        }
+        long lastModified = httpDate(first(h, "Last-Modified"));
+        if (lastModified > 0) {
+            long since = (date > 0 ? date : receivedAt) - lastModified;
+            return Math.min(HEURISTIC_CAP_MILLIS, Math.max(0, since / 10));
+        }
+        return 0;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public String stats() {
+        int n;
+        long b;
+        synchronized (this) {
+            n = entries.size();
+            b = bytes;
+        }
+        return String.format(Locale.ROOT, "http cache: hits=%d revalidated=%d misses=%d stale=%d entries=%d bytes=%d saved=%d",
+                hits.get(), revalidated.get(), misses.get(), staleServed.get(), n, b, bytesSaved.get());
+    }
+
+    // ---------------- header helpers ----------------
+
+    private static String first(Map<String, List<String>> h, String name) {
+        if (h == null) return null;
+        List<String> v = h.get(name);
+        if (v == null) {
+            // stored maps from a 304 merge or HttpResult are case-insensitive; plain maps may not be
+            for (Map.Entry<String, List<String>> e : h.entrySet()) {
+                if (e.getKey() != null && e.getKey().equalsIgnoreCase(name)) { v = e.getValue(); break; }
+            }
+        }
+        if (v == null || v.isEmpty()) return null;
+        if (v.size() == 1) return v.get(0);
+        // repeated Cache-Control lines are one comma-separated list
+        return String.join(", ", new ArrayList<>(v));
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    // delta-seconds value of a directive such as max-age=60, or -1
+    private static long directive(String cc, String name) {
+        for (String part : cc.split(",")) {
+            String p = part.trim();
+            if (p.startsWith(name + "=")) return seconds(p.substring(name.length() + 1).replace("\"", ""), -1);
+        }
+        return -1;
+    }
+
+    private static long seconds(String s, long dflt) {
+        if (s == null) return dflt;
+        try {
+            return Math.max(0, Long.parseLong(s.trim()));
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
+    }
+
+    private static long httpDate(String s) {
+        if (s == null) return -1;
+        try {
+            return ZonedDateTime.parse(s.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
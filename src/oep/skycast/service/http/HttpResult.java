@@ -0,0 +1,41 @@
+package oep.skycast.service.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Status, headers (case-insensitive names) and raw body of one HTTP exchange.
+ */
+public class HttpResult {
+
+    private final int status;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    public HttpResult(int status, Map<String, List<String>> headers, byte[] body) {
+        this.status = status;
+        TreeMap<String, List<String>> h = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+                if (e.getKey() != null) h.put(e.getKey(), e.getValue());
+            }
+        }
+        this.headers = Collections.unmodifiableMap(h);
+        this.body = body == null ? new byte[0] : body;
+    }
+
+    public int status() { return status; }
+    public Map<String, List<String>> headers() { return headers; }
+    public byte[] body() { return body; }
+
+    public String bodyAsString() { return new String(body, StandardCharsets.UTF_8); }
+
+    /** First value of the header, or null. */
+    public String header(String name) {
+        List<String> v = headers.get(name);
+        return (v == null || v.isEmpty()) ? null : v.get(0);
+    }
+}
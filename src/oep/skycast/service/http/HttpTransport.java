@@ -0,0 +1,18 @@
+package oep.skycast.service.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * HttpTransport - the single seam every upstream GET goes through.
+ *
+ * Providers build the URL and parse the body; the transport decides how the bytes are
+ * obtained (live HttpClient, recorded archive, cache...). Implementations decorate each
+ * other, e.g. recording(live).
+ */
+public interface HttpTransport {
+
+    HttpResult get(URI uri, Map<String, String> headers, Duration timeout) throws IOException, InterruptedException;
+}
@@ -0,0 +1,73 @@
+package oep.skycast.service.http;
+
+import oep.skycast.service.HttpClients;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.nio.file.Paths;
+
+/**
+ * HttpTransports - builds the process-wide transport chain from preferences.
+ *
+ *   http.replay=FILE           serve everything from a replay archive (no network)
+ *   http.replay.latency=MODE   none | recorded | MS[:JITTER]
+ *   http.record=FILE           live requests, raw responses appended to FILE (no cache)
+ *   http.cache=false           disable the HTTP cache in front of live requests
+ *   http.cache.maxBytes=N      cache size (bodies), default 16 MB
+ *
+ * Chain: recording -> HttpClient, or cache -> HttpClient. The cache is left out while
+ * recording: cache hits would go into the archive as near-zero latencies, and recording below
+ * the cache would store 304s without bodies, neither of which replays like the real service.
+ */
+public final class HttpTransports {
+
+    private static volatile HttpTransport shared;
+    private static volatile CachingTransport cache;
+
+    private HttpTransports() {}
+
+    public static HttpTransport shared() {
+        HttpTransport t = shared;
+        if (t == null) {
+            synchronized (HttpTransports.class) {
+                if (shared == null) shared = fromPreferences();
+                t = shared;
+            }
+        }
+        return t;
+    }
+
+    /** Cache counters, or null when the cache is off (or the transport isn't built yet). */
+    public static String cacheStats() {
+        CachingTransport c = cache;
+        return c == null ? null : c.stats();
+    }
+
+    public static boolean isReplay() {
+        return !PrefsUtil.get("http.replay", "").isBlank();
+    }
+
+    private static HttpTransport fromPreferences() {
+        String replay = PrefsUtil.get("http.replay", "").trim();
+        if (!replay.isEmpty()) {
+            try {
+                return new ReplayTransport(Paths.get(replay), PrefsUtil.get("http.replay.latency", "none"));
+            } catch (Exception e) {
+                LogUtil.log("Replay archive unusable, using live HTTP: " + e.getMessage());
+            }
+        }
+        HttpTransport live = new JdkHttpTransport(HttpClients.shared());
+        String record = PrefsUtil.get("http.record", "").trim();
+        if (!record.isEmpty()) {
+            LogUtil.log("Recording HTTP to " + record + " (HTTP cache off)");
+            return new RecordingTransport(live, Paths.get(record));
+        }
+        if (!"false".equalsIgnoreCase(PrefsUtil.get("http.cache", "true").trim())) {
+            long max = 16L * 1024 * 1024;
+            try { max = Long.parseLong(PrefsUtil.get("http.cache.maxBytes", String.valueOf(max)).trim()); } catch (Exception ignored) {}
+            cache = new CachingTransport(live, max);
+            live = cache;
+        }
+        return live;
+    }
+}
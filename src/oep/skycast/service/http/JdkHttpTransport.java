@@ -0,0 +1,33 @@
+package oep.skycast.service.http;
+
+import oep.skycast.util.FxThreadGuard;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Live transport on top of a java.net.http.HttpClient.
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    private final HttpClient client;
+
+    public JdkHttpTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public HttpResult get(URI uri, Map<String, String> headers, Duration timeout) throws IOException, InterruptedException {
+        FxThreadGuard.checkBlocking("HTTP GET " + uri.getHost() + uri.getPath());
+        HttpRequest.Builder b = HttpRequest.newBuilder().uri(uri).GET();
+        if (timeout != null) b.timeout(timeout);
+        if (headers != null) headers.forEach(b::header);
+        HttpResponse<byte[]> resp = client.send(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+        return new HttpResult(resp.statusCode(), resp.headers().map(), resp.body());
+    }
+}
@@ -0,0 +1,60 @@
+package oep.skycast.service.http;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One line of a replay archive (JSON Lines). Text bodies are stored as-is so archives stay
+ * readable and editable; anything else is base64.
+ */
+class RecordedExchange {
+    String key;
+    int status;
+    Map<String, List<String>> headers;
+    String bodyText;
+    String bodyBase64;
+    long latencyMicros;
+    long recordedAtMillis;
+
+    static RecordedExchange of(String key, HttpResult r, long latencyMicros) {
+        RecordedExchange e = new RecordedExchange();
+        e.key = key;
+        e.status = r.status();
+        e.headers = r.headers();
+        String ct = r.header("Content-Type");
+        if (ct != null && (ct.contains("json") || ct.startsWith("text/"))) e.bodyText = r.bodyAsString();
+        else e.bodyBase64 = Base64.getEncoder().encodeToString(r.body());
+        e.latencyMicros = latencyMicros;
+        e.recordedAtMillis = System.currentTimeMillis();
+        return e;
+    }
+
+    HttpResult toResult() {
+        byte[] body = bodyText != null ? bodyText.getBytes(StandardCharsets.UTF_8)
+                : bodyBase64 != null ? Base64.getDecoder().decode(bodyBase64) : new byte[0];
+        return new HttpResult(status, headers, body);
+    }
+
+    /**
+     * Archive key: the URL without the API key parameter, so archives never contain
+     * credentials and replay works with any (or no) key.
+     */
+    static String keyFor(URI uri) {
+        String q = uri.getRawQuery();
+        StringBuilder sb = new StringBuilder();
+        sb.append(uri.getScheme()).append("://").append(uri.getRawAuthority()).append(uri.getRawPath());
+        if (q != null) {
+            String sep = "?";
+            for (String part : q.split("&")) {
+                if (part.toLowerCase(Locale.ROOT).startsWith("key=")) continue;
+                sb.append(sep).append(part);
+                sep = "&";
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package oep.skycast.service.http;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * RecordingTransport - passes requests through and appends each raw response, with its
+ * measured latency, to a JSON Lines replay archive.
+ */
+public class RecordingTransport implements HttpTransport {
+
+    private final HttpTransport delegate;
+    private final Path archive;
+    private final Gson gson = new Gson();
+
+    public RecordingTransport(HttpTransport delegate, Path archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public HttpResult get(URI uri, Map<String, String> headers, Duration timeout) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+        HttpResult r = delegate.get(uri, headers, timeout);
+        long micros = (System.nanoTime() - t0) / 1000;
+        append(RecordedExchange.of(RecordedExchange.keyFor(uri), r, micros));
+        return r;
+    }
+
+    private synchronized void append(RecordedExchange e) throws IOException {
+        if (archive.getParent() != null) Files.createDirectories(archive.getParent());
+        try (BufferedWriter bw = Files.newBufferedWriter(archive, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            bw.write(gson.toJson(e));
+            bw.newLine();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package oep.skycast.service.http;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplayTransport - serves responses from a replay archive, never touching the network.
+ *
+ * Several recordings of the same URL are served round-robin. Latency modes:
+ *   none        answer immediately
+ *   recorded    sleep for the latency measured when recording
+ *   MS[:JITTER] sleep MS milliseconds, +/- up to JITTER (synthetic)
+ */
+public class ReplayTransport implements HttpTransport {
+
+    private final Map<String, List<RecordedExchange>> byKey = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    private final String latencyMode;
+    private final long fixedMillis;
+    private final long jitterMillis;
+
+    public ReplayTransport(Path archive, String latencyMode) throws IOException {
+        Gson gson = new Gson();
+        try (BufferedReader br = Files.newBufferedReader(archive, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) continue;
+                RecordedExchange e = gson.fromJson(line, RecordedExchange.class);
+                byKey.computeIfAbsent(e.key, k -> new ArrayList<>()).add(e);
+                cursors.putIfAbsent(e.key, new AtomicInteger());
+            }
+        }
+        String mode = latencyMode == null ? "none" : latencyMode.trim().toLowerCase();
+        long fixed = 0, jitter = 0;
+        if (!mode.equals("none") && !mode.equals("recorded")) {
+            String[] parts = mode.split(":");
+            fixed = Long.parseLong(parts[0].trim());
+            if (parts.length > 1) jitter = Long.parseLong(parts[1].trim());
+            mode = "fixed";
+        }
+        this.latencyMode = mode;
+        this.fixedMillis = fixed;
+        this.jitterMillis = jitter;
+    }
+
+    public int size() { return byKey.size(); }
+
+    @Override
+    public HttpResult get(URI uri, Map<String, String> headers, Duration timeout) throws IOException, InterruptedException {
+        String key = RecordedExchange.keyFor(uri);
+        List<RecordedExchange> list = byKey.get(key);
+        if (list == null || list.isEmpty()) throw new IOException("No recorded response for " + key);
+        RecordedExchange e = list.get(Math.floorMod(cursors.get(key).getAndIncrement(), list.size()));
+
+        long sleepMicros;
+        switch (latencyMode) {
+            case "recorded": sleepMicros = e.latencyMicros; break;
+            case "fixed":
+                long j = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1) : 0;
+                sleepMicros = Math.max(0, fixedMillis + j) * 1000;
+                break;
+            default: sleepMicros = 0;
+        }
+        if (sleepMicros > 0) Thread.sleep(sleepMicros / 1000, (int) (sleepMicros % 1000) * 1000);
+        return e.toResult();
+    }
+}
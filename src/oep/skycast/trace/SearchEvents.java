@@ -0,0 +1,252 @@
+package oep.skycast.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import oep.skycast.service.http.HttpResult;
+import oep.skycast.service.http.HttpTransport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * SearchEvents - JDK Flight Recorder events for the stages of a search.
+ *
+ *  skycast.Search       whole search, from submit to painted result (or error, or the newer
+ *                       search that replaced it)
+ *  skycast.Debounce     typing pause before a suggestion lookup fires
+ *  skycast.Geocode      one place search, whichever backend answered
+ *  skycast.HttpExchange one upstream GET, labelled by endpoint
+ *  skycast.JsonParse    body text -> JSON tree
+ *  skycast.ModelBuild   JSON tree -> WeatherData / ForecastDay / places
+ *  skycast.Render       painting a result on the FX thread
+ *  skycast.IconLoad     fetching and decoding one condition icon
+ *
+ * Every event carries the {@link SearchTrace} id of the search it belongs to. Call sites use
+ * start()/finish(): when no recording has the event enabled, start() is a timestamp and
+ * finish() a flag check, and the JIT removes the event object, so the cost is close to nil.
+ * Stack traces are off; the search id and the stage are what matter.
+ *
+ * Read a recording with {@link TraceAnalyzer}; resources/jfr/skycast.jfc enables all of them.
+ */
+public final class SearchEvents {
+
+    private SearchEvents() {}
+
+    @Name("skycast.Search")
+    @Label("Search")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class SearchEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("Outcome") String outcome;
+
+        public static SearchEvent start(long searchId) {
+            SearchEvent e = new SearchEvent();
+            e.searchId = searchId;
+            e.begin();
+            return e;
+        }
+
+        /** outcome: "ok", "error" or "superseded". */
+        public void finish(String outcome) {
+            end();
+            if (shouldCommit()) {
+                this.outcome = outcome;
+                commit();
+            }
+        }
+    }
+
+    @Name("skycast.Debounce")
+    @Label("Debounce")
+    @Category({"SkyCast", "Search"})
+    @Description("Time from the last keystroke until the suggestion lookup started")
+    @StackTrace(false)
+    public static final class DebounceEvent extends Event {
+        @Label("Search Id") long searchId;
+
+        public static DebounceEvent start(long searchId) {
+            DebounceEvent e = new DebounceEvent();
+            e.searchId = searchId;
+            e.begin();
+            return e;
+        }
+
+        public void finish() {
+            end();
+            if (shouldCommit()) commit();
+        }
+    }
+
+    @Name("skycast.Geocode")
+    @Label("Geocode")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class GeocodeEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("Backend") String backend;
+        @Label("Results") int results;
+
+        public static GeocodeEvent start() {
+            GeocodeEvent e = new GeocodeEvent();
+            e.begin();
+            return e;
+        }
+
+        public void finish(String backend, int results) {
+            end();
+            if (shouldCommit()) {
+                this.searchId = SearchTrace.current();
+                this.backend = backend;
+                this.results = results;
+                commit();
+            }
+        }
+    }
+
+    @Name("skycast.HttpExchange")
+    @Label("HTTP Exchange")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class HttpExchangeEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("Endpoint") String endpoint;
+        @Label("Host") String host;
+        @Label("Status") @Description("HTTP status, or -1 if the exchange failed") int status;
+        @Label("Body Size") @DataAmount long bytes;
+
+        /**
+         * {@code transport.get(...)} recorded under {@code endpoint} (a short label such as
+         * "forecast.json"; the URI's query string, which may hold an API key, is never recorded).
+         */
+        public static HttpResult get(HttpTransport transport, String endpoint, URI uri, Map<String, String> headers, Duration timeout)
+                throws IOException, InterruptedException {
+            HttpExchangeEvent e = new HttpExchangeEvent();
+            e.begin();
+            HttpResult r = null;
+            try {
+                r = transport.get(uri, headers, timeout);
+                return r;
+            } finally {
+                e.end();
+                if (e.shouldCommit()) {
+                    e.searchId = SearchTrace.current();
+                    e.endpoint = endpoint;
+                    e.host = uri.getHost();
+                    e.status = r == null ? -1 : r.status();
+                    e.bytes = r == null ? 0 : r.body().length;
+                    e.commit();
+                }
+            }
+        }
+    }
+
+    @Name("skycast.JsonParse")
+    @Label("JSON Parse")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class JsonParseEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("Endpoint") String endpoint;
+        @Label("Characters") long chars;
+
+        public static JsonParseEvent start(String endpoint, int chars) {
+            JsonParseEvent e = new JsonParseEvent();
+            e.endpoint = endpoint;
+            e.chars = chars;
+            e.begin();
+            return e;
+        }
+
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                searchId = SearchTrace.current();
+                commit();
+            }
+        }
+    }
+
+    @Name("skycast.ModelBuild")
+    @Label("Model Build")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class ModelBuildEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("Model") @Description("current, forecast or places") String model;
+        @Label("Items") int items;
+
+        public static ModelBuildEvent start(String model) {
+            ModelBuildEvent e = new ModelBuildEvent();
+            e.model = model;
+            e.begin();
+            return e;
+        }
+
+        public void finish(int items) {
+            end();
+            if (shouldCommit()) {
+                this.searchId = SearchTrace.current();
+                this.items = items;
+                commit();
+            }
+        }
+    }
+
+    @Name("skycast.Render")
+    @Label("Render")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class RenderEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("Stale") @Description("Painted from the warm-start cache") boolean stale;
+
+        public static RenderEvent start(boolean stale) {
+            RenderEvent e = new RenderEvent();
+            e.stale = stale;
+            e.begin();
+            return e;
+        }
+
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                searchId = SearchTrace.current();
+                commit();
+            }
+        }
+    }
+
+    @Name("skycast.IconLoad")
+    @Label("Icon Load")
+    @Category({"SkyCast", "Search"})
+    @StackTrace(false)
+    public static final class IconLoadEvent extends Event {
+        @Label("Search Id") long searchId;
+        @Label("URL") String url;
+        @Label("Success") boolean success;
+
+        public static IconLoadEvent start(String url) {
+            IconLoadEvent e = new IconLoadEvent();
+            e.url = url;
+            e.begin();
+            return e;
+        }
+
+        public void finish(boolean success) {
+            end();
+            if (shouldCommit()) {
+                this.searchId = SearchTrace.current();
+                this.success = success;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package oep.skycast.trace;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SearchTrace - the id of the search the current thread is working for.
+ *
+ * A search hops threads (FX thread -> debounce timer -> I/O threads -> FX thread), so the id
+ * lives in a thread-local that is set with {@link #enter(long)} where work for a search starts,
+ * and carried over to tasks submitted through AppExecutors ({@link #wrap}). The JFR events in
+ * {@link SearchEvents} read it when they commit, which links every stage of one search.
+ *
+ * 0 means "not part of a search" (refresh timers, prefetch, batch runs).
+ */
+public final class SearchTrace {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private SearchTrace() {}
+
+    /** Restores the previous id on close. */
+    public static final class Scope implements AutoCloseable {
+        private final long[] slot;
+        private final long previous;
+
+        private Scope(long[] slot, long previous) {
+            this.slot = slot;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() { slot[0] = previous; }
+    }
+
+    public static long newId() {
+        return NEXT_ID.incrementAndGet();
+    }
+
+    /** Id of the search this thread is working for, or 0. */
+    public static long current() {
+        return CURRENT.get()[0];
+    }
+
+    /** Mark this thread as working for {@code id} until the scope is closed. */
+    public static Scope enter(long id) {
+        long[] slot = CURRENT.get();
+        Scope s = new Scope(slot, slot[0]);
+        slot[0] = id;
+        return s;
+    }
+
+    /** {@code task} running under the submitting thread's search id (unchanged when there is none). */
+    public static Runnable wrap(Runnable task) {
+        long id = current();
+        if (id == 0) return task;
+        return () -> {
+            Scope scope = enter(id);
+            try {
+                task.run();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        long id = current();
+        if (id == 0) return task;
+        return () -> {
+            Scope scope = enter(id);
+            try {
+                return task.call();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+}
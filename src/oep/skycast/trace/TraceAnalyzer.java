@@ -0,0 +1,175 @@
+package oep.skycast.trace;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * TraceAnalyzer - per-stage latency breakdown of the skycast.* events in a JFR recording.
+ *
+ * Prints, for every stage (HTTP exchanges and parses split by endpoint, model builds by
+ * model, geocodes by backend), the count and p50/p90/p99/max/total in milliseconds, then the
+ * slowest searches with the time each stage took within them. With --search ID it prints
+ * that one search's events in start order instead.
+ *
+ * Stages nest (an HTTP exchange happens inside a geocode, everything inside a search), so the
+ * per-search columns overlap and don't add up to the search's own time.
+ *
+ * Usage:
+ *   java -cp out:lib/gson-2.10.1.jar oep.skycast.trace.TraceAnalyzer FILE.jfr [--slowest N] [--search ID]
+ */
+public class TraceAnalyzer {
+
+    /** One skycast.* event reduced to what the report needs. */
+    static final class Span {
+        final long searchId;
+        final String stage;
+        final long startNanos;
+        final long durationNanos;
+
+        Span(long searchId, String stage, long startNanos, long durationNanos) {
+            this.searchId = searchId;
+            this.stage = stage;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+    }
+
+    private final List<Span> spans;
+
+    TraceAnalyzer(List<Span> spans) {
+        this.spans = spans;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String file = null;
+        int slowest = 10;
+        long search = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--slowest": slowest = Integer.parseInt(args[++i]); break;
+                case "--search": search = Long.parseLong(args[++i]); break;
+                default:
+                    if (file == null && !args[i].startsWith("--")) {
+                        file = args[i];
+                        break;
+                    }
+                    System.err.println("Unknown option: " + args[i]);
+                    file = null;
+                    i = args.length;
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: TraceAnalyzer FILE.jfr [--slowest N] [--search ID]");
+            System.exit(2);
+        }
+        TraceAnalyzer a = read(Paths.get(file));
+        if (search != 0) a.printSearch(search, System.out);
+        else a.printReport(slowest, System.out);
+    }
+
+    static TraceAnalyzer read(Path recording) throws IOException {
+        List<Span> out = new ArrayList<>();
+        try (RecordingFile rf = new RecordingFile(recording)) {
+            while (rf.hasMoreEvents()) {
+                RecordedEvent e = rf.readEvent();
+                String name = e.getEventType().getName();
+                if (!name.startsWith("skycast.")) continue;
+                long start = e.getStartTime().getEpochSecond() * 1_000_000_000L + e.getStartTime().getNano();
+                out.add(new Span(e.getLong("searchId"), stageOf(name, e), start, e.getDuration().toNanos()));
+            }
+        }
+        out.sort(Comparator.comparingLong(s -> s.startNanos));
+        return new TraceAnalyzer(out);
+    }
+
+    // event name plus the field that tells its variants apart
+    private static String stageOf(String name, RecordedEvent e) {
+        String stage = name.substring("skycast.".length());
+        switch (stage) {
+            case "HttpExchange":
+            case "JsonParse":
+                return stage + " " + e.getString("endpoint");
+            case "ModelBuild":
+                return stage + " " + e.getString("model");
+            case "Geocode":
+                return stage + " " + e.getString("backend");
+            case "Render":
+                return e.getBoolean("stale") ? "Render cached" : "Render";
+            case "Search":
+                return "Search " + e.getString("outcome");
+            default:
+                return stage;
+        }
+    }
+
+    void printReport(int slowest, PrintStream out) {
+        Map<String, List<Long>> byStage = new TreeMap<>();
+        for (Span s : spans) byStage.computeIfAbsent(s.stage, k -> new ArrayList<>()).add(s.durationNanos);
+
+        out.printf(Locale.ROOT, "%-32s %7s %9s %9s %9s %9s %11s%n", "stage", "count", "p50 ms", "p90 ms", "p99 ms", "max ms", "total ms");
+        for (Map.Entry<String, List<Long>> e : byStage.entrySet()) {
+            List<Long> d = e.getValue();
+            d.sort(null);
+            long total = 0;
+            for (long v : d) total += v;
+            out.printf(Locale.ROOT, "%-32s %7d %9.1f %9.1f %9.1f %9.1f %11.1f%n", e.getKey(), d.size(),
+                    ms(percentile(d, 50)), ms(percentile(d, 90)), ms(percentile(d, 99)), ms(d.get(d.size() - 1)), ms(total));
+        }
+
+        // slowest searches, each with the time spent per stage inside it
+        Map<Long, Span> searches = new HashMap<>();
+        Map<Long, Map<String, Long>> stagesBySearch = new HashMap<>();
+        for (Span s : spans) {
+            if (s.searchId == 0) continue;
+            if (s.stage.startsWith("Search ")) searches.put(s.searchId, s);
+            else stagesBySearch.computeIfAbsent(s.searchId, k -> new LinkedHashMap<>()).merge(s.stage, s.durationNanos, Long::sum);
+        }
+        List<Span> ranked = new ArrayList<>(searches.values());
+        ranked.sort(Comparator.comparingLong((Span s) -> s.durationNanos).reversed());
+        if (ranked.isEmpty()) return;
+        out.println();
+        out.printf(Locale.ROOT, "slowest %d of %d searches%n", Math.min(slowest, ranked.size()), ranked.size());
+        for (Span s : ranked.subList(0, Math.min(slowest, ranked.size()))) {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Long> st : stagesBySearch.getOrDefault(s.searchId, Map.of()).entrySet()) {
+                if (sb.length() > 0) sb.append(" | ");
+                sb.append(st.getKey()).append(String.format(Locale.ROOT, " %.1f", ms(st.getValue())));
+            }
+            out.printf(Locale.ROOT, "  #%-6d %9.1f ms  %-6s %s%n", s.searchId, ms(s.durationNanos),
+                    s.stage.substring("Search ".length()), sb);
+        }
+    }
+
+    void printSearch(long searchId, PrintStream out) {
+        long t0 = -1;
+        for (Span s : spans) {
+            if (s.searchId != searchId) continue;
+            if (t0 < 0) t0 = s.startNanos;
+            out.printf(Locale.ROOT, "  +%9.1f ms  %9.1f ms  %s%n", ms(s.startNanos - t0), ms(s.durationNanos), s.stage);
+        }
+        if (t0 < 0) out.println("No events for search " + searchId);
+    }
+
+    // nearest rank on a sorted list
+    static long percentile(List<Long> sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
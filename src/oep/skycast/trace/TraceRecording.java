@@ -0,0 +1,83 @@
+package oep.skycast.trace;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * TraceRecording - in-process flight recording with the bundled settings, for when adding
+ * -XX:StartFlightRecording to the launch command isn't practical.
+ *
+ * With trace.jfr=true the recording starts in Main.init and is written at shutdown to
+ * trace.jfr.file (default resources/logs/skycast-&lt;time&gt;.jfr). Settings come from
+ * /jfr/skycast.jfc on the classpath (or resources/jfr when running from the source tree).
+ */
+public final class TraceRecording {
+
+    private static final String SETTINGS = "/jfr/skycast.jfc";
+
+    private static Recording recording;
+    private static Path destination;
+
+    private TraceRecording() {}
+
+    public static synchronized void startIfEnabled() {
+        if (recording != null || !Boolean.parseBoolean(PrefsUtil.get("trace.jfr", "false").trim())) return;
+        try {
+            Configuration settings = settings();
+            String file = PrefsUtil.get("trace.jfr.file", "").trim();
+            destination = file.isEmpty()
+                    ? Paths.get("resources", "logs", "skycast-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr")
+                    : Paths.get(file);
+            if (destination.toAbsolutePath().getParent() != null) Files.createDirectories(destination.toAbsolutePath().getParent());
+            Recording r = new Recording(settings);
+            r.setName("SkyCast");
+            r.setToDisk(true);
+            r.setDestination(destination);
+            r.start();
+            recording = r;
+            LogUtil.log("Flight recording started, writing to " + destination);
+        } catch (Exception e) {
+            LogUtil.log("Flight recording not started: " + e.getMessage());
+        }
+    }
+
+    /** Stop and write the recording (no-op when none is running). */
+    public static synchronized void stop() {
+        if (recording == null) return;
+        try {
+            recording.stop();
+            LogUtil.log("Flight recording written to " + destination);
+        } catch (Exception e) {
+            LogUtil.log("Flight recording not written: " + e.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    static Configuration settings() throws IOException, ParseException {
+        InputStream in = TraceRecording.class.getResourceAsStream(SETTINGS);
+        if (in == null) {
+            Path p = Paths.get("resources", "jfr", "skycast.jfc");
+            if (!Files.exists(p)) return Configuration.getConfiguration("default");
+            in = Files.newInputStream(p);
+        }
+        try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Configuration.create(r);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package oep.skycast.ui;
+
+import javafx.application.Platform;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
+import oep.skycast.util.Downsampler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CanvasLineChart - category line chart drawn straight onto a Canvas.
+ *
+ * Replaces LineChart for the dashboard's dense series: there is no node per point, so
+ * a 7 x 24 hourly view or a long history costs the same scene graph as a 7-point one.
+ *
+ *  - Two layers: the plot (axes, grid, series) and a hover overlay. Moving the mouse only
+ *    repaints the overlay; the plot is repainted when data, zoom or size change, and
+ *    repaint requests are coalesced into one draw per pulse.
+ *  - When the view holds more than one point per {@link #PX_PER_POINT} pixels, each series
+ *    is drawn through a {@link Downsampler#lttbMinMax} pick sized to the plot width, so peaks
+ *    survive. The pick is kept until the data, the zoom window or the width changes.
+ *  - Hover hit-tests the nearest point (by column, then by distance to the series) and
+ *    shows one shared Tooltip. Mouse-wheel zooms around the cursor.
+ *
+ * Text colour follows CSS through a hidden label with style class "canvas-chart-text".
+ */
+public final class CanvasLineChart extends Region {
+
+    private static final Color[] PALETTE = {
+            Color.rgb(96, 165, 250), Color.rgb(255, 165, 77), Color.rgb(52, 211, 153), Color.rgb(244, 114, 182)
+    };
+    private static final double PAD_LEFT = 44, PAD_RIGHT = 12, PAD_TOP = 24, PAD_BOTTOM = 38;
+    private static final double HIT_PX = 14;
+    private static final int MIN_WINDOW = 8;
+    private static final double PX_PER_POINT = 2;
+    private static final Font FONT = Font.font(11);
+
+    private final Canvas plot = new Canvas();
+    private final Canvas overlay = new Canvas();
+    private final Label textProbe = new Label();
+    private final Tooltip tip = new Tooltip();
+
+    private String[] labels = new String[0];
+    private final List<String> names = new ArrayList<>();
+    private final List<double[]> values = new ArrayList<>();
+    private String xLabel = "";
+    private String yLabel = "";
+    private String unit = "";
+
+    private int viewFrom, viewTo;
+    private double yMin, yMax;
+    private boolean plotDirty, overlayDirty, drawQueued;
+    private int hoverIndex = -1, hoverSeries = -1;
+
+    // downsampled indexes per series for [pickFrom, pickTo) at pickTarget points; null = stale
+    private List<int[]> picks;
+    private int pickFrom, pickTo, pickTarget;
+
+    public CanvasLineChart() {
+        getStyleClass().add("canvas-chart");
+        textProbe.getStyleClass().add("canvas-chart-text");
+        textProbe.setVisible(false);
+        textProbe.setManaged(false);
+        overlay.setMouseTransparent(true);
+        getChildren().addAll(textProbe, plot, overlay);
+        tip.setShowDelay(Duration.ZERO);
+
+        textProbe.textFillProperty().addListener((obs, o, n) -> invalidatePlot());
+        setOnMouseMoved(this::onMove);
+        setOnMouseExited(e -> {
+            setHover(-1, -1);
+            tip.hide();
+        });
+        setOnScroll(this::onScroll);
+        setPrefSize(450, 260);
+    }
+
+    // ---------------- FXML properties ----------------
+
+    public String getXLabel() { return xLabel; }
+    public void setXLabel(String s) { xLabel = s == null ? "" : s; invalidatePlot(); }
+
+    public String getYLabel() { return yLabel; }
+    public void setYLabel(String s) { yLabel = s == null ? "" : s; invalidatePlot(); }
+
+    /** Suffix for values in the tooltip, e.g. "°C". */
+    public String getUnit() { return unit; }
+    public void setUnit(String s) { unit = s == null ? "" : s; }
+
+    // ---------------- data ----------------
+
+    /** Replace all data; every series must have one value per label (NaN = gap). Resets zoom. */
+    public void setData(String[] labels, List<String> seriesNames, List<double[]> seriesValues) {
+        this.labels = labels == null ? new String[0] : labels;
+        names.clear();
+        values.clear();
+        if (seriesNames != null) names.addAll(seriesNames);
+        if (seriesValues != null) values.addAll(seriesValues);
+        viewFrom = 0;
+        viewTo = this.labels.length;
+        hoverIndex = hoverSeries = -1;
+        picks = null;
+        tip.hide();
+        rescaleY();
+        invalidatePlot();
+    }
+
+    public void clear() {
+        setData(null, null, null);
+    }
+
+    /** Zoom by {@code factor} (&lt;1 zooms in) keeping the point at {@code anchorRatio} of the width fixed. */
+    public void zoom(double factor, double anchorRatio) {
+        int n = labels.length;
+        int width = viewTo - viewFrom;
+        int newWidth = (int) Math.round(width * factor);
+        newWidth = Math.max(Math.min(MIN_WINDOW, n), Math.min(n, newWidth));
+        if (newWidth == width) return;
+        int anchor = viewFrom + (int) Math.round(width * anchorRatio);
+        int from = anchor - (int) Math.round(newWidth * anchorRatio);
+        from = Math.max(0, Math.min(n - newWidth, from));
+        viewFrom = from;
+        viewTo = from + newWidth;
+        rescaleY();
+        invalidatePlot();
+    }
+
+    // y range over the visible window, padded and rounded out to tick steps
+    private void rescaleY() {
+        double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+        for (double[] ys : values) {
+            for (int i = viewFrom; i < Math.min(viewTo, ys.length); i++) {
+                double v = ys[i];
+                if (Double.isNaN(v)) continue;
+                if (v < lo) lo = v;
+                if (v > hi) hi = v;
+            }
+        }
+        if (lo > hi) { lo = 0; hi = 1; }
+        if (hi - lo < 1) { lo -= 0.5; hi += 0.5; }
+        double step = niceStep((hi - lo) / 5);
+        yMin = Math.floor(lo / step) * step;
+        yMax = Math.ceil(hi / step) * step;
+    }
+
+    // ---------------- layout / drawing ----------------
+
+    @Override
+    protected void layoutChildren() {
+        double w = snapSizeX(getWidth()), h = snapSizeY(getHeight());
+        if (plot.getWidth() != w || plot.getHeight() != h) {
+            plot.setWidth(w);
+            plot.setHeight(h);
+            overlay.setWidth(w);
+            overlay.setHeight(h);
+            plotDirty = true;
+            overlayDirty = true;
+            draw();
+        }
+    }
+
+    private void invalidatePlot() {
+        plotDirty = true;
+        overlayDirty = true;
+        queueDraw();
+    }
+
+    private void invalidateOverlay() {
+        overlayDirty = true;
+        queueDraw();
+    }
+
+    // several changes in one pulse (data + zoom + hover) paint once
+    private void queueDraw() {
+        if (drawQueued) return;
+        drawQueued = true;
+        Platform.runLater(this::draw);
+    }
+
+    private void draw() {
+        drawQueued = false;
+        if (plotDirty) drawPlot();
+        if (overlayDirty) drawOverlay();
+        plotDirty = overlayDirty = false;
+    }
+
+    private Paint textFill() {
+        Paint p = textProbe.getTextFill();
+        return p == null ? Color.gray(0.35) : p;
+    }
+
+    private Color gridColor() {
+        Paint p = textFill();
+        Color c = p instanceof Color ? (Color) p : Color.gray(0.35);
+        return new Color(c.getRed(), c.getGreen(), c.getBlue(), 0.12);
+    }
+
+    private double plotW() { return Math.max(1, plot.getWidth() - PAD_LEFT - PAD_RIGHT); }
+
+    private double plotH() { return Math.max(1, plot.getHeight() - PAD_TOP - PAD_BOTTOM); }
+
+    private double xOf(int i) {
+        return PAD_LEFT + (i - viewFrom + 0.5) * plotW() / Math.max(1, viewTo - viewFrom);
+    }
+
+    private double yOf(double v) {
+        return PAD_TOP + (yMax - v) / (yMax - yMin) * plotH();
+    }
+
+    private void drawPlot() {
+        GraphicsContext g = plot.getGraphicsContext2D();
+        double w = plot.getWidth(), h = plot.getHeight();
+        g.clearRect(0, 0, w, h);
+        if (w < PAD_LEFT + PAD_RIGHT + 10 || h < PAD_TOP + PAD_BOTTOM + 10) return;
+        g.setFont(FONT);
+
+        // y grid + ticks
+        double step = niceStep((yMax - yMin) / 5);
+        g.setLineWidth(1);
+        g.setTextAlign(TextAlignment.RIGHT);
+        g.setTextBaseline(VPos.CENTER);
+        for (double v = yMin; v <= yMax + step / 2; v += step) {
+            double y = Math.round(yOf(v)) + 0.5;
+            g.setStroke(gridColor());
+            g.strokeLine(PAD_LEFT, y, PAD_LEFT + plotW(), y);
+            g.setFill(textFill());
+            g.fillText(formatTick(v, step), PAD_LEFT - 6, y);
+        }
+
+        // x labels, thinned so they don't overlap
+        int n = viewTo - viewFrom;
+        if (n > 0) {
+            double colW = plotW() / n;
+            int every = Math.max(1, (int) Math.ceil(44 / colW));
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.TOP);
+            g.setFill(textFill());
+            for (int i = viewFrom; i < viewTo; i += every) {
+                g.fillText(labels[i] == null ? "" : labels[i], xOf(i), PAD_TOP + plotH() + 6);
+            }
+        }
+
+        // axis titles and legend
+        g.setTextBaseline(VPos.BOTTOM);
+        g.setTextAlign(TextAlignment.CENTER);
+        if (!xLabel.isEmpty()) g.fillText(xLabel, PAD_LEFT + plotW() / 2, h - 2);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.TOP);
+        if (!yLabel.isEmpty()) g.fillText(yLabel, 4, 4);
+        double lx = PAD_LEFT;
+        for (int s = 0; s < names.size(); s++) {
+            g.setFill(color(s));
+            g.fillRect(lx, 8, 10, 3);
+            g.setFill(textFill());
+            g.fillText(names.get(s), lx + 14, 3);
+            lx += 24 + names.get(s).length() * 6.5;
+        }
+
+        g.save();
+        g.beginPath();
+        g.rect(PAD_LEFT, PAD_TOP - 4, plotW(), plotH() + 8);
+        g.clip();
+        List<int[]> shown = visiblePicks();
+        for (int s = 0; s < values.size(); s++) drawSeries(g, values.get(s), shown == null ? null : shown.get(s), color(s));
+        g.restore();
+    }
+
+    // null while every visible point fits; otherwise re-picked only when the window or width changed
+    private List<int[]> visiblePicks() {
+        int target = (int) (plotW() / PX_PER_POINT);
+        if (viewTo - viewFrom <= target) return null;
+        if (picks != null && pickFrom == viewFrom && pickTo == viewTo && pickTarget == target) return picks;
+        List<int[]> out = new ArrayList<>(values.size());
+        for (double[] ys : values) {
+            int to = Math.min(viewTo, ys.length);
+            out.add(to > viewFrom ? Downsampler.lttbMinMax(ys, viewFrom, to, target) : new int[0]);
+        }
+        picks = out;
+        pickFrom = viewFrom;
+        pickTo = viewTo;
+        pickTarget = target;
+        return picks;
+    }
+
+    private void drawSeries(GraphicsContext g, double[] ys, int[] pick, Color c) {
+        int n = viewTo - viewFrom;
+        if (n <= 0) return;
+        g.setStroke(c);
+        g.setFill(c);
+        g.setLineWidth(2.2);
+        double colW = plotW() / n;
+
+        if (pick == null) {
+            // sparse enough: polyline through every point, markers when there's room
+            boolean open = false;
+            g.beginPath();
+            for (int i = viewFrom; i < Math.min(viewTo, ys.length); i++) {
+                if (Double.isNaN(ys[i])) { open = false; continue; }
+                double x = xOf(i), y = yOf(ys[i]);
+                if (open) g.lineTo(x, y); else g.moveTo(x, y);
+                open = true;
+            }
+            g.stroke();
+            if (colW >= 8) {
+                for (int i = viewFrom; i < Math.min(viewTo, ys.length); i++) {
+                    if (!Double.isNaN(ys[i])) g.fillOval(xOf(i) - 3, yOf(ys[i]) - 3, 6, 6);
+                }
+            }
+            return;
+        }
+
+        // dense: polyline through the downsampled points only
+        g.setLineWidth(1.2);
+        boolean open = false;
+        g.beginPath();
+        for (int i : pick) {
+            if (Double.isNaN(ys[i])) { open = false; continue; }
+            double x = xOf(i), y = yOf(ys[i]);
+            if (open) g.lineTo(x, y); else g.moveTo(x, y);
+            open = true;
+        }
+        g.stroke();
+    }
+
+    private void drawOverlay() {
+        GraphicsContext g = overlay.getGraphicsContext2D();
+        g.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+        if (hoverIndex < 0 || hoverSeries < 0 || hoverSeries >= values.size()) return;
+        double v = values.get(hoverSeries)[hoverIndex];
+        if (Double.isNaN(v)) return;
+        double x = xOf(hoverIndex), y = yOf(v);
+        g.setStroke(gridColor().deriveColor(0, 1, 1, 3));
+        g.setLineWidth(1);
+        g.strokeLine(Math.round(x) + 0.5, PAD_TOP, Math.round(x) + 0.5, PAD_TOP + plotH());
+        g.setFill(Color.WHITE);
+        g.fillOval(x - 5, y - 5, 10, 10);
+        g.setStroke(color(hoverSeries));
+        g.setLineWidth(2.5);
+        g.strokeOval(x - 5, y - 5, 10, 10);
+    }
+
+    // ---------------- interaction ----------------
+
+    private void onMove(MouseEvent e) {
+        int n = viewTo - viewFrom;
+        double px = e.getX() - PAD_LEFT;
+        if (n <= 0 || values.isEmpty() || px < 0 || px > plotW()) {
+            setHover(-1, -1);
+            tip.hide();
+            return;
+        }
+        int i = viewFrom + Math.min(n - 1, (int) (px / (plotW() / n)));
+        // when several points share a pixel column, prefer the one nearest the cursor vertically
+        int span = (int) Math.max(0, Math.ceil((double) n / plotW() / 2));
+        int bestI = -1, bestS = -1;
+        double best = HIT_PX;
+        for (int s = 0; s < values.size(); s++) {
+            double[] ys = values.get(s);
+            for (int j = Math.max(viewFrom, i - span); j <= Math.min(Math.min(viewTo, ys.length) - 1, i + span); j++) {
+                if (Double.isNaN(ys[j])) continue;
+                double d = Math.abs(yOf(ys[j]) - e.getY());
+                if (d <= best) { best = d; bestI = j; bestS = s; }
+            }
+        }
+        if (bestI == hoverIndex && bestS == hoverSeries) return;
+        setHover(bestI, bestS);
+        if (bestI < 0) {
+            tip.hide();
+            return;
+        }
+        String name = names.size() > bestS ? names.get(bestS) : "";
+        tip.setText(name + "\n" + labels[bestI] + ": " + formatValue(values.get(bestS)[bestI]) + unit);
+        tip.show(this, e.getScreenX() + 14, e.getScreenY() + 14);
+    }
+
+    private void setHover(int index, int series) {
+        if (index == hoverIndex && series == hoverSeries) return;
+        hoverIndex = index;
+        hoverSeries = series;
+        invalidateOverlay();
+    }
+
+    private void onScroll(ScrollEvent ev) {
+        if (labels.length <= MIN_WINDOW || ev.getDeltaY() == 0) return;
+        double ratio = Math.max(0, Math.min(1, (ev.getX() - PAD_LEFT) / plotW()));
+        zoom(ev.getDeltaY() > 0 ? 0.8 : 1.25, ratio);
+        ev.consume();
+    }
+
+    // ---------------- helpers ----------------
+
+    private static Color color(int series) {
+        return PALETTE[series % PALETTE.length];
+    }
+
+    private static double niceStep(double raw) {
+        if (!(raw > 0)) return 1;
+        double mag = Math.pow(10, Math.floor(Math.log10(raw)));
+        double f = raw / mag;
+        double nice = f <= 1 ? 1 : f <= 2 ? 2 : f <= 5 ? 5 : 10;
+        return nice * mag;
+    }
+
+    private static String formatTick(double v, double step) {
+        if (step >= 1) return String.format(Locale.ROOT, "%.0f", v);
+        return String.format(Locale.ROOT, "%.1f", v);
+    }
+
+    private static String formatValue(double v) {
+        return v == Math.rint(v) ? String.format(Locale.ROOT, "%.0f", v) : String.format(Locale.ROOT, "%.1f", v);
+    }
+}
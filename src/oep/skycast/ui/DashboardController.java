@@ -2,15 +2,10 @@ package oep.skycast.ui;
 
 import javafx.animation.FadeTransition;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.geometry.Side;
-import javafx.scene.Node;
 import javafx.scene.SnapshotParameters;
-import javafx.scene.chart.CategoryAxis;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.SpinnerValueFactory.IntegerSpinnerValueFactory;
 import javafx.scene.image.Image;
@@ -19,28 +14,49 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox;
 import javafx.util.Duration;
+import oep.skycast.alerts.AlertEvent;
+import oep.skycast.alerts.AlertMonitor;
 import oep.skycast.exceptions.WeatherException;
+import oep.skycast.history.WeatherHistoryStore;
 import oep.skycast.model.ForecastDay;
 import oep.skycast.model.HourlyWeather;
 import oep.skycast.model.WeatherData;
-import oep.skycast.service.FileWeatherProvider;
+import oep.skycast.model.WeatherFingerprint;
+import oep.skycast.report.WeatherNarrative;
 import oep.skycast.service.GeocodeService;
+import oep.skycast.service.HourlyDetailCache;
+import oep.skycast.service.IdlePrefetcher;
+import oep.skycast.service.ProviderRouter;
+import oep.skycast.service.ReverseGeocoder;
+import oep.skycast.service.SpatialCachingWeatherProvider;
 import oep.skycast.service.WeatherProvider;
+import oep.skycast.service.WeatherProviders;
+import oep.skycast.service.http.HttpTransports;
+import oep.skycast.trace.SearchEvents.DebounceEvent;
+import oep.skycast.trace.SearchEvents.RenderEvent;
+import oep.skycast.trace.SearchEvents.SearchEvent;
+import oep.skycast.trace.SearchTrace;
+import oep.skycast.util.AppExecutors;
 import oep.skycast.util.FileUtil;
+import oep.skycast.util.LogUtil;
 import oep.skycast.util.PrefsUtil;
+import oep.skycast.util.WarmStartCache;
 
-import javax.imageio.ImageIO;
 import java.awt.Desktop;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
@@ -67,12 +83,11 @@ public class DashboardController {
 
     @FXML private ToggleButton autoRefreshToggle;
     @FXML private Label lastUpdatedLabel;
+    @FXML private Label alertsLabel;
     @FXML private ImageView iconView;
     @FXML private ProgressIndicator loadingSpinner;
 
-    @FXML private LineChart<String, Number> tempChart;
-    @FXML private CategoryAxis xAxis;
-    @FXML private NumberAxis yAxis;
+    @FXML private CanvasLineChart tempChart;
 
     // NEW UI fields
     @FXML private ComboBox<String> locationsDropdown;
@@ -83,13 +98,13 @@ public class DashboardController {
     @FXML private Label moonLabel;
     @FXML private Label aqiLabel;
 
-    @FXML private LineChart<String, Number> hourlyChart;
-    @FXML private CategoryAxis hourlyXAxis;
-    @FXML private NumberAxis hourlyYAxis;
+    @FXML private CanvasLineChart hourlyChart;
+    @FXML private HourlyTimeline hourlyTimeline;
 
     @FXML private VBox currentWeatherBox;
     @FXML private Button saveSnapshotBtn;
     @FXML private Button shareBtn;
+    @FXML private Button snapshotFavoritesBtn;
 
     @FXML private TextArea moreDetailsArea;
 
@@ -102,18 +117,31 @@ public class DashboardController {
     @FXML private Spinner<Integer> refreshIntervalSpinner;
 
     private WeatherProvider provider;
+    private HourlyDetailCache hourlyCache;
+    private AlertMonitor alertMonitor;
+    // warms favorites/recents while the user is idle (null until built, or when disabled)
+    private volatile IdlePrefetcher prefetcher;
+    // most recent alerts first, shown in the alerts label tooltip
+    private final List<String> recentAlerts = new ArrayList<>();
+    // query behind the forecast currently on screen (used to load a clicked day's hours)
+    private volatile String lastQuery;
+    // timeline days that asked for their hours before lastQuery was known (FX thread)
+    private final List<ForecastDay> timelinePending = new ArrayList<>();
     private final DateTimeFormatter timeFmt = DateTimeFormatter.ofPattern("HH:mm:ss");
 
-    // Auto-refresh scheduler
-    private ScheduledExecutorService scheduler;
+    // Auto-refresh timer (on the shared scheduler)
+    private ScheduledFuture<?> autoRefreshFuture;
 
     // default auto-refresh interval (seconds)
     private static final int DEFAULT_REFRESH_SECONDS = 600;
+    // hourly detail is fetched per day on demand and kept this long
+    private static final long HOURLY_TTL_MS = 30 * 60 * 1000L;
 
     // ----------------- Geocode/autocomplete fields -----------------
-    private final GeocodeService geocodeService = new GeocodeService();
-    private final ScheduledThreadPoolExecutor debounceExec = new ScheduledThreadPoolExecutor(1);
+    private GeocodeService geocodeService; // created on first use, off the FX thread
     private ScheduledFuture<?> debounceFuture = null;
+    // trace id for the search being typed; taken by the next handleSearch (FX thread only)
+    private long typingSearchId;
     private final Map<String, GeocodeService.DisplayPlace> suggestionMap = new HashMap<>();
     private GeocodeService.DisplayPlace selectedPlace = null; // set when user picks a suggestion
 
@@ -122,12 +150,24 @@ public class DashboardController {
 
     // Keep last saved snapshot file for quick share/open
     private File lastSavedSnapshot = null;
+    private final SnapshotEncoder snapshotEncoder = new SnapshotEncoder();
+    // latest search wins; older in-flight fetches are interrupted and their results dropped
+    private final SearchSessionManager searchSessions = new SearchSessionManager(r -> FxStallDetector.runLater("search result", r));
+
+    // what is on screen, so refreshes returning the same data can skip repainting
+    private String renderedRaw;
+    private WeatherData renderedCurrent;
+    private long renderedCurrentFp;
+    private long renderedForecastFp;
+    private volatile String lastSavedKey;
+    private long renders, rendersSkipped, rendersPartial, labelsWritten, labelsUnchanged;
+
+    // observed-weather history (opened lazily on first successful fetch)
+    private WeatherHistoryStore historyStore;
 
     // ----------------- INITIALIZE -----------------
     @FXML
     public void initialize() {
-        initProvider();
-
         // Ensure button classes are present (if FXML missed them)
         if (addFavBtn != null) {
             if (!addFavBtn.getStyleClass().contains("small-button")) addFavBtn.getStyleClass().add("small-button");
@@ -145,6 +185,11 @@ public class DashboardController {
             if (!themeToggleBtn.getStyleClass().contains("icon-button")) themeToggleBtn.getStyleClass().add("icon-button");
         }
 
+        if (hourlyTimeline != null) {
+            hourlyTimeline.setHoursSource(this::hoursOf);
+            hourlyTimeline.setOnDayNeeded(this::loadTimelineDay);
+        }
+
         // favorites load
         try { if (favoritesList != null) favoritesList.getItems().addAll(FileUtil.loadFavorites()); } catch (IOException ignored) {}
 
@@ -166,7 +211,7 @@ public class DashboardController {
                     String sel = favoritesList.getSelectionModel().getSelectedItem();
                     if (sel != null) {
                         favoritesList.getItems().remove(sel);
-                        try { FileUtil.saveFavorites(favoritesList.getItems()); } catch (IOException ignored) {}
+                        persistFavorites();
                     }
                 }
             });
@@ -212,12 +257,19 @@ public class DashboardController {
                     return;
                 }
 
-                debounceFuture = debounceExec.schedule(() -> {
+                if (typingSearchId == 0) typingSearchId = SearchTrace.newId();
+                final long searchId = typingSearchId;
+                DebounceEvent waited = DebounceEvent.start(searchId);
+                debounceFuture = AppExecutors.scheduleIo(() -> {
+                    waited.finish();
+                    SearchTrace.Scope t = SearchTrace.enter(searchId);
                     try {
-                        List<GeocodeService.DisplayPlace> res = geocodeService.search(q);
+                        List<GeocodeService.DisplayPlace> res = geocoder().search(q);
                         Platform.runLater(() -> showSuggestionsUnderInput(q, res));
                     } catch (Exception ex) {
                         Platform.runLater(() -> suggestionMenu.hide());
+                    } finally {
+                        t.close();
                     }
                 }, 300, TimeUnit.MILLISECONDS);
             });
@@ -255,6 +307,8 @@ public class DashboardController {
                 refreshIntervalSpinner.setEditable(true);
                 refreshIntervalSpinner.valueProperty().addListener((obs, oldV, newV) -> {
                     if (newV != null) PrefsUtil.put("autoRefreshIntervalSeconds", String.valueOf(newV));
+                    IdlePrefetcher pf = prefetcher;
+                    if (newV != null && pf != null) pf.setRefreshInterval(newV);
                 });
             }
         } catch (Exception ignored) {}
@@ -278,6 +332,9 @@ public class DashboardController {
         if (moonLabel != null) moonLabel.setText("Moon: --");
         if (moreDetailsArea != null) moreDetailsArea.setText("");
 
+        // warm start: paint the last rendered state now, the scheduled search replaces it
+        paintWarmStart();
+
         // auto-refresh preference
         boolean auto = Boolean.parseBoolean(PrefsUtil.get("autoRefresh", "false"));
         if (autoRefreshToggle != null) autoRefreshToggle.setSelected(auto);
@@ -287,6 +344,50 @@ public class DashboardController {
         } else if (autoRefreshToggle != null) {
             autoRefreshToggle.setText("Auto Refresh");
         }
+
+        // first alert pass once startup traffic has settled; later passes ride the auto-refresh tick
+        AppExecutors.scheduler().schedule(() -> Platform.runLater(this::checkAlerts), 5, TimeUnit.SECONDS);
+
+        initPrefetcher();
+    }
+
+    // ----------------- IDLE PREFETCH -----------------
+    private void initPrefetcher() {
+        if (favoritesList != null) favoritesList.getItems().addListener((ListChangeListener<String>) c -> updatePrefetchCandidates());
+        if (locationsDropdown != null) locationsDropdown.getItems().addListener((ListChangeListener<String>) c -> updatePrefetchCandidates());
+        if (cityInput != null) {
+            cityInput.sceneProperty().addListener((obs, oldScene, scene) -> {
+                if (scene == null) return;
+                scene.addEventFilter(KeyEvent.KEY_PRESSED, e -> markUserActive());
+                scene.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> markUserActive());
+                scene.addEventFilter(ScrollEvent.SCROLL, e -> markUserActive());
+            });
+        }
+        int interval = refreshIntervalSpinner != null && refreshIntervalSpinner.getValue() != null
+                ? refreshIntervalSpinner.getValue() : DEFAULT_REFRESH_SECONDS;
+        AppExecutors.io().execute(() -> {
+            IdlePrefetcher pf = IdlePrefetcher.fromPreferences(provider(), hourlyCache());
+            if (pf == null) return;
+            pf.setRefreshInterval(interval);
+            prefetcher = pf;
+            Platform.runLater(this::updatePrefetchCandidates);
+            pf.start();
+        });
+    }
+
+    // favorites first, then recents; FX thread
+    private void updatePrefetchCandidates() {
+        IdlePrefetcher pf = prefetcher;
+        if (pf == null) return;
+        List<String> sites = new ArrayList<>();
+        if (favoritesList != null) sites.addAll(favoritesList.getItems());
+        if (locationsDropdown != null) sites.addAll(locationsDropdown.getItems());
+        pf.setCandidates(sites);
+    }
+
+    private void markUserActive() {
+        IdlePrefetcher pf = prefetcher;
+        if (pf != null) pf.userActive();
     }
 
     // show suggestions under cityInput (now sets style class for label so CSS can style it)
@@ -333,20 +434,25 @@ public class DashboardController {
         }
     }
 
-    private void initProvider() {
-        try {
-            String demoPref = PrefsUtil.get("demo.mode", "true").trim();
-            String apiKey = PrefsUtil.get("weather.api.key", "").trim();
-            if ("false".equalsIgnoreCase(demoPref) && !apiKey.isBlank()) {
-                provider = new oep.skycast.service.ApiWeatherProvider();
-            } else if (!apiKey.isBlank()) {
-                provider = new oep.skycast.service.ApiWeatherProvider();
-            } else {
-                provider = new FileWeatherProvider("resources/sample-data/weather-surat.json");
-            }
-        } catch (Exception ex) {
-            provider = new FileWeatherProvider("resources/sample-data/weather-surat.json");
-        }
+    // provider / geocoder are built lazily on worker threads so initialize() stays cheap
+    private synchronized WeatherProvider provider() {
+        if (provider == null) provider = WeatherProviders.fromPreferences();
+        return provider;
+    }
+
+    private synchronized AlertMonitor alertMonitor() {
+        if (alertMonitor == null) alertMonitor = AlertMonitor.fromPreferences(provider());
+        return alertMonitor;
+    }
+
+    private synchronized HourlyDetailCache hourlyCache() {
+        if (hourlyCache == null) hourlyCache = new HourlyDetailCache(provider(), HOURLY_TTL_MS);
+        return hourlyCache;
+    }
+
+    private synchronized GeocodeService geocoder() {
+        if (geocodeService == null) geocodeService = new GeocodeService();
+        return geocodeService;
     }
 
     // ----------------- THEME / AUTO-REFRESH (unchanged) -----------------
@@ -376,20 +482,19 @@ public class DashboardController {
             if (refreshIntervalSpinner != null && refreshIntervalSpinner.getValue() != null) interval = refreshIntervalSpinner.getValue();
             else interval = Integer.parseInt(PrefsUtil.get("autoRefreshIntervalSeconds", String.valueOf(DEFAULT_REFRESH_SECONDS)));
         } catch (Exception ignored) {}
-        scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(() -> {
-            String city = cityInput.getText().trim();
-            if (!city.isEmpty()) Platform.runLater(this::handleSearch);
-        }, interval, interval, TimeUnit.SECONDS);
+        autoRefreshFuture = AppExecutors.scheduler().scheduleAtFixedRate(() -> Platform.runLater(() -> {
+            if (!cityInput.getText().trim().isEmpty()) handleSearch();
+            checkAlerts();
+        }), interval, interval, TimeUnit.SECONDS);
 
         if (autoRefreshToggle != null && !autoRefreshToggle.getStyleClass().contains("on-toggle"))
             autoRefreshToggle.getStyleClass().add("on-toggle");
     }
 
     private void stopAutoRefresh() {
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdownNow();
-            scheduler = null;
+        if (autoRefreshFuture != null) {
+            autoRefreshFuture.cancel(false);
+            autoRefreshFuture = null;
         }
         if (autoRefreshToggle != null) autoRefreshToggle.getStyleClass().remove("on-toggle");
     }
@@ -407,95 +512,301 @@ public class DashboardController {
         }
     }
 
+    // ----------------- ALERTS -----------------
+    // one pass of the alert rules over every favorite plus the displayed city (FX thread)
+    private void checkAlerts() {
+        if (!Boolean.parseBoolean(PrefsUtil.get("alerts.enabled", "true"))) return;
+        List<String> sites = new ArrayList<>();
+        if (favoritesList != null) sites.addAll(favoritesList.getItems());
+        String shown = cityInput.getText().trim();
+        if (!shown.isEmpty() && !sites.contains(shown)) sites.add(shown);
+        if (sites.isEmpty()) return;
+        AppExecutors.io().execute(() -> {
+            List<AlertEvent> raised = alertMonitor().checkAll(sites);
+            LogUtil.log(alertMonitor().engine().stats());
+            if (raised.isEmpty()) return;
+            for (AlertEvent a : raised) LogUtil.log("ALERT " + a.message());
+            FxStallDetector.runLater("alerts", () -> showAlerts(raised));
+        });
+    }
+
+    private void showAlerts(List<AlertEvent> raised) {
+        for (AlertEvent a : raised) recentAlerts.add(0, a.getRaisedAt().format(timeFmt) + "  " + a.message());
+        while (recentAlerts.size() > 20) recentAlerts.remove(recentAlerts.size() - 1);
+        if (alertsLabel == null) return;
+        String text = "⚠ " + raised.get(0).message();
+        if (raised.size() > 1) text += "  (+" + (raised.size() - 1) + " more)";
+        alertsLabel.setText(text);
+        alertsLabel.setTooltip(new Tooltip(String.join("\n", recentAlerts)));
+        alertsLabel.setVisible(true);
+        alertsLabel.setManaged(true);
+    }
+
     // ----------------- SEARCH / DISPLAY (uses selectedPlace if set) -----------------
     @FXML
     public void handleSearch() {
         String raw = cityInput.getText().trim();
         if (raw.isEmpty()) return;
 
+        // prefer lat,lon query when user selected a place (read here, on the FX thread)
+        GeocodeService.DisplayPlace place = selectedPlace;
+        String query = (place != null) ? (place.getLat() + "," + place.getLon()) : raw;
+
+        // coordinate queries: name the place right away from the offline table, the fetch replaces it
+        double[] coords = place != null ? new double[] {place.getLat(), place.getLon()} : ReverseGeocoder.parseLatLon(raw);
+        if (coords != null && !raw.equals(renderedRaw)) {
+            GeocodeService.DisplayPlace near = GeocodeService.reverse(coords[0], coords[1]);
+            if (near != null) setLabel(locationLabel, near.getDisplayName());
+        }
+
         showSpinner(true);
-        CompletableFuture.runAsync(() -> {
-            try {
-                // prefer lat,lon query when user selected a place
-                String query = (selectedPlace != null) ? (selectedPlace.getLat() + "," + selectedPlace.getLon()) : raw;
-
-                WeatherData w = provider.getCurrentWeather(query);
-                List<ForecastDay> forecast = provider.getForecast(query);
-
-                Platform.runLater(() -> {
-                    // update top cards
-                    if (tempLabel != null) tempLabel.setText(String.format("%.1f°C", w.getTemperature()));
-                    if (conditionLabel != null) conditionLabel.setText("Condition: " + safeString(w.getCondition()));
-                    if (humidityLabel != null) humidityLabel.setText("Humidity: " + w.getHumidity() + "%");
-                    if (windLabel != null) windLabel.setText(String.format("Wind: %.1f km/h", w.getWindSpeed()));
-                    if (feelsLikeLabel != null) feelsLikeLabel.setText(String.format("Feels like: %.1f°C", w.getFeelsLike()));
-                    if (pressureLabel != null) pressureLabel.setText(Double.isNaN(w.getPressureMb()) ? "Pressure: --" : "Pressure: " + w.getPressureMb() + " mb");
-                    if (visibilityLabel != null) visibilityLabel.setText(Double.isNaN(w.getVisibilityKm()) ? "Visibility: --" : "Visibility: " + w.getVisibilityKm() + " km");
-                    if (uvLabel != null) uvLabel.setText(Double.isNaN(w.getUv()) ? "UV: --" : "UV: " + w.getUv());
-                    if (cloudLabel != null) cloudLabel.setText((w.getCloud() < 0) ? "Clouds: --" : "Clouds: " + w.getCloud() + "%");
-
-                    // location & coords
-                    if (locationLabel != null) {
-                        if (w.getLocationName() != null && !w.getLocationName().isBlank()) {
-                            locationLabel.setText(String.format("%s, %s, %s", safeString(w.getLocationName()), safeString(w.getRegion()), safeString(w.getCountry())));
-                        } else locationLabel.setText("Location: --");
+        IdlePrefetcher pf = prefetcher;
+        if (pf != null) pf.foregroundStarted(raw);
+        // typing that led here shares the search id, so its debounce and suggestion lookups line up
+        long searchId = typingSearchId != 0 ? typingSearchId : SearchTrace.newId();
+        typingSearchId = 0;
+        SearchEvent searchEvent = SearchEvent.start(searchId);
+        // the worker (and anything it hands to AppExecutors) inherits the id
+        SearchTrace.Scope t = SearchTrace.enter(searchId);
+        try {
+            searchSessions.submit(raw, session -> {
+                WeatherProvider p = provider();
+                // slim daily summary, then today's hours as soon as its date is known, alongside
+                // the current conditions: the wait is the longer of the two, not the sum of three.
+                // Other days' hours load on click.
+                Future<List<ForecastDay>> summary = AppExecutors.submitIo(() -> {
+                    List<ForecastDay> days = p.getForecastSummary(query);
+                    // hours stay in the hourly cache; provider days may be shared and are never written to
+                    if (days != null && !days.isEmpty() && days.get(0).getDate() != null && days.get(0).getHourly().isEmpty()) {
+                        hourlyCache().prefetch(query, days.get(0).getDate());
                     }
-                    if (coordsLabel != null) {
-                        if (!Double.isNaN(w.getLatitude()) && !Double.isNaN(w.getLongitude())) coordsLabel.setText(String.format("Lat/Lon: %.2f, %.2f", w.getLatitude(), w.getLongitude()));
-                        else coordsLabel.setText("Lat/Lon: --");
+                    return days;
+                });
+                WeatherData w;
+                List<ForecastDay> forecast;
+                try {
+                    w = p.getCurrentWeather(query);
+                    forecast = summary.get();
+                } catch (ExecutionException ee) {
+                    throw ee.getCause() instanceof Exception ? (Exception) ee.getCause() : ee;
+                } finally {
+                    summary.cancel(true); // no-op once done; stops it when this search is cancelled or failed
+                }
+                if (forecast != null && !forecast.isEmpty() && session.isCurrent()) {
+                    ForecastDay today = forecast.get(0);
+                    // joins the fetch started above
+                    if (today.getDate() != null && today.getHourly().isEmpty()) hourlyCache().get(query, today.getDate());
+                    if (forecast.size() > 1) hourlyCache().prefetch(query, forecast.get(1).getDate());
+                }
+                // offline/sample answers aren't observations
+                if (!w.isOffline()) recordHistory(raw, w);
+                // what gets painted: our own copies of the days, with whatever hours are loaded
+                List<ForecastDay> shown = hourlyCache().join(query, forecast);
+                SearchResult result = new SearchResult(w, shown);
+                // persistence only for the search that will actually be shown, and only when the data moved
+                String savedKey = raw + "|" + result.currentFp + "|" + result.forecastFp;
+                if (session.isCurrent() && !savedKey.equals(lastSavedKey)) {
+                    WarmStartCache.save(raw, w, shown);
+                    try { FileUtil.saveLastCity(raw); } catch (IOException ignored) {}
+                    lastSavedKey = savedKey;
+                }
+                return result;
+            }, r -> {
+                // runLater doesn't carry the search id; icon loads started by the render pick it up here
+                SearchTrace.Scope fx = SearchTrace.enter(searchId);
+                try {
+                    lastQuery = query;
+                    RenderEvent render = RenderEvent.start(false);
+                    renderWeather(raw, r.current, r.forecast, r.currentFp, r.forecastFp, false);
+                    if (r.current != null && r.current.isOffline()) markOffline();
+                    render.finish();
+                    if (!timelinePending.isEmpty()) {
+                        List<ForecastDay> pending = new ArrayList<>(timelinePending);
+                        timelinePending.clear();
+                        pending.forEach(this::loadTimelineDay);
                     }
+                    if (lastUpdatedLabel != null) lastUpdatedLabel.setTooltip(new Tooltip(searchSessions.stats() + "\n" + renderStats()));
+                    showSpinner(false);
+                    searchEvent.finish("ok");
+                } finally {
+                    fx.close();
+                }
+            }, ex -> {
+                showAlert("Weather Error", ex instanceof WeatherException ? ex.getMessage() : "Search failed: " + ex);
+                showSpinner(false);
+                searchEvent.finish("error");
+            }, () -> searchEvent.finish("superseded"));
+        } finally {
+            t.close();
+        }
+    }
 
-                    // AQI
-                    if (aqiLabel != null) {
-                        if (!Double.isNaN(w.getAqiPm25())) aqiLabel.setText(String.format("PM2.5: %.1f µg/m³", w.getAqiPm25()));
-                        else aqiLabel.setText("PM2.5: --");
-                    }
+    private static final class SearchResult {
+        final WeatherData current;
+        final List<ForecastDay> forecast;
 
-                    // quick summary + detail generation
-                    if (moreDetailsArea != null) {
-                        String qs = generateQuickSummary(w, (forecast != null && !forecast.isEmpty()) ? forecast.get(0) : null);
-                        String details = generateDetailedParagraph(w, (forecast != null && !forecast.isEmpty()) ? forecast.get(0) : null);
-                        moreDetailsArea.setText(details);
-                    }
+        // computed on the worker so the FX thread only compares two longs
+        final long currentFp;
+        final long forecastFp;
 
-                    // add to dropdown recent
-                    if (locationsDropdown != null && !locationsDropdown.getItems().contains(raw)) locationsDropdown.getItems().add(0, raw);
+        SearchResult(WeatherData current, List<ForecastDay> forecast) {
+            this.current = current;
+            this.forecast = forecast;
+            this.currentFp = WeatherFingerprint.of(current);
+            this.forecastFp = WeatherFingerprint.of(forecast);
+        }
+    }
 
-                    // forecast + charts
-                    populateForecastPane(forecast);
-                    updateTempChart(forecast);
-                    Platform.runLater(this::attachChartPointHandlers);
+    /**
+     * Paint a fetched (or, with {@code stale}, a cached) result into every card and chart.
+     * FX thread only.
+     *
+     * Diffed against what is already on screen: when both fingerprints match the last render
+     * nothing is touched except the "last updated" line; otherwise only the changed half
+     * (current conditions or forecast) is repainted, and labels whose text is unchanged are
+     * left alone.
+     */
+    private void renderWeather(String raw, WeatherData w, List<ForecastDay> forecast, long currentFp, long forecastFp, boolean stale) {
+        renders++;
+        boolean samePlace = raw.equals(renderedRaw);
+        boolean sameCurrent = samePlace && currentFp == renderedCurrentFp;
+        boolean sameForecast = samePlace && forecastFp == renderedForecastFp;
+        if (sameCurrent && sameForecast) {
+            rendersSkipped++;
+            markFresh(stale);
+            return;
+        }
+        if (sameCurrent || sameForecast) rendersPartial++;
+        WeatherData previous = renderedCurrent;
+        renderedRaw = raw;
+        renderedCurrent = w;
+        renderedCurrentFp = currentFp;
+        renderedForecastFp = forecastFp;
+
+        if (!sameCurrent) {
+            // update top cards
+            setLabel(tempLabel, String.format("%.1f°C", w.getTemperature()));
+            setLabel(conditionLabel, "Condition: " + safeString(w.getCondition()));
+            setLabel(humidityLabel, "Humidity: " + w.getHumidity() + "%");
+            setLabel(windLabel, String.format("Wind: %.1f km/h", w.getWindSpeed()));
+            setLabel(feelsLikeLabel, String.format("Feels like: %.1f°C", w.getFeelsLike()));
+            setLabel(pressureLabel, Double.isNaN(w.getPressureMb()) ? "Pressure: --" : "Pressure: " + w.getPressureMb() + " mb");
+            setLabel(visibilityLabel, Double.isNaN(w.getVisibilityKm()) ? "Visibility: --" : "Visibility: " + w.getVisibilityKm() + " km");
+            setLabel(uvLabel, Double.isNaN(w.getUv()) ? "UV: --" : "UV: " + w.getUv());
+            setLabel(cloudLabel, (w.getCloud() < 0) ? "Clouds: --" : "Clouds: " + w.getCloud() + "%");
+
+            // location & coords
+            if (w.getLocationName() != null && !w.getLocationName().isBlank()) {
+                setLabel(locationLabel, String.format("%s, %s, %s", safeString(w.getLocationName()), safeString(w.getRegion()), safeString(w.getCountry())));
+            } else {
+                // unnamed result (coordinate-only backends): name it from the offline table
+                GeocodeService.DisplayPlace near = GeocodeService.reverse(w.getLatitude(), w.getLongitude());
+                setLabel(locationLabel, near != null ? "Near " + near.getDisplayName() : "Location: --");
+            }
+            if (!Double.isNaN(w.getLatitude()) && !Double.isNaN(w.getLongitude())) setLabel(coordsLabel, String.format("Lat/Lon: %.2f, %.2f", w.getLatitude(), w.getLongitude()));
+            else setLabel(coordsLabel, "Lat/Lon: --");
+
+            // AQI
+            if (!Double.isNaN(w.getAqiPm25())) setLabel(aqiLabel, String.format("PM2.5: %.1f µg/m³", w.getAqiPm25()));
+            else setLabel(aqiLabel, "PM2.5: --");
+
+            // icon - robust loading with fallback; reload and fade only when it actually changed
+            boolean iconChanged = previous == null || !Objects.equals(previous.getIconUrl(), w.getIconUrl())
+                    || !Objects.equals(previous.getCondition(), w.getCondition());
+            if (iconChanged && iconView != null) {
+                try {
+                    if (w.getIconUrl() != null && !w.getIconUrl().isBlank()) loadImageWithFallback(w.getIconUrl(), iconView);
+                    else setIconSilently(w.getCondition());
+                } catch (Exception ex) { setIconSilently(w.getCondition()); }
+                if (!stale) playFade(iconView);
+            }
+        }
 
-                    // icon - robust loading with fallback
-                    try {
-                        if (w.getIconUrl() != null && !w.getIconUrl().isBlank() && iconView != null) {
-                            loadImageWithFallback(w.getIconUrl(), iconView);
-                        } else if (iconView != null) setIconSilently(w.getCondition());
-                    } catch (Exception ex) { if (iconView != null) setIconSilently(w.getCondition()); }
-                    if (iconView != null) playFade(iconView);
-
-                    // astro & hourly
-                    if (forecast != null && !forecast.isEmpty()) {
-                        ForecastDay today = forecast.get(0);
-                        if (sunriseLabel != null) sunriseLabel.setText("Sunrise: " + safeString(today.getSunrise(), "--"));
-                        if (sunsetLabel != null) sunsetLabel.setText("Sunset: " + safeString(today.getSunset(), "--"));
-                        if (moonLabel != null) moonLabel.setText("Moon: " + safeString(today.getMoonPhase(), "--"));
-                        populateHourlyChart(today.getHourly());
-                    }
+        // quick summary + detail generation
+        if (moreDetailsArea != null) {
+            String details = WeatherNarrative.detailedParagraph(w, (forecast != null && !forecast.isEmpty()) ? forecast.get(0) : null);
+            if (!details.equals(moreDetailsArea.getText())) moreDetailsArea.setText(details);
+        }
 
-                    if (lastUpdatedLabel != null) lastUpdatedLabel.setText("Last updated: " + LocalDateTime.now().format(timeFmt));
-                    try { FileUtil.saveLastCity(raw); } catch (IOException ignored) {}
+        // add to dropdown recent
+        if (locationsDropdown != null && !locationsDropdown.getItems().contains(raw)) locationsDropdown.getItems().add(0, raw);
+
+        if (!sameForecast) {
+            // forecast + charts
+            populateForecastPane(forecast);
+            updateTempChart(forecast);
+            if (hourlyTimeline != null) hourlyTimeline.setForecast(forecast);
+
+            // astro & hourly
+            if (forecast != null && !forecast.isEmpty()) {
+                ForecastDay today = forecast.get(0);
+                setLabel(sunriseLabel, "Sunrise: " + safeString(today.getSunrise(), "--"));
+                setLabel(sunsetLabel, "Sunset: " + safeString(today.getSunset(), "--"));
+                setLabel(moonLabel, "Moon: " + safeString(today.getMoonPhase(), "--"));
+                populateHourlyChart(today.getHourly());
+            }
+        }
 
-                    showSpinner(false);
-                });
+        markFresh(stale);
+    }
 
-            } catch (WeatherException ex) {
-                Platform.runLater(() -> {
-                    showAlert("Weather Error", ex.getMessage());
-                    showSpinner(false);
-                });
+    private void markFresh(boolean stale) {
+        if (stale) return;
+        if (lastUpdatedLabel != null) lastUpdatedLabel.setText("Last updated: " + LocalDateTime.now().format(timeFmt));
+        if (currentWeatherBox != null) currentWeatherBox.getStyleClass().remove("stale");
+    }
+
+    // live backends failed and the offline dataset answered: say so instead of "Last updated"
+    private void markOffline() {
+        if (lastUpdatedLabel != null) lastUpdatedLabel.setText("Offline data (not live) - live weather unavailable");
+        if (currentWeatherBox != null && !currentWeatherBox.getStyleClass().contains("stale")) currentWeatherBox.getStyleClass().add("stale");
+    }
+
+    private void setLabel(Label l, String text) {
+        if (l == null) return;
+        if (text.equals(l.getText())) { labelsUnchanged++; return; }
+        labelsWritten++;
+        l.setText(text);
+    }
+
+    private String renderStats() {
+        return String.format(Locale.ROOT, "renders=%d skipped=%d (%.0f%%) partial=%d labels written=%d unchanged=%d",
+                renders, rendersSkipped, renders == 0 ? 0.0 : 100.0 * rendersSkipped / renders, rendersPartial,
+                labelsWritten, labelsUnchanged);
+    }
+
+    // first frame: show the last rendered dashboard until the real refresh lands
+    private void paintWarmStart() {
+        WarmStartCache.State st = WarmStartCache.peek();
+        if (st == null || st.current == null) return;
+        try {
+            RenderEvent render = RenderEvent.start(true);
+            renderWeather(st.query != null ? st.query : "", st.current, st.forecast,
+                    WeatherFingerprint.of(st.current), WeatherFingerprint.of(st.forecast), true);
+            render.finish();
+            String at = Instant.ofEpochMilli(st.savedAtMillis).atZone(ZoneId.systemDefault()).toLocalDateTime().format(timeFmt);
+            if (lastUpdatedLabel != null) lastUpdatedLabel.setText("Cached from " + at + " (stale) - refreshing...");
+            if (currentWeatherBox != null && !currentWeatherBox.getStyleClass().contains("stale")) currentWeatherBox.getStyleClass().add("stale");
+        } catch (Exception ignored) {}
+    }
+
+    // append the observation to the history store; never fails the search
+    private void recordHistory(String raw, WeatherData w) {
+        try {
+            WeatherHistoryStore store;
+            synchronized (this) {
+                if (historyStore == null) {
+                    historyStore = new WeatherHistoryStore(Paths.get(PrefsUtil.get("history.dir", "resources/history")));
+                }
+                store = historyStore;
             }
-        });
+            String loc = (w.getLocationName() != null && !w.getLocationName().isBlank())
+                    ? w.getLocationName() + ", " + safeString(w.getCountry(), "")
+                    : raw;
+            store.record(loc, w);
+        } catch (Exception ex) {
+            LogUtil.log("History append failed: " + ex.getMessage());
+        }
     }
 
     // ----------------- FAVORITES -----------------
@@ -505,7 +816,7 @@ public class DashboardController {
         if (city.isEmpty() || favoritesList == null) return;
         if (!favoritesList.getItems().contains(city)) {
             favoritesList.getItems().add(city);
-            try { FileUtil.saveFavorites(favoritesList.getItems()); } catch (IOException ignored) {}
+            persistFavorites();
         }
     }
 
@@ -521,11 +832,20 @@ public class DashboardController {
         confirm.showAndWait().ifPresent(bt -> {
             if (bt == ButtonType.OK) {
                 favoritesList.getItems().remove(city);
-                try { FileUtil.saveFavorites(favoritesList.getItems()); } catch (IOException ignored) {}
+                persistFavorites();
             }
         });
     }
 
+    // copy on the FX thread, write on an I/O thread
+    private void persistFavorites() {
+        if (favoritesList == null) return;
+        List<String> copy = new ArrayList<>(favoritesList.getItems());
+        AppExecutors.io().execute(() -> {
+            try { FileUtil.saveFavorites(copy); } catch (IOException e) { LogUtil.log("Saving favorites failed: " + e.getMessage()); }
+        });
+    }
+
     // ----------------- FORECAST CARDS -----------------
     private void populateForecastPane(List<ForecastDay> forecast) {
         if (forecastPane == null) return;
@@ -572,8 +892,10 @@ public class DashboardController {
             card.getChildren().addAll(day, iv, temps, cond);
 
             card.setOnMouseClicked(e -> {
+                // start loading the day's hours before the (modal) detail dialog opens
+                loadHourlyFor(f, forecast);
+                if (hourlyTimeline != null) hourlyTimeline.scrollToDay(f);
                 showForecastDetail(f);
-                populateHourlyChart(f.getHourly());
                 if (sunriseLabel != null) sunriseLabel.setText("Sunrise: " + safeString(f.getSunrise(), "--"));
                 if (sunsetLabel != null) sunsetLabel.setText("Sunset: " + safeString(f.getSunset(), "--"));
                 if (moonLabel != null) moonLabel.setText("Moon: " + safeString(f.getMoonPhase(), "--"));
@@ -583,6 +905,57 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Show a day's hourly chart, fetching it through the hourly cache when the summary didn't
+     * include it, and warm the following day.
+     */
+    private void loadHourlyFor(ForecastDay f, List<ForecastDay> forecast) {
+        String query = lastQuery;
+        if (!f.getHourly().isEmpty() || f.getDate() == null || query == null) {
+            populateHourlyChart(f.getHourly());
+        } else {
+            HourlyDetailCache cache = hourlyCache();
+            if (!cache.isReady(query, f.getDate())) showSpinner(true);
+            cache.getAsync(query, f.getDate()).whenComplete((hours, err) -> Platform.runLater(() -> {
+                showSpinner(false);
+                if (err != null) {
+                    LogUtil.log("Hourly detail failed for " + f.getDate() + ": " + err.getMessage());
+                    return;
+                }
+                populateHourlyChart(hours);
+                if (hourlyTimeline != null) hourlyTimeline.refresh();
+            }));
+        }
+        int i = forecast.indexOf(f);
+        if (query != null && i >= 0 && i + 1 < forecast.size()) hourlyCache().prefetch(query, forecast.get(i + 1).getDate());
+    }
+
+    // a day scrolled into the timeline without its hours: load them through the same cache
+    private void loadTimelineDay(ForecastDay f) {
+        String query = lastQuery;
+        if (f.getDate() == null) return;
+        if (query == null) {
+            // warm-start paint, no search has finished yet: load once one has
+            timelinePending.add(f);
+            return;
+        }
+        hourlyCache().getAsync(query, f.getDate()).whenComplete((hours, err) -> Platform.runLater(() -> {
+            if (err != null) {
+                LogUtil.log("Hourly detail failed for " + f.getDate() + ": " + err.getMessage());
+                if (hourlyTimeline != null) hourlyTimeline.dayLoadFailed(f);
+                return;
+            }
+            if (hourlyTimeline != null) hourlyTimeline.refresh();
+        }));
+    }
+
+    // a day's hours: its own when it has them, else whatever the hourly cache has loaded (FX thread)
+    private List<HourlyWeather> hoursOf(ForecastDay f) {
+        if (!f.getHourly().isEmpty() || f.getDate() == null) return f.getHourly();
+        List<HourlyWeather> hours = hourlyCache().peek(lastQuery, f.getDate());
+        return hours != null ? hours : Collections.emptyList();
+    }
+
     private void showForecastDetail(ForecastDay f) {
         StringBuilder sb = new StringBuilder();
         sb.append("Day: ").append(f.getDay()).append("\n");
@@ -602,48 +975,21 @@ public class DashboardController {
     }
 
     // ----------------- CHARTS -----------------
+    // both charts are CanvasLineChart: drawn onto a canvas, no node per point
     private void updateTempChart(List<ForecastDay> forecast) {
         if (tempChart == null) return;
-        tempChart.getData().clear();
-        if (forecast == null || forecast.isEmpty()) return;
-
-        XYChart.Series<String, Number> minSeries = new XYChart.Series<>();
-        XYChart.Series<String, Number> maxSeries = new XYChart.Series<>();
-        minSeries.setName("Min °C");
-        maxSeries.setName("Max °C");
-
-        for (ForecastDay f : forecast) {
-            minSeries.getData().add(new XYChart.Data<>(f.getDay(), f.getMinTemp()));
-            maxSeries.getData().add(new XYChart.Data<>(f.getDay(), f.getMaxTemp()));
-        }
-        tempChart.getData().addAll(minSeries, maxSeries);
-    }
-
-    private void attachChartPointHandlers() {
-        if (tempChart != null) {
-            for (XYChart.Series<String, Number> s : tempChart.getData()) {
-                for (XYChart.Data<String, Number> d : s.getData()) {
-                    Node node = d.getNode();
-                    if (node == null) continue;
-                    Tooltip t = new Tooltip(s.getName() + "\n" + d.getXValue() + ": " + d.getYValue() + "°C");
-                    Tooltip.install(node, t);
-                    node.setOnMouseEntered(ev -> { node.setScaleX(1.15); node.setScaleY(1.15); });
-                    node.setOnMouseExited(ev -> { node.setScaleX(1.0); node.setScaleY(1.0); });
-                }
-            }
-        }
-        if (hourlyChart != null) {
-            for (XYChart.Series<String, Number> s : hourlyChart.getData()) {
-                for (XYChart.Data<String, Number> d : s.getData()) {
-                    Node node = d.getNode();
-                    if (node == null) continue;
-                    String seriesName = s.getName() != null ? s.getName() : "";
-                    Tooltip.install(node, new Tooltip(seriesName + "\n" + d.getXValue() + ": " + d.getYValue() + "°C"));
-                    node.setOnMouseEntered(ev -> { node.setScaleX(1.15); node.setScaleY(1.15); });
-                    node.setOnMouseExited(ev -> { node.setScaleX(1.0); node.setScaleY(1.0); });
-                }
-            }
+        if (forecast == null || forecast.isEmpty()) { tempChart.clear(); return; }
+
+        String[] days = new String[forecast.size()];
+        double[] min = new double[forecast.size()];
+        double[] max = new double[forecast.size()];
+        for (int i = 0; i < forecast.size(); i++) {
+            ForecastDay f = forecast.get(i);
+            days[i] = f.getDay();
+            min[i] = f.getMinTemp();
+            max[i] = f.getMaxTemp();
         }
+        tempChart.setData(days, List.of("Min °C", "Max °C"), List.of(min, max));
     }
 
     /**
@@ -651,14 +997,10 @@ public class DashboardController {
      */
     private void populateHourlyChart(List<HourlyWeather> hourly) {
         if (hourlyChart == null) return;
-        hourlyChart.getData().clear();
-        if (hourly == null || hourly.isEmpty()) return;
+        if (hourly == null || hourly.isEmpty()) { hourlyChart.clear(); return; }
 
         List<String> hours = new ArrayList<>(24);
         for (int h = 0; h < 24; h++) { hours.add(String.format("%02d:00", h)); }
-        if (hourlyXAxis != null) {
-            Platform.runLater(() -> hourlyXAxis.setCategories(javafx.collections.FXCollections.observableArrayList(hours)));
-        }
 
         Map<String, HourlyWeather> byHour = new HashMap<>();
         for (HourlyWeather hw : hourly) {
@@ -675,77 +1017,28 @@ public class DashboardController {
                         hourly.get(0).getClass().getMethod("getTempMax") != null;
         } catch (Throwable ignored) { hasMinMax = false; }
 
-        XYChart.Series<String, Number> minSeries = new XYChart.Series<>();
-        XYChart.Series<String, Number> maxSeries = new XYChart.Series<>();
-        minSeries.setName("Min °C");
-        maxSeries.setName("Max °C");
-
         final double FALLBACK_DELTA = 1.5;
-
-        for (String cat : hours) {
-            HourlyWeather hw = byHour.get(cat);
-            if (hw != null) {
-                if (hasMinMax) {
-                    try {
-                        Number vmin = (Number) hw.getClass().getMethod("getTempMin").invoke(hw);
-                        Number vmax = (Number) hw.getClass().getMethod("getTempMax").invoke(hw);
-                        minSeries.getData().add(new XYChart.Data<>(cat, vmin));
-                        maxSeries.getData().add(new XYChart.Data<>(cat, vmax));
-                    } catch (Throwable ex) {
-                        try {
-                            Number tval = (Number) hw.getClass().getMethod("getTempC").invoke(hw);
-                            double tmp = tval != null ? tval.doubleValue() : Double.NaN;
-                            minSeries.getData().add(new XYChart.Data<>(cat, tmp - FALLBACK_DELTA));
-                            maxSeries.getData().add(new XYChart.Data<>(cat, tmp + FALLBACK_DELTA));
-                        } catch (Throwable e) {
-                            minSeries.getData().add(new XYChart.Data<>(cat, Double.NaN));
-                            maxSeries.getData().add(new XYChart.Data<>(cat, Double.NaN));
-                        }
-                    }
-                } else {
-                    try {
-                        Number tval = (Number) hw.getClass().getMethod("getTempC").invoke(hw);
-                        double tmp = tval != null ? tval.doubleValue() : Double.NaN;
-                        minSeries.getData().add(new XYChart.Data<>(cat, tmp - FALLBACK_DELTA));
-                        maxSeries.getData().add(new XYChart.Data<>(cat, tmp + FALLBACK_DELTA));
-                    } catch (Throwable e) {
-                        minSeries.getData().add(new XYChart.Data<>(cat, Double.NaN));
-                        maxSeries.getData().add(new XYChart.Data<>(cat, Double.NaN));
-                    }
-                }
-            } else {
-                minSeries.getData().add(new XYChart.Data<>(cat, Double.NaN));
-                maxSeries.getData().add(new XYChart.Data<>(cat, Double.NaN));
+        double[] min = new double[hours.size()];
+        double[] max = new double[hours.size()];
+
+        for (int i = 0; i < hours.size(); i++) {
+            HourlyWeather hw = byHour.get(hours.get(i));
+            min[i] = Double.NaN;
+            max[i] = Double.NaN;
+            if (hw == null) continue;
+            if (hasMinMax) {
+                try {
+                    min[i] = ((Number) hw.getClass().getMethod("getTempMin").invoke(hw)).doubleValue();
+                    max[i] = ((Number) hw.getClass().getMethod("getTempMax").invoke(hw)).doubleValue();
+                    continue;
+                } catch (Throwable ignored) {}
             }
+            double tmp = hw.getTempC();
+            min[i] = tmp - FALLBACK_DELTA;
+            max[i] = tmp + FALLBACK_DELTA;
         }
 
-        hourlyChart.getData().addAll(minSeries, maxSeries);
-
-        Platform.runLater(() -> {
-            try {
-                Node minNode = minSeries.getNode();
-                Node maxNode = maxSeries.getNode();
-                if (minNode != null) minNode.getStyleClass().add("series-hourly-min");
-                if (maxNode != null) maxNode.getStyleClass().add("series-hourly-max");
-
-                for (XYChart.Data<String, Number> d : minSeries.getData()) {
-                    Node node = d.getNode();
-                    if (node == null) continue;
-                    node.getStyleClass().add("series-hourly-min");
-                    Tooltip.install(node, new Tooltip(minSeries.getName() + " — " + d.getXValue() + ": " + d.getYValue() + "°C"));
-                    node.setOnMouseEntered(ev -> { node.setScaleX(1.25); node.setScaleY(1.25); });
-                    node.setOnMouseExited(ev -> { node.setScaleX(1.0); node.setScaleY(1.0); });
-                }
-                for (XYChart.Data<String, Number> d : maxSeries.getData()) {
-                    Node node = d.getNode();
-                    if (node == null) continue;
-                    node.getStyleClass().add("series-hourly-max");
-                    Tooltip.install(node, new Tooltip(maxSeries.getName() + " — " + d.getXValue() + ": " + d.getYValue() + "°C"));
-                    node.setOnMouseEntered(ev -> { node.setScaleX(1.25); node.setScaleY(1.25); });
-                    node.setOnMouseExited(ev -> { node.setScaleX(1.0); node.setScaleY(1.0); });
-                }
-            } catch (Throwable ignored) {}
-        });
+        hourlyChart.setData(hours.toArray(new String[0]), List.of("Min °C", "Max °C"), List.of(min, max));
     }
 
     // ----------------- ICON / ANIMATION / UTIL -----------------
@@ -777,24 +1070,22 @@ public class DashboardController {
     /**
      * Load an image (remote URL) into given ImageView and fallback to a default resource if loading fails.
      */
+    // icons go through IconLoader (shared HTTP cache, decoded off the FX thread)
     private void loadImageIntoViewWithFallback(String url, ImageView iv) {
-        try {
-            Image img = new Image(url, true);
-            img.errorProperty().addListener((obs, oldV, newV) -> {
-                if (newV) {
-                    Platform.runLater(() -> {
-                        try (InputStream is = getClass().getResourceAsStream("/icons/default.png")) {
-                            if (is != null) iv.setImage(new Image(is));
-                        } catch (Exception ignored) {}
-                    });
-                }
-            });
-            iv.setImage(img);
-        } catch (Exception ex) {
+        Image ready = IconLoader.cached(url);
+        if (ready != null) {
+            iv.setImage(ready);
+            return;
+        }
+        IconLoader.load(url).whenComplete((img, err) -> Platform.runLater(() -> {
+            if (img != null) {
+                iv.setImage(img);
+                return;
+            }
             try (InputStream is = getClass().getResourceAsStream("/icons/default.png")) {
                 if (is != null) iv.setImage(new Image(is));
             } catch (Exception ignored) {}
-        }
+        }));
     }
 
     private void loadImageWithFallback(String url, ImageView iv) {
@@ -829,28 +1120,65 @@ public class DashboardController {
         WritableImage image = currentWeatherBox.snapshot(new SnapshotParameters(), null);
         if (image == null) { showAlert("Snapshot", "Could not create snapshot (image is null)."); return; }
 
-        try {
-            String projectRoot = System.getProperty("user.dir");
-            Path snapsDir = Paths.get(projectRoot, "snapshots");
-            if (!Files.exists(snapsDir)) Files.createDirectories(snapsDir);
-
-            String fname = "skycast_snapshot_" + DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss").format(LocalDateTime.now()) + ".png";
-            File out = snapsDir.resolve(fname).toFile();
+        // FX thread: pixel copy + clipboard only; conversion and compression run on AppExecutors.cpu()
+        SnapshotEncoder.Captured pixels = SnapshotEncoder.capture(image);
+        String fname = "skycast_snapshot_" + DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss").format(LocalDateTime.now())
+                + "." + snapshotEncoder.extension();
+        File out = snapshotsDir().resolve(fname).toFile();
+
+        ClipboardContent content = new ClipboardContent();
+        content.putString(out.getAbsolutePath());
+        content.putImage(image);
+        Clipboard.getSystemClipboard().setContent(content);
+        if (saveSnapshotBtn != null) saveSnapshotBtn.setDisable(true);
+
+        snapshotEncoder.encode(pixels, out).whenComplete((file, err) -> Platform.runLater(() -> {
+            if (saveSnapshotBtn != null) saveSnapshotBtn.setDisable(false);
+            if (err != null) {
+                Throwable cause = err.getCause() != null ? err.getCause() : err;
+                showAlert("Save error", "Could not save snapshot: " + cause.getMessage());
+                return;
+            }
+            lastSavedSnapshot = file;
+            showInfo("Snapshot saved: " + file.getAbsolutePath() + "\nImage & path copied to clipboard.");
+        }));
+    }
 
-            ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", out);
-            lastSavedSnapshot = out;
+    /**
+     * Render and save a card for every favorite, plus one combined board image,
+     * into snapshots/board_yyyyMMdd_HHmm/.
+     */
+    @FXML
+    public void handleSnapshotFavorites() {
+        if (favoritesList == null || favoritesList.getItems().isEmpty()) {
+            showAlert("Snapshot favorites", "Add some favorites first.");
+            return;
+        }
+        List<String> cities = new ArrayList<>(favoritesList.getItems());
+        Path dir = snapshotsDir().resolve("board_" + DateTimeFormatter.ofPattern("yyyyMMdd_HHmm").format(LocalDateTime.now()));
+        List<String> sheets = cityInput != null && cityInput.getScene() != null
+                ? new ArrayList<>(cityInput.getScene().getStylesheets()) : List.of();
 
-            ClipboardContent content = new ClipboardContent();
-            content.putString(out.getAbsolutePath());
-            content.putImage(image);
-            Clipboard.getSystemClipboard().setContent(content);
+        if (snapshotFavoritesBtn != null) snapshotFavoritesBtn.setDisable(true);
+        showSpinner(true);
+        new FavoritesSnapshotter(provider(), snapshotEncoder, sheets).run(cities, dir)
+                .whenComplete((res, err) -> Platform.runLater(() -> {
+                    showSpinner(false);
+                    if (snapshotFavoritesBtn != null) snapshotFavoritesBtn.setDisable(false);
+                    if (err != null) {
+                        LogUtil.log("Favorites snapshot failed: " + err);
+                        showAlert("Snapshot favorites", "Export failed: " + err.getMessage());
+                        return;
+                    }
+                    if (!res.files.isEmpty()) lastSavedSnapshot = res.files.get(res.files.size() - 1);
+                    String msg = "Saved " + res.files.size() + " image(s) to " + res.directory.toAbsolutePath();
+                    if (!res.failed.isEmpty()) msg += "\nNo data for: " + String.join(", ", res.failed);
+                    showInfo(msg);
+                }));
+    }
 
-            showInfo("Snapshot saved: " + out.getAbsolutePath() + "\nImage & path copied to clipboard.");
-        } catch (IOException ioe) {
-            showAlert("Save error", "Could not save snapshot: " + ioe.getMessage());
-        } catch (Throwable t) {
-            showAlert("Snapshot error", "Unexpected error while saving snapshot.");
-        }
+    private Path snapshotsDir() {
+        return Paths.get(System.getProperty("user.dir"), "snapshots");
     }
 
     @FXML
@@ -875,45 +1203,27 @@ public class DashboardController {
     // ----------------- CLEANUP -----------------
     public void shutdown() {
         stopAutoRefresh();
-        try { debounceExec.shutdownNow(); } catch (Exception ignored) {}
-    }
-
-    // ----------------- SUMMARY / DETAILS GENERATION -----------------
-    private String generateQuickSummary(WeatherData w, ForecastDay today) {
-        if (w == null) return "";
-        String c = (w.getCondition() != null) ? w.getCondition().toLowerCase() : "";
-        if (c.contains("rain") || c.contains("shower") || c.contains("drizzle")) return "Rain expected — carry an umbrella.";
-        if (c.contains("snow")) return "Snow or wintry conditions expected.";
-        if (c.contains("cloud") || c.contains("overcast")) return "Mostly cloudy with occasional sun.";
-        if (c.contains("mist") || c.contains("fog")) return "Low visibility due to mist/fog.";
-        if (c.contains("clear") || c.contains("sun")) return "Clear skies and sunny — great weather.";
-        return "Typical weather conditions — check details below.";
-    }
-
-    private String generateDetailedParagraph(WeatherData w, ForecastDay today) {
-        if (w == null) return "";
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("Temperature %.1f°C (feels like %.1f°C). ", w.getTemperature(), w.getFeelsLike()));
-        if (w.getCondition() != null) sb.append(w.getCondition()).append(". ");
-        if (w.getHumidity() >= 0) sb.append("Humidity ").append(w.getHumidity()).append("%, ");
-        if (!Double.isNaN(w.getWindSpeed())) sb.append(String.format("wind %.1f km/h. ", w.getWindSpeed()));
-        if (!Double.isNaN(w.getVisibilityKm())) sb.append(String.format("Visibility %.1f km. ", w.getVisibilityKm()));
-        if (!Double.isNaN(w.getPressureMb())) sb.append(String.format("Pressure %.0f mb. ", w.getPressureMb()));
-        if (!Double.isNaN(w.getUv())) sb.append(String.format("UV index %.1f. ", w.getUv()));
-        if (w.getCloud() >= 0) sb.append("Cloud cover ").append(w.getCloud()).append("%. ");
-
-        if (today != null) {
-            if (today.getSunrise() != null) sb.append("Sunrise: ").append(today.getSunrise()).append(". ");
-            if (today.getSunset() != null) sb.append("Sunset: ").append(today.getSunset()).append(". ");
-            if (today.getMoonPhase() != null) sb.append("Moon: ").append(today.getMoonPhase()).append(". ");
+        searchSessions.shutdown();
+        IdlePrefetcher pf = prefetcher;
+        if (pf != null) {
+            pf.stop();
+            LogUtil.log(pf.stats());
         }
-
-        if (!Double.isNaN(w.getAqiPm25())) {
-            sb.append(String.format("Air quality (PM2.5) %.1f µg/m³. ", w.getAqiPm25()));
-            if (w.getAqiPm25() > 35) sb.append("Air quality is moderate/poor — sensitive groups should take care. ");
+        LogUtil.log("Dashboard " + renderStats());
+        if (HttpTransports.cacheStats() != null) LogUtil.log(HttpTransports.cacheStats());
+        WeatherProvider backend = provider;
+        if (backend instanceof SpatialCachingWeatherProvider) {
+            LogUtil.log(((SpatialCachingWeatherProvider) backend).stats());
+            backend = ((SpatialCachingWeatherProvider) backend).delegate();
+        }
+        if (backend instanceof ProviderRouter) LogUtil.log(((ProviderRouter) backend).stats());
+        PrefsUtil.flush();
+        FxStallDetector.uninstall();
+        // drops pending timers (debounce, refresh), lets queued favorite/snapshot writes finish
+        AppExecutors.shutdown();
+        synchronized (this) {
+            try { if (historyStore != null) historyStore.close(); } catch (IOException ignored) {}
         }
-
-        return sb.toString().trim();
     }
 
     // ----------------- HELPERS -----------------
@@ -0,0 +1,257 @@
+package oep.skycast.ui;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.TilePane;
+import javafx.scene.layout.VBox;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+import oep.skycast.service.WeatherProvider;
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * FavoritesSnapshotter - renders a weather card for every favorite offscreen and saves
+ * one image per city plus a combined board image.
+ *
+ * Fetches run in parallel off the FX thread. All cards are then laid out and snapshotted
+ * in a single FX pass on a scene that is never shown, and encoding goes through
+ * {@link SnapshotEncoder}, so the dashboard stays responsive for the whole export.
+ */
+public class FavoritesSnapshotter {
+
+    /** Outcome of one batch export. */
+    public static final class Result {
+        public final Path directory;
+        public final List<File> files = new ArrayList<>();
+        public final List<String> failed = new ArrayList<>();
+
+        Result(Path directory) { this.directory = directory; }
+    }
+
+    private static final int FETCH_PARALLELISM = 4;
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final WeatherProvider provider;
+    private final SnapshotEncoder encoder;
+    private final List<String> stylesheets;
+
+    public FavoritesSnapshotter(WeatherProvider provider, SnapshotEncoder encoder, List<String> stylesheets) {
+        this.provider = provider;
+        this.encoder = encoder;
+        this.stylesheets = new ArrayList<>(stylesheets);
+    }
+
+    /**
+     * Export all cities into dir. Call from any thread; the future completes off the FX thread.
+     */
+    public CompletableFuture<Result> run(List<String> cities, Path dir) {
+        List<String> names = new ArrayList<>(cities);
+        return CompletableFuture.supplyAsync(() -> fetchAll(names), AppExecutors.io())
+                .thenCompose(this::renderOnFx)
+                // renderOnFx completes on the FX thread: hand the encode submissions to an I/O thread
+                .thenComposeAsync(rendered -> encodeAll(rendered, dir), AppExecutors.io());
+    }
+
+    // ---------------- fetch ----------------
+
+    private static final class Fetched {
+        final String city;
+        final WeatherData current;
+        final ForecastDay today;
+
+        Fetched(String city, WeatherData current, ForecastDay today) {
+            this.city = city;
+            this.current = current;
+            this.today = today;
+        }
+    }
+
+    private List<Fetched> fetchAll(List<String> cities) {
+        Semaphore permits = new Semaphore(FETCH_PARALLELISM);
+        List<Future<Fetched>> futures = new ArrayList<>();
+        for (String c : cities) {
+            futures.add(AppExecutors.submitIo(() -> {
+                permits.acquire();
+                try {
+                    WeatherData w = provider.getCurrentWeather(c);
+                    ForecastDay today = null;
+                    try {
+                        List<ForecastDay> f = provider.getForecastSummary(c);
+                        if (f != null && !f.isEmpty()) today = f.get(0);
+                    } catch (Exception ignored) {}
+                    return new Fetched(c, w, today);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        List<Fetched> out = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                out.add(futures.get(i).get());
+            } catch (Exception e) {
+                LogUtil.log("Snapshot fetch failed for " + cities.get(i) + ": " + e.getMessage());
+                out.add(new Fetched(cities.get(i), null, null));
+            }
+        }
+        return out;
+    }
+
+    // ---------------- render (FX thread) ----------------
+
+    private static final class Rendered {
+        final String name;
+        final SnapshotEncoder.Captured pixels;
+
+        Rendered(String name, SnapshotEncoder.Captured pixels) {
+            this.name = name;
+            this.pixels = pixels;
+        }
+    }
+
+    private CompletableFuture<List<Rendered>> renderOnFx(List<Fetched> fetched) {
+        CompletableFuture<List<Rendered>> cf = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                cf.complete(render(fetched));
+            } catch (Throwable t) {
+                cf.completeExceptionally(t);
+            }
+        });
+        return cf;
+    }
+
+    private List<Rendered> render(List<Fetched> fetched) {
+        String stamp = LocalDateTime.now().format(STAMP);
+        List<Node> cards = new ArrayList<>();
+        for (Fetched f : fetched) cards.add(buildCard(f, stamp));
+
+        TilePane board = new TilePane(16, 16, cards.toArray(new Node[0]));
+        board.setPadding(new Insets(20));
+        board.setPrefColumns(Math.max(1, Math.min(4, cards.size())));
+        board.getStyleClass().add("center-bg");
+
+        // never shown: only used so CSS and layout run for the snapshot
+        Scene scene = new Scene(board);
+        scene.getStylesheets().addAll(stylesheets);
+        board.applyCss();
+        board.layout();
+
+        SnapshotParameters params = new SnapshotParameters();
+        List<Rendered> out = new ArrayList<>();
+        for (int i = 0; i < cards.size(); i++) {
+            Fetched f = fetched.get(i);
+            if (f.current == null) {
+                out.add(new Rendered(fileSafe(f.city), null));
+                continue;
+            }
+            out.add(new Rendered(fileSafe(f.city), SnapshotEncoder.capture(cards.get(i).snapshot(params, null))));
+        }
+        out.add(new Rendered("_board", SnapshotEncoder.capture(board.snapshot(params, null))));
+        return out;
+    }
+
+    private Node buildCard(Fetched f, String stamp) {
+        VBox card = new VBox(6);
+        card.getStyleClass().add("current-card");
+        card.setPrefWidth(280);
+
+        Label title = new Label(f.current != null && f.current.getLocationName() != null ? f.current.getLocationName() : f.city);
+        title.getStyleClass().add("section-subtitle");
+
+        if (f.current == null) {
+            card.getChildren().addAll(title, new Label("No data"), muted(stamp));
+            return card;
+        }
+        WeatherData w = f.current;
+
+        ImageView icon = new ImageView();
+        icon.setFitWidth(56);
+        icon.setFitHeight(56);
+        icon.setPreserveRatio(true);
+        icon.setImage(localIcon(w.getCondition()));
+
+        Label temp = new Label(String.format(Locale.ROOT, "%.1f°C", w.getTemperature()));
+        temp.getStyleClass().add("temp-xlarge");
+        HBox top = new HBox(12, icon, temp);
+
+        card.getChildren().addAll(title, top,
+                new Label(w.getCondition() != null ? w.getCondition() : "--"),
+                muted(String.format(Locale.ROOT, "Feels like %.1f°C  |  Humidity %d%%", w.getFeelsLike(), w.getHumidity())),
+                muted(String.format(Locale.ROOT, "Wind %.1f km/h", w.getWindSpeed())));
+        if (f.today != null) {
+            card.getChildren().add(muted(String.format(Locale.ROOT, "Today %.0f° / %.0f°", f.today.getMinTemp(), f.today.getMaxTemp())));
+        }
+        card.getChildren().add(muted(stamp));
+        return card;
+    }
+
+    private static Label muted(String s) {
+        Label l = new Label(s);
+        l.getStyleClass().add("small-muted");
+        return l;
+    }
+
+    // bundled icons only: remote icons load asynchronously and would miss the snapshot
+    private Image localIcon(String condition) {
+        String key = condition == null ? "" : condition.toLowerCase(Locale.ROOT);
+        String file = "cloudy.png";
+        if (key.contains("sun") || key.contains("clear")) file = "sunny.png";
+        else if (key.contains("rain") || key.contains("drizzle") || key.contains("shower")) file = "rainy.png";
+        else if (key.contains("snow")) file = "snowy.png";
+        else if (key.contains("thunder") || key.contains("storm")) file = "thunderstorm.png";
+        else if (key.contains("fog") || key.contains("mist")) file = "fog.png";
+        try (InputStream is = getClass().getResourceAsStream("/icons/" + file)) {
+            return is != null ? new Image(is) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // ---------------- encode ----------------
+
+    private CompletableFuture<Result> encodeAll(List<Rendered> rendered, Path dir) {
+        Result result = new Result(dir);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Rendered r : rendered) {
+            if (r.pixels == null) {
+                result.failed.add(r.name);
+                continue;
+            }
+            File out = dir.resolve(r.name + "." + encoder.extension()).toFile();
+            writes.add(encoder.encode(r.pixels, out).handle((file, err) -> {
+                synchronized (result) {
+                    if (err == null) result.files.add(file);
+                    else result.failed.add(r.name);
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).thenApply(v -> result);
+    }
+
+    private static String fileSafe(String city) {
+        String s = city.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        return s.isEmpty() ? "city" : s;
+    }
+}
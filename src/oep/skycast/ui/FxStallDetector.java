@@ -0,0 +1,151 @@
+package oep.skycast.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import oep.skycast.util.FxThreadGuard;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FxStallDetector - finds jank on the JavaFX application thread.
+ *
+ *  - Pulse gaps: an AnimationTimer records the time between consecutive pulses; gaps over
+ *    the threshold are logged. (An active timer keeps pulses running, so this is debug only.)
+ *  - Watchdog: a daemon thread posts a heartbeat with Platform.runLater. If it hasn't run
+ *    within the threshold the FX thread is stuck, and its stack is captured while it is
+ *    still stuck, so the log shows the offending frame rather than a guess.
+ *  - Slow tasks: {@link #runLater(String, Runnable)} times a labelled runLater body.
+ *
+ * Enabled together with {@link FxThreadGuard} (debug.fx = log | strict).
+ * Threshold: preference debug.fx.stallMs (default 100).
+ */
+public final class FxStallDetector {
+
+    private static volatile boolean installed;
+    private static volatile long thresholdNanos = 100_000_000L;
+
+    private static final AtomicLong stalls = new AtomicLong();
+    private static final AtomicLong slowTasks = new AtomicLong();
+    private static final AtomicLong maxGapNanos = new AtomicLong();
+
+    private static Thread fxThread;
+    private static AnimationTimer pulseTimer;
+    private static Thread watchdog;
+
+    // heartbeat state shared with the watchdog
+    private static volatile long beatPostedAt;
+    private static volatile boolean beatPending;
+
+    private FxStallDetector() {}
+
+    /**
+     * Start detection if debug.fx is enabled. Call on the FX thread (e.g. from start()).
+     */
+    public static void installIfEnabled() {
+        if (!FxThreadGuard.isEnabled() || installed) return;
+        long ms;
+        try { ms = Long.parseLong(PrefsUtil.get("debug.fx.stallMs", "100").trim()); } catch (Exception e) { ms = 100; }
+        install(ms);
+    }
+
+    public static synchronized void install(long thresholdMillis) {
+        if (installed) return;
+        thresholdNanos = Math.max(16, thresholdMillis) * 1_000_000L;
+        fxThread = Thread.currentThread();
+        installed = true;
+
+        pulseTimer = new AnimationTimer() {
+            private long last;
+
+            @Override
+            public void handle(long now) {
+                if (last != 0) {
+                    long gap = now - last;
+                    maxGapNanos.accumulateAndGet(gap, Math::max);
+                    if (gap > thresholdNanos) {
+                        LogUtil.log(String.format(Locale.ROOT, "FX pulse gap %.0f ms", gap / 1e6));
+                    }
+                }
+                last = now;
+            }
+        };
+        pulseTimer.start();
+
+        watchdog = new Thread(FxStallDetector::watch, "fx-stall-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        LogUtil.log("FX stall detector installed (threshold " + thresholdMillis + " ms)");
+    }
+
+    public static synchronized void uninstall() {
+        if (!installed) return;
+        installed = false;
+        if (pulseTimer != null) pulseTimer.stop();
+        if (watchdog != null) watchdog.interrupt();
+        LogUtil.log(summary());
+    }
+
+    /**
+     * Platform.runLater that, when detection is on, logs bodies running longer than the threshold.
+     */
+    public static void runLater(String label, Runnable r) {
+        if (!installed) {
+            Platform.runLater(r);
+            return;
+        }
+        Platform.runLater(() -> {
+            long t0 = System.nanoTime();
+            try {
+                r.run();
+            } finally {
+                long took = System.nanoTime() - t0;
+                if (took > thresholdNanos) {
+                    slowTasks.incrementAndGet();
+                    LogUtil.log(String.format(Locale.ROOT, "Slow FX task '%s': %.0f ms", label, took / 1e6));
+                }
+            }
+        });
+    }
+
+    public static String summary() {
+        return String.format(Locale.ROOT, "FX stalls=%d slowTasks=%d maxPulseGap=%.0f ms blockingCalls=%d",
+                stalls.get(), slowTasks.get(), maxGapNanos.get() / 1e6, FxThreadGuard.violations());
+    }
+
+    private static void watch() {
+        long pollMillis = Math.max(5, thresholdNanos / 2_000_000L);
+        boolean reported = false;
+        while (installed && !Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (!beatPending) {
+                reported = false;
+                beatPending = true;
+                beatPostedAt = now;
+                Platform.runLater(FxStallDetector::beat);
+            } else if (!reported && now - beatPostedAt > thresholdNanos) {
+                reported = true;
+                stalls.incrementAndGet();
+                StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                        "FX thread stalled > %.0f ms; stack:", (now - beatPostedAt) / 1e6));
+                for (StackTraceElement e : fxThread.getStackTrace()) sb.append("\n    at ").append(e);
+                LogUtil.log(sb.toString());
+            }
+        }
+    }
+
+    private static void beat() {
+        long late = System.nanoTime() - beatPostedAt;
+        beatPending = false;
+        if (late > thresholdNanos) {
+            LogUtil.log(String.format(Locale.ROOT, "FX thread stall ended after %.0f ms", late / 1e6));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package oep.skycast.ui;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.VBox;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.HourlyWeather;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * HourlyTimeline - the whole forecast as one horizontally scrolling strip of hours.
+ *
+ * A ListView in horizontal orientation with a fixed cell size, so only the cells in view
+ * (plus one or two) exist and are recycled while scrolling; a 7-day, 168-hour strip costs
+ * the same nodes as a 1-day one. Items are lightweight (day, hour) slots; a cell reads the
+ * hour's data through the hours source when it is shown, so hours that arrive later only
+ * need {@link #refresh()}; the days themselves are never modified.
+ *
+ * Days whose hours haven't been loaded yet show placeholders, and the first time one of
+ * their cells is shown the {@link #setOnDayNeeded} callback is asked to load them.
+ */
+public final class HourlyTimeline extends ListView<HourlyTimeline.Slot> {
+
+    private static final double CELL_WIDTH = 68;
+
+    /** One hour of one forecast day. */
+    public static final class Slot {
+        final ForecastDay day;
+        final int hour;
+
+        Slot(ForecastDay day, int hour) {
+            this.day = day;
+            this.hour = hour;
+        }
+    }
+
+    private Consumer<ForecastDay> onDayNeeded;
+    private Function<ForecastDay, List<HourlyWeather>> hoursSource = ForecastDay::getHourly;
+    private final Set<ForecastDay> requested = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public HourlyTimeline() {
+        getStyleClass().add("hourly-timeline");
+        setOrientation(Orientation.HORIZONTAL);
+        setFixedCellSize(CELL_WIDTH);
+        setFocusTraversable(false);
+        setCellFactory(lv -> new HourCell());
+        setPrefHeight(132);
+    }
+
+    /** Called (FX thread) the first time hours of a day without hourly data come into view. */
+    public void setOnDayNeeded(Consumer<ForecastDay> callback) { this.onDayNeeded = callback; }
+
+    /** Where a day's hours come from (default: the day's own list). Called on the FX thread. */
+    public void setHoursSource(Function<ForecastDay, List<HourlyWeather>> source) {
+        this.hoursSource = source == null ? ForecastDay::getHourly : source;
+    }
+
+    /** Show every hour of every day; days without hourly data yet get placeholders. */
+    public void setForecast(List<ForecastDay> forecast) {
+        requested.clear();
+        List<Slot> slots = new ArrayList<>(forecast == null ? 0 : forecast.size() * 24);
+        if (forecast != null) {
+            for (ForecastDay d : forecast) for (int h = 0; h < 24; h++) slots.add(new Slot(d, h));
+        }
+        getItems().setAll(slots);
+    }
+
+    /**
+     * A day's hours could not be loaded: ask for them again the next time they come into view
+     * (not right away, so an offline fetch doesn't retry in a loop).
+     */
+    public void dayLoadFailed(ForecastDay day) {
+        requested.remove(day);
+    }
+
+    /** Scroll so the given day's first hour is at the left edge. */
+    public void scrollToDay(ForecastDay day) {
+        List<Slot> items = getItems();
+        for (int i = 0; i < items.size(); i += 24) {
+            if (items.get(i).day == day) {
+                scrollTo(i);
+                return;
+            }
+        }
+    }
+
+    // ---------------- cells ----------------
+
+    private final class HourCell extends ListCell<Slot> {
+        private final Label time = new Label();
+        private final ImageView icon = new ImageView();
+        private final Label temp = new Label();
+        private final Label rain = new Label();
+        private final VBox box = new VBox(2, time, icon, temp, rain);
+        private String iconUrl;
+
+        HourCell() {
+            getStyleClass().add("timeline-cell");
+            time.getStyleClass().add("timeline-time");
+            temp.getStyleClass().add("timeline-temp");
+            rain.getStyleClass().add("timeline-rain");
+            icon.setFitWidth(32);
+            icon.setFitHeight(32);
+            icon.setPreserveRatio(true);
+            box.setAlignment(Pos.CENTER);
+            setPrefWidth(CELL_WIDTH);
+        }
+
+        @Override
+        protected void updateItem(Slot s, boolean empty) {
+            super.updateItem(s, empty);
+            if (empty || s == null) {
+                setGraphic(null);
+                setText(null);
+                iconUrl = null;
+                return;
+            }
+            boolean dayStart = s.hour == 0;
+            time.setText(dayStart ? dayLabel(s.day) : String.format(Locale.ROOT, "%02d:00", s.hour));
+            if (dayStart) {
+                if (!time.getStyleClass().contains("timeline-day-start")) time.getStyleClass().add("timeline-day-start");
+            } else {
+                time.getStyleClass().remove("timeline-day-start");
+            }
+
+            List<HourlyWeather> hours = hoursSource.apply(s.day);
+            HourlyWeather hw = hourOf(hours, s.hour);
+            if (hw == null) {
+                temp.setText("…");
+                rain.setText("");
+                setIcon(null);
+                if (hours.isEmpty() && s.day.getDate() != null && onDayNeeded != null && requested.add(s.day)) {
+                    // not from inside updateItem: the callback may refresh the list
+                    ForecastDay day = s.day;
+                    Platform.runLater(() -> onDayNeeded.accept(day));
+                }
+            } else {
+                temp.setText(String.format(Locale.ROOT, "%.0f°", hw.getTempC()));
+                rain.setText(hw.getChanceOfRain() > 0 ? hw.getChanceOfRain() + "%" : "");
+                setIcon(hw.getIconUrl());
+            }
+            setText(null);
+            setGraphic(box);
+        }
+
+        // icons come from IconLoader's decoded cache; a late load only lands if the cell still wants it
+        private void setIcon(String url) {
+            iconUrl = url == null || url.isBlank() ? null : url;
+            if (iconUrl == null) {
+                icon.setImage(null);
+                return;
+            }
+            Image img = IconLoader.cached(iconUrl);
+            icon.setImage(img);
+            if (img != null) return;
+            String wanted = iconUrl;
+            IconLoader.load(wanted).thenAccept(loaded -> Platform.runLater(() -> {
+                if (wanted.equals(iconUrl)) icon.setImage(loaded);
+            }));
+        }
+    }
+
+    private static String dayLabel(ForecastDay d) {
+        return d.getDay() == null ? "" : d.getDay();
+    }
+
+    // hours arrive as "yyyy-MM-dd H:mm" (or "HH:mm"); match on the hour
+    private static HourlyWeather hourOf(List<HourlyWeather> hours, int hour) {
+        if (hours.size() == 24 && hourOfTime(hours.get(hour).getTime()) == hour) return hours.get(hour);
+        for (HourlyWeather hw : hours) {
+            if (hourOfTime(hw.getTime()) == hour) return hw;
+        }
+        return null;
+    }
+
+    private static int hourOfTime(String t) {
+        if (t == null) return -1;
+        String s = t.contains(" ") ? t.substring(t.lastIndexOf(' ') + 1) : t;
+        int colon = s.indexOf(':');
+        try {
+            return Integer.parseInt(colon > 0 ? s.substring(0, colon) : s);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package oep.skycast.ui;
+
+import javafx.scene.image.Image;
+import oep.skycast.service.http.HttpResult;
+import oep.skycast.service.http.HttpTransports;
+import oep.skycast.trace.SearchEvents.HttpExchangeEvent;
+import oep.skycast.trace.SearchEvents.IconLoadEvent;
+import oep.skycast.util.AppExecutors;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IconLoader - condition icons fetched through the shared HTTP transport.
+ *
+ * JavaFX's Image(url) keeps its own connection and ignores our cache, so every forecast
+ * card re-downloaded the same few CDN icons. Going through HttpTransports means icons are
+ * served from the HTTP cache (and revalidated with ETag/Last-Modified when stale), and
+ * decoding happens on an I/O thread. Decoded images are also kept in a small LRU so
+ * rebuilding the cards reuses them without any work.
+ */
+public final class IconLoader {
+
+    private static final int MAX_DECODED = 64;
+    private static final String USER_AGENT = "SkyCast/1.0";
+
+    private static final Map<String, Image> decoded = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) { return size() > MAX_DECODED; }
+    };
+    private static final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+
+    private IconLoader() {}
+
+    /** Already decoded image for url, or null. */
+    public static Image cached(String url) {
+        synchronized (decoded) {
+            return decoded.get(normalize(url));
+        }
+    }
+
+    /** Fetch and decode off the FX thread; completes exceptionally if the icon can't be loaded. */
+    public static CompletableFuture<Image> load(String url) {
+        String u = normalize(url);
+        Image hit = cached(u);
+        if (hit != null) return CompletableFuture.completedFuture(hit);
+        return inFlight.computeIfAbsent(u, k -> {
+            CompletableFuture<Image> f = CompletableFuture.supplyAsync(() -> fetch(k), AppExecutors.io());
+            f.whenComplete((img, err) -> inFlight.remove(k));
+            return f;
+        });
+    }
+
+    private static Image fetch(String url) {
+        IconLoadEvent trace = IconLoadEvent.start(url);
+        try {
+            HttpResult r = HttpExchangeEvent.get(HttpTransports.shared(), "icon", URI.create(url), Map.of("User-Agent", USER_AGENT), Duration.ofSeconds(10));
+            if (r.status() != 200 || r.body().length == 0) throw new IOException("HTTP " + r.status() + " for " + url);
+            Image img = new Image(new ByteArrayInputStream(r.body()));
+            if (img.isError()) throw new IOException("Undecodable image " + url);
+            synchronized (decoded) {
+                decoded.put(url, img);
+            }
+            trace.finish(true);
+            return img;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            trace.finish(false);
+            throw new CompletionException(e);
+        } catch (Exception e) {
+            trace.finish(false);
+            throw new CompletionException(e);
+        }
+    }
+
+    private static String normalize(String url) {
+        String u = url.trim();
+        return u.startsWith("//") ? "https:" + u : u;
+    }
+}
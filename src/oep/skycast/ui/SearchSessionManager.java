@@ -0,0 +1,163 @@
+package oep.skycast.ui;
+
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * SearchSessionManager - makes the latest search win.
+ *
+ * Every submit() gets a new generation and runs on a virtual thread from AppExecutors. The
+ * previous search's worker is interrupted (Future.cancel(true)), which aborts a blocked
+ * HttpClient.send, and any result that still arrives for an older generation is dropped
+ * instead of being painted. The generation is
+ * checked again on the UI thread right before applying, so a search started while a result
+ * was queued for the UI also wins.
+ *
+ * Counters: applied (painted), superseded (finished but discarded), cancelled (interrupted
+ * before finishing), failed (current search ended with an error).
+ *
+ * Each search ends exactly one way: its result or error is handed to the UI, or its
+ * onSuperseded hook runs (as soon as a newer search or cancelAll() replaces it, or when its
+ * stale result turns up, whichever comes first).
+ *
+ * No JavaFX types here; the UI executor is passed in (Platform::runLater in the app).
+ */
+public class SearchSessionManager {
+
+    /** Work for one search. Runs on a background thread. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(Session session) throws Exception;
+    }
+
+    /** Handle given to the work so it can skip side effects once superseded. */
+    public final class Session {
+        private final long generation;
+        private final String label;
+        private final Runnable onSuperseded;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Session(long generation, String label, Runnable onSuperseded) {
+            this.generation = generation;
+            this.label = label;
+            this.onSuperseded = onSuperseded;
+        }
+
+        public long generation() { return generation; }
+
+        public String label() { return label; }
+
+        public boolean isCurrent() { return current.get() == generation; }
+
+        // true for the first outcome only
+        private boolean settle() { return settled.compareAndSet(false, true); }
+
+        private void drop() {
+            if (settle() && onSuperseded != null) {
+                try { onSuperseded.run(); } catch (Exception e) { LogUtil.log("Superseded-search hook failed: " + e.getMessage()); }
+            }
+        }
+    }
+
+    private final Executor uiExecutor;
+    private final AtomicLong current = new AtomicLong();
+    private Future<?> inFlight;
+    private Session latest;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public SearchSessionManager(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+    }
+
+    /**
+     * Start a search, superseding any in flight.
+     *
+     * @param onResult called on the UI executor only if this search is still the latest
+     * @param onError  called on the UI executor only if this search is still the latest
+     */
+    public <T> Session submit(String label, Work<T> work, Consumer<T> onResult, Consumer<Exception> onError) {
+        return submit(label, work, onResult, onError, null);
+    }
+
+    /**
+     * As above; {@code onSuperseded} runs (on whichever thread notices) if this search ends
+     * without its result or error reaching the UI.
+     */
+    public synchronized <T> Session submit(String label, Work<T> work, Consumer<T> onResult, Consumer<Exception> onError,
+                                           Runnable onSuperseded) {
+        long gen = current.incrementAndGet();
+        Session session = new Session(gen, label, onSuperseded);
+        started.incrementAndGet();
+
+        if (inFlight != null && !inFlight.isDone()) inFlight.cancel(true);
+        if (latest != null) latest.drop();
+        latest = session;
+
+        inFlight = AppExecutors.submitIo(() -> {
+            T result;
+            try {
+                result = work.run(session);
+            } catch (Exception e) {
+                if (!session.isCurrent()) {
+                    boolean interrupted = Thread.currentThread().isInterrupted() || e instanceof InterruptedException;
+                    (interrupted ? cancelled : superseded).incrementAndGet();
+                    session.drop();
+                    return null;
+                }
+                uiExecutor.execute(() -> {
+                    if (!session.isCurrent()) { superseded.incrementAndGet(); session.drop(); return; }
+                    failed.incrementAndGet();
+                    if (session.settle()) onError.accept(e);
+                });
+                return null;
+            }
+            if (!session.isCurrent()) {
+                superseded.incrementAndGet();
+                session.drop();
+                return null;
+            }
+            uiExecutor.execute(() -> {
+                if (!session.isCurrent()) { superseded.incrementAndGet(); session.drop(); return; }
+                applied.incrementAndGet();
+                if (session.settle()) onResult.accept(result);
+            });
+            return null;
+        });
+        return session;
+    }
+
+    /** Drop whatever is in flight without starting a new search. */
+    public synchronized void cancelAll() {
+        current.incrementAndGet();
+        if (inFlight != null && !inFlight.isDone()) inFlight.cancel(true);
+        if (latest != null) latest.drop();
+    }
+
+    public long applied() { return applied.get(); }
+
+    /** Fetches whose result was thrown away: finished late or interrupted mid-flight. */
+    public long wasted() { return superseded.get() + cancelled.get(); }
+
+    public String stats() {
+        long s = started.get();
+        return String.format(Locale.ROOT, "searches=%d applied=%d superseded=%d cancelled=%d failed=%d wasted=%.0f%%",
+                s, applied.get(), superseded.get(), cancelled.get(), failed.get(), s == 0 ? 0.0 : 100.0 * wasted() / s);
+    }
+
+    public void shutdown() {
+        cancelAll();
+        LogUtil.log("Search sessions: " + stats());
+    }
+}
@@ -0,0 +1,159 @@
+package oep.skycast.ui;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritablePixelFormat;
+import oep.skycast.util.AppExecutors;
+import oep.skycast.util.LogUtil;
+import oep.skycast.util.PrefsUtil;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * SnapshotEncoder - writes snapshot images without blocking the JavaFX thread.
+ *
+ * The FX thread only does {@link #capture(Image)}: one bulk copy of the ARGB pixels into
+ * an int[]. Conversion to a BufferedImage and PNG/JPEG compression run on the shared CPU
+ * pool (AppExecutors.cpu()) and finish with an atomic rename so a half-written file never
+ * shows up in the snapshots folder.
+ *
+ * Preferences:
+ *   snapshot.format   png (default) | jpg
+ *   snapshot.quality  0.0 - 1.0 (default 0.9). JPEG quality; for PNG, lower means
+ *                     stronger deflate (smaller, slower).
+ */
+public class SnapshotEncoder {
+
+    /** Raw pixels copied out of an FX image. Safe to hand to any thread. */
+    public static final class Captured {
+        final int width;
+        final int height;
+        final int[] argb;
+
+        Captured(int width, int height, int[] argb) {
+            this.width = width;
+            this.height = height;
+            this.argb = argb;
+        }
+    }
+
+    private final String format;
+    private final float quality;
+
+    public SnapshotEncoder() {
+        this(PrefsUtil.get("snapshot.format", "png"), parseQuality(PrefsUtil.get("snapshot.quality", "0.9")));
+    }
+
+    public SnapshotEncoder(String format, float quality) {
+        String f = format == null ? "png" : format.trim().toLowerCase(Locale.ROOT);
+        this.format = (f.equals("jpg") || f.equals("jpeg")) ? "jpg" : "png";
+        this.quality = Math.max(0f, Math.min(1f, quality));
+    }
+
+    /** File extension for the configured format, without the dot. */
+    public String extension() { return format; }
+
+    /**
+     * Copy the pixels of an FX image. Call on the FX thread right after Node.snapshot().
+     */
+    public static Captured capture(Image image) {
+        int w = (int) image.getWidth();
+        int h = (int) image.getHeight();
+        int[] buf = new int[w * h];
+        PixelReader pr = image.getPixelReader();
+        pr.getPixels(0, 0, w, h, WritablePixelFormat.getIntArgbInstance(), buf, 0, w);
+        return new Captured(w, h, buf);
+    }
+
+    /**
+     * Encode the captured pixels to the given file on the shared CPU pool (AppExecutors.cpu()).
+     * The future completes there with the file, or exceptionally with the IOException, so
+     * callers that touch the UI must hop back with Platform.runLater.
+     */
+    public CompletableFuture<File> encode(Captured img, File out) {
+        return CompletableFuture.supplyAsync(() -> {
+            long t0 = System.nanoTime();
+            try {
+                write(img, out.toPath());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            LogUtil.log(String.format(Locale.ROOT, "Snapshot encoded (%s, %dx%d) in %d ms: %s",
+                    format, img.width, img.height, (System.nanoTime() - t0) / 1_000_000, out.getName()));
+            return out;
+        }, AppExecutors.cpu());
+    }
+
+    private void write(Captured img, Path out) throws IOException {
+        BufferedImage bi = toBufferedImage(img);
+        Path dir = out.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, ".snap", ".tmp");
+        try {
+            Iterator<ImageWriter> it = ImageIO.getImageWritersByFormatName(format);
+            if (!it.hasNext()) throw new IOException("No image writer for " + format);
+            ImageWriter writer = it.next();
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(ios);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (param.canWriteCompressed()) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    String[] types = param.getCompressionTypes();
+                    if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                        param.setCompressionType(types[0]);
+                    }
+                    param.setCompressionQuality(quality);
+                }
+                writer.write(null, new IIOImage(bi, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            throw e;
+        }
+    }
+
+    private BufferedImage toBufferedImage(Captured img) {
+        if (format.equals("png")) {
+            BufferedImage bi = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_ARGB);
+            int[] dst = ((DataBufferInt) bi.getRaster().getDataBuffer()).getData();
+            System.arraycopy(img.argb, 0, dst, 0, dst.length);
+            return bi;
+        }
+        // JPEG has no alpha: flatten onto white
+        BufferedImage bi = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = ((DataBufferInt) bi.getRaster().getDataBuffer()).getData();
+        int[] src = img.argb;
+        for (int i = 0; i < dst.length; i++) {
+            int p = src[i];
+            int a = p >>> 24;
+            if (a == 255) { dst[i] = p & 0xFFFFFF; continue; }
+            int r = ((p >> 16) & 0xFF) * a / 255 + (255 - a);
+            int g = ((p >> 8) & 0xFF) * a / 255 + (255 - a);
+            int b = (p & 0xFF) * a / 255 + (255 - a);
+            dst[i] = (r << 16) | (g << 8) | b;
+        }
+        return bi;
+    }
+
+    private static float parseQuality(String s) {
+        try { return Float.parseFloat(s.trim()); } catch (Exception e) { return 0.9f; }
+    }
+}
@@ -0,0 +1,178 @@
+package oep.skycast.util;
+
+import oep.skycast.trace.SearchTrace;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AppExecutors - the app's shared execution layer.
+ *
+ *  io()         virtual thread per task, for anything that blocks (HTTP, disk).
+ *  cpu()        fixed pool of (cores - 1, min 1) platform threads with a bounded queue, for
+ *               CPU work such as image encoding. When the queue is full a virtual-thread
+ *               submitter blocks until there is room, which slows the producer down instead
+ *               of growing memory; any other submitter (the FX thread above all) returns at
+ *               once and a virtual thread waits for room on its behalf. Tasks never run on
+ *               the submitting thread.
+ *  scheduler()  one daemon thread for timers (debounce, auto-refresh). Scheduled bodies
+ *               should only hand work to io()/cpu() or the FX thread, never block.
+ *
+ * Tasks run under the submitter's {@link SearchTrace} id, so trace events stay linked to
+ * their search across threads. All threads are daemon threads. {@link #metrics()} reports per-pool submitted/completed/active
+ * counts and queue depth; {@link #shutdown()} stops everything (idempotent).
+ */
+public final class AppExecutors {
+
+    private static final int CPU_QUEUE = 256;
+
+    private static final Stats IO_STATS = new Stats();
+    private static final Stats CPU_STATS = new Stats();
+
+    private static final ExecutorService IO_RAW = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("skycast-io-", 0).factory());
+    private static final Executor IO = command -> IO_RAW.execute(IO_STATS.wrap(SearchTrace.wrap(command)));
+
+    private static final ThreadPoolExecutor CPU = new ThreadPoolExecutor(
+            cpuThreads(), cpuThreads(), 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(CPU_QUEUE), daemonFactory("skycast-cpu-", Thread.NORM_PRIORITY - 1),
+            AppExecutors::waitForRoom);
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, daemonFactory("skycast-scheduler-", Thread.NORM_PRIORITY));
+
+    static {
+        CPU.allowCoreThreadTimeOut(true);
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+        SCHEDULER.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    private AppExecutors() {}
+
+    /** Blocking I/O. Each task gets its own virtual thread. */
+    public static Executor io() { return IO; }
+
+    /** Submit blocking work and keep the Future (e.g. to cancel(true) it later). */
+    public static <T> Future<T> submitIo(Callable<T> task) {
+        IO_STATS.submitted.incrementAndGet();
+        Callable<T> traced = SearchTrace.wrap(task);
+        return IO_RAW.submit(() -> {
+            IO_STATS.active.incrementAndGet();
+            try {
+                return traced.call();
+            } finally {
+                IO_STATS.active.decrementAndGet();
+                IO_STATS.completed.incrementAndGet();
+            }
+        });
+    }
+
+    /** CPU-bound work. */
+    public static Executor cpu() { return command -> CPU.execute(CPU_STATS.wrap(SearchTrace.wrap(command))); }
+
+    /** Timers. */
+    public static ScheduledThreadPoolExecutor scheduler() { return SCHEDULER; }
+
+    /** Run {@code task} on the I/O executor after a delay. */
+    public static ScheduledFuture<?> scheduleIo(Runnable task, long delay, TimeUnit unit) {
+        Runnable traced = SearchTrace.wrap(task);
+        return SCHEDULER.schedule(() -> IO.execute(traced), delay, unit);
+    }
+
+    public static String metrics() {
+        return String.format(Locale.ROOT,
+                "io[submitted=%d completed=%d active=%d] cpu[threads=%d queued=%d submitted=%d completed=%d active=%d] "
+                        + "scheduler[queued=%d completed=%d]",
+                IO_STATS.submitted.get(), IO_STATS.completed.get(), IO_STATS.active.get(),
+                CPU.getPoolSize(), CPU.getQueue().size(), CPU_STATS.submitted.get(), CPU_STATS.completed.get(), CPU_STATS.active.get(),
+                SCHEDULER.getQueue().size(), SCHEDULER.getCompletedTaskCount());
+    }
+
+    /**
+     * Stop timers, let running I/O and CPU tasks finish for up to the timeout, then interrupt.
+     */
+    public static void shutdown(long timeout, TimeUnit unit) {
+        if (SCHEDULER.isShutdown()) return;
+        LogUtil.log("Executors at shutdown: " + metrics());
+        SCHEDULER.shutdownNow();
+        CPU.shutdown();
+        IO_RAW.shutdown();
+        try {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!CPU.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) CPU.shutdownNow();
+            if (!IO_RAW.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) IO_RAW.shutdownNow();
+        } catch (InterruptedException e) {
+            CPU.shutdownNow();
+            IO_RAW.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void shutdown() { shutdown(2, TimeUnit.SECONDS); }
+
+    // rejection handler for the CPU pool: queue the task once there is room, never run it here
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) throw new RejectedExecutionException("CPU pool is shut down");
+        if (Thread.currentThread().isVirtual()) {
+            enqueue(task, pool);
+        } else {
+            Thread.ofVirtual().name("skycast-cpu-wait").start(() -> enqueue(task, pool));
+        }
+    }
+
+    private static void enqueue(Runnable task, ThreadPoolExecutor pool) {
+        try {
+            pool.getQueue().put(task);
+            // workers may have idled out meanwhile; make sure one is there to take it
+            pool.prestartCoreThread();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the CPU pool", e);
+        }
+    }
+
+    private static int cpuThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    private static ThreadFactory daemonFactory(String prefix, int priority) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(priority);
+            return t;
+        };
+    }
+
+    private static final class Stats {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong active = new AtomicLong();
+
+        Runnable wrap(Runnable r) {
+            submitted.incrementAndGet();
+            return () -> {
+                active.incrementAndGet();
+                try {
+                    r.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package oep.skycast.util;
+
+import java.util.Arrays;
+
+/**
+ * Downsampler - picks a representative subset of points for plotting.
+ *
+ *  - lttb(...)       Largest-Triangle-Three-Buckets (Steinarsson, 2013)
+ *  - lttbMinMax(...) LTTB plus each bucket's min and max, so short spikes survive
+ *
+ * Both work on a window [from, to) of the input and return ascending indexes into it.
+ * NaN values are skipped when choosing points but never cause a bucket to be dropped.
+ */
+public final class Downsampler {
+
+    private Downsampler() {}
+
+    public static int[] lttb(double[] y, int from, int to, int threshold) {
+        int n = to - from;
+        if (threshold >= n || threshold < 3) return range(from, to);
+
+        int[] out = new int[threshold];
+        int k = 0;
+        out[k++] = from;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // average of the next bucket (the "third" point of the triangle)
+            int nextStart = from + (int) Math.floor((i + 1) * every) + 1;
+            int nextEnd = Math.min(to, from + (int) Math.floor((i + 2) * every) + 1);
+            double avgX = 0, avgY = 0;
+            int cnt = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                if (Double.isNaN(y[j])) continue;
+                avgX += j; avgY += y[j]; cnt++;
+            }
+            if (cnt > 0) { avgX /= cnt; avgY /= cnt; } else { avgX = nextStart; avgY = y[a]; }
+
+            int start = from + (int) Math.floor(i * every) + 1;
+            int end = from + (int) Math.floor((i + 1) * every) + 1;
+            double ay = Double.isNaN(y[a]) ? avgY : y[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                if (Double.isNaN(y[j])) continue;
+                double area = Math.abs((a - avgX) * (y[j] - ay) - (a - j) * (avgY - ay));
+                if (area > maxArea) { maxArea = area; chosen = j; }
+            }
+            out[k++] = chosen;
+            a = chosen;
+        }
+        out[k++] = to - 1;
+        return out;
+    }
+
+    /**
+     * LTTB with min/max envelope: every bucket contributes its LTTB point plus its minimum and
+     * maximum, so the result has at most {@code threshold} points and never flattens a peak.
+     */
+    public static int[] lttbMinMax(double[] y, int from, int to, int threshold) {
+        int n = to - from;
+        if (threshold >= n || threshold < 6) return threshold >= n ? range(from, to) : lttb(y, from, to, threshold);
+
+        int buckets = (threshold - 2) / 3;
+        int[] picked = lttb(y, from, to, buckets + 2);
+        int[] out = new int[buckets * 3 + 2];
+        int k = 0;
+        out[k++] = from;
+        double every = (double) (n - 2) / buckets;
+        for (int b = 0; b < buckets; b++) {
+            int start = from + (int) Math.floor(b * every) + 1;
+            int end = Math.min(to - 1, from + (int) Math.floor((b + 1) * every) + 1);
+            int mi = -1, ma = -1;
+            for (int j = start; j < end; j++) {
+                if (Double.isNaN(y[j])) continue;
+                if (mi < 0 || y[j] < y[mi]) mi = j;
+                if (ma < 0 || y[j] > y[ma]) ma = j;
+            }
+            int lt = picked[b + 1];
+            if (mi >= 0) out[k++] = mi;
+            if (ma >= 0 && ma != mi) out[k++] = ma;
+            if (lt != mi && lt != ma) out[k++] = lt;
+        }
+        out[k++] = to - 1;
+        int[] res = Arrays.copyOf(out, k);
+        Arrays.sort(res);
+        return dedupe(res);
+    }
+
+    private static int[] dedupe(int[] sorted) {
+        if (sorted.length == 0) return sorted;
+        int k = 1;
+        for (int i = 1; i < sorted.length; i++) if (sorted[i] != sorted[k - 1]) sorted[k++] = sorted[i];
+        return Arrays.copyOf(sorted, k);
+    }
+
+    private static int[] range(int from, int to) {
+        int[] r = new int[Math.max(0, to - from)];
+        for (int i = 0; i < r.length; i++) r[i] = from + i;
+        return r;
+    }
+}
@@ -11,7 +11,19 @@ public class FileUtil {
     private static final String FAVORITES_PATH = "resources/favorites.txt";
     private static final String LASTCITY_PATH  = "resources/lastCity.txt";
 
+    // read once in Application.init() so the controller's first loads don't hit disk on the FX thread
+    private static volatile List<String> preloadedFavorites;
+    private static volatile String preloadedLastCity;
+
+    /** Read favorites and last city ahead of time; the next load* call returns these copies. */
+    public static void preload() {
+        try { preloadedFavorites = loadFavorites(); } catch (IOException ignored) {}
+        try { preloadedLastCity = loadLastCity(); } catch (IOException ignored) {}
+    }
+
     public static void saveFavorites(List<String> favs) throws IOException {
+        FxThreadGuard.checkBlocking("FileUtil.saveFavorites");
+        preloadedFavorites = null;
         Path path = Paths.get(FAVORITES_PATH);
         Files.createDirectories(path.getParent());
         try (BufferedWriter bw = Files.newBufferedWriter(path)) {
@@ -23,6 +35,12 @@ public class FileUtil {
     }
 
     public static List<String> loadFavorites() throws IOException {
+        List<String> pre = preloadedFavorites;
+        if (pre != null) {
+            preloadedFavorites = null;
+            return new ArrayList<>(pre);
+        }
+        FxThreadGuard.checkBlocking("FileUtil.loadFavorites");
         Path path = Paths.get(FAVORITES_PATH);
         List<String> result = new ArrayList<>();
         if (!Files.exists(path)) return result;
@@ -37,6 +55,8 @@ public class FileUtil {
     }
 
     public static void saveLastCity(String city) throws IOException {
+        FxThreadGuard.checkBlocking("FileUtil.saveLastCity");
+        preloadedLastCity = null;
         Path path = Paths.get(LASTCITY_PATH);
         Files.createDirectories(path.getParent());
         try (BufferedWriter bw = Files.newBufferedWriter(path)) {
@@ -45,6 +65,9 @@ public class FileUtil {
     }
 
     public static String loadLastCity() throws IOException {
+        String pre = preloadedLastCity;
+        if (pre != null) return pre;
+        FxThreadGuard.checkBlocking("FileUtil.loadLastCity");
         Path path = Paths.get(LASTCITY_PATH);
         if (!Files.exists(path)) return "";
         return Files.readString(path).trim();
@@ -0,0 +1,81 @@
+package oep.skycast.util;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FxThreadGuard - debug check that flags blocking file/network calls made on the JavaFX
+ * application thread. Call {@link #checkBlocking(String)} at the top of any method that
+ * touches disk or network.
+ *
+ * Mode comes from system property skycast.debug.fx or preference debug.fx:
+ *   off (default)  no checks, one volatile read per call
+ *   log            log each offending call site once, with its stack
+ *   strict         log, then throw IllegalStateException so the caller is found in testing
+ *
+ * Lives in util (no JavaFX imports) so the headless tools can share the I/O code; the FX
+ * thread is recognised by its name.
+ */
+public final class FxThreadGuard {
+
+    public static final String FX_THREAD_NAME = "JavaFX Application Thread";
+
+    private static final int MODE_OFF = 0, MODE_LOG = 1, MODE_STRICT = 2;
+    private static final int STACK_DEPTH = 12;
+
+    private static volatile int mode = parseMode(System.getProperty("skycast.debug.fx", PrefsUtil.get("debug.fx", "off")));
+    private static final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong violations = new AtomicLong();
+
+    private FxThreadGuard() {}
+
+    public static boolean isEnabled() { return mode != MODE_OFF; }
+
+    /** log | strict | off */
+    public static void setMode(String m) { mode = parseMode(m); }
+
+    public static boolean isFxThread() {
+        return FX_THREAD_NAME.equals(Thread.currentThread().getName());
+    }
+
+    /** Total blocking calls seen on the FX thread (including repeats of a reported site). */
+    public static long violations() { return violations.get(); }
+
+    /**
+     * @param what short description, e.g. "FileUtil.saveFavorites" or "HTTP GET host/path"
+     */
+    public static void checkBlocking(String what) {
+        int m = mode;
+        if (m == MODE_OFF || !isFxThread()) return;
+        violations.incrementAndGet();
+
+        StackTraceElement[] st = new Throwable().getStackTrace();
+        String site = callSite(st);
+        if (reportedSites.add(what + "@" + site)) {
+            StringBuilder sb = new StringBuilder("FX thread blocking call: ").append(what).append(" from ").append(site);
+            for (int i = 1; i < Math.min(st.length, STACK_DEPTH); i++) sb.append("\n    at ").append(st[i]);
+            LogUtil.log(sb.toString());
+        }
+        if (m == MODE_STRICT) throw new IllegalStateException("Blocking call on FX thread: " + what + " from " + site);
+    }
+
+    // first frame that isn't the guard or the I/O helper itself
+    private static String callSite(StackTraceElement[] st) {
+        for (int i = 1; i < st.length; i++) {
+            String c = st[i].getClassName();
+            if (c.startsWith("oep.skycast.util.") || c.startsWith("oep.skycast.service.http.")) continue;
+            return st[i].toString();
+        }
+        return st.length > 1 ? st[1].toString() : "?";
+    }
+
+    private static int parseMode(String s) {
+        switch (s == null ? "" : s.trim().toLowerCase(Locale.ROOT)) {
+            case "log": case "on": case "true": return MODE_LOG;
+            case "strict": return MODE_STRICT;
+            default: return MODE_OFF;
+        }
+    }
+}
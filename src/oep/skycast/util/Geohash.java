@@ -0,0 +1,121 @@
+package oep.skycast.util;
+
+/**
+ * Geohash - base-32 geohash encoding plus the few helpers a spatial cache needs.
+ *
+ * A geohash interleaves longitude and latitude bisections, so nearby points share a prefix
+ * and each extra character shrinks the cell by a factor of 32. Approximate cell size at the
+ * equator: 4 = 39 x 20 km, 5 = 4.9 x 4.9 km, 6 = 1.2 x 0.61 km, 7 = 153 x 153 m.
+ *
+ * A point near a cell edge can be closer to something in the next cell than to anything
+ * in its own, so callers look at {@link #neighbors(String)} (the cell and its 8 neighbours).
+ */
+public final class Geohash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) DECODE[BASE32[i]] = i;
+    }
+
+    private Geohash() {}
+
+    public static String encode(double lat, double lon, int precision) {
+        int p = Math.max(1, Math.min(MAX_PRECISION, precision));
+        double latLo = -90, latHi = 90, lonLo = -180, lonHi = 180;
+        StringBuilder sb = new StringBuilder(p);
+        boolean even = true; // even bits refine longitude
+        int bit = 0, ch = 0;
+        while (sb.length() < p) {
+            if (even) {
+                double mid = (lonLo + lonHi) / 2;
+                if (lon >= mid) { ch = (ch << 1) | 1; lonLo = mid; } else { ch <<= 1; lonHi = mid; }
+            } else {
+                double mid = (latLo + latHi) / 2;
+                if (lat >= mid) { ch = (ch << 1) | 1; latLo = mid; } else { ch <<= 1; latHi = mid; }
+            }
+            even = !even;
+            if (++bit == 5) {
+                sb.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Cell bounds as {latMin, latMax, lonMin, lonMax}.
+     */
+    public static double[] bounds(String hash) {
+        double latLo = -90, latHi = 90, lonLo = -180, lonHi = 180;
+        boolean even = true;
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) throw new IllegalArgumentException("Invalid geohash: " + hash);
+            for (int b = 4; b >= 0; b--) {
+                int bitVal = (v >> b) & 1;
+                if (even) {
+                    double mid = (lonLo + lonHi) / 2;
+                    if (bitVal == 1) lonLo = mid; else lonHi = mid;
+                } else {
+                    double mid = (latLo + latHi) / 2;
+                    if (bitVal == 1) latLo = mid; else latHi = mid;
+                }
+                even = !even;
+            }
+        }
+        return new double[] {latLo, latHi, lonLo, lonHi};
+    }
+
+    /**
+     * The cell itself followed by its (up to) 8 neighbours at the same precision.
+     * Cells beyond a pole are skipped; longitude wraps at the antimeridian.
+     */
+    public static String[] neighbors(String hash) {
+        double[] b = bounds(hash);
+        double dLat = b[1] - b[0], dLon = b[3] - b[2];
+        double cLat = (b[0] + b[1]) / 2, cLon = (b[2] + b[3]) / 2;
+        String[] out = new String[9];
+        int n = 0;
+        out[n++] = hash;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (dx == 0 && dy == 0) continue;
+                double lat = cLat + dy * dLat;
+                if (lat > 90 || lat < -90) continue;
+                double lon = cLon + dx * dLon;
+                if (lon >= 180) lon -= 360;
+                if (lon < -180) lon += 360;
+                out[n++] = encode(lat, lon, hash.length());
+            }
+        }
+        return n == out.length ? out : java.util.Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Smallest precision whose cells are at least {@code km} tall, so a 3x3 neighbourhood
+     * always covers a circle of that radius.
+     */
+    public static int precisionFor(double km) {
+        for (int p = MAX_PRECISION; p >= 1; p--) {
+            double[] b = bounds(encode(0, 0, p));
+            if ((b[1] - b[0]) * 111.2 >= km) return p;
+        }
+        return 1;
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -3,10 +3,17 @@ package oep.skycast.util;
 import java.io.*;
 import java.nio.file.*;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Minimal preferences utility that stores preferences in resources/preferences.properties
  * (path: ./resources/preferences.properties). Creates file if missing.
+ *
+ * put() updates memory immediately and writes the file on a background thread, so it is
+ * safe to call from UI listeners; bursts (e.g. spinner arrows held down) collapse into one write.
  */
 public class PrefsUtil {
 
@@ -30,10 +37,33 @@ public class PrefsUtil {
         return props.getProperty(key, def);
     }
 
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prefs-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final AtomicBoolean writeQueued = new AtomicBoolean();
+
     public static synchronized void put(String key, String value) {
         props.setProperty(key, value);
+        if (writeQueued.compareAndSet(false, true)) writer.execute(PrefsUtil::store);
+    }
+
+    /** Block until pending writes are on disk (used at shutdown). */
+    public static void flush() {
+        try {
+            writer.submit(() -> {}).get(2, TimeUnit.SECONDS);
+        } catch (Exception ignored) {}
+    }
+
+    private static void store() {
+        writeQueued.set(false);
+        Properties copy = new Properties();
+        synchronized (PrefsUtil.class) {
+            copy.putAll(props);
+        }
         try (OutputStream os = Files.newOutputStream(PREFS_PATH)) {
-            props.store(os, "SkyCast preferences");
+            copy.store(os, "SkyCast preferences");
         } catch (IOException ignored) {}
     }
 }
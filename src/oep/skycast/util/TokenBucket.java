@@ -0,0 +1,39 @@
+package oep.skycast.util;
+
+/**
+ * TokenBucket - simple rate budget: holds up to {@code capacity} tokens and refills
+ * continuously at {@code perMinute} tokens a minute. Thread-safe.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double perMilli;
+    private double tokens;
+    private long last = System.nanoTime();
+
+    public TokenBucket(int capacity, double perMinute) {
+        this.capacity = Math.max(1, capacity);
+        this.perMilli = Math.max(0, perMinute) / 60_000.0;
+        this.tokens = this.capacity;
+    }
+
+    /** Take one token if available. */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    /** Tokens available right now (fractional). */
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - last) / 1_000_000.0 * perMilli);
+        last = now;
+    }
+}
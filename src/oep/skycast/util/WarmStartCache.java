@@ -0,0 +1,97 @@
+package oep.skycast.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import oep.skycast.cache.WeatherCacheFile;
+import oep.skycast.cache.WeatherCacheView;
+import oep.skycast.model.ForecastDay;
+import oep.skycast.model.WeatherData;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * WarmStartCache - compact copy of the last rendered dashboard (query, current, forecast).
+ *
+ * Written after every successful fetch and read once at startup, before the first frame,
+ * so the window opens with the previous data (marked stale) instead of "--" placeholders.
+ *
+ * Stored as a {@link WeatherCacheFile}; set cache.deflate=true to compress it. A JSON file
+ * left by older versions is still read until the next save replaces it.
+ */
+public class WarmStartCache {
+
+    private static final Path STATE_PATH = Paths.get("resources", "cache", "last-dashboard.skyc");
+    private static final Path LEGACY_JSON_PATH = Paths.get("resources", "cache", "last-dashboard.json");
+    private static final Gson GSON = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+    private static volatile State preloaded;
+
+    /** Snapshot of what was on screen. */
+    public static class State {
+        public String query;
+        public long savedAtMillis;
+        public WeatherData current;
+        public List<ForecastDay> forecast;
+    }
+
+    /** Read the saved state into memory (call off the FX thread, e.g. from Application.init()). */
+    public static void preload() {
+        preloaded = load();
+    }
+
+    /** State read by {@link #preload()}, or null. */
+    public static State peek() {
+        return preloaded;
+    }
+
+    public static State load() {
+        try {
+            // a few KB, so read it rather than map it: a mapping would block the next save on Windows
+            WeatherCacheView v = WeatherCacheFile.load(STATE_PATH);
+            if (v != null) {
+                if (!v.hasCurrent()) return null;
+                State s = new State();
+                s.query = v.query();
+                s.savedAtMillis = v.savedAtMillis();
+                s.current = v.current();
+                s.forecast = v.forecast();
+                return s;
+            }
+        } catch (Exception e) {
+            LogUtil.log("Warm-start state unreadable: " + e.getMessage());
+            return null;
+        }
+        return loadLegacyJson();
+    }
+
+    private static State loadLegacyJson() {
+        if (!Files.exists(LEGACY_JSON_PATH)) return null;
+        try (BufferedReader br = Files.newBufferedReader(LEGACY_JSON_PATH, StandardCharsets.UTF_8)) {
+            State s = GSON.fromJson(br, State.class);
+            return (s == null || s.current == null) ? null : s;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** Atomically replace the saved state (see {@link WeatherCacheFile#write}). */
+    public static void save(String query, WeatherData current, List<ForecastDay> forecast) {
+        State s = new State();
+        s.query = query;
+        s.savedAtMillis = System.currentTimeMillis();
+        s.current = current;
+        s.forecast = forecast;
+        try {
+            boolean deflate = Boolean.parseBoolean(PrefsUtil.get("cache.deflate", "false").trim());
+            WeatherCacheFile.write(STATE_PATH, query, s.savedAtMillis, current, forecast, deflate);
+            try { Files.deleteIfExists(LEGACY_JSON_PATH); } catch (IOException ignored) {}
+            preloaded = s;
+        } catch (IOException e) {
+            LogUtil.log("Warm-start state not saved: " + e.getMessage());
+        }
+    }
+}